@@ -51,6 +51,9 @@ public class DatabaseInitializer implements CommandLineRunner {
                 ensureAiFlowTables();
                 ensureVectorStoreTables();
                 ensureKeywordTables();
+                ensureFlowTriggerTable();
+                ensureAsyncCallbackArchiveTable();
+                ensureFlowTimerTable();
             }
         } catch (Exception e) {
             log.error("数据库初始化失败: {}", e.getMessage(), e);
@@ -136,6 +139,64 @@ public class DatabaseInitializer implements CommandLineRunner {
         jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_vector_store_provider_tenant ON vector_store_provider(tenant_id)");
     }
 
+    private void ensureFlowTriggerTable() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS flow_trigger (
+                id VARCHAR(36) PRIMARY KEY,
+                project_id VARCHAR(36),
+                flow_id VARCHAR(36) NOT NULL,
+                name VARCHAR(100) NOT NULL,
+                trigger_type VARCHAR(20) NOT NULL DEFAULT 'kafka',
+                brokers VARCHAR(500) NOT NULL,
+                topic VARCHAR(255) NOT NULL,
+                group_id VARCHAR(255) NOT NULL,
+                auth_type VARCHAR(20) DEFAULT 'none',
+                username VARCHAR(255),
+                password_encrypted TEXT,
+                config_json TEXT,
+                enabled INTEGER DEFAULT 1,
+                created_by VARCHAR(36),
+                created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+                updated_at DATETIME DEFAULT CURRENT_TIMESTAMP
+            )
+            """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_flow_trigger_flow ON flow_trigger(flow_id)");
+    }
+
+    private void ensureAsyncCallbackArchiveTable() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS async_callback_archive (
+                id VARCHAR(36) PRIMARY KEY,
+                execution_id VARCHAR(36) NOT NULL,
+                node_execution_id VARCHAR(36) NOT NULL,
+                callback_key VARCHAR(255) NOT NULL,
+                kafka_topic VARCHAR(255),
+                status VARCHAR(20),
+                callback_data TEXT,
+                expired_at DATETIME,
+                received_at DATETIME,
+                created_at DATETIME,
+                archived_at DATETIME DEFAULT CURRENT_TIMESTAMP
+            )
+            """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_async_callback_archive_key ON async_callback_archive(callback_key)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_async_callback_status ON async_callback(status, created_at)");
+    }
+
+    private void ensureFlowTimerTable() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS flow_timer (
+                id VARCHAR(36) PRIMARY KEY,
+                execution_id VARCHAR(36) NOT NULL,
+                node_id VARCHAR(100) NOT NULL,
+                callback_key VARCHAR(255) NOT NULL,
+                fire_at DATETIME NOT NULL,
+                created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+            )
+            """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_flow_timer_fire_at ON flow_timer(fire_at)");
+    }
+
     private void ensureKeywordTables() {
         jdbcTemplate.execute("""
             CREATE TABLE IF NOT EXISTS keyword_library (
@@ -15,6 +15,18 @@ public class FlowletProperties {
     private SecurityProperties security = new SecurityProperties();
     private CodeExecutorProperties codeExecutor = new CodeExecutorProperties();
     private VectorStoreProperties vectorStore = new VectorStoreProperties();
+    private HttpClientProperties httpClient = new HttpClientProperties();
+    private ApiResilienceProperties apiResilience = new ApiResilienceProperties();
+    private LlmCacheProperties llmCache = new LlmCacheProperties();
+    private LlmConcurrencyProperties llmConcurrency = new LlmConcurrencyProperties();
+    private EmbeddingProperties embedding = new EmbeddingProperties();
+    private VectorUpsertProperties vectorUpsert = new VectorUpsertProperties();
+    private EmbeddedVectorStoreProperties embeddedVectorStore = new EmbeddedVectorStoreProperties();
+    private VectorSearchCacheProperties vectorSearchCache = new VectorSearchCacheProperties();
+    private NodeResultCacheProperties nodeResultCache = new NodeResultCacheProperties();
+    private CallbackProperties callback = new CallbackProperties();
+    private TimerProperties timer = new TimerProperties();
+    private EngineProperties engine = new EngineProperties();
 
     public KafkaProperties getKafka() {
         return kafka;
@@ -54,6 +66,96 @@ public class FlowletProperties {
          */
         private String callbackTopic = "flowlet-callback";
 
+        /**
+         * 最多同时等待的动态 Topic 回调数，超出时注册失败
+         */
+        private int callbackMaxPending = 1_000_000;
+
+        /**
+         * 回调超时时间轮的刻度（毫秒），即超时精度
+         */
+        private long callbackTimerTickMs = 100;
+
+        /**
+         * 回调超时时间轮的槽位数
+         */
+        private int callbackTimerWheelSize = 4096;
+
+        /**
+         * 动态回调消费者的处理线程数，各分区的消息在其中按分区顺序处理
+         */
+        private int callbackWorkerThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+        /**
+         * 动态回调消费者恢复流程的线程数，与分区处理线程隔离，慢的恢复不占用落库线程
+         */
+        private int callbackResumeThreads = 8;
+
+        /**
+         * 单个分区积压的待处理消息数上限，超出时暂停拉取该分区，回落到一半以下后恢复
+         */
+        private int callbackMaxPendingPerPartition = 1000;
+
+        /**
+         * 动态回调消费者单次拉取的最大消息数
+         */
+        private int callbackMaxPollRecords = 500;
+
+        /**
+         * 是否启动已启用的 Kafka 触发器
+         */
+        private boolean triggerEnabled = true;
+
+        /**
+         * 单个触发器的消费者并发数上限
+         */
+        private int triggerMaxConcurrency = 16;
+
+        /**
+         * 触发器未配置时，单个触发器同时在途（已创建未结束/暂停）的执行数上限，达到后暂停拉取
+         */
+        private int triggerDefaultMaxInFlight = 1000;
+
+        /**
+         * 等待执行结束的最长时间（毫秒），超时后视为已结束，避免位点被长时间卡住
+         */
+        private long triggerSettleTimeoutMs = 600_000;
+
+        /**
+         * 创建执行失败后重新消费前的退避时间（毫秒）
+         */
+        private long triggerRetryBackoffMs = 5000;
+
+        /**
+         * Kafka 节点生产者默认确认级别（0 / 1 / all），节点可单独覆盖
+         */
+        private String producerAcks = "1";
+
+        /**
+         * 生产者默认批次等待时间（毫秒），同步逐条发送时会直接计入节点耗时，批量/异步发送可适当调大
+         */
+        private int producerLingerMs = 1;
+
+        /**
+         * 生产者默认单分区批次大小（字节）
+         */
+        private int producerBatchSize = 65536;
+
+        /**
+         * 生产者默认压缩算法（none / gzip / snappy / lz4 / zstd）
+         */
+        private String producerCompressionType = "lz4";
+
+        /**
+         * 生产者默认是否开启幂等（开启时确认级别强制为 all）
+         */
+        private boolean producerIdempotence = false;
+
+        /**
+         * 同步发送模式下等待 Broker 确认的超时时间（毫秒）
+         */
+        private long producerSendTimeoutMs = 30_000;
+
         public boolean isEnabled() {
             return enabled;
         }
@@ -69,6 +171,150 @@ public class FlowletProperties {
         public void setCallbackTopic(String callbackTopic) {
             this.callbackTopic = callbackTopic;
         }
+
+        public int getCallbackMaxPending() {
+            return callbackMaxPending;
+        }
+
+        public void setCallbackMaxPending(int callbackMaxPending) {
+            this.callbackMaxPending = callbackMaxPending;
+        }
+
+        public long getCallbackTimerTickMs() {
+            return callbackTimerTickMs;
+        }
+
+        public void setCallbackTimerTickMs(long callbackTimerTickMs) {
+            this.callbackTimerTickMs = callbackTimerTickMs;
+        }
+
+        public int getCallbackTimerWheelSize() {
+            return callbackTimerWheelSize;
+        }
+
+        public void setCallbackTimerWheelSize(int callbackTimerWheelSize) {
+            this.callbackTimerWheelSize = callbackTimerWheelSize;
+        }
+
+        public int getCallbackWorkerThreads() {
+            return callbackWorkerThreads;
+        }
+
+        public void setCallbackWorkerThreads(int callbackWorkerThreads) {
+            this.callbackWorkerThreads = callbackWorkerThreads;
+        }
+
+        public int getCallbackResumeThreads() {
+            return callbackResumeThreads;
+        }
+
+        public void setCallbackResumeThreads(int callbackResumeThreads) {
+            this.callbackResumeThreads = callbackResumeThreads;
+        }
+
+        public int getCallbackMaxPendingPerPartition() {
+            return callbackMaxPendingPerPartition;
+        }
+
+        public void setCallbackMaxPendingPerPartition(int callbackMaxPendingPerPartition) {
+            this.callbackMaxPendingPerPartition = callbackMaxPendingPerPartition;
+        }
+
+        public int getCallbackMaxPollRecords() {
+            return callbackMaxPollRecords;
+        }
+
+        public void setCallbackMaxPollRecords(int callbackMaxPollRecords) {
+            this.callbackMaxPollRecords = callbackMaxPollRecords;
+        }
+
+        public boolean isTriggerEnabled() {
+            return triggerEnabled;
+        }
+
+        public void setTriggerEnabled(boolean triggerEnabled) {
+            this.triggerEnabled = triggerEnabled;
+        }
+
+        public int getTriggerMaxConcurrency() {
+            return triggerMaxConcurrency;
+        }
+
+        public void setTriggerMaxConcurrency(int triggerMaxConcurrency) {
+            this.triggerMaxConcurrency = triggerMaxConcurrency;
+        }
+
+        public int getTriggerDefaultMaxInFlight() {
+            return triggerDefaultMaxInFlight;
+        }
+
+        public void setTriggerDefaultMaxInFlight(int triggerDefaultMaxInFlight) {
+            this.triggerDefaultMaxInFlight = triggerDefaultMaxInFlight;
+        }
+
+        public long getTriggerSettleTimeoutMs() {
+            return triggerSettleTimeoutMs;
+        }
+
+        public void setTriggerSettleTimeoutMs(long triggerSettleTimeoutMs) {
+            this.triggerSettleTimeoutMs = triggerSettleTimeoutMs;
+        }
+
+        public long getTriggerRetryBackoffMs() {
+            return triggerRetryBackoffMs;
+        }
+
+        public void setTriggerRetryBackoffMs(long triggerRetryBackoffMs) {
+            this.triggerRetryBackoffMs = triggerRetryBackoffMs;
+        }
+
+        public String getProducerAcks() {
+            return producerAcks;
+        }
+
+        public void setProducerAcks(String producerAcks) {
+            this.producerAcks = producerAcks;
+        }
+
+        public int getProducerLingerMs() {
+            return producerLingerMs;
+        }
+
+        public void setProducerLingerMs(int producerLingerMs) {
+            this.producerLingerMs = producerLingerMs;
+        }
+
+        public int getProducerBatchSize() {
+            return producerBatchSize;
+        }
+
+        public void setProducerBatchSize(int producerBatchSize) {
+            this.producerBatchSize = producerBatchSize;
+        }
+
+        public String getProducerCompressionType() {
+            return producerCompressionType;
+        }
+
+        public void setProducerCompressionType(String producerCompressionType) {
+            this.producerCompressionType = producerCompressionType;
+        }
+
+        public boolean isProducerIdempotence() {
+            return producerIdempotence;
+        }
+
+        public void setProducerIdempotence(boolean producerIdempotence) {
+            this.producerIdempotence = producerIdempotence;
+        }
+
+        public long getProducerSendTimeoutMs() {
+            return producerSendTimeoutMs;
+        }
+
+        public void setProducerSendTimeoutMs(long producerSendTimeoutMs) {
+            this.producerSendTimeoutMs = producerSendTimeoutMs;
+        }
     }
 
     /**
@@ -131,6 +377,46 @@ public class FlowletProperties {
          */
         private boolean defaultAllowNetwork = false;
 
+        /**
+         * JavaScript 内置引擎：每个脚本最多保留的空闲执行上下文数
+         */
+        private int jsContextPoolSize = 4;
+
+        /**
+         * JavaScript 内置引擎：最多缓存的已编译脚本数
+         */
+        private int jsMaxCachedScripts = 256;
+
+        /**
+         * JavaScript 内置引擎：单次执行（含脚本顶层代码）最多执行的语句数，0 表示不限制（仍受超时限制）
+         */
+        private long jsStatementLimit = 10_000_000;
+
+        /**
+         * 是否通过 /execute/batch 合并并发的 Python 代码执行
+         */
+        private boolean batchEnabled = true;
+
+        /**
+         * 单次批量调用的最大输入组数
+         */
+        private int batchMaxSize = 32;
+
+        /**
+         * 首个请求到达后等待凑批的最长时间（毫秒）
+         */
+        private long batchMaxLingerMs = 5;
+
+        /**
+         * 同时在途的批量调用数
+         */
+        private int batchMaxConcurrent = 4;
+
+        /**
+         * 等待凑批的最大请求数，超出时直接失败
+         */
+        private int batchMaxQueueSize = 10000;
+
         public String getBaseUrl() {
             return baseUrl;
         }
@@ -170,6 +456,70 @@ public class FlowletProperties {
         public void setDefaultAllowNetwork(boolean defaultAllowNetwork) {
             this.defaultAllowNetwork = defaultAllowNetwork;
         }
+
+        public int getJsContextPoolSize() {
+            return jsContextPoolSize;
+        }
+
+        public void setJsContextPoolSize(int jsContextPoolSize) {
+            this.jsContextPoolSize = jsContextPoolSize;
+        }
+
+        public int getJsMaxCachedScripts() {
+            return jsMaxCachedScripts;
+        }
+
+        public void setJsMaxCachedScripts(int jsMaxCachedScripts) {
+            this.jsMaxCachedScripts = jsMaxCachedScripts;
+        }
+
+        public long getJsStatementLimit() {
+            return jsStatementLimit;
+        }
+
+        public void setJsStatementLimit(long jsStatementLimit) {
+            this.jsStatementLimit = jsStatementLimit;
+        }
+
+        public boolean isBatchEnabled() {
+            return batchEnabled;
+        }
+
+        public void setBatchEnabled(boolean batchEnabled) {
+            this.batchEnabled = batchEnabled;
+        }
+
+        public int getBatchMaxSize() {
+            return batchMaxSize;
+        }
+
+        public void setBatchMaxSize(int batchMaxSize) {
+            this.batchMaxSize = batchMaxSize;
+        }
+
+        public long getBatchMaxLingerMs() {
+            return batchMaxLingerMs;
+        }
+
+        public void setBatchMaxLingerMs(long batchMaxLingerMs) {
+            this.batchMaxLingerMs = batchMaxLingerMs;
+        }
+
+        public int getBatchMaxConcurrent() {
+            return batchMaxConcurrent;
+        }
+
+        public void setBatchMaxConcurrent(int batchMaxConcurrent) {
+            this.batchMaxConcurrent = batchMaxConcurrent;
+        }
+
+        public int getBatchMaxQueueSize() {
+            return batchMaxQueueSize;
+        }
+
+        public void setBatchMaxQueueSize(int batchMaxQueueSize) {
+            this.batchMaxQueueSize = batchMaxQueueSize;
+        }
     }
 
     /**
@@ -191,6 +541,11 @@ public class FlowletProperties {
          */
         private String embeddingBaseUrl = "http://localhost:18092";
 
+        /**
+         * 向量传输编码：base64（小端 float32）或 json
+         */
+        private String vectorEncoding = "base64";
+
         public String getBaseUrl() {
             return baseUrl;
         }
@@ -214,6 +569,14 @@ public class FlowletProperties {
         public void setEmbeddingBaseUrl(String embeddingBaseUrl) {
             this.embeddingBaseUrl = embeddingBaseUrl;
         }
+
+        public String getVectorEncoding() {
+            return vectorEncoding;
+        }
+
+        public void setVectorEncoding(String vectorEncoding) {
+            this.vectorEncoding = vectorEncoding;
+        }
     }
 
     public VectorStoreProperties getVectorStore() {
@@ -223,4 +586,1236 @@ public class FlowletProperties {
     public void setVectorStore(VectorStoreProperties vectorStore) {
         this.vectorStore = vectorStore;
     }
+
+    /**
+     * 出站 HTTP 客户端连接池配置
+     */
+    public static class HttpClientProperties {
+        /**
+         * 每个目标主机的最大连接数
+         */
+        private int maxConnections = 200;
+
+        /**
+         * 等待获取连接的最大排队数
+         */
+        private int pendingAcquireMaxCount = 1000;
+
+        /**
+         * 等待获取连接的超时（毫秒）
+         */
+        private int pendingAcquireTimeoutMs = 45000;
+
+        /**
+         * 连接最大空闲时间（毫秒），超过后被回收
+         */
+        private int maxIdleTimeMs = 30000;
+
+        /**
+         * 连接最大存活时间（毫秒）
+         */
+        private int maxLifeTimeMs = 300000;
+
+        /**
+         * 后台回收空闲连接的间隔（毫秒），0 表示不启用后台回收
+         */
+        private int evictIntervalMs = 60000;
+
+        /**
+         * 建立连接超时（毫秒）
+         */
+        private int connectTimeoutMs = 5000;
+
+        /**
+         * 是否启用 HTTP/2（仅对 HTTPS 生效，通过 ALPN 协商，不支持时回退 HTTP/1.1）
+         */
+        private boolean http2Enabled = false;
+
+        /**
+         * 单个响应体在内存中允许的最大字节数（MB）
+         */
+        private int maxInMemorySizeMb = 10;
+
+        /**
+         * 是否采集按主机维度的连接池指标
+         */
+        private boolean metricsEnabled = true;
+
+        /**
+         * API 节点响应体落盘目录（开启 spillToFile 时使用）
+         */
+        private String responseSpillDir = "./data/api-responses";
+
+        /**
+         * 落盘响应体保留时长（小时），过期后自动清理
+         */
+        private int responseSpillRetentionHours = 24;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        public int getPendingAcquireTimeoutMs() {
+            return pendingAcquireTimeoutMs;
+        }
+
+        public void setPendingAcquireTimeoutMs(int pendingAcquireTimeoutMs) {
+            this.pendingAcquireTimeoutMs = pendingAcquireTimeoutMs;
+        }
+
+        public int getMaxIdleTimeMs() {
+            return maxIdleTimeMs;
+        }
+
+        public void setMaxIdleTimeMs(int maxIdleTimeMs) {
+            this.maxIdleTimeMs = maxIdleTimeMs;
+        }
+
+        public int getMaxLifeTimeMs() {
+            return maxLifeTimeMs;
+        }
+
+        public void setMaxLifeTimeMs(int maxLifeTimeMs) {
+            this.maxLifeTimeMs = maxLifeTimeMs;
+        }
+
+        public int getEvictIntervalMs() {
+            return evictIntervalMs;
+        }
+
+        public void setEvictIntervalMs(int evictIntervalMs) {
+            this.evictIntervalMs = evictIntervalMs;
+        }
+
+        public int getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(int connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+
+        public boolean isHttp2Enabled() {
+            return http2Enabled;
+        }
+
+        public void setHttp2Enabled(boolean http2Enabled) {
+            this.http2Enabled = http2Enabled;
+        }
+
+        public int getMaxInMemorySizeMb() {
+            return maxInMemorySizeMb;
+        }
+
+        public void setMaxInMemorySizeMb(int maxInMemorySizeMb) {
+            this.maxInMemorySizeMb = maxInMemorySizeMb;
+        }
+
+        public boolean isMetricsEnabled() {
+            return metricsEnabled;
+        }
+
+        public void setMetricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+        }
+
+        public String getResponseSpillDir() {
+            return responseSpillDir;
+        }
+
+        public void setResponseSpillDir(String responseSpillDir) {
+            this.responseSpillDir = responseSpillDir;
+        }
+
+        public int getResponseSpillRetentionHours() {
+            return responseSpillRetentionHours;
+        }
+
+        public void setResponseSpillRetentionHours(int responseSpillRetentionHours) {
+            this.responseSpillRetentionHours = responseSpillRetentionHours;
+        }
+    }
+
+    public HttpClientProperties getHttpClient() {
+        return httpClient;
+    }
+
+    public void setHttpClient(HttpClientProperties httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * API 节点熔断、对冲与重试配置
+     */
+    public static class ApiResilienceProperties {
+        /**
+         * 是否启用按接口维度的熔断
+         */
+        private boolean circuitBreakerEnabled = true;
+
+        /**
+         * 失败率阈值（百分比），达到后熔断器打开
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 慢调用比例阈值（百分比），达到后熔断器打开
+         */
+        private int slowCallRateThreshold = 80;
+
+        /**
+         * 慢调用判定时长（毫秒）
+         */
+        private int slowCallDurationMs = 10000;
+
+        /**
+         * 统计窗口大小（最近调用次数）
+         */
+        private int slidingWindowSize = 50;
+
+        /**
+         * 计算失败率所需的最少调用次数
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * 熔断器打开后等待进入半开状态的时长（毫秒）
+         */
+        private int openStateDurationMs = 30000;
+
+        /**
+         * 半开状态允许的探测调用次数
+         */
+        private int halfOpenPermittedCalls = 3;
+
+        /**
+         * 重试预算比例：每次请求为所在节点积累的重试额度
+         */
+        private double retryBudgetRatio = 0.2;
+
+        /**
+         * 每个节点重试额度上限（同时也是初始额度）
+         */
+        private int retryBudgetMaxTokens = 10;
+
+        public boolean isCircuitBreakerEnabled() {
+            return circuitBreakerEnabled;
+        }
+
+        public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+            this.circuitBreakerEnabled = circuitBreakerEnabled;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public int getSlowCallDurationMs() {
+            return slowCallDurationMs;
+        }
+
+        public void setSlowCallDurationMs(int slowCallDurationMs) {
+            this.slowCallDurationMs = slowCallDurationMs;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getOpenStateDurationMs() {
+            return openStateDurationMs;
+        }
+
+        public void setOpenStateDurationMs(int openStateDurationMs) {
+            this.openStateDurationMs = openStateDurationMs;
+        }
+
+        public int getHalfOpenPermittedCalls() {
+            return halfOpenPermittedCalls;
+        }
+
+        public void setHalfOpenPermittedCalls(int halfOpenPermittedCalls) {
+            this.halfOpenPermittedCalls = halfOpenPermittedCalls;
+        }
+
+        public double getRetryBudgetRatio() {
+            return retryBudgetRatio;
+        }
+
+        public void setRetryBudgetRatio(double retryBudgetRatio) {
+            this.retryBudgetRatio = retryBudgetRatio;
+        }
+
+        public int getRetryBudgetMaxTokens() {
+            return retryBudgetMaxTokens;
+        }
+
+        public void setRetryBudgetMaxTokens(int retryBudgetMaxTokens) {
+            this.retryBudgetMaxTokens = retryBudgetMaxTokens;
+        }
+    }
+
+    public ApiResilienceProperties getApiResilience() {
+        return apiResilience;
+    }
+
+    public void setApiResilience(ApiResilienceProperties apiResilience) {
+        this.apiResilience = apiResilience;
+    }
+
+    /**
+     * 大模型响应缓存配置
+     */
+    public static class LlmCacheProperties {
+        /**
+         * 是否启用大模型响应缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 内存缓存最大条目数（LRU 淘汰）
+         */
+        private int memoryMaxEntries = 1000;
+
+        /**
+         * 是否启用磁盘缓存（SQLite）
+         */
+        private boolean diskEnabled = true;
+
+        /**
+         * 缓存默认有效期（秒），节点可通过 cacheTtlSeconds 覆盖
+         */
+        private long defaultTtlSeconds = 86400;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMemoryMaxEntries() {
+            return memoryMaxEntries;
+        }
+
+        public void setMemoryMaxEntries(int memoryMaxEntries) {
+            this.memoryMaxEntries = memoryMaxEntries;
+        }
+
+        public boolean isDiskEnabled() {
+            return diskEnabled;
+        }
+
+        public void setDiskEnabled(boolean diskEnabled) {
+            this.diskEnabled = diskEnabled;
+        }
+
+        public long getDefaultTtlSeconds() {
+            return defaultTtlSeconds;
+        }
+
+        public void setDefaultTtlSeconds(long defaultTtlSeconds) {
+            this.defaultTtlSeconds = defaultTtlSeconds;
+        }
+    }
+
+    public LlmCacheProperties getLlmCache() {
+        return llmCache;
+    }
+
+    public void setLlmCache(LlmCacheProperties llmCache) {
+        this.llmCache = llmCache;
+    }
+
+    /**
+     * 大模型调用自适应并发限制配置
+     */
+    public static class LlmConcurrencyProperties {
+        /**
+         * 是否启用按（提供方, 模型）的自适应并发限制
+         */
+        private boolean enabled = true;
+
+        /**
+         * 初始并发上限
+         */
+        private int initialLimit = 4;
+
+        /**
+         * 并发上限下限
+         */
+        private int minLimit = 1;
+
+        /**
+         * 并发上限上限
+         */
+        private int maxLimit = 64;
+
+        /**
+         * 过载时的下调比例
+         */
+        private double backoffRatio = 0.7;
+
+        /**
+         * 延迟容忍倍数：近期每输出 token 延迟超过基线的该倍数视为过载
+         */
+        private double latencyTolerance = 2.0;
+
+        /**
+         * 排队与限流重试的总等待期限（毫秒），节点可通过 queueTimeoutMs 覆盖
+         */
+        private long queueTimeoutMs = 120000;
+
+        /**
+         * 被限流（429/5xx）后的最大重试次数
+         */
+        private int maxOverloadRetries = 3;
+
+        /**
+         * 限流重试的基础退避时间（毫秒），响应带 Retry-After 时以其为准
+         */
+        private long overloadRetryBackoffMs = 1000;
+
+        /**
+         * 对冲调用线程上限，线程用尽时跳过对冲（计入 flowlet.llm.hedge{result=rejected}）
+         */
+        private int hedgeMaxThreads = 32;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        public long getQueueTimeoutMs() {
+            return queueTimeoutMs;
+        }
+
+        public void setQueueTimeoutMs(long queueTimeoutMs) {
+            this.queueTimeoutMs = queueTimeoutMs;
+        }
+
+        public int getMaxOverloadRetries() {
+            return maxOverloadRetries;
+        }
+
+        public void setMaxOverloadRetries(int maxOverloadRetries) {
+            this.maxOverloadRetries = maxOverloadRetries;
+        }
+
+        public long getOverloadRetryBackoffMs() {
+            return overloadRetryBackoffMs;
+        }
+
+        public void setOverloadRetryBackoffMs(long overloadRetryBackoffMs) {
+            this.overloadRetryBackoffMs = overloadRetryBackoffMs;
+        }
+
+        public int getHedgeMaxThreads() {
+            return hedgeMaxThreads;
+        }
+
+        public void setHedgeMaxThreads(int hedgeMaxThreads) {
+            this.hedgeMaxThreads = hedgeMaxThreads;
+        }
+    }
+
+    public LlmConcurrencyProperties getLlmConcurrency() {
+        return llmConcurrency;
+    }
+
+    public void setLlmConcurrency(LlmConcurrencyProperties llmConcurrency) {
+        this.llmConcurrency = llmConcurrency;
+    }
+
+    /**
+     * Embedding 节点微批配置
+     */
+    public static class EmbeddingProperties {
+        /**
+         * 单次调用 Embedding 服务的最大文本数
+         */
+        private int maxBatchSize = 32;
+
+        /**
+         * 首个请求到达后等待凑批的最长时间（毫秒）
+         */
+        private long maxLingerMs = 5;
+
+        /**
+         * 同时在途的批次数，超出时新请求继续排队凑批
+         */
+        private int maxConcurrentBatches = 4;
+
+        /**
+         * 等待凑批的文本数上限，超出时请求直接失败
+         */
+        private int maxQueueSize = 10000;
+
+        /**
+         * 单个批次的请求超时（毫秒）
+         */
+        private int requestTimeoutMs = 30000;
+
+        /**
+         * 是否启用按内容哈希的向量缓存
+         */
+        private boolean cacheEnabled = true;
+
+        /**
+         * 向量缓存的最大条目数
+         */
+        private int cacheMaxEntries = 10000;
+
+        /**
+         * 向量缓存的有效期（秒），Embedding 服务原地更新模型权重时旧向量最多保留这么久
+         */
+        private long cacheTtlSeconds = 3600;
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public long getMaxLingerMs() {
+            return maxLingerMs;
+        }
+
+        public void setMaxLingerMs(long maxLingerMs) {
+            this.maxLingerMs = maxLingerMs;
+        }
+
+        public int getMaxConcurrentBatches() {
+            return maxConcurrentBatches;
+        }
+
+        public void setMaxConcurrentBatches(int maxConcurrentBatches) {
+            this.maxConcurrentBatches = maxConcurrentBatches;
+        }
+
+        public int getMaxQueueSize() {
+            return maxQueueSize;
+        }
+
+        public void setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+        }
+
+        public int getRequestTimeoutMs() {
+            return requestTimeoutMs;
+        }
+
+        public void setRequestTimeoutMs(int requestTimeoutMs) {
+            this.requestTimeoutMs = requestTimeoutMs;
+        }
+
+        public boolean isCacheEnabled() {
+            return cacheEnabled;
+        }
+
+        public void setCacheEnabled(boolean cacheEnabled) {
+            this.cacheEnabled = cacheEnabled;
+        }
+
+        public int getCacheMaxEntries() {
+            return cacheMaxEntries;
+        }
+
+        public void setCacheMaxEntries(int cacheMaxEntries) {
+            this.cacheMaxEntries = cacheMaxEntries;
+        }
+
+        public long getCacheTtlSeconds() {
+            return cacheTtlSeconds;
+        }
+
+        public void setCacheTtlSeconds(long cacheTtlSeconds) {
+            this.cacheTtlSeconds = cacheTtlSeconds;
+        }
+    }
+
+    public EmbeddingProperties getEmbedding() {
+        return embedding;
+    }
+
+    public void setEmbedding(EmbeddingProperties embedding) {
+        this.embedding = embedding;
+    }
+
+    /**
+     * 向量写入缓冲配置（按提供方与集合合并 upsert）
+     */
+    public static class VectorUpsertProperties {
+        /**
+         * 是否默认启用写入缓冲，节点可通过 buffered 覆盖
+         */
+        private boolean enabled = true;
+
+        /**
+         * 单次 upsert 最大文档数
+         */
+        private int maxBatchSize = 256;
+
+        /**
+         * 首个文档进入缓冲后最长等待时间（毫秒）
+         */
+        private long maxLingerMs = 10;
+
+        /**
+         * 缓冲及在途的文档总数上限，超过后写入方阻塞等待
+         */
+        private int maxBufferedDocuments = 20000;
+
+        /**
+         * 缓冲区满时写入方最长等待时间（毫秒）
+         */
+        private long offerTimeoutMs = 10000;
+
+        /**
+         * 同时进行的 upsert 请求数
+         */
+        private int maxConcurrentFlushes = 4;
+
+        /**
+         * 关闭时等待缓冲写完的最长时间（毫秒）
+         */
+        private long shutdownFlushTimeoutMs = 15000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public long getMaxLingerMs() {
+            return maxLingerMs;
+        }
+
+        public void setMaxLingerMs(long maxLingerMs) {
+            this.maxLingerMs = maxLingerMs;
+        }
+
+        public int getMaxBufferedDocuments() {
+            return maxBufferedDocuments;
+        }
+
+        public void setMaxBufferedDocuments(int maxBufferedDocuments) {
+            this.maxBufferedDocuments = maxBufferedDocuments;
+        }
+
+        public long getOfferTimeoutMs() {
+            return offerTimeoutMs;
+        }
+
+        public void setOfferTimeoutMs(long offerTimeoutMs) {
+            this.offerTimeoutMs = offerTimeoutMs;
+        }
+
+        public int getMaxConcurrentFlushes() {
+            return maxConcurrentFlushes;
+        }
+
+        public void setMaxConcurrentFlushes(int maxConcurrentFlushes) {
+            this.maxConcurrentFlushes = maxConcurrentFlushes;
+        }
+
+        public long getShutdownFlushTimeoutMs() {
+            return shutdownFlushTimeoutMs;
+        }
+
+        public void setShutdownFlushTimeoutMs(long shutdownFlushTimeoutMs) {
+            this.shutdownFlushTimeoutMs = shutdownFlushTimeoutMs;
+        }
+    }
+
+    public VectorUpsertProperties getVectorUpsert() {
+        return vectorUpsert;
+    }
+
+    public void setVectorUpsert(VectorUpsertProperties vectorUpsert) {
+        this.vectorUpsert = vectorUpsert;
+    }
+
+    /**
+     * 内置向量存储配置（JVM 内 HNSW 索引，providerKey 为 embedded）
+     */
+    public static class EmbeddedVectorStoreProperties {
+        /**
+         * 索引文件目录，按 租户/存储名/集合 分目录保存
+         */
+        private String dataDir = "./data/vector-index";
+
+        /**
+         * HNSW 每层邻居数（第 0 层为 2M）
+         */
+        private int m = 16;
+
+        /**
+         * 构建索引时的候选集大小
+         */
+        private int efConstruction = 200;
+
+        /**
+         * 查询时的候选集大小（不小于 topK）
+         */
+        private int efSearch = 64;
+
+        /**
+         * 集合或过滤后的候选文档数不超过该值时改为精确检索
+         */
+        private int bruteForceThreshold = 2000;
+
+        /**
+         * 变更落盘间隔（毫秒）
+         */
+        private long flushIntervalMs = 5000;
+
+        public String getDataDir() {
+            return dataDir;
+        }
+
+        public void setDataDir(String dataDir) {
+            this.dataDir = dataDir;
+        }
+
+        public int getM() {
+            return m;
+        }
+
+        public void setM(int m) {
+            this.m = m;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+
+        public int getBruteForceThreshold() {
+            return bruteForceThreshold;
+        }
+
+        public void setBruteForceThreshold(int bruteForceThreshold) {
+            this.bruteForceThreshold = bruteForceThreshold;
+        }
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+    }
+
+    public EmbeddedVectorStoreProperties getEmbeddedVectorStore() {
+        return embeddedVectorStore;
+    }
+
+    public void setEmbeddedVectorStore(EmbeddedVectorStoreProperties embeddedVectorStore) {
+        this.embeddedVectorStore = embeddedVectorStore;
+    }
+
+    /**
+     * 向量检索结果缓存配置
+     */
+    public static class VectorSearchCacheProperties {
+        /**
+         * 是否启用（节点仍需配置 cacheEnabled 开启）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最大缓存条目数
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * 默认有效期（秒）
+         */
+        private long defaultTtlSeconds = 60;
+
+        /**
+         * 计算缓存键时查询向量各分量的量化步长，差异小于步长的向量共享缓存
+         */
+        private double quantizationStep = 1e-4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getDefaultTtlSeconds() {
+            return defaultTtlSeconds;
+        }
+
+        public void setDefaultTtlSeconds(long defaultTtlSeconds) {
+            this.defaultTtlSeconds = defaultTtlSeconds;
+        }
+
+        public double getQuantizationStep() {
+            return quantizationStep;
+        }
+
+        public void setQuantizationStep(double quantizationStep) {
+            this.quantizationStep = quantizationStep;
+        }
+    }
+
+    public VectorSearchCacheProperties getVectorSearchCache() {
+        return vectorSearchCache;
+    }
+
+    public void setVectorSearchCache(VectorSearchCacheProperties vectorSearchCache) {
+        this.vectorSearchCache = vectorSearchCache;
+    }
+
+    /**
+     * 节点结果缓存配置（代码/转换/API 节点的 cachePolicy）
+     */
+    public static class NodeResultCacheProperties {
+        /**
+         * 是否启用节点结果缓存（节点未配置 cachePolicy 时不生效）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 默认有效期（秒），cachePolicy 未指定 ttlSeconds 时使用
+         */
+        private long defaultTtlSeconds = 300;
+
+        /**
+         * 每个缓存分区（作用域 + 节点）默认最多保留的条目数
+         */
+        private int defaultMaxEntries = 1000;
+
+        /**
+         * 内存中最多保留的缓存分区数
+         */
+        private int maxPartitions = 1024;
+
+        /**
+         * 是否将缓存结果持久化到本地数据库，重启后仍可命中
+         */
+        private boolean diskEnabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getDefaultTtlSeconds() {
+            return defaultTtlSeconds;
+        }
+
+        public void setDefaultTtlSeconds(long defaultTtlSeconds) {
+            this.defaultTtlSeconds = defaultTtlSeconds;
+        }
+
+        public int getDefaultMaxEntries() {
+            return defaultMaxEntries;
+        }
+
+        public void setDefaultMaxEntries(int defaultMaxEntries) {
+            this.defaultMaxEntries = defaultMaxEntries;
+        }
+
+        public int getMaxPartitions() {
+            return maxPartitions;
+        }
+
+        public void setMaxPartitions(int maxPartitions) {
+            this.maxPartitions = maxPartitions;
+        }
+
+        public boolean isDiskEnabled() {
+            return diskEnabled;
+        }
+
+        public void setDiskEnabled(boolean diskEnabled) {
+            this.diskEnabled = diskEnabled;
+        }
+    }
+
+    public NodeResultCacheProperties getNodeResultCache() {
+        return nodeResultCache;
+    }
+
+    public void setNodeResultCache(NodeResultCacheProperties nodeResultCache) {
+        this.nodeResultCache = nodeResultCache;
+    }
+
+    /**
+     * 异步回调配置
+     */
+    public static class CallbackProperties {
+        /**
+         * 节点未配置 callbackTimeout 时回调的默认有效期（秒）
+         */
+        private long defaultTimeoutSeconds = 86_400;
+
+        /**
+         * 过期扫描间隔（毫秒），即超时的最大延迟
+         */
+        private long sweepIntervalMs = 5000;
+
+        /**
+         * 单个事务内处理的过期回调数
+         */
+        private int sweepBatchSize = 500;
+
+        /**
+         * 已处理/已过期的回调在主表中保留的时间（秒），之后移入归档表
+         */
+        private long archiveAfterSeconds = 3600;
+
+        /**
+         * 单次归档的最大行数
+         */
+        private int archiveBatchSize = 1000;
+
+        /**
+         * 批量回调接口单次请求的最大回调数
+         */
+        private int batchMaxSize = 10_000;
+
+        /**
+         * 已记录（received）但未完成恢复的回调在多久后（秒）由扫描重新驱动恢复；重启前已接收的回调启动后立即重驱
+         */
+        private long redriveAfterSeconds = 300;
+
+        /**
+         * 单个回调最多重驱次数，仍未完成时回调置为 failed，执行置为失败
+         */
+        private int redriveMaxAttempts = 3;
+
+        public long getDefaultTimeoutSeconds() {
+            return defaultTimeoutSeconds;
+        }
+
+        public void setDefaultTimeoutSeconds(long defaultTimeoutSeconds) {
+            this.defaultTimeoutSeconds = defaultTimeoutSeconds;
+        }
+
+        public long getSweepIntervalMs() {
+            return sweepIntervalMs;
+        }
+
+        public void setSweepIntervalMs(long sweepIntervalMs) {
+            this.sweepIntervalMs = sweepIntervalMs;
+        }
+
+        public int getSweepBatchSize() {
+            return sweepBatchSize;
+        }
+
+        public void setSweepBatchSize(int sweepBatchSize) {
+            this.sweepBatchSize = sweepBatchSize;
+        }
+
+        public long getArchiveAfterSeconds() {
+            return archiveAfterSeconds;
+        }
+
+        public void setArchiveAfterSeconds(long archiveAfterSeconds) {
+            this.archiveAfterSeconds = archiveAfterSeconds;
+        }
+
+        public int getArchiveBatchSize() {
+            return archiveBatchSize;
+        }
+
+        public void setArchiveBatchSize(int archiveBatchSize) {
+            this.archiveBatchSize = archiveBatchSize;
+        }
+
+        public int getBatchMaxSize() {
+            return batchMaxSize;
+        }
+
+        public void setBatchMaxSize(int batchMaxSize) {
+            this.batchMaxSize = batchMaxSize;
+        }
+
+        public long getRedriveAfterSeconds() {
+            return redriveAfterSeconds;
+        }
+
+        public void setRedriveAfterSeconds(long redriveAfterSeconds) {
+            this.redriveAfterSeconds = redriveAfterSeconds;
+        }
+
+        public int getRedriveMaxAttempts() {
+            return redriveMaxAttempts;
+        }
+
+        public void setRedriveMaxAttempts(int redriveMaxAttempts) {
+            this.redriveMaxAttempts = redriveMaxAttempts;
+        }
+    }
+
+    public CallbackProperties getCallback() {
+        return callback;
+    }
+
+    public void setCallback(CallbackProperties callback) {
+        this.callback = callback;
+    }
+
+    public static class TimerProperties {
+        /**
+         * 时间轮刻度（毫秒），即定时器的触发精度
+         */
+        private long tickMs = 100;
+
+        /**
+         * 时间轮槽位数
+         */
+        private int wheelSize = 1024;
+
+        /**
+         * 预加载窗口（毫秒）：仅将该时间内到期的定时器装入时间轮，更远的定时器只保存在数据库中
+         */
+        private long loadAheadMs = 60_000;
+
+        /**
+         * 预加载间隔（毫秒），应小于预加载窗口
+         */
+        private long loadIntervalMs = 10_000;
+
+        /**
+         * 单次预加载的最大定时器数
+         */
+        private int loadBatchSize = 10_000;
+
+        /**
+         * 触发定时器（恢复流程）的线程数
+         */
+        private int workerThreads = 4;
+
+        /**
+         * 延迟节点允许的最长等待时间（天）
+         */
+        private long maxDelayDays = 365;
+
+        public long getTickMs() {
+            return tickMs;
+        }
+
+        public void setTickMs(long tickMs) {
+            this.tickMs = tickMs;
+        }
+
+        public int getWheelSize() {
+            return wheelSize;
+        }
+
+        public void setWheelSize(int wheelSize) {
+            this.wheelSize = wheelSize;
+        }
+
+        public long getLoadAheadMs() {
+            return loadAheadMs;
+        }
+
+        public void setLoadAheadMs(long loadAheadMs) {
+            this.loadAheadMs = loadAheadMs;
+        }
+
+        public long getLoadIntervalMs() {
+            return loadIntervalMs;
+        }
+
+        public void setLoadIntervalMs(long loadIntervalMs) {
+            this.loadIntervalMs = loadIntervalMs;
+        }
+
+        public int getLoadBatchSize() {
+            return loadBatchSize;
+        }
+
+        public void setLoadBatchSize(int loadBatchSize) {
+            this.loadBatchSize = loadBatchSize;
+        }
+
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+
+        public long getMaxDelayDays() {
+            return maxDelayDays;
+        }
+
+        public void setMaxDelayDays(long maxDelayDays) {
+            this.maxDelayDays = maxDelayDays;
+        }
+    }
+
+    public TimerProperties getTimer() {
+        return timer;
+    }
+
+    public void setTimer(TimerProperties timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * 流程引擎线程池配置
+     */
+    public static class EngineProperties {
+        /**
+         * 异步子流程执行线程数
+         */
+        private int subflowThreads = 8;
+
+        /**
+         * 异步子流程排队上限，队列已满时子流程直接置为失败
+         */
+        private int subflowQueueCapacity = 1000;
+
+        public int getSubflowThreads() {
+            return subflowThreads;
+        }
+
+        public void setSubflowThreads(int subflowThreads) {
+            this.subflowThreads = subflowThreads;
+        }
+
+        public int getSubflowQueueCapacity() {
+            return subflowQueueCapacity;
+        }
+
+        public void setSubflowQueueCapacity(int subflowQueueCapacity) {
+            this.subflowQueueCapacity = subflowQueueCapacity;
+        }
+    }
+
+    public EngineProperties getEngine() {
+        return engine;
+    }
+
+    public void setEngine(EngineProperties engine) {
+        this.engine = engine;
+    }
 }
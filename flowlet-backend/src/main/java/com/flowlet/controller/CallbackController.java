@@ -1,15 +1,32 @@
 package com.flowlet.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.dto.CallbackMessage;
 import com.flowlet.dto.Result;
+import com.flowlet.engine.callback.PendingCallbackRegistry;
 import com.flowlet.entity.AsyncCallback;
 import com.flowlet.mapper.AsyncCallbackMapper;
 import com.flowlet.service.FlowExecutionService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 异步回调接口
@@ -23,6 +40,9 @@ public class CallbackController {
 
     private final FlowExecutionService flowExecutionService;
     private final AsyncCallbackMapper asyncCallbackMapper;
+    private final PendingCallbackRegistry pendingCallbackRegistry;
+    private final ObjectMapper objectMapper;
+    private final FlowletProperties flowletProperties;
 
     /**
      * 回调请求体
@@ -72,6 +92,62 @@ public class CallbackController {
         }
     }
 
+    /**
+     * 批量回调中的单条回调
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class BatchCallbackItem extends CallbackRequest {
+        /**
+         * 回调唯一标识
+         */
+        private String callbackKey;
+    }
+
+    /**
+     * 批量回调中单条回调的处理结果
+     */
+    @Data
+    public static class BatchCallbackResult {
+        private String callbackKey;
+        private String executionId;
+        private String nodeId;
+        /**
+         * accepted / rejected
+         */
+        private String status;
+        private String message;
+
+        public static BatchCallbackResult accepted(AsyncCallback callback) {
+            BatchCallbackResult result = new BatchCallbackResult();
+            result.setCallbackKey(callback.getCallbackKey());
+            result.setExecutionId(callback.getExecutionId());
+            result.setNodeId(callback.getNodeExecutionId());
+            result.setStatus("accepted");
+            result.setMessage("回调已接收，流程将异步继续执行");
+            return result;
+        }
+
+        public static BatchCallbackResult rejected(String callbackKey, String message) {
+            BatchCallbackResult result = new BatchCallbackResult();
+            result.setCallbackKey(callbackKey);
+            result.setStatus("rejected");
+            result.setMessage(message);
+            return result;
+        }
+    }
+
+    /**
+     * 批量回调响应
+     */
+    @Data
+    public static class BatchCallbackResponse {
+        private int total;
+        private int accepted;
+        private int rejected;
+        private List<BatchCallbackResult> results;
+    }
+
     /**
      * 处理异步回调
      * 外部系统通过此接口通知 Flowlet 任务处理结果
@@ -87,33 +163,25 @@ public class CallbackController {
         log.info("收到 HTTP 回调: callbackKey={}, success={}", callbackKey, request.isSuccess());
 
         try {
-            // 查询回调记录
-            AsyncCallback callback = asyncCallbackMapper.findByCallbackKey(callbackKey);
+            // 查询等待中的回调（内存索引），未找到时再查询记录以给出准确的错误信息
+            AsyncCallback callback = pendingCallbackRegistry.lookup(callbackKey);
             if (callback == null) {
-                log.warn("回调记录不存在: {}", callbackKey);
-                return Result.error(404, "回调记录不存在或已过期");
-            }
-
-            if (!"waiting".equals(callback.getStatus())) {
-                log.warn("回调已处理过: callbackKey={}, status={}", callbackKey, callback.getStatus());
-                return Result.error(400, "回调已处理过，状态: " + callback.getStatus());
-            }
-
-            // 构建回调数据
-            Map<String, Object> callbackData = request.getData();
-            if (callbackData == null) {
-                callbackData = Map.of();
+                AsyncCallback existing = findCallback(callbackKey);
+                if (existing == null) {
+                    log.warn("回调记录不存在: {}", callbackKey);
+                    return Result.error(404, "回调记录不存在或已过期");
+                }
+                log.warn("回调已处理过: callbackKey={}, status={}", callbackKey, existing.getStatus());
+                return Result.error(400, "回调已处理过，状态: " + existing.getStatus());
             }
 
-            // 添加成功/失败标识
-            callbackData = new java.util.HashMap<>(callbackData);
-            callbackData.put("success", request.isSuccess());
-            if (!request.isSuccess() && request.getErrorMessage() != null) {
-                callbackData.put("errorMessage", request.getErrorMessage());
+            if (callback.getExpiredAt() != null && callback.getExpiredAt().isBefore(LocalDateTime.now())) {
+                log.warn("回调已过期: callbackKey={}, expiredAt={}", callbackKey, callback.getExpiredAt());
+                return Result.error(400, "回调已过期");
             }
 
             // 处理回调
-            flowExecutionService.handleCallback(callbackKey, callbackData);
+            flowExecutionService.handleCallback(callbackKey, buildCallbackData(request));
 
             log.info("回调处理成功: callbackKey={}, executionId={}", 
                     callbackKey, callback.getExecutionId());
@@ -128,6 +196,103 @@ public class CallbackController {
         }
     }
 
+    /**
+     * 批量回调
+     * 请求体为回调数组（application/json）或每行一个回调（application/x-ndjson），边读取边解析，不缓存整个请求体。
+     * 所有有效回调在同一事务中记录，提交后经执行队列异步恢复各自的流程；逐条返回接收结果。
+     *
+     * POST /api/callback/batch
+     * Body: [{"callbackKey": "...", "success": true, "data": {...}}, ...]
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Result<BatchCallbackResponse> batchCallback(HttpServletRequest servletRequest) {
+        int maxSize = flowletProperties.getCallback().getBatchMaxSize();
+        List<BatchCallbackItem> items = new ArrayList<>();
+        ObjectReader reader = objectMapper.readerFor(BatchCallbackItem.class);
+        try (InputStream in = servletRequest.getInputStream();
+             MappingIterator<BatchCallbackItem> iterator = reader.readValues(in)) {
+            while (iterator.hasNextValue()) {
+                if (items.size() >= maxSize) {
+                    return Result.error(400, "单次批量回调不能超过 " + maxSize + " 条");
+                }
+                items.add(iterator.nextValue());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("解析批量回调请求失败: parsed={}, error={}", items.size(), e.getMessage());
+            return Result.error(400, "请求体格式错误（第 " + (items.size() + 1) + " 条）: " + e.getMessage());
+        }
+
+        // 校验：同一批次内同一 callbackKey 只接收第一条，不存在/已处理/已过期的回调直接拒绝
+        BatchCallbackResult[] results = new BatchCallbackResult[items.size()];
+        List<Integer> candidates = new ArrayList<>();
+        List<CallbackMessage> messages = new ArrayList<>();
+        Set<String> seenKeys = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchCallbackItem item = items.get(i);
+            String callbackKey = item.getCallbackKey();
+            if (callbackKey == null || callbackKey.isBlank()) {
+                results[i] = BatchCallbackResult.rejected(callbackKey, "缺少 callbackKey");
+                continue;
+            }
+            if (!seenKeys.add(callbackKey)) {
+                results[i] = BatchCallbackResult.rejected(callbackKey, "批次内重复的 callbackKey");
+                continue;
+            }
+            AsyncCallback callback = pendingCallbackRegistry.lookup(callbackKey);
+            if (callback == null) {
+                results[i] = BatchCallbackResult.rejected(callbackKey, "回调记录不存在或已处理");
+                continue;
+            }
+            if (callback.getExpiredAt() != null && callback.getExpiredAt().isBefore(LocalDateTime.now())) {
+                results[i] = BatchCallbackResult.rejected(callbackKey, "回调已过期");
+                continue;
+            }
+            candidates.add(i);
+            messages.add(new CallbackMessage(callbackKey, buildCallbackData(item)));
+        }
+
+        if (!messages.isEmpty()) {
+            List<AsyncCallback> recorded;
+            try {
+                recorded = flowExecutionService.handleCallbacks(messages);
+            } catch (Exception e) {
+                log.error("批量回调落库失败: count={}, error={}", messages.size(), e.getMessage(), e);
+                return Result.error(500, "处理批量回调失败: " + e.getMessage());
+            }
+            for (int j = 0; j < candidates.size(); j++) {
+                AsyncCallback callback = recorded.get(j);
+                results[candidates.get(j)] = callback != null
+                        ? BatchCallbackResult.accepted(callback)
+                        : BatchCallbackResult.rejected(messages.get(j).getCallbackKey(), "回调已被处理或已过期");
+            }
+        }
+
+        BatchCallbackResponse response = new BatchCallbackResponse();
+        response.setResults(List.of(results));
+        response.setTotal(results.length);
+        int accepted = (int) response.getResults().stream()
+                .filter(result -> "accepted".equals(result.getStatus()))
+                .count();
+        response.setAccepted(accepted);
+        response.setRejected(results.length - accepted);
+        log.info("批量回调处理完成: total={}, accepted={}", results.length, accepted);
+        return Result.success(response);
+    }
+
+    /**
+     * 构建回调数据，附加成功/失败标识
+     */
+    private Map<String, Object> buildCallbackData(CallbackRequest request) {
+        Map<String, Object> callbackData = request.getData() != null
+                ? new HashMap<>(request.getData())
+                : new HashMap<>();
+        callbackData.put("success", request.isSuccess());
+        if (!request.isSuccess() && request.getErrorMessage() != null) {
+            callbackData.put("errorMessage", request.getErrorMessage());
+        }
+        return callbackData;
+    }
+
     /**
      * 查询回调状态
      * GET /api/callback/{callbackKey}/status
@@ -135,7 +300,7 @@ public class CallbackController {
     @GetMapping("/{callbackKey}/status")
     public Result<AsyncCallback> getCallbackStatus(@PathVariable String callbackKey) {
 
-        AsyncCallback callback = asyncCallbackMapper.findByCallbackKey(callbackKey);
+        AsyncCallback callback = findCallback(callbackKey);
         if (callback == null) {
             return Result.error(404, "回调记录不存在");
         }
@@ -143,6 +308,14 @@ public class CallbackController {
         return Result.success(callback);
     }
 
+    /**
+     * 查询回调记录，已归档的回调从归档表中查找
+     */
+    private AsyncCallback findCallback(String callbackKey) {
+        AsyncCallback callback = asyncCallbackMapper.findByCallbackKey(callbackKey);
+        return callback != null ? callback : asyncCallbackMapper.findArchivedByCallbackKey(callbackKey);
+    }
+
     /**
      * 简化回调接口 - 仅传递数据
      * 适用于简单场景，默认为成功
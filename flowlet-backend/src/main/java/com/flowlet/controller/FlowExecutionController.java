@@ -1,5 +1,6 @@
 package com.flowlet.controller;
 
+import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.flowlet.dto.DebugRequest;
@@ -8,15 +9,22 @@ import com.flowlet.dto.NodeDebugRequest;
 import com.flowlet.dto.NodeDebugResult;
 import com.flowlet.dto.ProcessRequest;
 import com.flowlet.dto.Result;
+import com.flowlet.engine.event.ExecutionEventBus;
 import com.flowlet.entity.FlowExecution;
 import com.flowlet.entity.NodeExecution;
+import com.flowlet.enums.ExecutionStatus;
+import com.flowlet.exception.AccessDeniedException;
 import com.flowlet.mapper.FlowExecutionMapper;
 import com.flowlet.mapper.NodeExecutionMapper;
 import com.flowlet.service.FlowExecutionService;
 import com.flowlet.service.NodeDebugService;
+import com.flowlet.service.ProjectAccessService;
+import com.flowlet.util.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -24,6 +32,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -31,19 +40,29 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
 
 /**
  * 流程执行接口
  */
+@Slf4j
 @RestController
 @RequestMapping("/api/executions")
 @RequiredArgsConstructor
 public class FlowExecutionController {
 
+    /**
+     * 事件流连接最长保持时间
+     */
+    private static final long EVENT_STREAM_TIMEOUT_MS = 30 * 60 * 1000L;
+
     private final FlowExecutionService flowExecutionService;
     private final NodeDebugService nodeDebugService;
     private final FlowExecutionMapper flowExecutionMapper;
     private final NodeExecutionMapper nodeExecutionMapper;
+    private final ExecutionEventBus executionEventBus;
+    private final ProjectAccessService projectAccessService;
 
     /**
      * 获取执行历史列表（包含流程名称）
@@ -137,6 +156,7 @@ public class FlowExecutionController {
         if (execution == null) {
             return Result.error(404, "执行实例不存在");
         }
+        checkAccessPermission(execution);
         return Result.success(execution);
     }
 
@@ -145,6 +165,11 @@ public class FlowExecutionController {
      */
     @GetMapping("/{id}/nodes")
     public Result<List<NodeExecution>> getNodeExecutions(@PathVariable String id) {
+        FlowExecution execution = flowExecutionService.getExecution(id);
+        if (execution == null) {
+            return Result.error(404, "执行实例不存在");
+        }
+        checkAccessPermission(execution);
         LambdaQueryWrapper<NodeExecution> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(NodeExecution::getExecutionId, id)
                 .orderByAsc(NodeExecution::getCreatedAt);
@@ -152,6 +177,81 @@ public class FlowExecutionController {
         return Result.success(nodes);
     }
 
+    /**
+     * 订阅执行事件流（SSE）
+     * 包括节点状态变化与大模型节点的流式输出（llm_delta），连接建立时先回放近期事件
+     *
+     * @param nodeId 仅订阅指定节点的事件（可选）
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeEvents(@PathVariable String id,
+                                      @RequestParam(required = false) String nodeId) {
+        SseEmitter emitter = new SseEmitter(EVENT_STREAM_TIMEOUT_MS);
+        FlowExecution execution = flowExecutionService.getExecution(id);
+        if (execution == null) {
+            emitter.completeWithError(new IllegalArgumentException("执行实例不存在"));
+            return emitter;
+        }
+        try {
+            checkAccessPermission(execution);
+        } catch (AccessDeniedException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        // 已结束且事件通道已清理的执行，直接返回结束事件
+        if (!executionEventBus.hasChannel(id) && ExecutionStatus.isFinished(execution.getStatus())) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(ExecutionEventBus.EXECUTION_FINISHED)
+                        .data(Map.of("status", execution.getStatus())));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
+        }
+
+        Disposable subscription = executionEventBus.subscribe(id, nodeId).subscribe(
+                event -> {
+                    try {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.getSeq()))
+                                .name(event.getType())
+                                .data(event));
+                    } catch (IOException e) {
+                        // 客户端断开
+                        throw new IllegalStateException(e);
+                    }
+                },
+                error -> {
+                    log.debug("执行事件流结束: executionId={}, error={}", id, error.getMessage());
+                    emitter.complete();
+                },
+                emitter::complete);
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        return emitter;
+    }
+
+    /**
+     * 检查当前用户是否有访问执行实例所属项目的权限
+     */
+    private void checkAccessPermission(FlowExecution execution) {
+        String currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null) {
+            return; // 未认证时跳过检查（由 Security 配置处理）
+        }
+        String projectId = execution.getProjectId();
+        if (StrUtil.isBlank(projectId)) {
+            return; // 没有关联项目的执行，与流程保持一致暂时允许访问
+        }
+        if (!projectAccessService.hasAccess(projectId, currentUserId)) {
+            throw new AccessDeniedException("You don't have access to this execution");
+        }
+    }
+
     /**
      * 处理异步回调
      */
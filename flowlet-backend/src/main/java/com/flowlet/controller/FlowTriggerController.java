@@ -0,0 +1,53 @@
+package com.flowlet.controller;
+
+import com.flowlet.dto.Result;
+import com.flowlet.dto.trigger.FlowTriggerRequest;
+import com.flowlet.dto.trigger.FlowTriggerResponse;
+import com.flowlet.service.FlowTriggerService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 流程触发器接口（Kafka 消息触发已发布流程）
+ */
+@RestController
+@RequestMapping("/api/flows/{flowId}/triggers")
+@RequiredArgsConstructor
+public class FlowTriggerController {
+
+    private final FlowTriggerService flowTriggerService;
+
+    @GetMapping
+    public Result<List<FlowTriggerResponse>> listTriggers(@PathVariable String flowId) {
+        return Result.success(flowTriggerService.listTriggers(flowId));
+    }
+
+    @PostMapping
+    public Result<FlowTriggerResponse> createTrigger(@PathVariable String flowId,
+                                                     @Valid @RequestBody FlowTriggerRequest request) {
+        return Result.success(flowTriggerService.createTrigger(flowId, request));
+    }
+
+    @PutMapping("/{id}")
+    public Result<FlowTriggerResponse> updateTrigger(@PathVariable String flowId,
+                                                     @PathVariable String id,
+                                                     @Valid @RequestBody FlowTriggerRequest request) {
+        return Result.success(flowTriggerService.updateTrigger(flowId, id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    public Result<Void> deleteTrigger(@PathVariable String flowId, @PathVariable String id) {
+        flowTriggerService.deleteTrigger(flowId, id);
+        return Result.success();
+    }
+
+    @PostMapping("/{id}/toggle")
+    public Result<FlowTriggerResponse> toggleTrigger(@PathVariable String flowId,
+                                                     @PathVariable String id,
+                                                     @RequestParam("enabled") boolean enabled) {
+        return Result.success(flowTriggerService.toggleTrigger(flowId, id, enabled));
+    }
+}
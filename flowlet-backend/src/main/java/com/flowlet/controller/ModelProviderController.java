@@ -3,6 +3,7 @@ package com.flowlet.controller;
 import com.flowlet.dto.Result;
 import com.flowlet.dto.model.CustomProviderRequest;
 import com.flowlet.dto.model.CustomProviderResponse;
+import com.flowlet.dto.model.ModelProviderHealthResponse;
 import com.flowlet.dto.model.ModelProviderListResponse;
 import com.flowlet.dto.model.ModelProviderTestRequest;
 import com.flowlet.dto.model.ModelProviderTestResponse;
@@ -15,6 +16,8 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 模型配置管理 API (管理员)
  */
@@ -75,6 +78,14 @@ public class ModelProviderController {
         return Result.success(modelProviderService.testConnection(request));
     }
 
+    /**
+     * 各提供方与模型的调用健康统计（延迟、错误率），用于多提供方路由
+     */
+    @GetMapping("/health")
+    public Result<List<ModelProviderHealthResponse>> getProviderHealth() {
+        return Result.success(modelProviderService.getProviderHealth());
+    }
+
     @PostMapping("/standard/{providerKey}/models/refresh")
     public Result<StandardProviderModelCatalogResponse> refreshStandardModels(
             @PathVariable String providerKey,
@@ -1,24 +1,34 @@
 package com.flowlet.controller;
 
+import com.flowlet.engine.http.HttpClientRegistry;
+import com.flowlet.engine.vectorstore.embedded.EmbeddedVectorStore;
+import com.flowlet.util.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Vector Store Proxy Controller
  * 
- * 将 /api/vector-stores/* 的管理 API 代理到 Python Vector Store 服务
+ * 将 /api/vector-stores/* 的管理 API 代理到 Python Vector Store 服务；
+ * 内置向量存储（provider.type 为 embedded）在本地处理，不经过 Python 服务
  */
 @Slf4j
 @RestController
@@ -26,7 +36,8 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class VectorStoreProxyController {
 
-    private final WebClient.Builder webClientBuilder;
+    private final HttpClientRegistry httpClientRegistry;
+    private final EmbeddedVectorStore embeddedVectorStore;
 
     @Value("${flowlet.vector-store.base-url:http://localhost:18091}")
     private String vectorStoreBaseUrl;
@@ -36,10 +47,20 @@ public class VectorStoreProxyController {
      */
     @PostMapping("/test-connection")
     public Mono<Map<String, Object>> testConnection(@NonNull @RequestBody Map<String, Object> request) {
+        if (isEmbedded(request)) {
+            return embeddedResponse("内置向量存储可用", () -> {
+                Map<String, Object> data = new HashMap<>();
+                data.put("success", true);
+                data.put("message", "内置向量存储可用");
+                data.put("collections", embeddedVectorStore.listCollections(
+                        SecurityUtils.getCurrentTenantId(), embeddedStore(request)));
+                return data;
+            });
+        }
         log.info("Proxying test-connection request to Vector Store service");
         log.info("Request payload: {}", request);
         
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(vectorStoreBaseUrl)).build();
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(vectorStoreBaseUrl));
         ParameterizedTypeReference<Map<String, Object>> responseType = 
                 new ParameterizedTypeReference<>() {};
         
@@ -57,9 +78,13 @@ public class VectorStoreProxyController {
      */
     @PostMapping("/list-databases")
     public Mono<Map<String, Object>> listDatabases(@NonNull @RequestBody Map<String, Object> request) {
+        if (isEmbedded(request)) {
+            // 内置存储没有 database 概念
+            return embeddedResponse("Found 0 database(s)", () -> Map.of("success", true, "databases", List.of()));
+        }
         log.info("Proxying list-databases request to Vector Store service");
         
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(vectorStoreBaseUrl)).build();
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(vectorStoreBaseUrl));
         ParameterizedTypeReference<Map<String, Object>> responseType = 
                 new ParameterizedTypeReference<>() {};
         
@@ -77,9 +102,14 @@ public class VectorStoreProxyController {
      */
     @PostMapping("/list-collections")
     public Mono<Map<String, Object>> listCollections(@NonNull @RequestBody Map<String, Object> request) {
+        if (isEmbedded(request)) {
+            return embeddedResponse("Collections listed", () -> Map.of("success", true,
+                    "collections", embeddedVectorStore.listCollections(
+                            SecurityUtils.getCurrentTenantId(), embeddedStore(request))));
+        }
         log.info("Proxying list-collections request to Vector Store service");
         
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(vectorStoreBaseUrl)).build();
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(vectorStoreBaseUrl));
         ParameterizedTypeReference<Map<String, Object>> responseType = 
                 new ParameterizedTypeReference<>() {};
         
@@ -98,10 +128,24 @@ public class VectorStoreProxyController {
      */
     @PostMapping("/create-collection")
     public Mono<Map<String, Object>> createCollection(@NonNull @RequestBody Map<String, Object> request) {
+        if (isEmbedded(request)) {
+            String collection = Objects.toString(request.get("collection"), null);
+            Object dimension = request.get("dimension");
+            Object metricType = request.containsKey("metricType") ? request.get("metricType") : request.get("metric_type");
+            return embeddedResponse("Collection '" + collection + "' created successfully", () -> {
+                Map<String, Object> data = new HashMap<>(embeddedVectorStore.createCollection(
+                        SecurityUtils.getCurrentTenantId(), embeddedStore(request), collection,
+                        dimension instanceof Number number ? number.intValue() : 0,
+                        metricType != null ? metricType.toString() : null));
+                data.put("success", true);
+                data.put("collection", collection);
+                return data;
+            });
+        }
         log.info("Proxying create-collection request to Vector Store service");
         log.debug("Create collection request payload: {}", request);
         
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(vectorStoreBaseUrl)).build();
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(vectorStoreBaseUrl));
         ParameterizedTypeReference<Map<String, Object>> responseType = 
                 new ParameterizedTypeReference<>() {};
         
@@ -120,10 +164,17 @@ public class VectorStoreProxyController {
      */
     @PostMapping("/drop-collection")
     public Mono<Map<String, Object>> dropCollection(@NonNull @RequestBody Map<String, Object> request) {
+        if (isEmbedded(request)) {
+            String collection = Objects.toString(request.get("collection"), null);
+            return embeddedResponse("Collection '" + collection + "' dropped successfully", () -> Map.of(
+                    "success", embeddedVectorStore.dropCollection(
+                            SecurityUtils.getCurrentTenantId(), embeddedStore(request), collection),
+                    "collection", collection));
+        }
         log.info("Proxying drop-collection request to Vector Store service");
         log.debug("Drop collection request payload: {}", request);
         
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(vectorStoreBaseUrl)).build();
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(vectorStoreBaseUrl));
         ParameterizedTypeReference<Map<String, Object>> responseType = 
                 new ParameterizedTypeReference<>() {};
         
@@ -136,6 +187,35 @@ public class VectorStoreProxyController {
                 .doOnError(error -> log.error("Drop collection failed", error));
     }
 
+    private boolean isEmbedded(Map<String, Object> request) {
+        return request.get("provider") instanceof Map<?, ?> provider
+                && EmbeddedVectorStore.PROVIDER_KEY.equals(provider.get("type"));
+    }
+
+    /**
+     * 内置存储的存储名取自 provider 的 base_url / baseUrl
+     */
+    private String embeddedStore(Map<String, Object> request) {
+        Map<?, ?> provider = (Map<?, ?>) request.get("provider");
+        Object baseUrl = provider.get("base_url") != null ? provider.get("base_url") : provider.get("baseUrl");
+        return baseUrl != null ? baseUrl.toString() : null;
+    }
+
+    /**
+     * 以与 Python 服务一致的 {code, message, data} 结构返回内置存储的处理结果
+     */
+    private Mono<Map<String, Object>> embeddedResponse(String message, Supplier<Map<String, Object>> action) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("code", 200);
+            response.put("message", message);
+            response.put("data", action.get());
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return Mono.just(response);
+    }
+
     /**
      * 通用代理方法（用于其他 vector-stores 端点）
      */
@@ -150,7 +230,7 @@ public class VectorStoreProxyController {
         
         log.info("Proxying {} request to: {}", method, path);
         
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(vectorStoreBaseUrl)).build();
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(vectorStoreBaseUrl));
         
         WebClient.RequestHeadersSpec<?> spec;
         
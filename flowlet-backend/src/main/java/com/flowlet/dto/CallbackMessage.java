@@ -0,0 +1,26 @@
+package com.flowlet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 回调消息 - 回调唯一标识与回调数据
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CallbackMessage {
+
+    /**
+     * 回调唯一标识
+     */
+    private String callbackKey;
+
+    /**
+     * 回调数据
+     */
+    private Map<String, Object> data;
+}
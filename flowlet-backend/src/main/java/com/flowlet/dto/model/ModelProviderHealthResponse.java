@@ -0,0 +1,30 @@
+package com.flowlet.dto.model;
+
+import lombok.Data;
+
+/**
+ * 模型提供方健康统计（按提供方与模型）
+ */
+@Data
+public class ModelProviderHealthResponse {
+    private String providerId;
+    private String provider;
+    private String model;
+    /**
+     * 成功调用延迟的 EWMA（毫秒），尚无成功样本时为空
+     */
+    private Double ewmaLatencyMs;
+    /**
+     * 错误率 EWMA（0~1）
+     */
+    private Double errorRate;
+    private Long requests;
+    private Long failures;
+    private Integer consecutiveFailures;
+    /**
+     * 是否因连续失败被降低路由优先级
+     */
+    private Boolean tripped;
+    private Long lastFailureAt;
+    private String lastError;
+}
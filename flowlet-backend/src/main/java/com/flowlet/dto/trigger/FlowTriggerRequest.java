@@ -0,0 +1,76 @@
+package com.flowlet.dto.trigger;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Kafka 触发器创建/更新请求
+ */
+@Data
+public class FlowTriggerRequest {
+
+    @NotBlank(message = "名称不能为空")
+    private String name;
+
+    @NotBlank(message = "Kafka 地址不能为空")
+    private String brokers;
+
+    @NotBlank(message = "Topic 不能为空")
+    private String topic;
+
+    /**
+     * 消费者组，为空时使用 flowlet-trigger-{触发器ID}
+     */
+    private String groupId;
+
+    /**
+     * 认证类型: none, sasl_plain, sasl_scram
+     */
+    private String authType;
+
+    private String username;
+
+    private String password;
+
+    private Boolean clearPassword;
+
+    /**
+     * 执行的流程版本，为空时使用最新发布版本
+     */
+    private Integer flowVersion;
+
+    /**
+     * 消费者并发数（同一消费者组内的消费者数量，超过分区数的部分空闲）
+     */
+    private Integer concurrency;
+
+    /**
+     * 同时在途的执行数上限，达到后暂停拉取
+     */
+    private Integer maxInFlight;
+
+    /**
+     * 位点提交时机: accepted（执行已创建）, completed（执行结束或进入等待）
+     */
+    private String commitMode;
+
+    /**
+     * 无已提交位点时的起始位置: latest, earliest
+     */
+    private String autoOffsetReset;
+
+    /**
+     * 单次拉取的最大消息数
+     */
+    private Integer maxPollRecords;
+
+    /**
+     * 输入映射：流程输入参数名 -> 消息字段路径（如 value.order.id、key、headers.traceId），
+     * 为空时消息体为 JSON 对象则直接作为输入，否则作为 value 输入
+     */
+    private Map<String, String> inputMapping;
+
+    private Boolean enabled;
+}
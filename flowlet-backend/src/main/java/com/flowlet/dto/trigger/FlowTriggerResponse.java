@@ -0,0 +1,37 @@
+package com.flowlet.dto.trigger;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Kafka 触发器详情（含运行状态）
+ */
+@Data
+public class FlowTriggerResponse {
+    private String id;
+    private String projectId;
+    private String flowId;
+    private String name;
+    private String brokers;
+    private String topic;
+    private String groupId;
+    private String authType;
+    private String username;
+    private boolean hasPassword;
+    private Integer flowVersion;
+    private Integer concurrency;
+    private Integer maxInFlight;
+    private String commitMode;
+    private String autoOffsetReset;
+    private Integer maxPollRecords;
+    private Map<String, String> inputMapping;
+    private Boolean enabled;
+    /**
+     * 运行状态，未运行时为空
+     */
+    private Map<String, Object> runtime;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
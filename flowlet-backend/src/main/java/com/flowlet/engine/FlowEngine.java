@@ -2,8 +2,15 @@ package com.flowlet.engine;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
 import com.flowlet.dto.FlowGraphDTO;
+import com.flowlet.engine.cache.NodeResultCacheManager;
+import com.flowlet.engine.callback.PendingCallbackRegistry;
 import com.flowlet.engine.handler.NodeHandler;
+import com.flowlet.engine.event.ExecutionEventBus;
+import com.flowlet.engine.subflow.SubflowInvocationCoordinator;
+import com.flowlet.engine.timer.FlowTimerScheduler;
+import com.flowlet.engine.util.VectorCodec;
 import com.flowlet.entity.*;
 import com.flowlet.enums.ExecutionStatus;
 import com.flowlet.enums.NodeExecutionStatus;
@@ -38,6 +45,12 @@ public class FlowEngine {
     private final AsyncCallbackMapper asyncCallbackMapper;
     private final ObjectMapper objectMapper;
     private final ExecutionConditionEvaluator executionConditionEvaluator;
+    private final SubflowInvocationCoordinator subflowInvocationCoordinator;
+    private final ExecutionEventBus executionEventBus;
+    private final NodeResultCacheManager nodeResultCacheManager;
+    private final PendingCallbackRegistry pendingCallbackRegistry;
+    private final FlowletProperties flowletProperties;
+    private final FlowTimerScheduler flowTimerScheduler;
 
     private Map<String, NodeHandler> handlerMap;
     
@@ -167,9 +180,22 @@ public class FlowEngine {
 
             // 更新节点状态为运行中
             updateNodeExecutionStatus(nodeExecution.getId(), NodeExecutionStatus.RUNNING, null, null);
-
-            // 执行节点
-            NodeHandler.NodeResult result = handler.execute(node, context);
+            executionEventBus.publish(context.getExecutionId(), ExecutionEventBus.NODE_STARTED, node.getId(),
+                    Map.of("nodeType", nodeType, "nodeName", getNodeLabel(node)));
+
+            // 执行节点（配置了 cachePolicy 且命中结果缓存时直接复用输出）
+            NodeResultCacheManager.Lookup cacheLookup = nodeResultCacheManager.lookup(node, nodeType, context);
+            NodeHandler.NodeResult result;
+            if (cacheLookup != null && cacheLookup.hit() != null) {
+                log.info("节点命中结果缓存: nodeId={}, tier={}", node.getId(), cacheLookup.hit().tier());
+                result = NodeHandler.NodeResult.cached(cacheLookup.hit().output(),
+                        nodeResultCacheManager.describeHit(cacheLookup));
+            } else {
+                result = handler.execute(node, context);
+                if (cacheLookup != null && result.isSuccess() && !result.isNeedPause() && !result.isSkipped()) {
+                    nodeResultCacheManager.put(cacheLookup, result.getOutput());
+                }
+            }
 
             if (result.isSuccess()) {
                 if (result.isNeedPause()) {
@@ -407,24 +433,44 @@ public class FlowEngine {
         callback.setNodeExecutionId(nodeExecution.getId());
         callback.setCallbackKey(result.getCallbackKey());
         callback.setStatus("waiting");
-        callback.setExpiredAt(LocalDateTime.now().plusHours(24)); // 24小时过期
         callback.setCreatedAt(LocalDateTime.now());
 
-        // 从节点配置获取topic
+        // 从节点配置获取topic与回调超时（毫秒），未配置超时时使用默认有效期
+        long timeoutMs = flowletProperties.getCallback().getDefaultTimeoutSeconds() * 1000;
         if (node.getData() != null && node.getData().getConfig() != null) {
             Map<String, Object> config = node.getData().getConfig();
             if (config.containsKey("topic")) {
                 callback.setKafkaTopic((String) config.get("topic"));
             }
+            if (config.get("callbackTimeout") instanceof Number callbackTimeout && callbackTimeout.longValue() > 0) {
+                timeoutMs = callbackTimeout.longValue();
+            }
         }
+        // 定时恢复的节点从恢复时间起计算有效期，过期扫描不会早于定时器触发
+        LocalDateTime expiryBase = result.getResumeAt() != null && result.getResumeAt().isAfter(callback.getCreatedAt())
+                ? result.getResumeAt()
+                : callback.getCreatedAt();
+        callback.setExpiredAt(expiryBase.plusNanos(timeoutMs * 1_000_000));
 
         asyncCallbackMapper.insert(callback);
+        pendingCallbackRegistry.register(callback);
 
         // 更新流程执行状态为暂停
         updateExecutionStatus(context.getExecutionId(), ExecutionStatus.PAUSED, node.getId());
         saveContext(context);
 
         context.setPaused(true);
+        executionEventBus.publish(context.getExecutionId(), ExecutionEventBus.NODE_WAITING, node.getId(),
+                Map.of("callbackKey", result.getCallbackKey()));
+
+        // 等待的子流程可能已先于暂停结束
+        subflowInvocationCoordinator.onCallbackParked(result.getCallbackKey());
+
+        // 定时恢复：暂停状态落库后再创建定时器，到期时以回调方式唤醒
+        if (result.getResumeAt() != null) {
+            flowTimerScheduler.schedule(context.getExecutionId(), node.getId(), result.getCallbackKey(),
+                    result.getResumeAt());
+        }
     }
 
     /**
@@ -443,16 +489,30 @@ public class FlowEngine {
         // 标记节点已完成
         context.markNodeCompleted(node.getId());
 
-        // 更新节点状态
+        // 更新节点状态（向量默认以维度占位符持久化，节点配置 persistVectors=true 时保留原值）
         String outputJson = null;
         if (result.getOutput() != null) {
             try {
-                outputJson = objectMapper.writeValueAsString(result.getOutput());
+                Object persistedOutput = isPersistVectors(node)
+                        ? result.getOutput()
+                        : VectorCodec.stripVectors(result.getOutput());
+                outputJson = objectMapper.writeValueAsString(persistedOutput);
             } catch (JsonProcessingException e) {
                 log.warn("序列化节点输出失败: {}", e.getMessage());
             }
         }
-        updateNodeExecutionStatus(nodeExecution.getId(), NodeExecutionStatus.COMPLETED, outputJson, null);
+        // 成功结果携带的执行过程数据（如结果缓存命中信息）一并记录
+        String executionDataJson = null;
+        if (result.getExecutionData() != null) {
+            try {
+                executionDataJson = objectMapper.writeValueAsString(result.getExecutionData());
+            } catch (JsonProcessingException e) {
+                log.warn("序列化执行过程数据失败: {}", e.getMessage());
+            }
+        }
+        updateNodeExecutionStatus(nodeExecution.getId(), NodeExecutionStatus.COMPLETED, outputJson, null,
+                executionDataJson);
+        executionEventBus.publish(context.getExecutionId(), ExecutionEventBus.NODE_COMPLETED, node.getId(), null);
 
         // 判断是否为结束节点
         if (NodeType.END.getValue().equals(getNodeType(node))) {
@@ -547,6 +607,11 @@ public class FlowEngine {
             execution.setUpdatedAt(LocalDateTime.now());
             flowExecutionMapper.updateById(execution);
         }
+
+        executionEventBus.publish(context.getExecutionId(), ExecutionEventBus.NODE_FAILED, nodeExecution.getNodeId(),
+                Map.of("error", errorMessage != null ? errorMessage : ""));
+        executionEventBus.finish(context.getExecutionId(), ExecutionStatus.FAILED.getValue());
+        subflowInvocationCoordinator.onExecutionFinished(context.getExecutionId());
     }
 
     /**
@@ -571,6 +636,9 @@ public class FlowEngine {
 
             flowExecutionMapper.updateById(execution);
         }
+
+        executionEventBus.finish(context.getExecutionId(), ExecutionStatus.COMPLETED.getValue());
+        subflowInvocationCoordinator.onExecutionFinished(context.getExecutionId());
     }
 
     /**
@@ -782,6 +850,14 @@ public class FlowEngine {
         log.info("节点输出别名设置成功: nodeId={}, alias={}", node.getId(), alias);
     }
 
+    private boolean isPersistVectors(FlowGraphDTO.NodeDTO node) {
+        if (node.getData() == null || node.getData().getConfig() == null) {
+            return false;
+        }
+        Object value = node.getData().getConfig().get("persistVectors");
+        return value != null && Boolean.parseBoolean(value.toString());
+    }
+
     /**
      * 更新节点执行状态（包含执行过程数据）
      */
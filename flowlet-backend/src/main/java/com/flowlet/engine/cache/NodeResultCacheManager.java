@@ -0,0 +1,395 @@
+package com.flowlet.engine.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.dto.FlowGraphDTO;
+import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.ExpressionResolver;
+import com.flowlet.entity.FlowExecution;
+import com.flowlet.entity.NodeResultCache;
+import com.flowlet.enums.NodeType;
+import com.flowlet.mapper.FlowExecutionMapper;
+import com.flowlet.mapper.NodeResultCacheMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点结果缓存
+ *
+ * 代码、转换、API 节点配置 cachePolicy 后，FlowEngine 在执行前按（作用域, 节点, 节点配置, 键表达式取值）查询缓存，
+ * 命中时直接复用输出，不执行处理器。内存层为 Caffeine（W-TinyLFU 淘汰），每个（作用域, 节点）一个分区，
+ * 分区容量取 cachePolicy.maxEntries；可选的磁盘层为 SQLite 表 node_result_cache，命中后回填内存层。
+ * 输出以 JSON 保存，每次命中返回新的副本，下游节点修改输出不会影响缓存。
+ *
+ * cachePolicy 示例：{"enabled": true, "keyExpression": "{{nodes.start.userId}}", "ttlSeconds": 600,
+ * "maxEntries": 500, "scope": "project"}，keyExpression 也可以是表达式数组。
+ */
+@Slf4j
+@Component
+public class NodeResultCacheManager {
+
+    public static final String SCOPE_PROJECT = "project";
+    public static final String SCOPE_FLOW = "flow";
+
+    private static final Set<String> CACHEABLE_NODE_TYPES = Set.of(
+            NodeType.CODE.getValue(), NodeType.TRANSFORM.getValue(), NodeType.API.getValue());
+
+    private final FlowletProperties.NodeResultCacheProperties properties;
+    private final NodeResultCacheMapper nodeResultCacheMapper;
+    private final FlowExecutionMapper flowExecutionMapper;
+    private final ExpressionResolver expressionResolver;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper canonicalMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, Cache<String, CachedOutput>> partitions;
+    private final Cache<String, String> executionProjects = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * 磁盘写入线程（SQLite 单写者，串行写入即可）
+     */
+    private final ExecutorService diskWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "node-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NodeResultCacheManager(FlowletProperties flowletProperties,
+                                  NodeResultCacheMapper nodeResultCacheMapper,
+                                  FlowExecutionMapper flowExecutionMapper,
+                                  ExpressionResolver expressionResolver,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.properties = flowletProperties.getNodeResultCache();
+        this.nodeResultCacheMapper = nodeResultCacheMapper;
+        this.flowExecutionMapper = flowExecutionMapper;
+        this.expressionResolver = expressionResolver;
+        this.objectMapper = objectMapper;
+        this.canonicalMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this.meterRegistry = meterRegistry;
+        this.partitions = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, properties.getMaxPartitions()))
+                .build();
+    }
+
+    /**
+     * 节点的缓存策略
+     */
+    public record Policy(List<String> keyExpressions, long ttlSeconds, int maxEntries, String scope) {
+    }
+
+    /**
+     * 缓存命中结果
+     *
+     * @param output         缓存的节点输出（副本）
+     * @param tier           命中层级（memory/disk）
+     * @param cachedAtMillis 写入缓存的时间
+     */
+    public record CacheHit(Object output, String tier, long cachedAtMillis) {
+    }
+
+    /**
+     * 一次缓存查询，未命中时 hit 为 null，执行成功后以同一对象写回
+     */
+    public record Lookup(String nodeType, String partitionKey, String cacheKey, Policy policy, CacheHit hit) {
+    }
+
+    private record CachedOutput(String outputJson, long cachedAtMillis, long expiresAtMillis) {
+    }
+
+    /**
+     * 查询节点结果缓存
+     *
+     * @return 节点未配置缓存策略或无法计算缓存键时返回 null
+     */
+    public Lookup lookup(FlowGraphDTO.NodeDTO node, String nodeType, ExecutionContext context) {
+        if (!properties.isEnabled() || !CACHEABLE_NODE_TYPES.contains(nodeType)
+                || node.getData() == null || node.getData().getConfig() == null) {
+            return null;
+        }
+        Map<String, Object> config = node.getData().getConfig();
+        Policy policy = parsePolicy(config.get("cachePolicy"));
+        if (policy == null) {
+            return null;
+        }
+
+        String partitionKey;
+        String cacheKey;
+        try {
+            partitionKey = partitionKey(policy.scope(), context, node.getId());
+            List<Object> keyValues = new ArrayList<>(policy.keyExpressions().size());
+            for (String expression : policy.keyExpressions()) {
+                keyValues.add(expressionResolver.resolve(expression, context));
+            }
+            Map<String, Object> keyMaterial = new LinkedHashMap<>();
+            keyMaterial.put("partition", partitionKey);
+            keyMaterial.put("config", config);
+            keyMaterial.put("key", keyValues);
+            cacheKey = Hashing.sha256()
+                    .hashString(canonicalMapper.writeValueAsString(keyMaterial), StandardCharsets.UTF_8)
+                    .toString();
+        } catch (Exception e) {
+            log.warn("计算节点缓存键失败，本次不使用缓存: nodeId={}, error={}", node.getId(), e.getMessage());
+            return null;
+        }
+
+        CacheHit hit = get(nodeType, partitionKey, cacheKey, policy);
+        return new Lookup(nodeType, partitionKey, cacheKey, policy, hit);
+    }
+
+    /**
+     * 写入节点输出（输出无法序列化时不缓存）
+     */
+    public void put(Lookup lookup, Object output) {
+        String outputJson;
+        try {
+            outputJson = objectMapper.writeValueAsString(output);
+        } catch (JsonProcessingException e) {
+            log.debug("节点输出无法序列化，不缓存: key={}, error={}", lookup.cacheKey(), e.getMessage());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAtMillis = now + TimeUnit.SECONDS.toMillis(lookup.policy().ttlSeconds());
+        partition(lookup.partitionKey(), lookup.policy().maxEntries())
+                .put(lookup.cacheKey(), new CachedOutput(outputJson, now, expiresAtMillis));
+
+        if (!properties.isDiskEnabled()) {
+            return;
+        }
+        diskWriter.execute(() -> {
+            try {
+                NodeResultCache record = new NodeResultCache();
+                record.setCacheKey(lookup.cacheKey());
+                record.setPartitionKey(lookup.partitionKey());
+                record.setNodeType(lookup.nodeType());
+                record.setOutputJson(outputJson);
+                record.setCreatedAt(toLocalDateTime(now));
+                record.setExpiresAt(toLocalDateTime(expiresAtMillis));
+                nodeResultCacheMapper.upsert(record);
+            } catch (Exception e) {
+                log.warn("写入节点结果磁盘缓存失败: key={}, error={}", lookup.cacheKey(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 命中信息，记录到节点执行记录的 executionData
+     */
+    public Map<String, Object> describeHit(Lookup lookup) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("cacheHit", true);
+        data.put("cacheTier", lookup.hit().tier());
+        data.put("cacheKey", lookup.cacheKey());
+        data.put("cacheScope", lookup.partitionKey().substring(0, lookup.partitionKey().indexOf(':')));
+        data.put("cachedAt", toLocalDateTime(lookup.hit().cachedAtMillis()).toString());
+        return data;
+    }
+
+    private CacheHit get(String nodeType, String partitionKey, String cacheKey, Policy policy) {
+        Cache<String, CachedOutput> partition = partition(partitionKey, policy.maxEntries());
+        CachedOutput cached = partition.getIfPresent(cacheKey);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            CacheHit hit = toHit(cached, "memory");
+            if (hit != null) {
+                record(nodeType, "hit_memory");
+                return hit;
+            }
+        }
+
+        if (properties.isDiskEnabled()) {
+            CachedOutput diskCached = getFromDisk(cacheKey);
+            if (diskCached != null) {
+                CacheHit hit = toHit(diskCached, "disk");
+                if (hit != null) {
+                    partition.put(cacheKey, diskCached);
+                    record(nodeType, "hit_disk");
+                    return hit;
+                }
+            }
+        }
+
+        record(nodeType, "miss");
+        return null;
+    }
+
+    private CacheHit toHit(CachedOutput cached, String tier) {
+        try {
+            Object output = cached.outputJson() != null ? objectMapper.readValue(cached.outputJson(), Object.class) : null;
+            return new CacheHit(output, tier, cached.cachedAtMillis());
+        } catch (JsonProcessingException e) {
+            log.warn("读取节点缓存失败: error={}", e.getMessage());
+            return null;
+        }
+    }
+
+    private CachedOutput getFromDisk(String cacheKey) {
+        try {
+            NodeResultCache record = nodeResultCacheMapper.selectOne(new QueryWrapper<NodeResultCache>()
+                    .eq("cache_key", cacheKey)
+                    .gt("expires_at", LocalDateTime.now()));
+            if (record == null) {
+                return null;
+            }
+            long cachedAtMillis = record.getCreatedAt() != null ? toEpochMillis(record.getCreatedAt()) : 0L;
+            return new CachedOutput(record.getOutputJson(), cachedAtMillis, toEpochMillis(record.getExpiresAt()));
+        } catch (Exception e) {
+            log.warn("读取节点结果磁盘缓存失败: key={}, error={}", cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private Cache<String, CachedOutput> partition(String partitionKey, int maxEntries) {
+        Cache<String, CachedOutput> partition = partitions.get(partitionKey, key -> Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new CachedOutputExpiry())
+                .build());
+        // 节点的 maxEntries 调整后原地修改分区容量
+        partition.policy().eviction().ifPresent(eviction -> {
+            if (eviction.getMaximum() != maxEntries) {
+                eviction.setMaximum(maxEntries);
+            }
+        });
+        return partition;
+    }
+
+    private String partitionKey(String scope, ExecutionContext context, String nodeId) {
+        if (SCOPE_PROJECT.equals(scope)) {
+            String projectId = executionProjects.get(context.getExecutionId(), executionId -> {
+                FlowExecution execution = flowExecutionMapper.selectById(executionId);
+                return execution != null && execution.getProjectId() != null ? execution.getProjectId() : "";
+            });
+            if (projectId != null && !projectId.isEmpty()) {
+                return SCOPE_PROJECT + ":" + projectId + ":" + nodeId;
+            }
+        }
+        // 流程作用域，或无法确定项目时按流程隔离
+        return SCOPE_FLOW + ":" + context.getFlowId() + ":" + nodeId;
+    }
+
+    private Policy parsePolicy(Object value) {
+        if (!(value instanceof Map<?, ?> policy)) {
+            return null;
+        }
+        Object enabled = policy.get("enabled");
+        if (enabled != null && !Boolean.parseBoolean(enabled.toString())) {
+            return null;
+        }
+        List<String> keyExpressions = new ArrayList<>();
+        Object keyExpression = policy.get("keyExpression");
+        if (keyExpression instanceof List<?> list) {
+            list.stream().filter(item -> item != null && !item.toString().isBlank())
+                    .forEach(item -> keyExpressions.add(item.toString()));
+        } else if (keyExpression != null && !keyExpression.toString().isBlank()) {
+            keyExpressions.add(keyExpression.toString());
+        }
+        if (keyExpressions.isEmpty()) {
+            // 没有键表达式时无法判断两次执行的输入是否相同，不缓存
+            log.debug("cachePolicy 未配置 keyExpression，忽略");
+            return null;
+        }
+        long ttlSeconds = toLong(policy.get("ttlSeconds"), properties.getDefaultTtlSeconds());
+        long maxEntries = toLong(policy.get("maxEntries"), properties.getDefaultMaxEntries());
+        String scope = SCOPE_PROJECT.equals(String.valueOf(policy.get("scope"))) ? SCOPE_PROJECT : SCOPE_FLOW;
+        return new Policy(keyExpressions, ttlSeconds > 0 ? ttlSeconds : properties.getDefaultTtlSeconds(),
+                (int) Math.max(1, Math.min(maxEntries, Integer.MAX_VALUE)), scope);
+    }
+
+    private long toLong(Object value, long fallback) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            try {
+                return Long.parseLong(text.trim());
+            } catch (NumberFormatException ignored) {
+                return fallback;
+            }
+        }
+        return fallback;
+    }
+
+    private void record(String nodeType, String result) {
+        meterRegistry.counter("flowlet.node.cache", "node_type", nodeType, "result", result).increment();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 按条目自身的过期时间淘汰，读取不续期
+     */
+    private static final class CachedOutputExpiry implements Expiry<String, CachedOutput> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedOutput value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedOutput value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedOutput value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * 定期清理过期的磁盘缓存
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 300000)
+    public void cleanupExpired() {
+        if (!properties.isDiskEnabled()) {
+            return;
+        }
+        int deleted = nodeResultCacheMapper.delete(new QueryWrapper<NodeResultCache>()
+                .lt("expires_at", LocalDateTime.now()));
+        if (deleted > 0) {
+            log.info("清理过期的节点结果缓存: count={}", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        diskWriter.shutdown();
+        try {
+            diskWriter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.flowlet.engine.callback;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.entity.AsyncCallback;
+import com.flowlet.mapper.AsyncCallbackMapper;
+import com.flowlet.service.FlowAsyncExecutor;
+import com.flowlet.service.FlowExecutionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 异步回调过期扫描、重驱与归档
+ *
+ * 定期从内存索引中按过期时间取出到期回调，分批在事务内置为 expired 并将对应执行置为 timeout；
+ * 已记录（received）后异步恢复的回调若因进程退出或恢复失败而滞留，由重驱扫描再次交给异步执行器恢复，
+ * 多次仍未完成时置为 failed 并结束执行；已结束的回调行在保留期后移入归档表，使 async_callback 只保留活跃数据。
+ */
+@Slf4j
+@Component
+public class CallbackSweeper {
+
+    private final PendingCallbackRegistry pendingCallbackRegistry;
+    private final FlowExecutionService flowExecutionService;
+    private final FlowAsyncExecutor flowAsyncExecutor;
+    private final AsyncCallbackMapper asyncCallbackMapper;
+    private final ObjectMapper objectMapper;
+    private final FlowletProperties.CallbackProperties properties;
+    private final Counter expiredCounter;
+    private final Counter redrivenCounter;
+    private final Counter failedCounter;
+    private final Counter archivedCounter;
+
+    /**
+     * 本进程启动时间，早于该时间接收的回调不可能仍在本进程中恢复，可立即重驱
+     */
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    /**
+     * 回调ID -> 已重驱次数与最近一次重驱时间
+     */
+    private final Map<String, RedriveState> redriveStates = new ConcurrentHashMap<>();
+
+    public CallbackSweeper(PendingCallbackRegistry pendingCallbackRegistry,
+                           FlowExecutionService flowExecutionService,
+                           FlowAsyncExecutor flowAsyncExecutor,
+                           AsyncCallbackMapper asyncCallbackMapper,
+                           ObjectMapper objectMapper,
+                           FlowletProperties flowletProperties,
+                           MeterRegistry meterRegistry) {
+        this.pendingCallbackRegistry = pendingCallbackRegistry;
+        this.flowExecutionService = flowExecutionService;
+        this.flowAsyncExecutor = flowAsyncExecutor;
+        this.asyncCallbackMapper = asyncCallbackMapper;
+        this.objectMapper = objectMapper;
+        this.properties = flowletProperties.getCallback();
+        this.expiredCounter = meterRegistry.counter("flowlet.callback.expired");
+        this.redrivenCounter = meterRegistry.counter("flowlet.callback.redriven");
+        this.failedCounter = meterRegistry.counter("flowlet.callback.failed");
+        this.archivedCounter = meterRegistry.counter("flowlet.callback.archived");
+    }
+
+    /**
+     * 处理已到期的回调
+     */
+    @Scheduled(fixedDelayString = "${flowlet.callback.sweep-interval-ms:5000}", initialDelay = 10000)
+    public void sweepExpired() {
+        int batchSize = Math.max(1, properties.getSweepBatchSize());
+        int expired = 0;
+        int timedOut = 0;
+        while (true) {
+            List<AsyncCallback> batch = pendingCallbackRegistry.peekExpired(System.currentTimeMillis(), batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                timedOut += flowExecutionService.expireCallbacks(batch);
+            } catch (Exception e) {
+                // 事务回滚后回调仍在索引中，下一轮扫描重试
+                log.warn("处理过期回调失败，稍后重试: count={}, error={}", batch.size(), e.getMessage());
+                break;
+            }
+            expired += batch.size();
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            expiredCounter.increment(expired);
+            log.info("过期回调处理完成: callbacks={}, timedOutExecutions={}", expired, timedOut);
+        }
+    }
+
+    /**
+     * 重驱滞留在 received 状态的回调
+     *
+     * 接收时间早于本进程启动时间、或超过重驱间隔仍未完成的回调再次交给异步执行器恢复；
+     * 完成回调时会重新校验状态，与仍在进行中的恢复重叠时只会生效一次。达到重驱次数上限后置为 failed。
+     */
+    @Scheduled(fixedDelayString = "${flowlet.callback.sweep-interval-ms:5000}", initialDelay = 10000)
+    public void redriveReceived() {
+        long redriveAfterMs = properties.getRedriveAfterSeconds() * 1000;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusSeconds(properties.getRedriveAfterSeconds());
+        LocalDateTime receivedBefore = staleBefore.isAfter(startedAt) ? staleBefore : startedAt;
+        int batchSize = Math.max(1, properties.getSweepBatchSize());
+
+        List<AsyncCallback> stale;
+        try {
+            stale = asyncCallbackMapper.selectList(new LambdaQueryWrapper<AsyncCallback>()
+                    .eq(AsyncCallback::getStatus, "received")
+                    .lt(AsyncCallback::getReceivedAt, receivedBefore)
+                    .orderByAsc(AsyncCallback::getReceivedAt)
+                    .last("LIMIT " + batchSize));
+        } catch (Exception e) {
+            log.warn("查询滞留回调失败，稍后重试: error={}", e.getMessage());
+            return;
+        }
+
+        long nowMs = System.currentTimeMillis();
+        Set<String> seen = new HashSet<>();
+        int redriven = 0;
+        int failed = 0;
+        for (AsyncCallback callback : stale) {
+            seen.add(callback.getId());
+            RedriveState state = redriveStates.get(callback.getId());
+            if (state != null && nowMs - state.lastAttemptAt() < redriveAfterMs) {
+                continue;
+            }
+            int attempts = state != null ? state.attempts() : 0;
+            if (attempts >= properties.getRedriveMaxAttempts()) {
+                try {
+                    if (flowExecutionService.failCallback(callback,
+                            "回调已接收但恢复流程失败，已重试 " + attempts + " 次")) {
+                        failed++;
+                    }
+                    redriveStates.remove(callback.getId());
+                } catch (Exception e) {
+                    log.warn("标记回调失败出错，稍后重试: callbackKey={}, error={}",
+                            callback.getCallbackKey(), e.getMessage());
+                }
+                continue;
+            }
+
+            redriveStates.put(callback.getId(), new RedriveState(attempts + 1, nowMs));
+            log.info("重驱滞留回调: callbackKey={}, executionId={}, receivedAt={}, attempt={}",
+                    callback.getCallbackKey(), callback.getExecutionId(), callback.getReceivedAt(), attempts + 1);
+            flowAsyncExecutor.completeCallbackAsync(callback, readCallbackData(callback));
+            redriven++;
+        }
+
+        // 本轮已看到全部滞留回调时，清理已完成回调的重驱记录
+        if (stale.size() < batchSize) {
+            redriveStates.keySet().retainAll(seen);
+        }
+        if (redriven > 0) {
+            redrivenCounter.increment(redriven);
+        }
+        if (failed > 0) {
+            failedCounter.increment(failed);
+            log.warn("回调重驱次数已达上限，已置为失败: count={}", failed);
+        }
+    }
+
+    private Map<String, Object> readCallbackData(AsyncCallback callback) {
+        if (callback.getCallbackData() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(callback.getCallbackData(), new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            log.warn("解析回调数据失败，按空数据恢复: callbackKey={}, error={}", callback.getCallbackKey(), e.getMessage());
+            return null;
+        }
+    }
+
+    private record RedriveState(int attempts, long lastAttemptAt) {
+    }
+
+    /**
+     * 归档已结束的回调
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void archiveFinished() {
+        int batchSize = Math.max(1, properties.getArchiveBatchSize());
+        LocalDateTime createdBefore = LocalDateTime.now().minusSeconds(properties.getArchiveAfterSeconds());
+        int archived = 0;
+        while (true) {
+            int count;
+            try {
+                count = flowExecutionService.archiveCallbacks(createdBefore, batchSize);
+            } catch (Exception e) {
+                log.warn("归档回调失败，稍后重试: error={}", e.getMessage());
+                break;
+            }
+            archived += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            archivedCounter.increment(archived);
+            log.info("已归档结束的回调: count={}", archived);
+        }
+    }
+}
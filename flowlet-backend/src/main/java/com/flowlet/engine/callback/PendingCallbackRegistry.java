@@ -0,0 +1,203 @@
+package com.flowlet.engine.callback;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.flowlet.entity.AsyncCallback;
+import com.flowlet.mapper.AsyncCallbackMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 等待中回调的内存索引
+ *
+ * 以 callbackKey 索引所有 waiting 状态的回调，回调查找直接命中内存；另按过期时间维护有序集合供过期扫描按批取出。
+ * 启动时从数据库重建。索引只是加速手段，状态流转仍以数据库的条件更新为准：未命中时回落到数据库查询并补回索引，
+ * 因此索引暂时缺项（如事务回滚、启动重建完成前）不会影响正确性。
+ */
+@Slf4j
+@Component
+public class PendingCallbackRegistry {
+
+    private static final String STATUS_WAITING = "waiting";
+
+    private final AsyncCallbackMapper asyncCallbackMapper;
+
+    /**
+     * callbackKey -> 等待中的回调
+     */
+    private final Map<String, PendingCallback> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 按过期时间排序，过期时间相同时按 callbackKey 区分
+     */
+    private final ConcurrentSkipListSet<PendingCallback> expiryOrder = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(PendingCallback::expiresAtMillis)
+                    .thenComparing(PendingCallback::callbackKey));
+
+    public PendingCallbackRegistry(AsyncCallbackMapper asyncCallbackMapper, MeterRegistry meterRegistry) {
+        this.asyncCallbackMapper = asyncCallbackMapper;
+        Gauge.builder("flowlet.callback.pending", pending, Map::size)
+                .description("等待中的异步回调数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 从数据库重建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<AsyncCallback> waiting = asyncCallbackMapper.selectList(new LambdaQueryWrapper<AsyncCallback>()
+                .select(AsyncCallback::getId, AsyncCallback::getExecutionId, AsyncCallback::getNodeExecutionId,
+                        AsyncCallback::getCallbackKey, AsyncCallback::getKafkaTopic, AsyncCallback::getExpiredAt,
+                        AsyncCallback::getCreatedAt)
+                .eq(AsyncCallback::getStatus, STATUS_WAITING));
+        waiting.forEach(this::put);
+        log.info("等待中回调索引已重建: count={}", waiting.size());
+    }
+
+    /**
+     * 登记新写入的等待中回调；处于事务中时在提交后登记，避免回滚后残留
+     */
+    public void register(AsyncCallback callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(callback);
+                }
+            });
+        } else {
+            put(callback);
+        }
+    }
+
+    /**
+     * 查找等待中的回调
+     *
+     * @return 新构造的回调记录（调用方可自由修改），不存在等待中的回调时返回 null
+     */
+    public AsyncCallback lookup(String callbackKey) {
+        if (callbackKey == null) {
+            return null;
+        }
+        PendingCallback entry = pending.get(callbackKey);
+        if (entry != null) {
+            return entry.toEntity();
+        }
+
+        AsyncCallback callback = asyncCallbackMapper.selectOne(new LambdaQueryWrapper<AsyncCallback>()
+                .eq(AsyncCallback::getCallbackKey, callbackKey)
+                .eq(AsyncCallback::getStatus, STATUS_WAITING));
+        if (callback != null) {
+            log.debug("回调索引未命中，已从数据库补回: callbackKey={}", callbackKey);
+            put(callback);
+        }
+        return callback;
+    }
+
+    /**
+     * 回调已离开 waiting 状态（已接收或已过期）后移出索引；处于事务中时在提交后移出，
+     * 事务回滚时回调仍留在索引中，可继续被查找和过期扫描
+     */
+    public void remove(String callbackKey) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(callbackKey);
+                }
+            });
+        } else {
+            evict(callbackKey);
+        }
+    }
+
+    /**
+     * 按过期时间顺序列出已到期的回调（不移出索引，由处理方在状态更新后调用 remove）
+     *
+     * @param limit 最多返回的数量
+     */
+    public List<AsyncCallback> peekExpired(long nowMillis, int limit) {
+        List<AsyncCallback> expired = new ArrayList<>();
+        for (PendingCallback entry : expiryOrder) {
+            if (entry.expiresAtMillis() > nowMillis || expired.size() >= limit) {
+                break;
+            }
+            expired.add(entry.toEntity());
+        }
+        return expired;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    private void evict(String callbackKey) {
+        PendingCallback entry = pending.remove(callbackKey);
+        if (entry != null) {
+            expiryOrder.remove(entry);
+        }
+    }
+
+    private void put(AsyncCallback callback) {
+        if (callback.getCallbackKey() == null) {
+            return;
+        }
+        PendingCallback entry = PendingCallback.of(callback);
+        PendingCallback previous = pending.put(entry.callbackKey(), entry);
+        if (previous != null) {
+            expiryOrder.remove(previous);
+        }
+        expiryOrder.add(entry);
+    }
+
+    /**
+     * 索引中保存的回调字段（不含回调数据）
+     */
+    private record PendingCallback(String id,
+                                   String executionId,
+                                   String nodeExecutionId,
+                                   String callbackKey,
+                                   String kafkaTopic,
+                                   LocalDateTime expiredAt,
+                                   LocalDateTime createdAt,
+                                   long expiresAtMillis) {
+
+        static PendingCallback of(AsyncCallback callback) {
+            LocalDateTime expiredAt = callback.getExpiredAt();
+            long expiresAtMillis = expiredAt != null
+                    ? expiredAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : Long.MAX_VALUE;
+            return new PendingCallback(callback.getId(), callback.getExecutionId(), callback.getNodeExecutionId(),
+                    callback.getCallbackKey(), callback.getKafkaTopic(), expiredAt, callback.getCreatedAt(),
+                    expiresAtMillis);
+        }
+
+        AsyncCallback toEntity() {
+            AsyncCallback callback = new AsyncCallback();
+            callback.setId(id);
+            callback.setExecutionId(executionId);
+            callback.setNodeExecutionId(nodeExecutionId);
+            callback.setCallbackKey(callbackKey);
+            callback.setKafkaTopic(kafkaTopic);
+            callback.setStatus(STATUS_WAITING);
+            callback.setExpiredAt(expiredAt);
+            callback.setCreatedAt(createdAt);
+            return callback;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.flowlet.engine.code;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量执行请求：同一段代码对应多组输入，代码首次随请求注册，之后只发送内容哈希
+ */
+@Data
+public class CodeBatchExecutionRequest {
+    private String language;
+    private String codeHash;
+    private String code;
+    private Integer memoryMb;
+    private Boolean allowNetwork;
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private Map<String, Object> inputs;
+        private Map<String, Object> context;
+        private Integer timeoutMs;
+    }
+}
@@ -0,0 +1,23 @@
+package com.flowlet.engine.code;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量执行响应，results 与请求的 items 一一对应
+ */
+@Data
+public class CodeBatchExecutionResponse {
+
+    /**
+     * 执行服务未登记该代码哈希（如服务重启），需要携带代码重新发送
+     */
+    public static final String CODE_NOT_REGISTERED = "CODE_NOT_REGISTERED";
+
+    private boolean success;
+    private String codeHash;
+    private String errorCode;
+    private String errorMessage;
+    private List<CodeExecutionResponse> results;
+}
@@ -0,0 +1,254 @@
+package com.flowlet.engine.code;
+
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.engine.http.HttpClientRegistry;
+import com.flowlet.util.SecurityUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码执行微批器
+ *
+ * 将并发的代码节点调用（典型为 ForEach 并行迭代）按（租户, 执行实例, 代码哈希, 语言, 内存限制, 网络开关）分组，
+ * 每组一次 /execute/batch 调用：代码只编译一次，各组输入在同一解释器中依次执行，每项在全新的模块命名空间中运行，
+ * 每项保留各自的超时、输出与错误；不同租户、不同执行的调用不会共用执行进程。代码首次随请求登记，之后只发送 sha256 哈希；
+ * 执行服务返回未登记（如重启）时携带代码重发一次。
+ * 同一轮攒到的调用按组拆开，每组作为独立任务并发发送（各占一个在途许可），不同执行的组不会互相排队等待。
+ */
+@Slf4j
+@Component
+public class CodeExecutionBatcher {
+
+    private final FlowletProperties.CodeExecutorProperties properties;
+    private final HttpClientRegistry httpClientRegistry;
+
+    private final LinkedBlockingQueue<PendingExecution> queue;
+    private final Semaphore batchPermits;
+    private final Cache<String, Boolean> registeredHashes;
+    private final ExecutorService batchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "code-execution-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+
+    public CodeExecutionBatcher(FlowletProperties flowletProperties,
+                                HttpClientRegistry httpClientRegistry,
+                                MeterRegistry meterRegistry) {
+        this.properties = flowletProperties.getCodeExecutor();
+        this.httpClientRegistry = httpClientRegistry;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, properties.getBatchMaxQueueSize()));
+        this.batchPermits = new Semaphore(Math.max(1, properties.getBatchMaxConcurrent()));
+        this.registeredHashes = CacheBuilder.newBuilder()
+                .maximumSize(1024)
+                .build();
+
+        this.batchSizeSummary = DistributionSummary.builder("flowlet.code_executor.batch_size")
+                .description("每次调用 /execute/batch 的输入组数")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("flowlet.code_executor.batch_latency")
+                .register(meterRegistry);
+
+        this.dispatcher = new Thread(this::dispatchLoop, "code-execution-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * 分组键：同组调用共享一个执行进程，进程只在同一租户的同一执行内共用
+     */
+    private record GroupKey(String tenantId, String executionId, String codeHash, String language,
+                            Integer memoryMb, boolean allowNetwork) {
+    }
+
+    private static class PendingExecution {
+        private final CodeExecutionRequest request;
+        private final GroupKey groupKey;
+        private final CompletableFuture<CodeExecutionResponse> future = new CompletableFuture<>();
+
+        private PendingExecution(CodeExecutionRequest request, GroupKey groupKey) {
+            this.request = request;
+            this.groupKey = groupKey;
+        }
+    }
+
+    /**
+     * 提交一次代码执行，返回该项结果就绪后完成的 Future
+     */
+    public CompletableFuture<CodeExecutionResponse> submit(CodeExecutionRequest request) {
+        Object executionId = request.getContext() != null ? request.getContext().get("executionId") : null;
+        GroupKey groupKey = new GroupKey(
+                SecurityUtils.getCurrentTenantId(),
+                executionId != null ? executionId.toString() : null,
+                Hashing.sha256().hashString(request.getCode(), StandardCharsets.UTF_8).toString(),
+                request.getLanguage(),
+                request.getMemoryMb(),
+                Boolean.TRUE.equals(request.getAllowNetwork()));
+        PendingExecution pending = new PendingExecution(request, groupKey);
+        if (!running || !queue.offer(pending)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("代码执行队列已满，请稍后重试"));
+        }
+        return pending.future;
+    }
+
+    private void dispatchLoop() {
+        int maxBatchSize = Math.max(1, properties.getBatchMaxSize());
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, properties.getBatchMaxLingerMs()));
+        while (running) {
+            try {
+                PendingExecution first = queue.take();
+                List<PendingExecution> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingExecution next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                for (Map.Entry<GroupKey, List<PendingExecution>> group : group(batch).entrySet()) {
+                    // 在途组已满时在此等待，期间到达的请求留在队列中组成下一批
+                    batchPermits.acquire();
+                    batchExecutor.execute(() -> {
+                        try {
+                            sendGroupSafely(group.getKey(), group.getValue());
+                        } finally {
+                            batchPermits.release();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("代码执行批次调度失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private Map<GroupKey, List<PendingExecution>> group(List<PendingExecution> batch) {
+        Map<GroupKey, List<PendingExecution>> groups = new LinkedHashMap<>();
+        for (PendingExecution pending : batch) {
+            if (!pending.future.isDone()) {
+                groups.computeIfAbsent(pending.groupKey, key -> new ArrayList<>()).add(pending);
+            }
+        }
+        return groups;
+    }
+
+    private void sendGroupSafely(GroupKey groupKey, List<PendingExecution> pendings) {
+        try {
+            sendGroup(groupKey, pendings);
+        } catch (RuntimeException e) {
+            log.warn("代码批量执行调用失败: size={}, error={}", pendings.size(), e.getMessage());
+            pendings.forEach(pending -> pending.future.completeExceptionally(e));
+        }
+    }
+
+    private void sendGroup(GroupKey groupKey, List<PendingExecution> pendings) {
+        CodeBatchExecutionRequest request = new CodeBatchExecutionRequest();
+        request.setLanguage(groupKey.language());
+        request.setCodeHash(groupKey.codeHash());
+        request.setMemoryMb(groupKey.memoryMb());
+        request.setAllowNetwork(groupKey.allowNetwork());
+        List<CodeBatchExecutionRequest.Item> items = new ArrayList<>(pendings.size());
+        long itemTimeoutTotalMs = 0;
+        for (PendingExecution pending : pendings) {
+            CodeBatchExecutionRequest.Item item = new CodeBatchExecutionRequest.Item();
+            item.setInputs(pending.request.getInputs());
+            item.setContext(pending.request.getContext());
+            item.setTimeoutMs(pending.request.getTimeoutMs());
+            items.add(item);
+            itemTimeoutTotalMs += pending.request.getTimeoutMs() != null
+                    ? pending.request.getTimeoutMs()
+                    : properties.getDefaultTimeoutMs();
+        }
+        request.setItems(items);
+        // 组内各项在同一进程中依次执行，等待时间按各项超时之和放宽
+        Duration timeout = Duration.ofMillis(properties.getRequestTimeoutMs() + itemTimeoutTotalMs);
+
+        boolean registered = registeredHashes.getIfPresent(groupKey.codeHash()) != null;
+        if (!registered) {
+            request.setCode(pendings.get(0).request.getCode());
+        }
+
+        long startNanos = System.nanoTime();
+        CodeBatchExecutionResponse response = post(request, timeout);
+        if (response != null && !response.isSuccess()
+                && CodeBatchExecutionResponse.CODE_NOT_REGISTERED.equals(response.getErrorCode())) {
+            registeredHashes.invalidate(groupKey.codeHash());
+            request.setCode(pendings.get(0).request.getCode());
+            response = post(request, timeout);
+        }
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        batchSizeSummary.record(pendings.size());
+
+        if (response == null) {
+            throw new IllegalStateException("代码执行服务无响应");
+        }
+        if (!response.isSuccess()) {
+            throw new IllegalStateException(response.getErrorMessage() != null
+                    ? response.getErrorMessage()
+                    : "代码批量执行失败");
+        }
+        if (response.getResults() == null || response.getResults().size() != pendings.size()) {
+            throw new IllegalStateException("代码执行服务返回的结果数量与请求不一致");
+        }
+        registeredHashes.put(groupKey.codeHash(), Boolean.TRUE);
+        for (int i = 0; i < pendings.size(); i++) {
+            pendings.get(i).future.complete(response.getResults().get(i));
+        }
+    }
+
+    private CodeBatchExecutionResponse post(CodeBatchExecutionRequest request, Duration timeout) {
+        return httpClientRegistry.getClient(Objects.requireNonNull(properties.getBaseUrl()))
+                .post()
+                .uri("/execute/batch")
+                .contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(CodeBatchExecutionResponse.class)
+                .block(timeout);
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        PendingExecution pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException("代码执行服务正在关闭"));
+        }
+        batchExecutor.shutdown();
+    }
+}
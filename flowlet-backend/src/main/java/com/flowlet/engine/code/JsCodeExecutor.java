@@ -0,0 +1,395 @@
+package com.flowlet.engine.code;
+
+import com.flowlet.config.FlowletProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.Hashing;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.EnvironmentAccess;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.ResourceLimits;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.io.IOAccess;
+import org.graalvm.polyglot.proxy.ProxyArray;
+import org.graalvm.polyglot.proxy.ProxyObject;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * JavaScript 代码内置执行器（GraalJS）
+ *
+ * 脚本按（节点, 代码哈希）编译一次并缓存，代码变更即视为新版本；每个脚本维护一个执行上下文池，
+ * 脚本代码包装在一个函数中加载，每次调用时重新执行该函数取得 run，因此顶层变量在调用之间不会保留；
+ * 调用期间新增的全局属性在上下文归还前删除（对内置对象原型的修改不做还原，脚本不应修改内置对象）。
+ * 上下文禁止访问宿主类、文件、网络、环境变量、线程与子进程，输入以只读代理的形式传入。
+ * 超时由看门狗强制关闭上下文（包括脚本顶层代码），语句数上限由 ResourceLimits 控制；
+ * 社区版引擎不支持堆内存上限，memoryMb 不生效。
+ */
+@Slf4j
+@Component
+public class JsCodeExecutor {
+
+    private static final String LANGUAGE_ID = "js";
+    private static final int MAX_CONVERT_DEPTH = 64;
+
+    private final FlowletProperties.CodeExecutorProperties properties;
+    private final Engine engine;
+    private final Cache<String, CompiledScript> scripts;
+    private final ScheduledThreadPoolExecutor watchdog;
+
+    public JsCodeExecutor(FlowletProperties flowletProperties) {
+        this.properties = flowletProperties.getCodeExecutor();
+        this.engine = Engine.newBuilder()
+                .option("engine.WarnInterpreterOnly", "false")
+                .build();
+        this.scripts = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, properties.getJsMaxCachedScripts()))
+                .removalListener((RemovalListener<String, CompiledScript>) notification -> {
+                    if (notification.getValue() != null) {
+                        notification.getValue().close();
+                    }
+                })
+                .build();
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "js-code-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 已编译的脚本及其上下文池
+     */
+    private final class CompiledScript {
+        private final Source source;
+        private final BlockingQueue<PooledContext> pool;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private CompiledScript(String name, String code) {
+            // 包装为工厂函数：加载时只定义函数，不执行脚本代码
+            String wrapped = "(function () {" + code
+                    + "\n;return typeof run === 'function' ? run : undefined;\n})";
+            this.source = Source.newBuilder(LANGUAGE_ID, wrapped, name + ".js").cached(true).buildLiteral();
+            this.pool = new ArrayBlockingQueue<>(Math.max(1, properties.getJsContextPoolSize()));
+        }
+
+        private PooledContext acquire() {
+            PooledContext pooled = pool.poll();
+            return pooled != null ? pooled : new PooledContext(source);
+        }
+
+        private void release(PooledContext pooled) {
+            if (closed.get() || !pool.offer(pooled)) {
+                pooled.close();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                PooledContext pooled;
+                while ((pooled = pool.poll()) != null) {
+                    pooled.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 已加载脚本的执行上下文，同一时刻只被一个线程使用
+     */
+    private final class PooledContext {
+        private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        private final Context context;
+        private final Value bindings;
+        private final Value factory;
+        private final Set<String> baselineGlobals;
+
+        private PooledContext(Source source) {
+            Context.Builder builder = Context.newBuilder(LANGUAGE_ID)
+                    .engine(engine)
+                    .allowHostAccess(HostAccess.NONE)
+                    .allowHostClassLookup(className -> false)
+                    .allowIO(IOAccess.NONE)
+                    .allowCreateThread(false)
+                    .allowCreateProcess(false)
+                    .allowNativeAccess(false)
+                    .allowEnvironmentAccess(EnvironmentAccess.NONE)
+                    .allowPolyglotAccess(PolyglotAccess.NONE)
+                    .out(stdout)
+                    .err(stderr);
+            if (properties.getJsStatementLimit() > 0) {
+                builder.resourceLimits(ResourceLimits.newBuilder()
+                        .statementLimit(properties.getJsStatementLimit(), null)
+                        .build());
+            }
+            this.context = builder.build();
+            try {
+                this.bindings = context.getBindings(LANGUAGE_ID);
+                this.baselineGlobals = new HashSet<>(bindings.getMemberKeys());
+                this.factory = context.eval(source);
+            } catch (RuntimeException e) {
+                context.close(true);
+                throw e;
+            }
+        }
+
+        /**
+         * 重新执行脚本顶层代码，取得本次调用的 run 函数
+         */
+        private Value loadRun() {
+            Value function = factory.execute();
+            if (function == null || !function.canExecute()) {
+                throw new IllegalArgumentException("代码中需要定义 run(inputs, context) 函数");
+            }
+            return function;
+        }
+
+        /**
+         * 删除本次调用新增的全局属性，避免状态泄漏到下一次调用
+         */
+        private void resetGlobals() {
+            for (String key : bindings.getMemberKeys()) {
+                if (!baselineGlobals.contains(key)) {
+                    bindings.removeMember(key);
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                context.close(true);
+            } catch (RuntimeException e) {
+                log.debug("关闭 JavaScript 上下文失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 执行脚本的 run(inputs, context)
+     *
+     * @param nodeId    节点 ID，与代码哈希共同决定编译缓存
+     * @param timeoutMs 超时时间（毫秒），超时后强制终止并丢弃该上下文
+     */
+    public CodeExecutionResponse execute(String nodeId, String code, Map<String, Object> inputs,
+                                         Map<String, Object> contextMeta, int timeoutMs) {
+        long start = System.nanoTime();
+        CodeExecutionResponse response = new CodeExecutionResponse();
+
+        // 看门狗在取得上下文之前就开始计时，创建上下文与执行脚本顶层代码同样受超时约束
+        AtomicBoolean timedOut = new AtomicBoolean();
+        AtomicReference<PooledContext> current = new AtomicReference<>();
+        ScheduledFuture<?> guard = timeoutMs > 0
+                ? watchdog.schedule(() -> {
+                    timedOut.set(true);
+                    PooledContext running = current.get();
+                    if (running != null) {
+                        running.close();
+                    }
+                }, timeoutMs, TimeUnit.MILLISECONDS)
+                : null;
+
+        CompiledScript script;
+        PooledContext pooled;
+        try {
+            script = scripts.get(cacheKey(nodeId, code), () -> new CompiledScript(nodeId, code));
+            pooled = script.acquire();
+            current.set(pooled);
+        } catch (Exception e) {
+            if (guard != null) {
+                guard.cancel(false);
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            response.setSuccess(false);
+            response.setErrorMessage(timedOut.get()
+                    ? "代码执行超时（" + timeoutMs + "ms）"
+                    : "脚本加载失败: " + cause.getMessage());
+            return response;
+        }
+
+        boolean reusable = false;
+        try {
+            if (timedOut.get()) {
+                // 看门狗在上下文登记前触发，此处补关
+                pooled.close();
+                throw new IllegalStateException("代码执行超时（" + timeoutMs + "ms）");
+            }
+            if (properties.getJsStatementLimit() > 0) {
+                pooled.context.resetLimits();
+            }
+            Value run = pooled.loadRun();
+            Value result = run.execute(toGuest(inputs, 0), toGuest(contextMeta, 0));
+            response.setOutput(toHost(result, 0));
+            response.setSuccess(true);
+            reusable = true;
+        } catch (PolyglotException e) {
+            response.setSuccess(false);
+            if (e.isResourceExhausted()) {
+                response.setErrorMessage("代码执行超出资源限制: " + e.getMessage());
+            } else if (timedOut.get() || e.isCancelled()) {
+                response.setErrorMessage("代码执行超时（" + timeoutMs + "ms）");
+            } else {
+                response.setErrorMessage(e.getMessage());
+                // 脚本自身抛出的异常不影响上下文后续使用
+                reusable = e.isGuestException() && !e.isInternalError();
+            }
+        } catch (RuntimeException e) {
+            response.setSuccess(false);
+            response.setErrorMessage(e.getMessage());
+        } finally {
+            if (guard != null) {
+                guard.cancel(false);
+            }
+            response.setStdout(drain(pooled.stdout));
+            response.setStderr(drain(pooled.stderr));
+            if (reusable && !timedOut.get()) {
+                try {
+                    pooled.resetGlobals();
+                    script.release(pooled);
+                } catch (RuntimeException e) {
+                    pooled.close();
+                }
+            } else {
+                pooled.close();
+            }
+        }
+
+        response.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return response;
+    }
+
+    private String cacheKey(String nodeId, String code) {
+        return nodeId + ":" + Hashing.sha256().hashString(code, StandardCharsets.UTF_8);
+    }
+
+    private String drain(ByteArrayOutputStream stream) {
+        String value = stream.toString(StandardCharsets.UTF_8);
+        stream.reset();
+        return value;
+    }
+
+    /**
+     * 将 Java 数据包装为脚本可读的代理对象（HostAccess.NONE 下宿主对象不可访问）
+     */
+    @SuppressWarnings("unchecked")
+    private Object toGuest(Object value, int depth) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Double) {
+            return value;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (depth >= MAX_CONVERT_DEPTH) {
+            return value.toString();
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> converted = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                converted.put(String.valueOf(entry.getKey()), toGuest(entry.getValue(), depth + 1));
+            }
+            return ProxyObject.fromMap(converted);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> converted = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                converted.add(toGuest(item, depth + 1));
+            }
+            return ProxyArray.fromList(converted);
+        }
+        if (value instanceof Object[] array) {
+            return toGuest(List.of(array), depth);
+        }
+        if (value instanceof float[] array) {
+            List<Object> converted = new ArrayList<>(array.length);
+            for (float item : array) {
+                converted.add((double) item);
+            }
+            return ProxyArray.fromList(converted);
+        }
+        return value.toString();
+    }
+
+    /**
+     * 将脚本返回值转换为 Java 的 Map / List / 基本类型
+     */
+    private Object toHost(Value value, int depth) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (value.isBoolean()) {
+            return value.asBoolean();
+        }
+        if (value.isString()) {
+            return value.asString();
+        }
+        if (value.isNumber()) {
+            if (value.fitsInInt()) {
+                return value.asInt();
+            }
+            if (value.fitsInLong()) {
+                return value.asLong();
+            }
+            return value.asDouble();
+        }
+        if (depth >= MAX_CONVERT_DEPTH) {
+            throw new IllegalArgumentException("返回值嵌套层级超过 " + MAX_CONVERT_DEPTH);
+        }
+        if (value.isInstant()) {
+            return value.asInstant().toString();
+        }
+        if (value.hasArrayElements()) {
+            long size = value.getArraySize();
+            List<Object> list = new ArrayList<>((int) Math.min(size, Integer.MAX_VALUE));
+            for (long i = 0; i < size; i++) {
+                list.add(toHost(value.getArrayElement(i), depth + 1));
+            }
+            return list;
+        }
+        if (value.canExecute()) {
+            return null;
+        }
+        if (value.hasMembers()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (String key : value.getMemberKeys()) {
+                Value member = value.getMember(key);
+                if (member != null && !member.canExecute()) {
+                    map.put(key, toHost(member, depth + 1));
+                }
+            }
+            return map;
+        }
+        return value.toString();
+    }
+
+    @PreDestroy
+    public void close() {
+        watchdog.shutdownNow();
+        scripts.invalidateAll();
+        engine.close(true);
+    }
+}
@@ -0,0 +1,293 @@
+package com.flowlet.engine.embedding;
+
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.engine.http.HttpClientRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文本向量化微批器
+ *
+ * 将来自不同执行、不同 ForEach 迭代的并发请求合并为批量的 /embed/text 调用：
+ * 首个文本到达后最多等待 maxLingerMs 凑批，单批不超过 maxBatchSize，同一批内的重复文本只编码一次。
+ * 在途批次达到 maxConcurrentBatches 时新请求继续排队，下一批自然更大，吞吐随批大小而非请求数增长。
+ * 可选按内容哈希缓存向量，命中的文本不进入批次：缓存键包含服务地址与服务返回的模型名，
+ * 切换服务或模型后旧向量不再命中；条目写入后按有效期过期，命中时返回副本，调用方修改向量不会影响缓存。
+ */
+@Slf4j
+@Component
+public class EmbeddingBatcher {
+
+    private final FlowletProperties.EmbeddingProperties properties;
+    private final FlowletProperties.VectorStoreProperties vectorStoreProperties;
+    private final HttpClientRegistry httpClientRegistry;
+
+    private final LinkedBlockingQueue<PendingText> queue;
+    private final Semaphore batchPermits;
+    private final Cache<String, float[]> vectorCache;
+    /**
+     * 各 Embedding 服务地址最近一次返回的模型名，用于查询缓存
+     */
+    private final Map<String, String> servingModels = new ConcurrentHashMap<>();
+    private final ExecutorService batchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "embedding-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+
+    public EmbeddingBatcher(FlowletProperties flowletProperties,
+                            HttpClientRegistry httpClientRegistry,
+                            MeterRegistry meterRegistry) {
+        this.properties = flowletProperties.getEmbedding();
+        this.vectorStoreProperties = flowletProperties.getVectorStore();
+        this.httpClientRegistry = httpClientRegistry;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, properties.getMaxQueueSize()));
+        this.batchPermits = new Semaphore(Math.max(1, properties.getMaxConcurrentBatches()));
+        this.vectorCache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, properties.getCacheMaxEntries()))
+                .expireAfterWrite(Math.max(1, properties.getCacheTtlSeconds()), TimeUnit.SECONDS)
+                .build();
+
+        this.batchSizeSummary = DistributionSummary.builder("flowlet.embedding.batch_size")
+                .description("每次调用 Embedding 服务的文本数")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("flowlet.embedding.batch_latency")
+                .register(meterRegistry);
+        this.cacheHitCounter = meterRegistry.counter("flowlet.embedding.cache", "result", "hit");
+        this.cacheMissCounter = meterRegistry.counter("flowlet.embedding.cache", "result", "miss");
+
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * 向量化结果
+     *
+     * @param vectors     与输入顺序一致的向量
+     * @param model       Embedding 模型（全部命中缓存时为 null）
+     * @param cachedCount 命中缓存的文本数
+     */
+    public record EmbeddingResult(List<float[]> vectors, String model, int cachedCount) {
+
+        public int dim() {
+            return vectors.isEmpty() ? 0 : vectors.get(0).length;
+        }
+    }
+
+    /**
+     * Embedding 服务响应
+     */
+    private record EmbeddingResponse(String model, Integer dim, List<float[]> vectors) {
+    }
+
+    private static class PendingText {
+        private final String text;
+        private final boolean normalize;
+        private final boolean cacheable;
+        private final CompletableFuture<float[]> future = new CompletableFuture<>();
+        private volatile String model;
+
+        private PendingText(String text, boolean normalize, boolean cacheable) {
+            this.text = text;
+            this.normalize = normalize;
+            this.cacheable = cacheable;
+        }
+    }
+
+    /**
+     * 提交文本，返回全部向量就绪后完成的 Future
+     *
+     * @param useCache 是否使用内容哈希缓存（全局关闭时忽略）
+     */
+    public CompletableFuture<EmbeddingResult> embed(List<String> texts, boolean normalize, boolean useCache) {
+        boolean cacheEnabled = useCache && properties.isCacheEnabled();
+        // 服务尚未返回过模型名时无法确定缓存键，本次全部视为未命中
+        String baseUrl = vectorStoreProperties.getEmbeddingBaseUrl();
+        String servingModel = cacheEnabled && baseUrl != null ? servingModels.get(baseUrl) : null;
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        List<PendingText> pendings = new ArrayList<>();
+        int cachedCount = 0;
+        for (String text : texts) {
+            float[] cached = servingModel != null
+                    ? vectorCache.getIfPresent(cacheKey(baseUrl, servingModel, text, normalize)) : null;
+            if (cached != null) {
+                cacheHitCounter.increment();
+                cachedCount++;
+                futures.add(CompletableFuture.completedFuture(cached.clone()));
+                continue;
+            }
+            if (cacheEnabled) {
+                cacheMissCounter.increment();
+            }
+            PendingText pending = new PendingText(text, normalize, cacheEnabled);
+            if (!running || !queue.offer(pending)) {
+                pendings.forEach(submitted -> submitted.future.cancel(false));
+                return CompletableFuture.failedFuture(
+                        new IllegalStateException("Embedding 请求队列已满，请稍后重试"));
+            }
+            pendings.add(pending);
+            futures.add(pending.future);
+        }
+
+        int hits = cachedCount;
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<float[]> vectors = new ArrayList<>(futures.size());
+                    futures.forEach(future -> vectors.add(future.join()));
+                    String model = pendings.isEmpty() ? servingModel : pendings.get(0).model;
+                    return new EmbeddingResult(vectors, model, hits);
+                });
+    }
+
+    private String cacheKey(String baseUrl, String model, String text, boolean normalize) {
+        return Hashing.sha256().hashString(baseUrl + "\n" + model + "\n" + (normalize ? "1:" : "0:") + text,
+                StandardCharsets.UTF_8).toString();
+    }
+
+    private void dispatchLoop() {
+        int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, properties.getMaxLingerMs()));
+        while (running) {
+            try {
+                PendingText first = queue.take();
+                List<PendingText> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingText next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // 在途批次已满时在此等待，期间到达的请求留在队列中组成下一批
+                batchPermits.acquire();
+                batchExecutor.execute(() -> {
+                    try {
+                        sendBatch(batch);
+                    } finally {
+                        batchPermits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Embedding 批次调度失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void sendBatch(List<PendingText> batch) {
+        // normalize 为请求级参数，不同取值分开调用
+        Map<Boolean, List<PendingText>> groups = new LinkedHashMap<>();
+        for (PendingText pending : batch) {
+            if (!pending.future.isDone()) {
+                groups.computeIfAbsent(pending.normalize, key -> new ArrayList<>()).add(pending);
+            }
+        }
+        groups.forEach((normalize, pendings) -> {
+            try {
+                sendGroup(pendings, normalize);
+            } catch (RuntimeException e) {
+                log.warn("Embedding 批量调用失败: size={}, error={}", pendings.size(), e.getMessage());
+                pendings.forEach(pending -> pending.future.completeExceptionally(e));
+            }
+        });
+    }
+
+    private void sendGroup(List<PendingText> pendings, boolean normalize) {
+        // 同一批内的重复文本只编码一次
+        Map<String, List<PendingText>> byText = new LinkedHashMap<>();
+        for (PendingText pending : pendings) {
+            byText.computeIfAbsent(pending.text, key -> new ArrayList<>()).add(pending);
+        }
+        List<String> texts = new ArrayList<>(byText.keySet());
+
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        texts.forEach(text -> form.add("text", text));
+        form.add("normalize", String.valueOf(normalize));
+
+        String baseUrl = Objects.requireNonNull(vectorStoreProperties.getEmbeddingBaseUrl());
+        long startNanos = System.nanoTime();
+        EmbeddingResponse response = httpClientRegistry
+                .getClient(baseUrl)
+                .post()
+                .uri("/embed/text")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData(form))
+                .retrieve()
+                .bodyToMono(EmbeddingResponse.class)
+                .block(Duration.ofMillis(properties.getRequestTimeoutMs()));
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        batchSizeSummary.record(texts.size());
+
+        if (response == null || response.vectors() == null || response.vectors().size() != texts.size()) {
+            throw new IllegalStateException("Embedding 服务返回的向量数量与请求不一致");
+        }
+        String model = response.model();
+        if (model != null) {
+            servingModels.put(baseUrl, model);
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            float[] vector = response.vectors().get(i);
+            List<PendingText> sameText = byText.get(texts.get(i));
+            if (model != null && sameText.stream().anyMatch(pending -> pending.cacheable)) {
+                vectorCache.put(cacheKey(baseUrl, model, texts.get(i), normalize), vector.clone());
+            }
+            // 重复文本的请求各自拿到独立的数组
+            for (int j = 0; j < sameText.size(); j++) {
+                PendingText pending = sameText.get(j);
+                pending.model = model;
+                pending.future.complete(j == 0 ? vector : vector.clone());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        PendingText pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException("Embedding 服务正在关闭"));
+        }
+        batchExecutor.shutdown();
+    }
+}
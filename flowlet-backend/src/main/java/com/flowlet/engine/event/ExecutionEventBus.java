@@ -0,0 +1,208 @@
+package com.flowlet.engine.event;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行事件总线
+ *
+ * 按执行实例发布节点状态变化与大模型流式输出等事件，供客户端（SSE）订阅。
+ * 通道在首次订阅时创建，没有订阅者的执行不保留事件；通道保留订阅之后的最近事件用于回放，
+ * 同一执行的后续订阅者也能拿到已生成的部分输出。执行结束后通道立即移除，
+ * 结束状态只短暂保留，供结束前后到达的订阅者直接拿到结束事件。
+ */
+@Slf4j
+@Component
+public class ExecutionEventBus {
+
+    public static final String NODE_STARTED = "node_started";
+    public static final String NODE_COMPLETED = "node_completed";
+    public static final String NODE_FAILED = "node_failed";
+    public static final String NODE_WAITING = "node_waiting";
+    public static final String LLM_DELTA = "llm_delta";
+    /**
+     * 流式输出中途失败并切换到其他提供方，订阅方应丢弃该节点已收到的增量文本
+     */
+    public static final String LLM_RESET = "llm_reset";
+    public static final String EXECUTION_FINISHED = "execution_finished";
+
+    private static final int REPLAY_LIMIT = 512;
+
+    /**
+     * 有订阅者的执行实例的事件通道；长时间无事件的通道被淘汰时结束其订阅
+     */
+    private final Cache<String, Channel> channels = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .removalListener((RemovalListener<String, Channel>) notification -> {
+                if (notification.wasEvicted() && notification.getValue() != null) {
+                    Channel channel = notification.getValue();
+                    synchronized (channel) {
+                        channel.finished = true;
+                        channel.sink.tryEmitComplete();
+                    }
+                }
+            })
+            .build();
+
+    /**
+     * 刚结束的执行实例 -> 结束状态
+     */
+    private final Cache<String, String> finishedStatuses = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 子流程执行ID -> 转发目标（父流程执行ID、子流程节点ID）
+     */
+    private final Map<String, ForwardTarget> forwards = new ConcurrentHashMap<>();
+
+    /**
+     * 执行事件
+     */
+    public static class ExecutionEvent {
+        private final long seq;
+        private final String type;
+        private final String executionId;
+        private final String nodeId;
+        private final Map<String, Object> data;
+        private final long timestamp;
+
+        public ExecutionEvent(long seq, String type, String executionId, String nodeId, Map<String, Object> data) {
+            this.seq = seq;
+            this.type = type;
+            this.executionId = executionId;
+            this.nodeId = nodeId;
+            this.data = data != null ? data : Collections.emptyMap();
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        public long getSeq() { return seq; }
+        public String getType() { return type; }
+        public String getExecutionId() { return executionId; }
+        public String getNodeId() { return nodeId; }
+        public Map<String, Object> getData() { return data; }
+        public long getTimestamp() { return timestamp; }
+    }
+
+    private record ForwardTarget(String parentExecutionId, String subflowNodeId) {
+    }
+
+    private static class Channel {
+        private final Sinks.Many<ExecutionEvent> sink = Sinks.many().replay().limit(REPLAY_LIMIT);
+        private final AtomicLong seq = new AtomicLong();
+        private volatile boolean finished;
+    }
+
+    /**
+     * 发布事件
+     */
+    public void publish(String executionId, String type, String nodeId, Map<String, Object> data) {
+        if (executionId == null) {
+            return;
+        }
+        Channel channel = channels.getIfPresent(executionId);
+        if (channel != null) {
+            // 并行分支可能同时发布，Sink 要求串行发送
+            synchronized (channel) {
+                if (!channel.finished) {
+                    channel.sink.tryEmitNext(
+                            new ExecutionEvent(channel.seq.incrementAndGet(), type, executionId, nodeId, data));
+                }
+            }
+        }
+
+        ForwardTarget target = forwards.get(executionId);
+        if (target != null && !EXECUTION_FINISHED.equals(type)) {
+            Map<String, Object> forwarded = new LinkedHashMap<>(data != null ? data : Collections.emptyMap());
+            forwarded.put("subflowExecutionId", executionId);
+            forwarded.put("subflowNodeId", target.subflowNodeId());
+            publish(target.parentExecutionId(), type, nodeId, forwarded);
+        }
+    }
+
+    /**
+     * 发布执行结束事件并关闭、移除通道
+     */
+    public void finish(String executionId, String status) {
+        if (executionId == null) {
+            return;
+        }
+        // 先记录结束状态，与之并发创建的通道在订阅时会据此关闭
+        finishedStatuses.put(executionId, status);
+        Channel channel = channels.getIfPresent(executionId);
+        if (channel != null) {
+            close(executionId, channel, status);
+        }
+        forwards.remove(executionId);
+    }
+
+    /**
+     * 订阅执行事件（先回放通道已保留的事件）；执行已结束时只收到结束事件
+     *
+     * @param nodeId 仅订阅指定节点的事件，为空表示全部
+     */
+    public Flux<ExecutionEvent> subscribe(String executionId, String nodeId) {
+        Channel channel = getChannel(executionId);
+        String finishedStatus = finishedStatuses.getIfPresent(executionId);
+        if (finishedStatus != null) {
+            close(executionId, channel, finishedStatus);
+        }
+        Flux<ExecutionEvent> events = channel.sink.asFlux();
+        if (nodeId == null || nodeId.isBlank()) {
+            return events;
+        }
+        return events.filter(event -> nodeId.equals(event.getNodeId()) || EXECUTION_FINISHED.equals(event.getType()));
+    }
+
+    /**
+     * 将子流程的事件转发到父流程的事件流
+     */
+    public void forward(String subExecutionId, String parentExecutionId, String subflowNodeId) {
+        forwards.put(subExecutionId, new ForwardTarget(parentExecutionId, subflowNodeId));
+    }
+
+    /**
+     * 执行实例是否有可订阅的通道或刚结束
+     */
+    public boolean hasChannel(String executionId) {
+        return channels.getIfPresent(executionId) != null || finishedStatuses.getIfPresent(executionId) != null;
+    }
+
+    /**
+     * 发送结束事件、结束订阅并移除通道
+     */
+    private void close(String executionId, Channel channel, String status) {
+        synchronized (channel) {
+            if (!channel.finished) {
+                channel.sink.tryEmitNext(new ExecutionEvent(channel.seq.incrementAndGet(), EXECUTION_FINISHED,
+                        executionId, null, Map.of("status", status)));
+                channel.finished = true;
+                channel.sink.tryEmitComplete();
+            }
+        }
+        channels.asMap().remove(executionId, channel);
+    }
+
+    private Channel getChannel(String executionId) {
+        try {
+            return channels.get(executionId, Channel::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -7,6 +7,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.http.ApiRequestCoalescer;
+import com.flowlet.engine.http.ApiResilienceManager;
+import com.flowlet.engine.http.ApiResponseProcessor;
+import com.flowlet.engine.http.HttpClientRegistry;
 import com.flowlet.engine.kafka.DynamicKafkaConsumerFactory;
 import com.flowlet.engine.kafka.DynamicKafkaProducerFactory;
 import com.flowlet.engine.util.TemplateResolver;
@@ -23,11 +27,13 @@ import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Mono;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * API调用节点处理器
@@ -42,7 +48,10 @@ import java.util.*;
 @RequiredArgsConstructor
 public class ApiNodeHandler implements NodeHandler {
 
-    private final WebClient.Builder webClientBuilder;
+    private final HttpClientRegistry httpClientRegistry;
+    private final ApiResilienceManager apiResilienceManager;
+    private final ApiResponseProcessor apiResponseProcessor;
+    private final ApiRequestCoalescer apiRequestCoalescer;
     private final DynamicKafkaConsumerFactory kafkaConsumerFactory;
     private final DynamicKafkaProducerFactory kafkaProducerFactory;
     private final ObjectMapper objectMapper;
@@ -98,7 +107,8 @@ public class ApiNodeHandler implements NodeHandler {
         requestDetails.put("method", method);
 
         try {
-            WebClient client = webClientBuilder.build();
+            HttpClientRegistry.ClientOptions clientOptions = buildClientOptions(config);
+            WebClient client = httpClientRegistry.getClient(null, clientOptions);
             Object response;
 
             // method 已通过 getOrDefault 确保不为 null，这里验证是否为有效的 HTTP 方法
@@ -160,7 +170,22 @@ public class ApiNodeHandler implements NodeHandler {
             }
 
             // 执行HTTP请求
-            response = executeHttpRequest(client, httpMethod, resolvedUrl, headers, requestBody, bodyType, timeout);
+            ApiResilienceManager.CallOptions callOptions = buildCallOptions(config, httpMethod, waitForCallback);
+            ApiResponseProcessor.ResponseOptions responseOptions = buildResponseOptions(config);
+            HttpMethod requestMethod = httpMethod;
+            String requestUrl = resolvedUrl;
+            Supplier<Map<String, Object>> call = () -> executeHttpRequest(client, requestMethod, requestUrl,
+                    headers, requestBody, bodyType, timeout,
+                    context.getFlowId() + ":" + node.getId(), callOptions, responseOptions);
+
+            Long coalesceTtlMs = getCoalesceTtlMs(config, httpMethod, waitForCallback);
+            if (coalesceTtlMs != null) {
+                String requestKey = ApiRequestCoalescer.requestKey(httpMethod.name(), resolvedUrl, headers,
+                        clientOptions.getCacheKey() + "|" + responseOptions.getCacheKey() + "|" + timeout);
+                response = apiRequestCoalescer.execute(requestKey, coalesceTtlMs, call);
+            } else {
+                response = call.get();
+            }
 
             log.info("API调用成功: {} -> {}", resolvedUrl, response);
 
@@ -180,6 +205,9 @@ public class ApiNodeHandler implements NodeHandler {
             output.put("statusCode", responseMap.get("statusCode"));
             output.put("body", responseMap.get("body"));
             output.put("headers", responseMap.get("headers"));
+            if (responseMap.containsKey("bodyFile")) {
+                output.put("bodyFile", responseMap.get("bodyFile"));
+            }
             // 保留其他信息
             output.put("url", resolvedUrl);
             output.put("method", method);
@@ -355,6 +383,102 @@ public class ApiNodeHandler implements NodeHandler {
         return 30; // 默认 30 秒
     }
 
+    /**
+     * 构建容错选项
+     * retry: {maxAttempts, backoffMs} - 失败或 5xx 时重试，受节点重试预算约束
+     * hedge: {enabled, delayMs} - 仅对不等待回调的 GET 生效，delayMs 为延迟样本不足时的对冲等待时间
+     * circuitBreaker: {route} - 路由模板（如 /users/{id}），同一主机下按模板分别熔断，未配置时按主机熔断
+     */
+    private ApiResilienceManager.CallOptions buildCallOptions(Map<String, Object> config, HttpMethod httpMethod,
+                                                              boolean waitForCallback) {
+        ApiResilienceManager.CallOptions options = new ApiResilienceManager.CallOptions();
+
+        if (config.get("retry") instanceof Map<?, ?> retry) {
+            if (retry.get("maxAttempts") instanceof Number maxAttempts) {
+                options.setMaxAttempts(maxAttempts.intValue());
+            }
+            if (retry.get("backoffMs") instanceof Number backoffMs) {
+                options.setBackoffMs(backoffMs.longValue());
+            }
+        }
+
+        if (config.get("hedge") instanceof Map<?, ?> hedge && Boolean.TRUE.equals(hedge.get("enabled"))) {
+            // 对冲会重复发送请求，只用于幂等且不注册回调的 GET
+            options.setHedgeEnabled(httpMethod == HttpMethod.GET && !waitForCallback);
+            if (hedge.get("delayMs") instanceof Number delayMs) {
+                options.setHedgeDelayMs(delayMs.longValue());
+            }
+        }
+
+        if (config.get("circuitBreaker") instanceof Map<?, ?> circuitBreaker
+                && circuitBreaker.get("route") instanceof String route && !route.isBlank()) {
+            options.setRoute(route.trim());
+        }
+        return options;
+    }
+
+    /**
+     * 构建响应体处理选项
+     * responseProjection: 需要保留的字段路径（JSON Pointer 或 data.items[0].name 形式），其余字段不解析
+     * maxResponseBytes: 响应体大小上限（字节），超过则调用失败
+     * spillToFile: 将原始响应体保存到本地文件，输出 bodyFile 引用
+     */
+    private ApiResponseProcessor.ResponseOptions buildResponseOptions(Map<String, Object> config) {
+        ApiResponseProcessor.ResponseOptions options = new ApiResponseProcessor.ResponseOptions();
+        if (config.get("responseProjection") instanceof List<?> projection) {
+            options.setProjection(projection.stream()
+                    .filter(Objects::nonNull)
+                    .map(String::valueOf)
+                    .filter(path -> !path.isBlank())
+                    .toList());
+        }
+        if (config.get("maxResponseBytes") instanceof Number maxResponseBytes) {
+            options.setMaxBodyBytes(maxResponseBytes.longValue());
+        }
+        options.setSpillToFile(Boolean.TRUE.equals(config.get("spillToFile")));
+        return options;
+    }
+
+    /**
+     * 获取请求合并配置
+     * coalesce: {enabled, cacheTtlMs} - 合并相同的并发 GET 请求，cacheTtlMs 大于 0 时在该时间内复用成功响应
+     *
+     * @return 微缓存 TTL（毫秒），未开启或请求不可合并时返回 null
+     */
+    private Long getCoalesceTtlMs(Map<String, Object> config, HttpMethod httpMethod, boolean waitForCallback) {
+        if (!(config.get("coalesce") instanceof Map<?, ?> coalesce) || !Boolean.TRUE.equals(coalesce.get("enabled"))) {
+            return null;
+        }
+        // 只合并幂等且不注册回调的 GET，回调请求的 URL 本身带有唯一回调标识
+        if (httpMethod != HttpMethod.GET || waitForCallback) {
+            return null;
+        }
+        return coalesce.get("cacheTtlMs") instanceof Number cacheTtlMs ? cacheTtlMs.longValue() : 0L;
+    }
+
+    /**
+     * 构建 HTTP 客户端连接选项（TLS 校验、代理）
+     * 代理格式：host:port
+     */
+    private HttpClientRegistry.ClientOptions buildClientOptions(Map<String, Object> config) {
+        HttpClientRegistry.ClientOptions options = HttpClientRegistry.ClientOptions.defaults();
+        options.setInsecureSkipTlsVerify(Boolean.TRUE.equals(config.get("insecureSkipTlsVerify")));
+
+        Object proxy = config.get("proxy");
+        if (proxy instanceof String proxyStr && !proxyStr.isBlank()) {
+            String[] parts = proxyStr.trim().split(":");
+            options.setProxyHost(parts[0]);
+            if (parts.length > 1) {
+                try {
+                    options.setProxyPort(Integer.parseInt(parts[1]));
+                } catch (NumberFormatException e) {
+                    log.warn("代理端口格式错误，使用默认端口: proxy={}", proxyStr);
+                }
+            }
+        }
+        return options;
+    }
+
     /**
      * 应用鉴权配置
      */
@@ -599,7 +723,21 @@ public class ApiNodeHandler implements NodeHandler {
      * @throws IllegalArgumentException 如果 URL 为空
      */
     private Map<String, Object> executeHttpRequest(WebClient client, HttpMethod httpMethod, String url,
-                                       Map<String, String> headers, Object body, String bodyType, int timeout) {
+                                       Map<String, String> headers, Object body, String bodyType, int timeout,
+                                       String retryBudgetKey, ApiResilienceManager.CallOptions callOptions,
+                                       ApiResponseProcessor.ResponseOptions responseOptions) {
+        return apiResilienceManager.execute(url, retryBudgetKey, callOptions,
+                () -> buildHttpRequest(client, httpMethod, url, headers, body, bodyType, responseOptions),
+                Duration.ofSeconds(timeout));
+    }
+
+    /**
+     * 构建单次 HTTP 请求
+     * 每次订阅都会重新发送请求，供重试与对冲使用
+     */
+    private Mono<Map<String, Object>> buildHttpRequest(WebClient client, HttpMethod httpMethod, String url,
+                                                       Map<String, String> headers, Object body, String bodyType,
+                                                       ApiResponseProcessor.ResponseOptions responseOptions) {
         
         // URL 校验（调用方已确保非空，这里是防御性检查）
         if (url == null || url.isEmpty()) {
@@ -713,6 +851,17 @@ public class ApiNodeHandler implements NodeHandler {
                 }
             });
             
+            // 配置了投影/大小上限/落盘时流式读取响应体
+            if (responseOptions.isStreaming()) {
+                return apiResponseProcessor.read(response, responseOptions)
+                        .map(bodyResult -> {
+                            Map<String, Object> result = new HashMap<>(bodyResult);
+                            result.put("statusCode", statusCode);
+                            result.put("headers", responseHeaders);
+                            return result;
+                        });
+            }
+            
             // 读取响应体
             return response.bodyToMono(Object.class)
                     .defaultIfEmpty(Collections.emptyMap())
@@ -723,7 +872,7 @@ public class ApiNodeHandler implements NodeHandler {
                         result.put("body", responseBody);
                         return result;
                     });
-        }).timeout(Duration.ofSeconds(timeout)).block();
+        });
     }
 
     /**
@@ -4,8 +4,11 @@ import com.flowlet.config.FlowletProperties;
 import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.engine.ExecutionContext;
 import com.flowlet.engine.ExpressionResolver;
+import com.flowlet.engine.code.CodeExecutionBatcher;
 import com.flowlet.engine.code.CodeExecutionRequest;
 import com.flowlet.engine.code.CodeExecutionResponse;
+import com.flowlet.engine.code.JsCodeExecutor;
+import com.flowlet.engine.http.HttpClientRegistry;
 import com.flowlet.enums.NodeType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,19 +21,24 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 代码执行节点处理器
- * 通过外部执行服务运行 Python 脚本
+ * Python 脚本通过外部执行服务运行（默认经微批器合并为批量调用），JavaScript 脚本在 JVM 内置引擎中运行
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CodeNodeHandler implements NodeHandler {
 
-    private final WebClient.Builder webClientBuilder;
+    private final HttpClientRegistry httpClientRegistry;
     private final FlowletProperties flowletProperties;
     private final ExpressionResolver expressionResolver;
+    private final JsCodeExecutor jsCodeExecutor;
+    private final CodeExecutionBatcher codeExecutionBatcher;
 
     @Override
     public String getNodeType() {
@@ -59,6 +67,13 @@ public class CodeNodeHandler implements NodeHandler {
         Integer memoryMb = asInt(config.get("memoryMb"), executorProps.getDefaultMemoryMb());
         Boolean allowNetwork = asBoolean(config.get("allowNetwork"), executorProps.isDefaultAllowNetwork());
 
+        CodeExecutionResponse response;
+        if (isJavaScript(language)) {
+            response = jsCodeExecutor.execute(node.getId(), code, resolveInputs(config, context),
+                buildContextMeta(context), timeoutMs);
+            return toNodeResult(response);
+        }
+
         CodeExecutionRequest request = new CodeExecutionRequest();
         request.setLanguage(language);
         request.setCode(code);
@@ -68,9 +83,12 @@ public class CodeNodeHandler implements NodeHandler {
         request.setMemoryMb(memoryMb);
         request.setAllowNetwork(allowNetwork);
 
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(executorProps.getBaseUrl())).build();
+        if (executorProps.isBatchEnabled()) {
+            return executeBatched(request, executorProps);
+        }
+
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(executorProps.getBaseUrl()));
 
-        CodeExecutionResponse response;
         try {
             response = client.post()
                 .uri("/execute")
@@ -88,6 +106,34 @@ public class CodeNodeHandler implements NodeHandler {
             return NodeResult.fail("代码执行服务无响应");
         }
 
+        return toNodeResult(response);
+    }
+
+    private NodeResult executeBatched(CodeExecutionRequest request,
+                                      FlowletProperties.CodeExecutorProperties executorProps) {
+        // 同组（同一执行、同一代码）其他项在同一进程中先后执行，等待上限按整组的超时放宽；不同组并发发送
+        long waitMs = executorProps.getRequestTimeoutMs() + executorProps.getBatchMaxLingerMs()
+            + (long) request.getTimeoutMs() * Math.max(1, executorProps.getBatchMaxSize());
+        CodeExecutionResponse response;
+        try {
+            response = codeExecutionBatcher.submit(request).get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return NodeResult.fail("代码执行被中断");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            log.error("代码节点执行失败: {}", cause.getMessage(), cause);
+            return NodeResult.fail("代码执行服务调用失败: " + cause.getMessage());
+        } catch (TimeoutException ex) {
+            return NodeResult.fail("代码执行服务调用超时");
+        }
+        if (response == null) {
+            return NodeResult.fail("代码执行服务无响应");
+        }
+        return toNodeResult(response);
+    }
+
+    private NodeResult toNodeResult(CodeExecutionResponse response) {
         if (!response.isSuccess()) {
             String errorMessage = response.getErrorMessage() != null
                 ? response.getErrorMessage()
@@ -104,6 +150,10 @@ public class CodeNodeHandler implements NodeHandler {
         return NodeResult.success(output);
     }
 
+    private boolean isJavaScript(String language) {
+        return "javascript".equalsIgnoreCase(language) || "js".equalsIgnoreCase(language);
+    }
+
     private Map<String, Object> buildContextMeta(ExecutionContext context) {
         Map<String, Object> meta = new HashMap<>();
         meta.put("executionId", context.getExecutionId());
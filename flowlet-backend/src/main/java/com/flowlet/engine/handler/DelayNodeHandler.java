@@ -0,0 +1,171 @@
+package com.flowlet.engine.handler;
+
+import cn.hutool.core.util.IdUtil;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.dto.FlowGraphDTO;
+import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.ExpressionResolver;
+import com.flowlet.enums.NodeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 延迟节点处理器
+ * 将流程暂停一段时间或暂停到指定时间后继续执行，暂停期间不占用线程，由持久化定时器唤醒，重启后仍然有效
+ *
+ * 配置：
+ * - delayMode: duration（默认，等待一段时间）/ until（等待到指定时间）
+ * - duration + durationUnit: 等待时长，支持变量表达式；单位 ms/s/m/h/d，默认 s
+ * - until: 恢复时间，支持变量表达式；ISO-8601 时间、yyyy-MM-dd HH:mm:ss 或毫秒时间戳
+ * 等待时间不能超过 flowlet.timer.max-delay-days
+ * 输出：resumeAt（计划恢复时间）、firedAt（实际恢复时间）、delayMs
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DelayNodeHandler implements NodeHandler {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ExpressionResolver expressionResolver;
+    private final FlowletProperties flowletProperties;
+
+    @Override
+    public String getNodeType() {
+        return NodeType.DELAY.getValue();
+    }
+
+    @Override
+    public NodeResult execute(FlowGraphDTO.NodeDTO node, ExecutionContext context) {
+        Map<String, Object> config = node.getData().getConfig();
+        if (config == null) {
+            return NodeResult.fail("延迟节点未配置等待时间");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long maxDelayMs = Duration.ofDays(flowletProperties.getTimer().getMaxDelayDays()).toMillis();
+        LocalDateTime resumeAt;
+        long delayMs;
+        try {
+            resumeAt = "until".equals(config.get("delayMode"))
+                    ? resolveUntil(config.get("until"), context)
+                    : now.plus(resolveDuration(config.get("duration"), config.get("durationUnit"), maxDelayMs, context));
+            if (resumeAt.isAfter(now.plus(Duration.ofMillis(maxDelayMs)))) {
+                return NodeResult.fail("恢复时间超过最长等待时间 " + flowletProperties.getTimer().getMaxDelayDays()
+                        + " 天: " + resumeAt);
+            }
+            delayMs = Math.max(0, Duration.between(now, resumeAt).toMillis());
+        } catch (IllegalArgumentException e) {
+            return NodeResult.fail(e.getMessage());
+        } catch (DateTimeException | ArithmeticException e) {
+            return NodeResult.fail("延迟时间超出可表示范围: " + e.getMessage());
+        }
+
+        if (delayMs == 0) {
+            log.info("延迟时间已到，直接继续: nodeId={}, resumeAt={}", node.getId(), resumeAt);
+            Map<String, Object> output = new LinkedHashMap<>();
+            output.put("resumeAt", resumeAt.toString());
+            output.put("firedAt", now.toString());
+            output.put("delayMs", 0L);
+            return NodeResult.success(output);
+        }
+
+        log.info("延迟节点暂停: nodeId={}, delayMs={}, resumeAt={}", node.getId(), delayMs, resumeAt);
+        Map<String, Object> callbackInfo = new LinkedHashMap<>();
+        callbackInfo.put("type", "delay");
+        callbackInfo.put("resumeAt", resumeAt.toString());
+
+        Map<String, Object> executionData = new LinkedHashMap<>();
+        executionData.put("delayMs", delayMs);
+        executionData.put("callbackInfo", callbackInfo);
+        executionData.put("flattenCallbackData", true);
+
+        return NodeResult.pauseUntil(IdUtil.fastSimpleUUID(), resumeAt, executionData);
+    }
+
+    private Duration resolveDuration(Object durationObj, Object unitObj, long maxDelayMs, ExecutionContext context) {
+        Object value = durationObj instanceof String expression
+                ? expressionResolver.resolve(expression, context)
+                : durationObj;
+        double amount;
+        if (value instanceof Number number) {
+            amount = number.doubleValue();
+        } else if (value != null) {
+            try {
+                amount = Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("延迟时长不是有效的数字: " + value);
+            }
+        } else {
+            throw new IllegalArgumentException("延迟节点未配置等待时长");
+        }
+        if (amount < 0 || Double.isNaN(amount)) {
+            throw new IllegalArgumentException("延迟时长不能为负数: " + value);
+        }
+
+        String unit = unitObj != null ? unitObj.toString() : "s";
+        long unitMs = switch (unit) {
+            case "ms" -> 1L;
+            case "s" -> 1_000L;
+            case "m" -> 60_000L;
+            case "h" -> 3_600_000L;
+            case "d" -> 86_400_000L;
+            default -> throw new IllegalArgumentException("不支持的时长单位: " + unit);
+        };
+        // 先按 double 比较上限，避免超大数值在取整时溢出
+        double millis = amount * unitMs;
+        if (millis > maxDelayMs) {
+            throw new IllegalArgumentException("延迟时长超过最长等待时间 "
+                    + Duration.ofMillis(maxDelayMs).toDays() + " 天: " + value + unit);
+        }
+        return Duration.ofMillis(Math.round(millis));
+    }
+
+    private LocalDateTime resolveUntil(Object untilObj, ExecutionContext context) {
+        Object value = untilObj instanceof String expression
+                ? expressionResolver.resolve(expression, context)
+                : untilObj;
+        if (value == null) {
+            throw new IllegalArgumentException("延迟节点未配置恢复时间");
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime;
+        }
+        if (value instanceof Date date) {
+            return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+        }
+        if (value instanceof Number epochMillis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis.longValue()), ZoneId.systemDefault());
+        }
+
+        String text = value.toString().trim();
+        try {
+            return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException ignored) {
+            // 不带时区，按本地时间解析
+        }
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException ignored) {
+            // 尝试常用格式
+        }
+        try {
+            return LocalDateTime.parse(text, DATE_TIME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无法解析恢复时间: " + text);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.flowlet.engine.handler;
+
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.dto.FlowGraphDTO;
+import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.ExpressionResolver;
+import com.flowlet.engine.embedding.EmbeddingBatcher;
+import com.flowlet.enums.NodeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 文本向量化节点处理器
+ * 调用本地 Embedding 服务（flowlet.vector-store.embedding-base-url）的 /embed/text，
+ * 并发执行的节点由 EmbeddingBatcher 合并为批量请求
+ *
+ * 节点配置说明：
+ * - textSource: 文本来源表达式，结果可以是字符串或字符串列表，如 {{nodes.splitter.output.chunks}}
+ * - normalize: 是否归一化向量，默认 true
+ * - cacheEnabled: 是否使用内容哈希向量缓存，默认 true
+ * - timeoutMs: 等待向量化结果的超时（毫秒），默认为批次请求超时
+ *
+ * 输出：vectors（与输入顺序一致的 float 数组列表）、vector（输入为单个字符串时）、dim、count、cachedCount、model
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddingNodeHandler implements NodeHandler {
+
+    private final ExpressionResolver expressionResolver;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final FlowletProperties flowletProperties;
+
+    @Override
+    public String getNodeType() {
+        return NodeType.EMBEDDING.getValue();
+    }
+
+    @Override
+    public NodeResult execute(FlowGraphDTO.NodeDTO node, ExecutionContext context) {
+        if (node.getData() == null || node.getData().getConfig() == null) {
+            return NodeResult.fail("向量化节点配置为空");
+        }
+
+        Map<String, Object> config = node.getData().getConfig();
+        Object textSource = config.get("textSource");
+        if (textSource == null || textSource.toString().isBlank()) {
+            return NodeResult.fail("请输入文本来源表达式");
+        }
+
+        Object resolved = expressionResolver.resolve(textSource.toString(), context);
+        boolean singleText = !(resolved instanceof List);
+        List<String> texts = new ArrayList<>();
+        if (resolved instanceof List<?> list) {
+            for (Object item : list) {
+                texts.add(item != null ? item.toString() : "");
+            }
+        } else if (resolved != null && !resolved.toString().isBlank()) {
+            texts.add(resolved.toString());
+        }
+        if (texts.isEmpty()) {
+            return NodeResult.fail("待向量化的文本为空");
+        }
+
+        boolean normalize = getBoolean(config.get("normalize"), true);
+        boolean cacheEnabled = getBoolean(config.get("cacheEnabled"), true);
+        long timeoutMs = getLong(config.get("timeoutMs"),
+                flowletProperties.getEmbedding().getRequestTimeoutMs() + flowletProperties.getEmbedding().getMaxLingerMs());
+
+        try {
+            EmbeddingBatcher.EmbeddingResult result = embeddingBatcher.embed(texts, normalize, cacheEnabled)
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+
+            Map<String, Object> output = new HashMap<>();
+            output.put("vectors", result.vectors());
+            if (singleText) {
+                output.put("vector", result.vectors().get(0));
+            }
+            output.put("dim", result.dim());
+            output.put("count", result.vectors().size());
+            output.put("cachedCount", result.cachedCount());
+            output.put("model", result.model());
+            return NodeResult.success(output);
+        } catch (TimeoutException ex) {
+            return NodeResult.fail("向量化超时: " + timeoutMs + "ms");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return NodeResult.fail("向量化被中断");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            log.error("向量化失败: {}", cause.getMessage(), cause);
+            if (cause instanceof WebClientResponseException responseException) {
+                return NodeResult.fail("向量化失败: " + responseException.getStatusCode() + " - "
+                        + responseException.getResponseBodyAsString());
+            }
+            return NodeResult.fail("向量化失败: " + cause.getMessage());
+        }
+    }
+
+    private boolean getBoolean(Object value, boolean defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return Boolean.parseBoolean(value.toString());
+    }
+
+    private long getLong(Object value, long defaultValue) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -5,20 +5,35 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.ExpressionResolver;
 import com.flowlet.engine.kafka.DynamicKafkaConsumerFactory;
 import com.flowlet.engine.kafka.DynamicKafkaProducerFactory;
 import com.flowlet.engine.util.TemplateResolver;
 import com.flowlet.enums.NodeType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Kafka消息节点处理器 (异步)
  * 支持动态配置 Broker 地址和认证信息
+ *
+ * 发送模式（sendMode）：
+ * - sync：等待 Broker 确认后继续（默认，等待回调时强制使用）
+ * - async：不等待确认，确认失败仅记录日志
+ * - fire_and_forget：发后即忘
+ *
+ * 批量模式（batchEnabled）：将 itemsExpression 解析出的数组逐项渲染为多条消息一次性发送，
+ * 模板中可通过 {{item}} / {{index}}（名称可配置）引用当前项，未配置模板时直接发送该项。
  */
 @Slf4j
 @Component
@@ -28,6 +43,7 @@ public class KafkaNodeHandler implements NodeHandler {
     private final DynamicKafkaProducerFactory kafkaProducerFactory;
     private final DynamicKafkaConsumerFactory kafkaConsumerFactory;
     private final ObjectMapper objectMapper;
+    private final ExpressionResolver expressionResolver;
 
     @Override
     public String getNodeType() {
@@ -55,8 +71,10 @@ public class KafkaNodeHandler implements NodeHandler {
             return NodeResult.fail("Kafka Topic 不能为空");
         }
 
+        boolean batchEnabled = Boolean.TRUE.equals(config.get("batchEnabled"));
+
         String messageTemplate = (String) config.get("messageTemplate");
-        if (messageTemplate == null || messageTemplate.isEmpty()) {
+        if (!batchEnabled && (messageTemplate == null || messageTemplate.isEmpty())) {
             return NodeResult.fail("Kafka 消息模板不能为空");
         }
 
@@ -65,10 +83,25 @@ public class KafkaNodeHandler implements NodeHandler {
         if (waitForCallback == null) {
             waitForCallback = false;
         }
+        if (batchEnabled && waitForCallback) {
+            return NodeResult.fail("Kafka 批量发送不支持等待回调");
+        }
+
+        DynamicKafkaProducerFactory.SendMode sendMode =
+                DynamicKafkaProducerFactory.SendMode.fromValue((String) config.get("sendMode"));
+        if (waitForCallback) {
+            // 等待回调前必须确认消息已写入，否则发送失败时只能等到回调超时
+            sendMode = DynamicKafkaProducerFactory.SendMode.SYNC;
+        }
 
         try {
             // 创建 Kafka 配置
             DynamicKafkaProducerFactory.KafkaConfig kafkaConfig = kafkaProducerFactory.createConfig(config);
+            DynamicKafkaProducerFactory.ProducerTuning tuning = kafkaProducerFactory.createTuning(config);
+
+            if (batchEnabled) {
+                return executeBatch(node, context, config, kafkaConfig, tuning, sendMode, topic, messageTemplate);
+            }
 
             // 生成回调唯一标识
             String callbackKey = IdUtil.fastSimpleUUID();
@@ -145,16 +178,22 @@ public class KafkaNodeHandler implements NodeHandler {
             String messageJson = objectMapper.writeValueAsString(message);
 
             // 发送消息
-            kafkaProducerFactory.send(kafkaConfig, topic, messageKey, messageJson);
-            log.info("Kafka消息发送成功: topic={}, key={}, waitForCallback={}", 
-                    topic, messageKey, waitForCallback);
+            List<RecordMetadata> acks = kafkaProducerFactory.send(kafkaConfig, tuning, sendMode,
+                    List.of(new ProducerRecord<>(topic, messageKey, messageJson)));
+            log.info("Kafka消息发送成功: topic={}, key={}, sendMode={}, waitForCallback={}", 
+                    topic, messageKey, sendMode.getValue(), waitForCallback);
 
             // 构建输出
             Map<String, Object> output = new HashMap<>();
             output.put("topic", topic);
             output.put("messageKey", messageKey);
             output.put("messageSent", true);
+            output.put("sendMode", sendMode.getValue());
             output.put("messageBody", message);  // 记录发送的完整消息体
+            if (!acks.isEmpty()) {
+                output.put("partition", acks.get(0).partition());
+                output.put("offset", acks.get(0).offset());
+            }
             
             // 仅当开启等待回调时，才输出回调相关信息
             if (waitForCallback) {
@@ -198,4 +237,112 @@ public class KafkaNodeHandler implements NodeHandler {
             return NodeResult.fail("Kafka消息发送失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 批量发送：数组中的每一项渲染为一条消息
+     */
+    private NodeResult executeBatch(FlowGraphDTO.NodeDTO node,
+                                    ExecutionContext context,
+                                    Map<String, Object> config,
+                                    DynamicKafkaProducerFactory.KafkaConfig kafkaConfig,
+                                    DynamicKafkaProducerFactory.ProducerTuning tuning,
+                                    DynamicKafkaProducerFactory.SendMode sendMode,
+                                    String topic,
+                                    String messageTemplate) throws Exception {
+        String itemsExpression = (String) config.get("itemsExpression");
+        if (itemsExpression == null || itemsExpression.isEmpty()) {
+            return NodeResult.fail("Kafka 批量发送需要配置数据来源");
+        }
+        List<Object> items = normalizeItems(expressionResolver.resolve(itemsExpression, context));
+        if (items == null) {
+            return NodeResult.fail("Kafka 批量发送的数据来源必须是数组或列表");
+        }
+
+        String itemVariable = getVariableName(config.get("itemVariable"), "item");
+        String indexVariable = getVariableName(config.get("indexVariable"), "index");
+        String keyExpression = (String) config.get("keyExpression");
+
+        // 复用同一份上下文数据，逐项覆盖当前项与下标
+        Map<String, Object> itemData = new HashMap<>(context.getAllData());
+        List<ProducerRecord<String, String>> records = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Object item = items.get(i);
+            itemData.put(itemVariable, item);
+            itemData.put(indexVariable, i);
+
+            String messageKey = keyExpression != null && !keyExpression.isEmpty()
+                    ? TemplateResolver.resolve(keyExpression, itemData)
+                    : IdUtil.fastSimpleUUID();
+
+            Map<String, Object> message = new HashMap<>();
+            message.put("executionId", context.getExecutionId());
+            message.put("nodeId", node.getId());
+            message.put("batchIndex", i);
+            message.put("waitForCallback", false);
+            message.put("payload", messageTemplate != null && !messageTemplate.isEmpty()
+                    ? parsePayload(TemplateResolver.resolve(messageTemplate, itemData))
+                    : item);
+
+            records.add(new ProducerRecord<>(topic, messageKey, objectMapper.writeValueAsString(message)));
+        }
+
+        List<RecordMetadata> acks = records.isEmpty()
+                ? List.of()
+                : kafkaProducerFactory.send(kafkaConfig, tuning, sendMode, records);
+        log.info("Kafka批量消息发送完成: topic={}, count={}, sendMode={}", topic, records.size(), sendMode.getValue());
+
+        Map<String, Object> output = new HashMap<>();
+        output.put("topic", topic);
+        output.put("messageSent", true);
+        output.put("sendMode", sendMode.getValue());
+        output.put("messageCount", records.size());
+        if (sendMode == DynamicKafkaProducerFactory.SendMode.SYNC) {
+            output.put("acknowledgedCount", acks.size());
+        }
+        return NodeResult.success(output);
+    }
+
+    /**
+     * 尝试将消息内容解析为 JSON，失败时按字符串处理
+     */
+    private Object parsePayload(String content) {
+        try {
+            return objectMapper.readValue(content, Object.class);
+        } catch (JsonProcessingException e) {
+            return content;
+        }
+    }
+
+    private List<Object> normalizeItems(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String text) {
+            try {
+                value = objectMapper.readValue(text, Object.class);
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+        }
+        if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> items = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                items.add(Array.get(value, i));
+            }
+            return items;
+        }
+        return null;
+    }
+
+    private String getVariableName(Object value, String defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        String name = String.valueOf(value).trim();
+        return name.isEmpty() ? defaultValue : name;
+    }
 }
@@ -1,40 +1,75 @@
 package com.flowlet.engine.handler;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.flowlet.config.FlowletProperties;
 import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.event.ExecutionEventBus;
+import com.flowlet.engine.http.HttpClientRegistry;
+import com.flowlet.engine.llm.LlmConcurrencyLimiter;
+import com.flowlet.engine.llm.LlmProviderRouter;
+import com.flowlet.engine.llm.LlmResponseCacheManager;
+import com.flowlet.engine.llm.LlmStreamAccumulator;
+import com.flowlet.engine.provider.ProviderRegistry;
 import com.flowlet.engine.util.TemplateResolver;
 import com.flowlet.entity.ModelProvider;
 import com.flowlet.enums.ModelProviderType;
 import com.flowlet.enums.NodeType;
-import com.flowlet.mapper.ModelProviderMapper;
-import com.flowlet.util.ModelHubCrypto;
 import com.flowlet.util.SecurityUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * 大模型调用节点处理器
  * 支持 OpenAI 兼容、Anthropic 与 Gemini 的基础调用
+ *
+ * stream：为 true 时使用提供方的流式接口（SSE），增量文本实时发布到执行事件流（llm_delta），
+ * 节点输出与非流式模式保持一致；同时记录各模型的首 token 延迟与生成速度。
+ * 后续节点仍在本节点完成后才开始执行，增量文本只通过事件流提供给订阅方
+ *
+ * cacheEnabled：temperature 为 0 时默认使用响应缓存，其他情况需显式开启；命中时输出 cached=true
+ * cacheTtlSeconds：缓存有效期（秒），未配置时使用全局默认值
+ * queueTimeoutMs：并发受限时的排队与限流重试期限（毫秒）
+ *
+ * providers：候选提供方列表（providerType/providerKey/providerId/model/weight），调用失败或超时时依次故障转移
+ * routingStrategy：候选排序策略 ordered（默认）/weighted/latency，依据跨执行共享的延迟与错误率统计
+ * hedgeAfterMs：非流式调用超过该时间仍未返回时并行请求下一个候选，取最先成功的结果
  */
 @Slf4j
 @Component
@@ -52,9 +87,39 @@ public class LlmNodeHandler implements NodeHandler {
             .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
             .build();
 
-    private final WebClient.Builder webClientBuilder;
-    private final ModelProviderMapper modelProviderMapper;
-    private final ModelHubCrypto modelHubCrypto;
+    private final HttpClientRegistry httpClientRegistry;
+    private final ProviderRegistry providerRegistry;
+    private final ObjectMapper objectMapper;
+    private final ExecutionEventBus executionEventBus;
+    private final MeterRegistry meterRegistry;
+    private final LlmResponseCacheManager llmResponseCacheManager;
+    private final LlmConcurrencyLimiter llmConcurrencyLimiter;
+    private final LlmProviderRouter llmProviderRouter;
+    private final FlowletProperties flowletProperties;
+
+    /**
+     * 对冲调用线程池，线程数有上限，用尽时拒绝提交：对冲请求直接跳过，不在发起线程中执行
+     */
+    private ThreadPoolExecutor hedgeExecutor;
+
+    @PostConstruct
+    void initHedgeExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        hedgeExecutor = new ThreadPoolExecutor(0,
+                Math.max(1, flowletProperties.getLlmConcurrency().getHedgeMaxThreads()),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "llm-hedge-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdownHedgeExecutor() {
+        hedgeExecutor.shutdown();
+    }
 
     @Override
     public String getNodeType() {
@@ -68,137 +133,416 @@ public class LlmNodeHandler implements NodeHandler {
         }
 
         Map<String, Object> config = node.getData().getConfig();
-        String providerType = getString(config, "providerType", ModelProviderType.STANDARD.name())
-                .toUpperCase(Locale.ROOT);
-        String providerKey = getString(config, "providerKey", null);
-        String providerId = getString(config, "providerId", null);
+        List<ProviderCandidate> candidates = new ArrayList<>();
+        if (config.get("providers") instanceof List<?> providerList && !providerList.isEmpty()) {
+            String fallbackModel = getString(config, "model", null);
+            List<String> skipped = new ArrayList<>();
+            for (Object item : providerList) {
+                if (!(item instanceof Map)) {
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> entry = (Map<String, Object>) item;
+                try {
+                    candidates.add(resolveCandidate(entry, fallbackModel));
+                } catch (IllegalArgumentException ex) {
+                    String label = getString(entry, "providerKey", getString(entry, "providerId", "?"));
+                    skipped.add(label + ": " + ex.getMessage());
+                }
+            }
+            if (candidates.isEmpty()) {
+                return NodeResult.fail("没有可用的模型提供方: " + String.join("; ", skipped));
+            }
+            if (!skipped.isEmpty()) {
+                log.warn("LLM 节点部分候选提供方不可用: nodeId={}, skipped={}", node.getId(), skipped);
+            }
+        } else {
+            try {
+                candidates.add(resolveCandidate(config, null));
+            } catch (IllegalArgumentException ex) {
+                return NodeResult.fail(ex.getMessage());
+            }
+        }
+
+        Map<String, Object> allData = context.getAllData();
+        String systemPrompt = resolvePrompt(config, "systemPrompt", allData);
+        List<LlmMessage> messages = resolveMessages(config, allData);
+        if (messages.isEmpty()) {
+            return NodeResult.fail("用户提示词不能为空");
+        }
+        List<String> textPrompts = toUserPrompts(messages);
+        if (textPrompts.isEmpty()) {
+            // Anthropic 与 Gemini 仅支持文本提示词
+            candidates.removeIf(candidate -> candidate.dialect != LlmStreamAccumulator.Dialect.OPENAI);
+            if (candidates.isEmpty()) {
+                return NodeResult.fail("用户提示词不能为空");
+            }
+        }
+
+        Double temperature = getDouble(config.get("temperature"));
+        Integer timeoutMs = getInteger(config.get("timeoutMs"));
+        LlmRequest request = new LlmRequest(
+                systemPrompt,
+                messages,
+                textPrompts,
+                temperature,
+                getDouble(config.get("topP")),
+                getInteger(config.get("maxTokens")),
+                timeoutMs != null ? Duration.ofMillis(timeoutMs) : DEFAULT_TIMEOUT,
+                getBoolean(config.get("stream")) ? new StreamSink(context.getExecutionId(), node.getId()) : null,
+                isCacheApplicable(config, temperature),
+                getLong(config.get("cacheTtlSeconds")),
+                getLong(config.get("queueTimeoutMs")));
+
+        LlmProviderRouter.Strategy strategy = LlmProviderRouter.Strategy.of(getString(config, "routingStrategy", null));
+        List<ProviderCandidate> ordered = llmProviderRouter.order(candidates, strategy);
+        Long hedgeAfterMs = getLong(config.get("hedgeAfterMs"));
+        List<Map<String, Object>> attempts = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            // 流式输出无法合并多路结果，只做顺序故障转移
+            AttemptResult result = hedgeAfterMs != null && hedgeAfterMs > 0
+                    && request.streamSink == null && ordered.size() > 1
+                    ? callHedged(ordered, request, attempts, hedgeAfterMs)
+                    : callWithFailover(ordered, request, attempts);
+            ProviderCandidate winner = result.candidate;
+            String text = result.text;
+            LlmResponseCacheManager.CacheHit cacheHit = result.cacheHit;
+
+            if (cacheHit != null && request.streamSink != null) {
+                // 命中缓存时一次性发布完整文本，订阅方无需区分
+                request.streamSink.onDelta(text);
+            }
+
+            Map<String, Object> output = new HashMap<>();
+            output.put("text", text);
+            output.put("model", winner.model);
+            output.put("usage", extractUsage(result.response, winner.providerType));
+            output.put("request", result.requestDetails);
+            output.put("response", result.response);
+            output.put("provider", winner.getProviderLabel());
+            if (request.streamSink != null) {
+                output.put("streamed", true);
+                output.put("ttftMs", request.streamSink.getTtftMs());
+            }
+            if (result.cacheKey != null) {
+                output.put("cached", cacheHit != null);
+                if (cacheHit != null) {
+                    output.put("cacheTier", cacheHit.tier());
+                    output.put("cachedLatencyMs", cacheHit.latencyMs());
+                }
+            }
+            if (candidates.size() > 1) {
+                output.put("routingStrategy", strategy.name().toLowerCase(Locale.ROOT));
+                output.put("failover", winner != ordered.get(0));
+                output.put("hedged", request.hedged);
+                output.put("attempts", snapshotAttempts(attempts));
+            }
 
-        ModelProvider provider = resolveProvider(providerType, providerKey, providerId);
-        if (provider == null) {
-            return NodeResult.fail("未找到模型提供方配置");
+            boolean outputJsonEnabled = getBoolean(config.get("outputJsonEnabled"));
+            List<String> jsonFields = getStringList(config.get("outputJsonFields"));
+            if (outputJsonEnabled && !jsonFields.isEmpty()) {
+                Map<String, Object> parsed = parseJsonOutput(text);
+                if (parsed != null && !parsed.isEmpty()) {
+                    for (String field : jsonFields) {
+                        if (field == null || field.isBlank()) {
+                            continue;
+                        }
+                        output.put(field.trim(), parsed.get(field.trim()));
+                    }
+                }
+            }
+            return NodeResult.success(output);
+        } catch (Exception ex) {
+            log.error("LLM 调用失败: {}", ex.getMessage(), ex);
+            String message = describeError(ex);
+            if (ex instanceof EmptyResponseException && candidates.size() == 1) {
+                return NodeResult.fail(message);
+            }
+            if (candidates.size() > 1) {
+                return NodeResult.fail("LLM 调用失败（已尝试 " + attempts.size() + " 个提供方）: " + message);
+            }
+            return NodeResult.fail("LLM 调用失败: " + message);
         }
+    }
+
+    /**
+     * 解析候选提供方，配置无效时抛出 IllegalArgumentException
+     *
+     * @param fallbackModel 候选未指定模型时使用的节点级模型
+     */
+    private ProviderCandidate resolveCandidate(Map<String, Object> entry, String fallbackModel) {
+        String providerType = getString(entry, "providerType", ModelProviderType.STANDARD.name())
+                .toUpperCase(Locale.ROOT);
+        ProviderRegistry.ModelProviderEntry providerEntry = providerRegistry.getModelProvider(
+                SecurityUtils.getCurrentTenantId(), providerType,
+                getString(entry, "providerKey", null), getString(entry, "providerId", null));
+        if (providerEntry == null) {
+            throw new IllegalArgumentException("未找到模型提供方配置");
+        }
+        ModelProvider provider = providerEntry.getProvider();
         if (!Boolean.TRUE.equals(provider.getEnabled())) {
-            return NodeResult.fail("模型提供方已停用");
+            throw new IllegalArgumentException("模型提供方已停用");
         }
 
-        String apiKey = modelHubCrypto.decrypt(provider.getApiKeyEncrypted());
+        String apiKey = providerEntry.getApiKey();
         if (apiKey == null || apiKey.isBlank()) {
-            return NodeResult.fail("模型提供方未配置 API Key");
+            throw new IllegalArgumentException("模型提供方未配置 API Key");
         }
 
-        String model = getString(config, "model", null);
+        String model = getString(entry, "model", fallbackModel);
         if (model == null || model.isBlank()) {
             model = provider.getDefaultModel();
         }
         if (model == null || model.isBlank()) {
-            return NodeResult.fail("模型不能为空");
+            throw new IllegalArgumentException("模型不能为空");
         }
+        Double weight = getDouble(entry.get("weight"));
+        return new ProviderCandidate(provider, providerType, apiKey, model, weight != null ? weight : 1.0);
+    }
 
-        Map<String, Object> allData = context.getAllData();
-        String systemPrompt = resolvePrompt(config, "systemPrompt", allData);
-        List<LlmMessage> messages = resolveMessages(config, allData);
-        if (messages.isEmpty()) {
-            return NodeResult.fail("用户提示词不能为空");
+    /**
+     * 按顺序尝试候选，失败（含超时）后切换到下一个
+     */
+    private AttemptResult callWithFailover(List<ProviderCandidate> ordered, LlmRequest request,
+                                           List<Map<String, Object>> attempts) {
+        RuntimeException lastError = null;
+        for (ProviderCandidate candidate : ordered) {
+            try {
+                return runAttempt(candidate, request, attempts, null);
+            } catch (RuntimeException ex) {
+                lastError = ex;
+                if (candidate != ordered.get(ordered.size() - 1)) {
+                    log.warn("LLM 调用失败，切换到下一个提供方: provider={}, model={}, error={}",
+                            candidate.getProviderLabel(), candidate.model, describeError(ex));
+                }
+            }
         }
+        throw Objects.requireNonNull(lastError);
+    }
 
-        Double temperature = getDouble(config.get("temperature"));
-        Double topP = getDouble(config.get("topP"));
-        Integer maxTokens = getInteger(config.get("maxTokens"));
-        Integer timeoutMs = getInteger(config.get("timeoutMs"));
-        Duration timeout = timeoutMs != null ? Duration.ofMillis(timeoutMs) : DEFAULT_TIMEOUT;
-
-        Map<String, Object> requestDetails = new HashMap<>();
-        requestDetails.put("providerType", providerType);
-        requestDetails.put("providerKey", provider.getProviderKey());
-        requestDetails.put("providerId", provider.getId());
-        requestDetails.put("model", model);
-        requestDetails.put("baseUrl", provider.getBaseUrl());
-        requestDetails.put("messages", toMessageDetails(messages));
-
+    /**
+     * 对冲调用：当前尝试超过阈值仍未返回时并行发起下一个候选，失败时立即发起下一个，
+     * 取最先成功的结果并取消其余尝试。
+     * 对冲线程池已满时跳过对冲，继续等待进行中的尝试；没有进行中的尝试时剩余候选在当前线程中顺序故障转移
+     */
+    private AttemptResult callHedged(List<ProviderCandidate> ordered, LlmRequest request,
+                                     List<Map<String, Object>> attempts, long hedgeAfterMs) {
+        BlockingQueue<AttemptOutcome> completions = new LinkedBlockingQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+        AtomicBoolean settled = new AtomicBoolean();
+        int next = 0;
+        int pending = 0;
+        boolean hedging = true;
+        RuntimeException lastError = null;
         try {
-            String providerKeyNormalized = provider.getProviderKey() == null
-                    ? ""
-                    : provider.getProviderKey().toLowerCase(Locale.ROOT);
-            List<String> textPrompts = toUserPrompts(messages);
-
-            Map<String, Object> response;
-            if (ModelProviderType.STANDARD.name().equals(providerType)
-                    && "anthropic".equals(providerKeyNormalized)) {
-                if (textPrompts.isEmpty()) {
-                    return NodeResult.fail("用户提示词不能为空");
-                }
-                response = executeAnthropic(provider, apiKey, model, systemPrompt,
-                        textPrompts,
-                        temperature, topP, maxTokens, requestDetails, timeout);
-            } else if (ModelProviderType.STANDARD.name().equals(providerType)
-                    && "gemini".equals(providerKeyNormalized)) {
-                if (textPrompts.isEmpty()) {
-                    return NodeResult.fail("用户提示词不能为空");
-                }
-                response = executeGemini(provider, apiKey, model, systemPrompt,
-                        textPrompts,
-                        temperature, topP, maxTokens, requestDetails, timeout);
-            } else {
-                response = executeOpenAiCompatible(provider, apiKey, model, systemPrompt, messages,
-                        temperature, topP, maxTokens, requestDetails, timeout);
-            }
+            while (true) {
+                if (pending == 0) {
+                    if (next >= ordered.size()) {
+                        throw Objects.requireNonNull(lastError);
+                    }
+                    Future<?> future = launchAttempt(ordered.get(next), request, attempts, settled, completions);
+                    if (future == null) {
+                        return callWithFailover(ordered.subList(next, ordered.size()), request, attempts);
+                    }
+                    futures.add(future);
+                    next++;
+                    pending++;
+                    continue;
+                }
 
-        String text = extractText(response, providerType, providerKeyNormalized);
-        if (text == null) {
-            return NodeResult.fail("模型返回为空");
-        }
-
-        Map<String, Object> output = new HashMap<>();
-        output.put("text", text);
-        output.put("model", model);
-        output.put("usage", extractUsage(response, providerType));
-        output.put("request", requestDetails);
-        output.put("response", response);
-        output.put("provider", provider.getName() != null ? provider.getName() : provider.getProviderKey());
-
-        boolean outputJsonEnabled = getBoolean(config.get("outputJsonEnabled"));
-        List<String> jsonFields = getStringList(config.get("outputJsonFields"));
-        if (outputJsonEnabled && !jsonFields.isEmpty()) {
-            Map<String, Object> parsed = parseJsonOutput(text);
-            if (parsed != null && !parsed.isEmpty()) {
-                for (String field : jsonFields) {
-                    if (field == null || field.isBlank()) {
+                AttemptOutcome outcome = hedging && next < ordered.size()
+                        ? completions.poll(hedgeAfterMs, TimeUnit.MILLISECONDS)
+                        : completions.take();
+                if (outcome == null) {
+                    Future<?> future = launchAttempt(ordered.get(next), request, attempts, settled, completions);
+                    if (future == null) {
+                        hedging = false;
                         continue;
                     }
-                    output.put(field.trim(), parsed.get(field.trim()));
+                    meterRegistry.counter("flowlet.llm.hedge", "result", "launched").increment();
+                    request.hedged = true;
+                    futures.add(future);
+                    next++;
+                    pending++;
+                    continue;
+                }
+                pending--;
+                if (outcome.result != null) {
+                    return outcome.result;
+                }
+                lastError = outcome.error;
+                if (pending > 0 && next < ordered.size()) {
+                    Future<?> future = launchAttempt(ordered.get(next), request, attempts, settled, completions);
+                    if (future != null) {
+                        futures.add(future);
+                        next++;
+                        pending++;
+                    }
                 }
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("LLM 调用被中断", ex);
+        } finally {
+            settled.set(true);
+            futures.forEach(future -> future.cancel(true));
         }
-        return NodeResult.success(output);
-    } catch (WebClientResponseException ex) {
-        log.error("LLM 调用失败: {}", ex.getMessage(), ex);
-        return NodeResult.fail("LLM 调用失败: " + ex.getStatusCode());
-        } catch (Exception ex) {
-            log.error("LLM 调用失败: {}", ex.getMessage(), ex);
-            return NodeResult.fail("LLM 调用失败: " + ex.getMessage());
+    }
+
+    /**
+     * 复制尝试记录：对冲中落败的尝试返回后仍可能在结束并写入记录，逐条加锁复制，尚未结束的记为已取消
+     */
+    private List<Map<String, Object>> snapshotAttempts(List<Map<String, Object>> attempts) {
+        List<Map<String, Object>> snapshot = new ArrayList<>();
+        synchronized (attempts) {
+            for (Map<String, Object> attempt : attempts) {
+                synchronized (attempt) {
+                    Map<String, Object> copy = new LinkedHashMap<>(attempt);
+                    if (!copy.containsKey("success")) {
+                        copy.put("success", false);
+                        copy.put("cancelled", true);
+                    }
+                    snapshot.add(copy);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 在对冲线程池中发起一次尝试
+     *
+     * @return 尝试的 Future，线程池已满被拒绝时返回 null
+     */
+    private Future<?> launchAttempt(ProviderCandidate candidate, LlmRequest request,
+                                    List<Map<String, Object>> attempts, AtomicBoolean settled,
+                                    BlockingQueue<AttemptOutcome> completions) {
+        try {
+            return hedgeExecutor.submit(() -> {
+                try {
+                    completions.add(new AttemptOutcome(runAttempt(candidate, request, attempts, settled), null));
+                } catch (RuntimeException ex) {
+                    completions.add(new AttemptOutcome(null, ex));
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            meterRegistry.counter("flowlet.llm.hedge", "result", "rejected").increment();
+            log.debug("对冲线程池已满，跳过对冲: provider={}, model={}", candidate.getProviderLabel(), candidate.model);
+            return null;
         }
     }
 
-    private ModelProvider resolveProvider(String providerType, String providerKey, String providerId) {
-        String tenantId = SecurityUtils.getCurrentTenantId();
-        if (ModelProviderType.CUSTOM.name().equals(providerType)) {
-            if (providerId == null || providerId.isBlank()) {
-                return null;
+    /**
+     * 执行一次尝试并记录健康统计
+     *
+     * @param settled 对冲调用中表示结果已确定，之后失败的尝试是被取消的，不计入健康统计
+     */
+    private AttemptResult runAttempt(ProviderCandidate candidate, LlmRequest request,
+                                     List<Map<String, Object>> attempts, AtomicBoolean settled) {
+        long startNanos = System.nanoTime();
+        Map<String, Object> attempt = new LinkedHashMap<>();
+        attempt.put("provider", candidate.getProviderLabel());
+        attempt.put("providerId", candidate.getProviderId());
+        attempt.put("model", candidate.model);
+        attempts.add(attempt);
+        try {
+            AttemptResult result = callCandidate(candidate, request);
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            synchronized (attempt) {
+                attempt.put("success", true);
+                attempt.put("latencyMs", latencyMs);
+                if (result.cacheHit != null) {
+                    attempt.put("cached", true);
+                }
+            }
+            if (result.cacheHit == null) {
+                llmProviderRouter.record(candidate, latencyMs, true, null);
             }
-            ModelProvider provider = modelProviderMapper.selectById(providerId);
-            if (provider == null || !tenantId.equals(provider.getTenantId())) {
-                return null;
+            return result;
+        } catch (RuntimeException ex) {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            boolean cancelled = settled != null && settled.get();
+            synchronized (attempt) {
+                attempt.put("success", false);
+                attempt.put("latencyMs", latencyMs);
+                attempt.put(cancelled ? "cancelled" : "error", cancelled ? true : describeError(ex));
             }
-            return provider;
+            if (!cancelled) {
+                llmProviderRouter.record(candidate, latencyMs, false, describeError(ex));
+            }
+            throw ex;
         }
+    }
 
-        if (providerKey == null || providerKey.isBlank()) {
-            return null;
+    /**
+     * 调用单个候选：查询缓存，未命中时在并发限制下请求提供方并写入缓存
+     */
+    private AttemptResult callCandidate(ProviderCandidate candidate, LlmRequest request) {
+        ModelProvider provider = candidate.provider;
+        Map<String, Object> requestDetails = new HashMap<>();
+        requestDetails.put("providerType", candidate.providerType);
+        requestDetails.put("providerKey", provider.getProviderKey());
+        requestDetails.put("providerId", provider.getId());
+        requestDetails.put("model", candidate.model);
+        requestDetails.put("baseUrl", provider.getBaseUrl());
+        requestDetails.put("messages", toMessageDetails(request.messages));
+
+        // 响应缓存：temperature 为 0 时默认开启，其他情况需节点显式开启
+        String cacheKey = null;
+        LlmResponseCacheManager.CacheHit cacheHit = null;
+        if (request.cacheApplicable) {
+            cacheKey = llmResponseCacheManager.cacheKey(buildCacheKeyRequest(provider, candidate.providerType,
+                    candidate.model, request.systemPrompt, request.messages, request.temperature, request.topP,
+                    request.maxTokens));
+            cacheHit = llmResponseCacheManager.get(cacheKey);
+        }
+
+        long startNanos = System.nanoTime();
+        Map<String, Object> response;
+        StreamSink streamSink = request.streamSink;
+        if (cacheHit != null) {
+            log.info("LLM 响应缓存命中: model={}, tier={}", candidate.model, cacheHit.tier());
+            response = cacheHit.response();
+        } else {
+            if (streamSink != null) {
+                streamSink.begin();
+            }
+            // 按（提供方, 模型）自适应限制并发，被限流时排队重试
+            response = llmConcurrencyLimiter.execute(provider.getProviderKey(), provider.getId(), candidate.model,
+                    request.queueTimeoutMs, () -> switch (candidate.dialect) {
+                        case ANTHROPIC -> executeAnthropic(provider, candidate.apiKey, candidate.model,
+                                request.systemPrompt, request.textPrompts, request.temperature, request.topP,
+                                request.maxTokens, requestDetails, request.timeout, streamSink);
+                        case GEMINI -> executeGemini(provider, candidate.apiKey, candidate.model,
+                                request.systemPrompt, request.textPrompts, request.temperature, request.topP,
+                                request.maxTokens, requestDetails, request.timeout, streamSink);
+                        case OPENAI -> executeOpenAiCompatible(provider, candidate.apiKey, candidate.model,
+                                request.systemPrompt, request.messages, request.temperature, request.topP,
+                                request.maxTokens, requestDetails, request.timeout, streamSink);
+                    }, result -> {
+                        Integer outputTokens = outputTokens(candidate.dialect, result, streamSink);
+                        return outputTokens != null ? outputTokens : 1;
+                    });
+            recordMetrics(provider, candidate.model, candidate.dialect, response, streamSink, startNanos);
+        }
+
+        String text = extractText(response, candidate.providerType, candidate.providerKeyNormalized);
+        if (text == null) {
+            throw new EmptyResponseException();
+        }
+        if (cacheHit == null && cacheKey != null) {
+            llmResponseCacheManager.put(cacheKey, provider.getId(), candidate.model, response,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), request.cacheTtlSeconds);
         }
-        return modelProviderMapper.selectOne(new QueryWrapper<ModelProvider>()
-                .eq("tenant_id", tenantId)
-                .eq("provider_type", ModelProviderType.STANDARD.name())
-                .eq("provider_key", providerKey.toLowerCase(Locale.ROOT)));
+        return new AttemptResult(candidate, response, text, requestDetails, cacheKey, cacheHit);
+    }
+
+    private String describeError(Throwable ex) {
+        if (ex instanceof WebClientResponseException responseException) {
+            return String.valueOf(responseException.getStatusCode());
+        }
+        return ex.getMessage();
     }
 
     private Map<String, Object> executeOpenAiCompatible(
@@ -211,7 +555,8 @@ public class LlmNodeHandler implements NodeHandler {
             Double topP,
             Integer maxTokens,
             Map<String, Object> requestDetails,
-            Duration timeout
+            Duration timeout,
+            StreamSink streamSink
     ) {
         Map<String, Object> request = new HashMap<>();
         request.put("model", model);
@@ -225,24 +570,17 @@ public class LlmNodeHandler implements NodeHandler {
         if (maxTokens != null) {
             request.put("max_tokens", maxTokens);
         }
+        if (streamSink != null) {
+            request.put("stream", true);
+        }
         requestDetails.put("request", request);
 
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(provider.getBaseUrl())).build();
-        ParameterizedTypeReference<Map<String, Object>> responseType =
-                new ParameterizedTypeReference<>() {};
-        Map<String, Object> response = client.post()
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(provider.getBaseUrl()));
+        WebClient.RequestBodySpec spec = client.post()
                 .uri("/chat/completions")
                 .contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
-                .header("Authorization", "Bearer " + apiKey)
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(responseType)
-                .block(timeout);
-
-        if (response == null) {
-            throw new IllegalStateException("LLM 响应为空");
-        }
-        return response;
+                .header("Authorization", "Bearer " + apiKey);
+        return exchange(spec, request, LlmStreamAccumulator.Dialect.OPENAI, streamSink, timeout);
     }
 
     private Map<String, Object> executeAnthropic(
@@ -255,7 +593,8 @@ public class LlmNodeHandler implements NodeHandler {
             Double topP,
             Integer maxTokens,
             Map<String, Object> requestDetails,
-            Duration timeout
+            Duration timeout,
+            StreamSink streamSink
     ) {
         Map<String, Object> request = new HashMap<>();
         request.put("model", model);
@@ -270,25 +609,18 @@ public class LlmNodeHandler implements NodeHandler {
         if (topP != null) {
             request.put("top_p", topP);
         }
+        if (streamSink != null) {
+            request.put("stream", true);
+        }
         requestDetails.put("request", request);
 
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(provider.getBaseUrl())).build();
-        ParameterizedTypeReference<Map<String, Object>> responseType =
-                new ParameterizedTypeReference<>() {};
-        Map<String, Object> response = client.post()
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(provider.getBaseUrl()));
+        WebClient.RequestBodySpec spec = client.post()
                 .uri("/v1/messages")
                 .contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
                 .header("x-api-key", apiKey)
-                .header("anthropic-version", ANTHROPIC_VERSION)
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(responseType)
-                .block(timeout);
-
-        if (response == null) {
-            throw new IllegalStateException("LLM 响应为空");
-        }
-        return response;
+                .header("anthropic-version", ANTHROPIC_VERSION);
+        return exchange(spec, request, LlmStreamAccumulator.Dialect.ANTHROPIC, streamSink, timeout);
     }
 
     private Map<String, Object> executeGemini(
@@ -301,7 +633,8 @@ public class LlmNodeHandler implements NodeHandler {
             Double topP,
             Integer maxTokens,
             Map<String, Object> requestDetails,
-            Duration timeout
+            Duration timeout,
+            StreamSink streamSink
     ) {
         Map<String, Object> request = new HashMap<>();
         request.put("contents", buildGeminiContents(userPrompts));
@@ -325,24 +658,317 @@ public class LlmNodeHandler implements NodeHandler {
         }
         requestDetails.put("request", request);
 
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(provider.getBaseUrl())).build();
-        ParameterizedTypeReference<Map<String, Object>> responseType =
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(provider.getBaseUrl()));
+        WebClient.RequestBodySpec spec = client.post()
+                .uri(uriBuilder -> {
+                    // 流式接口需要 alt=sse 才会以 SSE 格式返回
+                    if (streamSink != null) {
+                        uriBuilder.path("/models/{model}:streamGenerateContent").queryParam("alt", "sse");
+                    } else {
+                        uriBuilder.path("/models/{model}:generateContent");
+                    }
+                    return uriBuilder.queryParam("key", apiKey).build(model);
+                })
+                .contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON));
+        return exchange(spec, request, LlmStreamAccumulator.Dialect.GEMINI, streamSink, timeout);
+    }
+
+    private static LlmStreamAccumulator.Dialect resolveDialect(String providerType, String providerKey) {
+        if (ModelProviderType.STANDARD.name().equals(providerType)) {
+            if ("anthropic".equals(providerKey)) {
+                return LlmStreamAccumulator.Dialect.ANTHROPIC;
+            }
+            if ("gemini".equals(providerKey)) {
+                return LlmStreamAccumulator.Dialect.GEMINI;
+            }
+        }
+        return LlmStreamAccumulator.Dialect.OPENAI;
+    }
+
+    private boolean isCacheApplicable(Map<String, Object> config, Double temperature) {
+        if (!llmResponseCacheManager.isEnabled()) {
+            return false;
+        }
+        Object cacheEnabled = config.get("cacheEnabled");
+        if (cacheEnabled != null) {
+            return getBoolean(cacheEnabled);
+        }
+        return temperature != null && temperature == 0;
+    }
+
+    /**
+     * 构建规范化的缓存键请求：统一换行符、去除首尾空白，字段顺序固定
+     */
+    private Map<String, Object> buildCacheKeyRequest(
+            ModelProvider provider,
+            String providerType,
+            String model,
+            String systemPrompt,
+            List<LlmMessage> messages,
+            Double temperature,
+            Double topP,
+            Integer maxTokens
+    ) {
+        List<Map<String, Object>> normalizedMessages = new ArrayList<>();
+        for (LlmMessage message : messages) {
+            List<String> parts = new ArrayList<>();
+            for (LlmContentPart part : message.content) {
+                if ("text".equals(part.type)) {
+                    parts.add("text:" + normalizeText(part.text));
+                } else if ("image_url".equals(part.type)) {
+                    parts.add("image:" + part.url.trim());
+                }
+            }
+            normalizedMessages.add(Map.of("role", message.role.toLowerCase(Locale.ROOT), "content", parts));
+        }
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("providerType", providerType);
+        request.put("providerId", provider.getId());
+        request.put("baseUrl", provider.getBaseUrl());
+        request.put("model", model);
+        request.put("system", normalizeText(systemPrompt));
+        request.put("messages", normalizedMessages);
+        request.put("temperature", temperature);
+        request.put("topP", topP);
+        request.put("maxTokens", maxTokens);
+        return request;
+    }
+
+    private String normalizeText(String text) {
+        return text == null ? "" : text.replace("\r\n", "\n").trim();
+    }
+
+    /**
+     * 发送请求并获取响应
+     * 流式模式下逐条解析 SSE 数据块并发布增量文本，最终还原为非流式响应结构
+     */
+    private Map<String, Object> exchange(
+            WebClient.RequestBodySpec spec,
+            Map<String, Object> request,
+            LlmStreamAccumulator.Dialect dialect,
+            StreamSink streamSink,
+            Duration timeout
+    ) {
+        if (streamSink == null) {
+            ParameterizedTypeReference<Map<String, Object>> responseType =
+                    new ParameterizedTypeReference<>() {};
+            Map<String, Object> response = spec
+                    .bodyValue(request)
+                    .retrieve()
+                    .bodyToMono(responseType)
+                    .block(timeout);
+
+            if (response == null) {
+                throw new IllegalStateException("LLM 响应为空");
+            }
+            return response;
+        }
+
+        LlmStreamAccumulator accumulator = new LlmStreamAccumulator(dialect);
+        streamSink.accumulator = accumulator;
+        ParameterizedTypeReference<ServerSentEvent<String>> eventType =
                 new ParameterizedTypeReference<>() {};
-        Map<String, Object> response = client.post()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/models/{model}:generateContent")
-                        .queryParam("key", apiKey)
-                        .build(model))
-                .contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+        spec.accept(MediaType.TEXT_EVENT_STREAM)
                 .bodyValue(request)
                 .retrieve()
-                .bodyToMono(responseType)
-                .block(timeout);
+                .bodyToFlux(eventType)
+                .map(event -> event.data() != null ? event.data().trim() : "")
+                .filter(data -> !data.isEmpty() && !"[DONE]".equals(data))
+                .doOnNext(data -> {
+                    String delta = accumulator.accept(parseChunk(data));
+                    if (!delta.isEmpty()) {
+                        streamSink.onDelta(delta);
+                    }
+                })
+                .blockLast(timeout);
+        return accumulator.toResponse();
+    }
 
-        if (response == null) {
-            throw new IllegalStateException("LLM 响应为空");
+    private Map<String, Object> parseChunk(String data) {
+        try {
+            return objectMapper.readValue(data, new TypeReference<Map<String, Object>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("LLM 流式数据解析失败: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * 记录首 token 延迟（仅流式）与生成速度（tokens/s）
+     */
+    private void recordMetrics(ModelProvider provider, String model, LlmStreamAccumulator.Dialect dialect,
+                               Map<String, Object> response, StreamSink streamSink, long startNanos) {
+        String providerTag = provider.getProviderKey() != null ? provider.getProviderKey() : "custom";
+        long endNanos = System.nanoTime();
+        long generationNanos = endNanos - startNanos;
+        Integer outputTokens = outputTokens(dialect, response, streamSink);
+        if (streamSink != null) {
+            if (streamSink.firstTokenNanos > 0) {
+                Timer.builder("flowlet.llm.ttft")
+                        .tag("provider", providerTag)
+                        .tag("model", model)
+                        .register(meterRegistry)
+                        .record(streamSink.firstTokenNanos - streamSink.startNanos, TimeUnit.NANOSECONDS);
+                // 流式模式下生成速度按首 token 之后的解码时间计算
+                generationNanos = endNanos - streamSink.firstTokenNanos;
+            }
+        }
+
+        if (outputTokens != null && outputTokens > 0 && generationNanos > 0) {
+            DistributionSummary.builder("flowlet.llm.tokens_per_second")
+                    .tag("provider", providerTag)
+                    .tag("model", model)
+                    .tag("streamed", String.valueOf(streamSink != null))
+                    .register(meterRegistry)
+                    .record(outputTokens * 1_000_000_000.0 / generationNanos);
+        }
+    }
+
+    private Integer outputTokens(LlmStreamAccumulator.Dialect dialect, Map<String, Object> response,
+                                 StreamSink streamSink) {
+        if (streamSink != null) {
+            return streamSink.accumulator != null ? streamSink.accumulator.outputTokens() : null;
+        }
+        return LlmStreamAccumulator.outputTokens(dialect, response);
+    }
+
+    /**
+     * 流式输出接收器：记录首 token 时间，并将增量文本发布到执行事件流
+     */
+    private class StreamSink {
+        private final String executionId;
+        private final String nodeId;
+        private long startNanos = System.nanoTime();
+        private long firstTokenNanos;
+        private int index;
+        private LlmStreamAccumulator accumulator;
+
+        private StreamSink(String executionId, String nodeId) {
+            this.executionId = executionId;
+            this.nodeId = nodeId;
+        }
+
+        /**
+         * 开始一次新的尝试；上一个提供方已输出部分内容时通知订阅方丢弃
+         */
+        private void begin() {
+            if (index > 0) {
+                executionEventBus.publish(executionId, ExecutionEventBus.LLM_RESET, nodeId,
+                        Map.of("discarded", index));
+            }
+            startNanos = System.nanoTime();
+            firstTokenNanos = 0;
+            index = 0;
+            accumulator = null;
+        }
+
+        private void onDelta(String delta) {
+            if (firstTokenNanos == 0) {
+                firstTokenNanos = System.nanoTime();
+            }
+            executionEventBus.publish(executionId, ExecutionEventBus.LLM_DELTA, nodeId,
+                    Map.of("delta", delta, "index", index++));
+        }
+
+        private Long getTtftMs() {
+            return firstTokenNanos > 0 ? TimeUnit.NANOSECONDS.toMillis(firstTokenNanos - startNanos) : null;
+        }
+    }
+
+    /**
+     * 候选提供方（已解析并解密凭据）
+     */
+    private static class ProviderCandidate implements LlmProviderRouter.RouteTarget {
+        private final ModelProvider provider;
+        private final String providerType;
+        private final String providerKeyNormalized;
+        private final String apiKey;
+        private final String model;
+        private final double weight;
+        private final LlmStreamAccumulator.Dialect dialect;
+
+        private ProviderCandidate(ModelProvider provider, String providerType, String apiKey, String model,
+                                  double weight) {
+            this.provider = provider;
+            this.providerType = providerType;
+            this.providerKeyNormalized = provider.getProviderKey() == null
+                    ? ""
+                    : provider.getProviderKey().toLowerCase(Locale.ROOT);
+            this.apiKey = apiKey;
+            this.model = model;
+            this.weight = weight;
+            this.dialect = resolveDialect(providerType, providerKeyNormalized);
+        }
+
+        @Override
+        public String getProviderId() {
+            return provider.getId();
+        }
+
+        @Override
+        public String getProviderLabel() {
+            return provider.getName() != null ? provider.getName() : provider.getProviderKey();
+        }
+
+
+        @Override
+        public String getModel() {
+            return model;
+        }
+
+        @Override
+        public double getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * 与提供方无关的请求参数，各候选共用
+     */
+    private static class LlmRequest {
+        private final String systemPrompt;
+        private final List<LlmMessage> messages;
+        private final List<String> textPrompts;
+        private final Double temperature;
+        private final Double topP;
+        private final Integer maxTokens;
+        private final Duration timeout;
+        private final StreamSink streamSink;
+        private final boolean cacheApplicable;
+        private final Long cacheTtlSeconds;
+        private final Long queueTimeoutMs;
+        private volatile boolean hedged;
+
+        private LlmRequest(String systemPrompt, List<LlmMessage> messages, List<String> textPrompts,
+                           Double temperature, Double topP, Integer maxTokens, Duration timeout,
+                           StreamSink streamSink, boolean cacheApplicable, Long cacheTtlSeconds,
+                           Long queueTimeoutMs) {
+            this.systemPrompt = systemPrompt;
+            this.messages = messages;
+            this.textPrompts = textPrompts;
+            this.temperature = temperature;
+            this.topP = topP;
+            this.maxTokens = maxTokens;
+            this.timeout = timeout;
+            this.streamSink = streamSink;
+            this.cacheApplicable = cacheApplicable;
+            this.cacheTtlSeconds = cacheTtlSeconds;
+            this.queueTimeoutMs = queueTimeoutMs;
+        }
+    }
+
+    private record AttemptResult(ProviderCandidate candidate, Map<String, Object> response, String text,
+                                 Map<String, Object> requestDetails, String cacheKey,
+                                 LlmResponseCacheManager.CacheHit cacheHit) {
+    }
+
+    private record AttemptOutcome(AttemptResult result, RuntimeException error) {
+    }
+
+    private static class EmptyResponseException extends RuntimeException {
+        private EmptyResponseException() {
+            super("模型返回为空");
         }
-        return response;
     }
 
     private List<Map<String, Object>> buildChatMessages(
@@ -765,6 +1391,20 @@ public class LlmNodeHandler implements NodeHandler {
         }
     }
 
+    private Long getLong(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
     private Double getDouble(Object value) {
         if (value == null) {
             return null;
@@ -3,6 +3,8 @@ package com.flowlet.engine.handler;
 import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.engine.ExecutionContext;
 
+import java.time.LocalDateTime;
+
 /**
  * 节点处理器接口
  */
@@ -33,6 +35,7 @@ public interface NodeHandler {
         private String callbackKey; // 回调唯一标识
         private Object executionData; // 执行过程数据（用于在等待回调时展示请求信息等）
         private boolean skipped; // 是否被跳过（因执行条件不满足）
+        private LocalDateTime resumeAt; // 定时恢复时间（到期后由持久化定时器唤醒）
 
         public static NodeResult success(Object output) {
             NodeResult result = new NodeResult();
@@ -70,20 +73,48 @@ public interface NodeHandler {
             return result;
         }
 
+        /**
+         * 暂停到指定时间后自动恢复
+         * 暂停期间不占用线程，由持久化定时器在到期时以回调方式唤醒当前节点，重启后仍然有效
+         * @param callbackKey 回调唯一标识
+         * @param resumeAt 恢复时间
+         * @param executionData 执行过程数据
+         */
+        public static NodeResult pauseUntil(String callbackKey, LocalDateTime resumeAt, Object executionData) {
+            NodeResult result = pause(callbackKey, executionData);
+            result.resumeAt = resumeAt;
+            return result;
+        }
+
         /**
          * 等待状态 - 用于子流程等待场景
+         * @param callbackKey 回调唯一标识（子流程结束后以此标识唤醒当前节点）
          * @param message 等待原因说明
          * @param executionData 相关数据
          */
-        public static NodeResult waiting(String message, Object executionData) {
+        public static NodeResult waiting(String callbackKey, String message, Object executionData) {
             NodeResult result = new NodeResult();
             result.success = true;
             result.needPause = true;
+            result.callbackKey = callbackKey;
             result.errorMessage = message; // 复用字段存储等待原因
             result.executionData = executionData;
             return result;
         }
 
+        /**
+         * 命中结果缓存 - 复用缓存的输出，处理器未执行
+         * @param output 缓存的节点输出
+         * @param executionData 缓存命中信息（命中层级、写入时间等）
+         */
+        public static NodeResult cached(Object output, Object executionData) {
+            NodeResult result = new NodeResult();
+            result.success = true;
+            result.output = output;
+            result.executionData = executionData;
+            return result;
+        }
+
         /**
          * 跳过节点 - 因执行条件不满足
          * @param reason 跳过原因
@@ -124,5 +155,9 @@ public interface NodeHandler {
         public boolean isSkipped() {
             return skipped;
         }
+
+        public LocalDateTime getResumeAt() {
+            return resumeAt;
+        }
     }
 }
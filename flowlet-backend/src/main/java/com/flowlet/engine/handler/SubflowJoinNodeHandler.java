@@ -0,0 +1,75 @@
+package com.flowlet.engine.handler;
+
+import com.flowlet.dto.FlowGraphDTO;
+import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.subflow.SubflowInvocationCoordinator;
+import com.flowlet.enums.NodeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 子流程汇聚节点处理器
+ * 等待多个以 fire_and_forget 模式启动的子流程全部结束，并汇总它们的输出
+ *
+ * 配置：subflowNodeIds - 需要等待的子流程节点ID列表
+ * 输出：results（子流程节点ID -> 子流程输出）、total、completed、failed、success
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubflowJoinNodeHandler implements NodeHandler {
+
+    private final SubflowInvocationCoordinator subflowInvocationCoordinator;
+
+    @Override
+    public String getNodeType() {
+        return NodeType.SUBFLOW_JOIN.getValue();
+    }
+
+    @Override
+    public NodeResult execute(FlowGraphDTO.NodeDTO node, ExecutionContext context) {
+        Map<String, Object> config = node.getData().getConfig();
+        if (config == null || !(config.get("subflowNodeIds") instanceof List<?> subflowNodeIds)) {
+            return NodeResult.fail("子流程汇聚节点未配置需要等待的子流程节点");
+        }
+
+        // 从子流程节点输出中收集子流程执行ID
+        Map<String, String> children = new LinkedHashMap<>();
+        for (Object nodeIdObj : subflowNodeIds) {
+            String subflowNodeId = String.valueOf(nodeIdObj);
+            Object output = context.getNodeOutput(subflowNodeId);
+            if (output instanceof Map<?, ?> outputMap && outputMap.get("_executionId") != null) {
+                children.put(subflowNodeId, String.valueOf(outputMap.get("_executionId")));
+            } else {
+                log.warn("子流程节点未产生执行ID，跳过汇聚: joinNodeId={}, subflowNodeId={}", node.getId(), subflowNodeId);
+            }
+        }
+
+        // 所有子流程已结束则直接汇总
+        Map<String, Object> joinResult = subflowInvocationCoordinator.collectJoinResult(children);
+        if (joinResult != null) {
+            log.info("子流程均已结束: joinNodeId={}, total={}", node.getId(), children.size());
+            return NodeResult.success(joinResult);
+        }
+
+        // 否则暂停等待，最后一个子流程结束时由协调器唤醒
+        log.info("等待子流程结束: joinNodeId={}, children={}", node.getId(), children);
+        Map<String, Object> callbackInfo = new LinkedHashMap<>();
+        callbackInfo.put("type", "subflow_join");
+        callbackInfo.put("children", children);
+
+        Map<String, Object> executionData = new LinkedHashMap<>();
+        executionData.put("children", children);
+        executionData.put("callbackInfo", callbackInfo);
+        executionData.put("flattenCallbackData", true);
+
+        return NodeResult.pause(
+                SubflowInvocationCoordinator.joinCallbackKey(context.getExecutionId(), node.getId()),
+                executionData);
+    }
+}
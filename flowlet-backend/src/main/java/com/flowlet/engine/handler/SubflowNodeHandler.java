@@ -6,6 +6,8 @@ import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.engine.ExecutionContext;
 import com.flowlet.engine.ExpressionResolver;
 import com.flowlet.engine.FlowEngine;
+import com.flowlet.engine.event.ExecutionEventBus;
+import com.flowlet.engine.subflow.SubflowInvocationCoordinator;
 import com.flowlet.entity.FlowDefinition;
 import com.flowlet.entity.FlowExecution;
 import com.flowlet.enums.ExecutionStatus;
@@ -22,6 +24,13 @@ import java.util.*;
 /**
  * 子流程节点处理器
  * 负责执行另一个流程作为当前流程的一部分
+ *
+ * 调用模式（invokeMode）：
+ * - sync（默认）：在当前线程中执行子流程，子流程暂停时当前节点随之暂停，子流程结束后自动唤醒
+ * - async：子流程在后台执行，当前节点暂停且不占用线程，子流程结束后通过回调机制恢复
+ * - fire_and_forget：子流程在后台执行，当前节点立即完成并输出 _executionId，可由子流程汇聚节点等待结果
+ *
+ * forwardEvents：为 true 时子流程的执行事件（含大模型流式输出）转发到当前流程的事件流
  */
 @Slf4j
 @Component
@@ -32,17 +41,26 @@ public class SubflowNodeHandler implements NodeHandler {
     private final ObjectMapper objectMapper;
     private final ObjectProvider<FlowEngine> flowEngineProvider;
     private final ExpressionResolver expressionResolver;
+    private final SubflowInvocationCoordinator subflowInvocationCoordinator;
+    private final ExecutionEventBus executionEventBus;
+
+    private static final String INVOKE_MODE_ASYNC = "async";
+    private static final String INVOKE_MODE_FIRE_AND_FORGET = "fire_and_forget";
 
     public SubflowNodeHandler(FlowDefinitionService flowDefinitionService,
                                FlowExecutionMapper flowExecutionMapper,
                                ObjectMapper objectMapper,
                                ObjectProvider<FlowEngine> flowEngineProvider,
-                               ExpressionResolver expressionResolver) {
+                               ExpressionResolver expressionResolver,
+                               SubflowInvocationCoordinator subflowInvocationCoordinator,
+                               ExecutionEventBus executionEventBus) {
         this.flowDefinitionService = flowDefinitionService;
         this.flowExecutionMapper = flowExecutionMapper;
         this.objectMapper = objectMapper;
         this.flowEngineProvider = flowEngineProvider;
         this.expressionResolver = expressionResolver;
+        this.subflowInvocationCoordinator = subflowInvocationCoordinator;
+        this.executionEventBus = executionEventBus;
     }
 
     /**
@@ -141,6 +159,29 @@ public class SubflowNodeHandler implements NodeHandler {
         newCallChain.add(subflowId);
         subContext.setCallChain(newCallChain);
 
+        if (Boolean.TRUE.equals(config.get("forwardEvents"))) {
+            executionEventBus.forward(subExecution.getId(), context.getExecutionId(), node.getId());
+        }
+
+        // ========== 异步执行子流程 ==========
+        String invokeMode = config.get("invokeMode") != null ? String.valueOf(config.get("invokeMode")) : "sync";
+        if (INVOKE_MODE_ASYNC.equals(invokeMode) || INVOKE_MODE_FIRE_AND_FORGET.equals(invokeMode)) {
+            log.info("异步启动子流程: subExecutionId={}, subflowId={}, invokeMode={}",
+                    subExecution.getId(), subflowId, invokeMode);
+            subflowInvocationCoordinator.launch(subContext);
+
+            if (INVOKE_MODE_FIRE_AND_FORGET.equals(invokeMode)) {
+                Map<String, Object> handle = new LinkedHashMap<>();
+                handle.put("_executionId", subExecution.getId());
+                handle.put("_status", ExecutionStatus.RUNNING.getValue());
+                handle.put("subflowId", subflowId);
+                return NodeResult.success(handle);
+            }
+            return NodeResult.pause(
+                    SubflowInvocationCoordinator.subflowCallbackKey(subExecution.getId()),
+                    buildWaitingData(subExecution.getId(), subflowId, invokeMode, subflowInputs));
+        }
+
         // ========== 同步执行子流程 ==========
         log.info("开始执行子流程: subExecutionId={}, subflowId={}, subflowName={}", 
                 subExecution.getId(), subflowId, subflowDefinition.getName());
@@ -170,10 +211,10 @@ public class SubflowNodeHandler implements NodeHandler {
             } else if (ExecutionStatus.PAUSED.getValue().equals(completedExecution.getStatus())) {
                 // 子流程处于等待状态（如等待人工审批）
                 log.info("子流程进入等待状态: subExecutionId={}", subExecution.getId());
-                return NodeResult.waiting("子流程等待中", Map.of(
-                        "subExecutionId", subExecution.getId(),
-                        "subflowId", subflowId
-                ));
+                return NodeResult.waiting(
+                        SubflowInvocationCoordinator.subflowCallbackKey(subExecution.getId()),
+                        "子流程等待中",
+                        buildWaitingData(subExecution.getId(), subflowId, invokeMode, subflowInputs));
             } else {
                 return NodeResult.fail("子流程处于未知状态: " + completedExecution.getStatus());
             }
@@ -191,6 +232,29 @@ public class SubflowNodeHandler implements NodeHandler {
         }
     }
 
+    /**
+     * 构建等待子流程时的执行过程数据
+     * 子流程结束后其输出会平铺到当前节点输出中，与同步调用保持一致
+     */
+    private Map<String, Object> buildWaitingData(String subExecutionId, String subflowId,
+                                                 String invokeMode, Map<String, Object> subflowInputs) {
+        Map<String, Object> callbackInfo = new LinkedHashMap<>();
+        callbackInfo.put("type", "subflow");
+        callbackInfo.put("subExecutionId", subExecutionId);
+        callbackInfo.put("subflowId", subflowId);
+        callbackInfo.put("invokeMode", invokeMode);
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("subflowId", subflowId);
+        request.put("inputs", subflowInputs);
+
+        Map<String, Object> executionData = new LinkedHashMap<>();
+        executionData.put("request", request);
+        executionData.put("callbackInfo", callbackInfo);
+        executionData.put("flattenCallbackData", true);
+        return executionData;
+    }
+
     /**
      * 构建子流程输入参数
      * 根据配置的变量映射，从当前上下文中提取值传递给子流程
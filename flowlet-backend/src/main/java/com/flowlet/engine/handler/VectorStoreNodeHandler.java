@@ -1,16 +1,19 @@
 package com.flowlet.engine.handler;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flowlet.config.FlowletProperties;
 import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.http.HttpClientRegistry;
+import com.flowlet.engine.provider.ProviderRegistry;
 import com.flowlet.engine.util.TemplateResolver;
+import com.flowlet.engine.util.VectorCodec;
+import com.flowlet.engine.vectorstore.VectorSearchCache;
+import com.flowlet.engine.vectorstore.VectorUpsertBuffer;
+import com.flowlet.engine.vectorstore.embedded.EmbeddedVectorStore;
 import com.flowlet.entity.VectorStoreProvider;
 import com.flowlet.enums.NodeType;
-import com.flowlet.mapper.VectorStoreProviderMapper;
-import com.flowlet.util.ModelHubCrypto;
 import com.flowlet.util.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,10 +26,13 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 向量存储节点处理器
- * 支持 Milvus / Qdrant 的 upsert、delete、search 操作
+ * 支持 Milvus / Qdrant 的 upsert、delete、search 操作，以及 JVM 内置的 HNSW 向量存储（embedded）
  * 
  * 注意：本节点不进行向量化操作，用户需要在前置节点完成向量化，然后通过变量引用传入。
  * 
@@ -40,6 +46,7 @@ import java.util.*;
  * - contentSource: 内容来源表达式，如 {{nodes.splitter.output.chunks}}
  * - idSource: ID 来源表达式（可选），如 {{nodes.loader.output.ids}}
  * - metadataSource: 元数据来源表达式（可选）
+ * - buffered: 是否经写入缓冲与并发执行的文档合并写入（默认取 flowlet.vector-upsert.enabled）
  * 
  * Delete 操作配置：
  * - ids: ID 列表表达式
@@ -50,6 +57,11 @@ import java.util.*;
  * - filter: 过滤条件
  * - scoreThreshold: 相似度阈值（可选，仅返回大于阈值的结果）
  * - excludeId: 排除内容ID（可选，过滤掉自身）
+ * - cacheEnabled: 是否缓存检索结果（默认 false），命中时输出 cached=true；本实例写入该集合后缓存立即失效
+ * - cacheTtlSeconds: 缓存有效期（秒），未配置时使用全局默认值
+ *
+ * 向量传输：
+ * - vectorEncoding: base64（小端 float32，默认取全局配置）或 json
  */
 @Slf4j
 @Component
@@ -58,11 +70,13 @@ public class VectorStoreNodeHandler implements NodeHandler {
 
     private static final int DEFAULT_TOP_K = 5;
 
-    private final WebClient.Builder webClientBuilder;
+    private final HttpClientRegistry httpClientRegistry;
     private final FlowletProperties flowletProperties;
-    private final VectorStoreProviderMapper vectorStoreProviderMapper;
-    private final ModelHubCrypto modelHubCrypto;
+    private final ProviderRegistry providerRegistry;
     private final ObjectMapper objectMapper;
+    private final VectorUpsertBuffer vectorUpsertBuffer;
+    private final EmbeddedVectorStore embeddedVectorStore;
+    private final VectorSearchCache vectorSearchCache;
 
     @Override
     public String getNodeType() {
@@ -89,10 +103,11 @@ public class VectorStoreNodeHandler implements NodeHandler {
         }
 
         // 获取提供商配置
-        VectorStoreProvider provider = resolveProvider(providerId);
-        if (provider == null) {
+        ProviderRegistry.VectorStoreProviderEntry providerEntry = resolveProvider(providerId);
+        if (providerEntry == null) {
             return NodeResult.fail("未找到向量存储提供方配置");
         }
+        VectorStoreProvider provider = providerEntry.getProvider();
         if (!Boolean.TRUE.equals(provider.getEnabled())) {
             return NodeResult.fail("向量存储提供方已停用");
         }
@@ -113,14 +128,14 @@ public class VectorStoreNodeHandler implements NodeHandler {
             Map<String, Object> result;
             switch (operation.toLowerCase(Locale.ROOT)) {
                 case "upsert":
-                    result = executeUpsert(provider, collection, config, context, requestDetails);
+                    result = executeUpsert(providerEntry, collection, config, context, requestDetails);
                     break;
                 case "delete":
-                    result = executeDelete(provider, collection, config, context, requestDetails);
+                    result = executeDelete(providerEntry, collection, config, context, requestDetails);
                     break;
                 case "search":
                 default:
-                    result = executeSearch(provider, collection, config, context, requestDetails);
+                    result = executeSearch(providerEntry, collection, config, context, requestDetails);
                     break;
             }
             return NodeResult.success(result);
@@ -145,7 +160,7 @@ public class VectorStoreNodeHandler implements NodeHandler {
      * 后端自动将单文档包装成数组发送给 Python 服务
      */
     private Map<String, Object> executeUpsert(
-            VectorStoreProvider provider,
+            ProviderRegistry.VectorStoreProviderEntry provider,
             String collection,
             Map<String, Object> config,
             ExecutionContext context,
@@ -158,8 +173,8 @@ public class VectorStoreNodeHandler implements NodeHandler {
         if (vectorSourceExpr == null || vectorSourceExpr.isBlank()) {
             throw new IllegalArgumentException("upsert 操作需要指定向量来源 (vectorSource)");
         }
-        List<Double> vector = resolveVector(vectorSourceExpr, allData);
-        if (vector == null || vector.isEmpty()) {
+        float[] vector = resolveVector(vectorSourceExpr, allData);
+        if (vector == null || vector.length == 0) {
             throw new IllegalArgumentException("向量为空");
         }
 
@@ -192,33 +207,71 @@ public class VectorStoreNodeHandler implements NodeHandler {
         // 5. 构建单个文档
         Map<String, Object> doc = new HashMap<>();
         doc.put("id", docId);
-        doc.put("vector", vector);
+        if (isBase64Encoding(config)) {
+            doc.put("vectorB64", VectorCodec.encodeBase64(vector));
+        } else {
+            doc.put("vector", vector);
+        }
         doc.put("content", content);
         doc.put("metadata", metadata);
 
+        requestDetails.put("documentsCount", 1);
+        requestDetails.put("vectorDimension", vector.length);
+
+        Map<String, Object> output = new HashMap<>();
+        output.put("operation", "upsert");
+        output.put("count", 1);
+        output.put("id", docId);
+        output.put("ids", List.of(docId));
+        output.put("success", true);
+        output.put("request", requestDetails);
+
+        if (isEmbedded(provider)) {
+            // 内置存储在 JVM 内写入，无需经写入缓冲合并
+            output.put("raw", embeddedVectorStore.upsert(provider.getProvider().getTenantId(),
+                    provider.getProvider().getBaseUrl(), collection,
+                    List.of(new EmbeddedVectorStore.Document(docId, vector, content, metadata))));
+            vectorSearchCache.invalidateCollection(provider.getProvider().getId(), collection);
+            return output;
+        }
+
+        if (getBoolean(config, "buffered", flowletProperties.getVectorUpsert().isEnabled())) {
+            // 经写入缓冲与其他执行的文档合并写入，等待本文档所在批次完成
+            FlowletProperties.VectorUpsertProperties upsertProperties = flowletProperties.getVectorUpsert();
+            long timeoutMs = upsertProperties.getOfferTimeoutMs() + upsertProperties.getMaxLingerMs()
+                    + flowletProperties.getVectorStore().getRequestTimeoutMs();
+            VectorUpsertBuffer.UpsertResult result;
+            try {
+                result = vectorUpsertBuffer.submit(provider.getProvider().getId(), provider.getConnectionConfig(),
+                        collection, doc).get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                if (cause instanceof Exception exception) {
+                    throw exception;
+                }
+                throw ex;
+            } catch (TimeoutException ex) {
+                throw new IllegalStateException("向量写入超时: " + timeoutMs + "ms");
+            }
+            vectorSearchCache.invalidateCollection(provider.getProvider().getId(), collection);
+            requestDetails.put("buffered", true);
+            requestDetails.put("batchSize", result.batchSize());
+            return output;
+        }
+
         // 包装成数组发送给 Python 服务
         List<Map<String, Object>> documents = List.of(doc);
 
-        requestDetails.put("documentsCount", 1);
-        requestDetails.put("vectorDimension", vector.size());
-
         // 构建请求
         Map<String, Object> request = new HashMap<>();
-        request.put("provider", buildProviderConfig(provider));
+        request.put("provider", provider.getConnectionConfig());
         request.put("collection", collection);
         request.put("documents", documents);
 
         // 调用向量存储服务
         Map<String, Object> response = callVectorStoreService("/vector-stores/upsert", request);
-
-        Map<String, Object> output = new HashMap<>();
-        output.put("operation", "upsert");
-        output.put("count", 1);
-        output.put("id", docId);
-        output.put("ids", List.of(docId));
-        output.put("success", true);
+        vectorSearchCache.invalidateCollection(provider.getProvider().getId(), collection);
         output.put("raw", response);
-        output.put("request", requestDetails);
 
         return output;
     }
@@ -227,7 +280,7 @@ public class VectorStoreNodeHandler implements NodeHandler {
      * 执行 delete 操作
      */
     private Map<String, Object> executeDelete(
-            VectorStoreProvider provider,
+            ProviderRegistry.VectorStoreProviderEntry provider,
             String collection,
             Map<String, Object> config,
             ExecutionContext context,
@@ -247,14 +300,21 @@ public class VectorStoreNodeHandler implements NodeHandler {
         }
         requestDetails.put("idsCount", ids.size());
 
-        // 构建请求
-        Map<String, Object> request = new HashMap<>();
-        request.put("provider", buildProviderConfig(provider));
-        request.put("collection", collection);
-        request.put("ids", ids);
+        Map<String, Object> response;
+        if (isEmbedded(provider)) {
+            response = embeddedVectorStore.delete(provider.getProvider().getTenantId(),
+                    provider.getProvider().getBaseUrl(), collection, ids);
+        } else {
+            // 构建请求
+            Map<String, Object> request = new HashMap<>();
+            request.put("provider", provider.getConnectionConfig());
+            request.put("collection", collection);
+            request.put("ids", ids);
 
-        // 调用向量存储服务
-        Map<String, Object> response = callVectorStoreService("/vector-stores/delete", request);
+            // 调用向量存储服务
+            response = callVectorStoreService("/vector-stores/delete", request);
+        }
+        vectorSearchCache.invalidateCollection(provider.getProvider().getId(), collection);
 
         Map<String, Object> output = new HashMap<>();
         output.put("operation", "delete");
@@ -270,7 +330,7 @@ public class VectorStoreNodeHandler implements NodeHandler {
      * 执行 search 操作
      */
     private Map<String, Object> executeSearch(
-            VectorStoreProvider provider,
+            ProviderRegistry.VectorStoreProviderEntry provider,
             String collection,
             Map<String, Object> config,
             ExecutionContext context,
@@ -284,8 +344,8 @@ public class VectorStoreNodeHandler implements NodeHandler {
             throw new IllegalArgumentException("search 操作需要指定 queryVector（已向量化的查询向量）");
         }
         
-        List<Double> queryVector = resolveVector(queryVectorExpr, allData);
-        if (queryVector == null || queryVector.isEmpty()) {
+        float[] queryVector = resolveVector(queryVectorExpr, allData);
+        if (queryVector == null || queryVector.length == 0) {
             throw new IllegalArgumentException("查询向量为空，请确保前置节点已完成向量化");
         }
 
@@ -316,7 +376,7 @@ public class VectorStoreNodeHandler implements NodeHandler {
 
         requestDetails.put("topK", topK);
         requestDetails.put("hasFilter", filter != null);
-        requestDetails.put("vectorDimension", queryVector.size());
+        requestDetails.put("vectorDimension", queryVector.length);
         if (scoreThreshold != null) {
             requestDetails.put("scoreThreshold", scoreThreshold);
         }
@@ -324,21 +384,44 @@ public class VectorStoreNodeHandler implements NodeHandler {
             requestDetails.put("excludeId", excludeId);
         }
 
-        // 构建请求
-        Map<String, Object> request = new HashMap<>();
-        request.put("provider", buildProviderConfig(provider));
-        request.put("collection", collection);
-        request.put("query_vector", queryVector);
-        request.put("k", topK);
-        if (filter != null) {
-            request.put("filter", filter);
-        }
+        boolean cacheApplicable = vectorSearchCache.isEnabled() && getBoolean(config, "cacheEnabled", false);
+        String cacheKey = cacheApplicable
+                ? vectorSearchCache.cacheKey(provider.getProvider().getId(), collection, queryVector, topK, filter)
+                : null;
+        Map<String, Object> response = cacheKey != null ? vectorSearchCache.get(cacheKey) : null;
+        boolean cached = response != null;
+        if (cached) {
+            log.debug("向量检索缓存命中: collection={}", collection);
+        } else if (isEmbedded(provider)) {
+            response = embeddedVectorStore.search(provider.getProvider().getTenantId(),
+                    provider.getProvider().getBaseUrl(), collection, queryVector, topK, filter);
+        } else {
+            // 构建请求
+            Map<String, Object> request = new HashMap<>();
+            request.put("provider", provider.getConnectionConfig());
+            request.put("collection", collection);
+            if (isBase64Encoding(config)) {
+                request.put("query_vector_b64", VectorCodec.encodeBase64(queryVector));
+            } else {
+                request.put("query_vector", queryVector);
+            }
+            request.put("k", topK);
+            if (filter != null) {
+                request.put("filter", filter);
+            }
 
-        // 调用向量存储服务
-        Map<String, Object> response = callVectorStoreService("/vector-stores/search", request);
+            // 调用向量存储服务
+            response = callVectorStoreService("/vector-stores/search", request);
+        }
+        if (cacheKey != null && !cached) {
+            vectorSearchCache.put(cacheKey, response, getLong(config.get("cacheTtlSeconds")));
+        }
 
         Map<String, Object> output = new HashMap<>();
         output.put("operation", "search");
+        if (cacheKey != null) {
+            output.put("cached", cached);
+        }
         if (scoreThreshold != null) {
             List<Map<String, Object>> filteredMatches =
                 filterMatchesByScore(response.get("matches"), scoreThreshold);
@@ -428,43 +511,29 @@ public class VectorStoreNodeHandler implements NodeHandler {
 
     /**
      * 解析单个向量
+     *
+     * 变量引用优先直接读取上下文中的值（float[] 等），避免向量经模板转成文本再解析
      */
-    private List<Double> resolveVector(String expr, Map<String, Object> allData) {
-        List<Double> result = new ArrayList<>();
-        
-        // 先尝试模板解析
+    private float[] resolveVector(String expr, Map<String, Object> allData) {
+        String path = extractVariablePath(expr);
+        if (path != null) {
+            float[] vector = VectorCodec.toFloatArray(getNestedValue(allData, path));
+            if (vector != null) {
+                return vector;
+            }
+        }
+
         String resolved = TemplateResolver.resolve(expr, allData);
-        
-        // 尝试解析为 JSON
         try {
             Object parsed = objectMapper.readValue(resolved, Object.class);
-            if (parsed instanceof List) {
-                for (Object item : (List<?>) parsed) {
-                    if (item instanceof Number) {
-                        result.add(((Number) item).doubleValue());
-                    }
-                }
-                if (!result.isEmpty()) {
-                    return result;
-                }
+            float[] vector = VectorCodec.toFloatArray(parsed);
+            if (vector != null) {
+                return vector;
             }
         } catch (JsonProcessingException ignored) {
         }
-
-        // 尝试从上下文中获取
-        String path = extractVariablePath(expr);
-        if (path != null) {
-            Object value = getNestedValue(allData, path);
-            if (value instanceof List) {
-                for (Object item : (List<?>) value) {
-                    if (item instanceof Number) {
-                        result.add(((Number) item).doubleValue());
-                    }
-                }
-            }
-        }
-
-        return result;
+        // 兼容直接传入 base64 编码的向量
+        return VectorCodec.toFloatArray(resolved);
     }
 
     /**
@@ -547,7 +616,7 @@ public class VectorStoreNodeHandler implements NodeHandler {
         String baseUrl = flowletProperties.getVectorStore().getBaseUrl();
         int timeoutMs = flowletProperties.getVectorStore().getRequestTimeoutMs();
 
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(baseUrl)).build();
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(baseUrl));
         ParameterizedTypeReference<Map<String, Object>> responseType = new ParameterizedTypeReference<>() {};
 
         Map<String, Object> response = client.post()
@@ -566,55 +635,26 @@ public class VectorStoreNodeHandler implements NodeHandler {
     }
 
     /**
-     * 构建提供商配置
+     * 解析提供商
      */
-    private Map<String, Object> buildProviderConfig(VectorStoreProvider provider) {
-        Map<String, Object> config = new HashMap<>();
-        config.put("type", provider.getProviderKey());
-        config.put("baseUrl", provider.getBaseUrl());
-        
-        // 解密 API Key
-        if (provider.getApiKeyEncrypted() != null && !provider.getApiKeyEncrypted().isBlank()) {
-            String apiKey = modelHubCrypto.decrypt(provider.getApiKeyEncrypted());
-            if (apiKey != null && !apiKey.isBlank()) {
-                config.put("apiKey", apiKey);
-            }
-        }
-
-        // 解析扩展配置
-        if (provider.getConfigJson() != null && !provider.getConfigJson().isBlank()) {
-            try {
-                Map<String, Object> extConfig = objectMapper.readValue(
-                        provider.getConfigJson(),
-                        new TypeReference<Map<String, Object>>() {}
-                );
-                if (extConfig.get("database") != null) {
-                    config.put("database", extConfig.get("database"));
-                }
-                if (extConfig.get("grpcUrl") != null) {
-                    config.put("grpcUrl", extConfig.get("grpcUrl"));
-                }
-                if (extConfig.get("preferGrpc") != null) {
-                    config.put("preferGrpc", extConfig.get("preferGrpc"));
-                }
-            } catch (JsonProcessingException ex) {
-                log.warn("解析向量存储扩展配置失败", ex);
-            }
-        }
+    private ProviderRegistry.VectorStoreProviderEntry resolveProvider(String providerId) {
+        return providerRegistry.getVectorStoreProvider(SecurityUtils.getCurrentTenantId(), providerId);
+    }
 
-        return config;
+    /**
+     * 是否为内置向量存储（JVM 内 HNSW 索引）
+     */
+    private boolean isEmbedded(ProviderRegistry.VectorStoreProviderEntry provider) {
+        return EmbeddedVectorStore.PROVIDER_KEY.equals(provider.getProvider().getProviderKey());
     }
 
     /**
-     * 解析提供商
+     * 向量传输编码：base64（小端 float32）或 json，节点配置 vectorEncoding 优先
      */
-    private VectorStoreProvider resolveProvider(String providerId) {
-        String tenantId = SecurityUtils.getCurrentTenantId();
-        VectorStoreProvider provider = vectorStoreProviderMapper.selectById(providerId);
-        if (provider == null || !tenantId.equals(provider.getTenantId())) {
-            return null;
-        }
-        return provider;
+    private boolean isBase64Encoding(Map<String, Object> config) {
+        String encoding = getString(config, "vectorEncoding",
+                flowletProperties.getVectorStore().getVectorEncoding());
+        return "base64".equalsIgnoreCase(encoding);
     }
 
     /**
@@ -657,6 +697,9 @@ public class VectorStoreNodeHandler implements NodeHandler {
         for (String part : parts) {
             if (current instanceof Map) {
                 current = ((Map<?, ?>) current).get(part);
+            } else if (current instanceof List<?> list && part.chars().allMatch(Character::isDigit)) {
+                int index = Integer.parseInt(part);
+                current = index < list.size() ? list.get(index) : null;
             } else {
                 return null;
             }
@@ -763,6 +806,17 @@ public class VectorStoreNodeHandler implements NodeHandler {
         return text.isEmpty() ? defaultValue : text;
     }
 
+    private boolean getBoolean(Map<String, Object> config, String key, boolean defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return Boolean.parseBoolean(value.toString());
+    }
+
     private Integer getInteger(Object value) {
         if (value == null) {
             return null;
@@ -777,6 +831,20 @@ public class VectorStoreNodeHandler implements NodeHandler {
         }
     }
 
+    private Long getLong(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
     private Double getDouble(Object value) {
         if (value == null) {
             return null;
@@ -0,0 +1,158 @@
+package com.flowlet.engine.http;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * API 请求合并器（single-flight）
+ *
+ * 并发的相同请求（方法、解析后的 URL、请求头及响应处理选项一致）只向下游发送一次，
+ * 其余请求等待并共享同一份响应；可选开启短 TTL 微缓存，在有效期内直接复用上次成功的响应。
+ * 失败结果只会传递给当前正在等待的请求，不会被缓存。
+ * 共享的响应不直接交给调用方，每个调用方拿到各自的深拷贝，修改嵌套的 body/headers 不会互相影响。
+ */
+@Slf4j
+@Component
+public class ApiRequestCoalescer {
+
+    /**
+     * 微缓存 TTL 上限，避免被当作通用缓存使用
+     */
+    private static final long MAX_CACHE_TTL_MS = 60_000;
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 微缓存，条目各自记录过期时间（节点可配置不同 TTL）
+     */
+    private final Cache<String, CachedResponse> responseCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(MAX_CACHE_TTL_MS, TimeUnit.MILLISECONDS)
+            .build();
+
+    private final ObjectMapper objectMapper;
+    private final Counter leaderCounter;
+    private final Counter coalescedCounter;
+    private final Counter cacheHitCounter;
+
+    public ApiRequestCoalescer(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.leaderCounter = meterRegistry.counter("flowlet.api.coalesce", "outcome", "leader");
+        this.coalescedCounter = meterRegistry.counter("flowlet.api.coalesce", "outcome", "coalesced");
+        this.cacheHitCounter = meterRegistry.counter("flowlet.api.coalesce", "outcome", "cache_hit");
+    }
+
+    private record CachedResponse(Map<String, Object> response, long expiresAt) {
+    }
+
+    /**
+     * 生成请求合并键
+     * 请求头中可能包含鉴权信息，因此只保留摘要，不在内存中以明文作为键
+     */
+    public static String requestKey(String method, String url, Map<String, String> headers, String optionsKey) {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(method, StandardCharsets.UTF_8).putChar('\n')
+                .putString(url, StandardCharsets.UTF_8).putChar('\n')
+                .putString(optionsKey != null ? optionsKey : "", StandardCharsets.UTF_8).putChar('\n');
+        if (headers != null) {
+            // 请求头名称不区分大小写，排序后参与摘要
+            Map<String, String> sorted = new TreeMap<>();
+            headers.forEach((key, value) -> {
+                if (key != null && value != null) {
+                    sorted.put(key.toLowerCase(), value);
+                }
+            });
+            sorted.forEach((key, value) -> hasher.putString(key, StandardCharsets.UTF_8).putChar(':')
+                    .putString(value, StandardCharsets.UTF_8).putChar('\n'));
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 执行可合并的请求
+     *
+     * @param key        请求合并键（见 {@link #requestKey}）
+     * @param cacheTtlMs 微缓存 TTL，0 表示仅合并并发请求
+     * @param call       实际发起请求的调用，仅由首个请求执行
+     * @return 响应的深拷贝，调用方可自由修改
+     */
+    public Map<String, Object> execute(String key, long cacheTtlMs, Supplier<Map<String, Object>> call) {
+        long ttl = Math.min(Math.max(cacheTtlMs, 0), MAX_CACHE_TTL_MS);
+        if (ttl > 0) {
+            CachedResponse cached = responseCache.getIfPresent(key);
+            if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+                cacheHitCounter.increment();
+                return copy(cached.response());
+            }
+        }
+
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedCounter.increment();
+            log.debug("合并相同的并发请求: key={}", key);
+            return copy(await(existing));
+        }
+
+        leaderCounter.increment();
+        try {
+            Map<String, Object> response = call.get();
+            if (ttl > 0 && isCacheable(response)) {
+                responseCache.put(key, new CachedResponse(response, System.currentTimeMillis() + ttl));
+            }
+            created.complete(response);
+            return copy(response);
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * 深拷贝响应（响应为 JSON 结构，按 JSON 树复制）
+     */
+    private Map<String, Object> copy(Map<String, Object> response) {
+        return objectMapper.convertValue(response, MAP_TYPE);
+    }
+
+    private Map<String, Object> await(CompletableFuture<Map<String, Object>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 仅缓存 2xx 响应
+     */
+    private boolean isCacheable(Map<String, Object> response) {
+        return response.get("statusCode") instanceof Number statusCode
+                && statusCode.intValue() >= 200 && statusCode.intValue() < 300;
+    }
+}
@@ -0,0 +1,398 @@
+package com.flowlet.engine.http;
+
+import com.flowlet.config.FlowletProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * API 调用容错管理器
+ *
+ * 为 API 节点的出站请求提供：
+ * 1. 按下游（scheme://host:port，节点配置了路由模板时再加上模板）维度的熔断：失败率或慢调用比例超过阈值时
+ *    快速失败，等待期后半开探测。不按实际路径区分，避免路径中的 ID 等变量产生无限多的熔断器与指标
+ * 2. 对冲请求：幂等 GET 在超过该接口近期 P95 延迟仍未返回时发出第二次请求，取先返回的结果
+ * 3. 按节点维度的重试预算：重试次数受请求量比例约束，避免下游故障时重试放大流量
+ */
+@Slf4j
+@Component
+public class ApiResilienceManager {
+
+    /**
+     * 延迟样本不足时对冲请求的最小等待时间
+     */
+    private static final long MIN_HEDGE_DELAY_MS = 20;
+    private static final int LATENCY_SAMPLE_SIZE = 128;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final FlowletProperties.ApiResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, EndpointState> endpoints;
+    private final Cache<String, RetryBudget> retryBudgets = CacheBuilder.newBuilder()
+            .maximumSize(2000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    public ApiResilienceManager(FlowletProperties flowletProperties, MeterRegistry meterRegistry) {
+        this.properties = flowletProperties.getApiResilience();
+        this.meterRegistry = meterRegistry;
+        this.endpoints = CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .removalListener((RemovalListener<String, EndpointState>) notification -> {
+                    if (notification.getValue() != null) {
+                        notification.getValue().meters.forEach(meterRegistry::remove);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 单次调用的容错选项（来自节点配置）
+     */
+    public static class CallOptions {
+        private int maxAttempts = 1;
+        private long backoffMs = 200;
+        private boolean hedgeEnabled;
+        private long hedgeDelayMs = 1000;
+        private String route;
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = Math.max(1, maxAttempts); }
+        public long getBackoffMs() { return backoffMs; }
+        public void setBackoffMs(long backoffMs) { this.backoffMs = Math.max(0, backoffMs); }
+        public boolean isHedgeEnabled() { return hedgeEnabled; }
+        public void setHedgeEnabled(boolean hedgeEnabled) { this.hedgeEnabled = hedgeEnabled; }
+        public long getHedgeDelayMs() { return hedgeDelayMs; }
+        public void setHedgeDelayMs(long hedgeDelayMs) { this.hedgeDelayMs = hedgeDelayMs; }
+        public String getRoute() { return route; }
+        public void setRoute(String route) { this.route = route; }
+    }
+
+    /**
+     * 熔断器打开时抛出，调用未发往下游
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException(String endpoint) {
+            super("接口熔断中，暂停调用: " + endpoint);
+        }
+    }
+
+    /**
+     * 执行带容错的 HTTP 调用
+     *
+     * @param url           请求 URL（取 scheme://host:port 确定熔断维度）
+     * @param retryBudgetKey 重试预算维度（通常为 流程ID:节点ID）
+     * @param options       调用选项
+     * @param attempt       单次请求，返回包含 statusCode 的响应 Map
+     * @param timeout       单次请求超时
+     */
+    public Map<String, Object> execute(String url, String retryBudgetKey, CallOptions options,
+                                       Supplier<Mono<Map<String, Object>>> attempt, Duration timeout) {
+        EndpointState endpoint = getEndpoint(endpointKey(url, options.getRoute()));
+        RetryBudget budget = options.getMaxAttempts() > 1 ? getRetryBudget(retryBudgetKey) : null;
+        if (budget != null) {
+            budget.deposit();
+        }
+
+        Map<String, Object> lastResponse = null;
+        RuntimeException lastError = null;
+        for (int attemptNo = 1; attemptNo <= options.getMaxAttempts(); attemptNo++) {
+            if (attemptNo > 1) {
+                if (!budget.tryWithdraw()) {
+                    meterRegistry.counter("flowlet.api.retry", "outcome", "budget_exhausted").increment();
+                    log.warn("重试预算已耗尽，放弃重试: node={}, endpoint={}", retryBudgetKey, endpoint.key);
+                    break;
+                }
+                meterRegistry.counter("flowlet.api.retry", "outcome", "attempted").increment();
+                sleep(options.getBackoffMs() * (1L << Math.min(attemptNo - 2, 6)));
+            }
+
+            if (properties.isCircuitBreakerEnabled() && !endpoint.tryAcquirePermission()) {
+                endpoint.rejectedCounter.increment();
+                throw new CircuitOpenException(endpoint.key);
+            }
+
+            long start = System.nanoTime();
+            try {
+                Map<String, Object> response = call(endpoint, options, attempt, timeout);
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                boolean serverError = response != null
+                        && response.get("statusCode") instanceof Integer status && status >= 500;
+                endpoint.record(elapsedMs, !serverError);
+                if (!serverError) {
+                    return response;
+                }
+                log.warn("接口返回服务端错误: endpoint={}, statusCode={}, attempt={}",
+                        endpoint.key, response.get("statusCode"), attemptNo);
+                lastResponse = response;
+                lastError = null;
+            } catch (RuntimeException e) {
+                endpoint.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), false);
+                log.warn("接口调用失败: endpoint={}, attempt={}, error={}", endpoint.key, attemptNo, e.getMessage());
+                lastResponse = null;
+                lastError = e;
+            }
+        }
+
+        // 服务端错误仍作为响应返回，由节点输出 statusCode 供下游判断
+        if (lastResponse != null) {
+            return lastResponse;
+        }
+        throw lastError;
+    }
+
+    private Map<String, Object> call(EndpointState endpoint, CallOptions options,
+                                     Supplier<Mono<Map<String, Object>>> attempt, Duration timeout) {
+        Mono<Map<String, Object>> primary = Mono.defer(attempt).timeout(timeout);
+        if (!options.isHedgeEnabled()) {
+            return primary.block();
+        }
+
+        long hedgeDelayMs = endpoint.hedgeDelayMs(options.getHedgeDelayMs());
+        Mono<Map<String, Object>> hedged = Mono.delay(Duration.ofMillis(hedgeDelayMs))
+                .then(Mono.defer(() -> {
+                    endpoint.hedgeFiredCounter.increment();
+                    return Mono.defer(attempt).timeout(timeout);
+                }))
+                .doOnNext(response -> endpoint.hedgeWonCounter.increment());
+        return Mono.firstWithValue(primary, hedged).block();
+    }
+
+    private EndpointState getEndpoint(String key) {
+        try {
+            return endpoints.get(key, () -> new EndpointState(key));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private RetryBudget getRetryBudget(String key) {
+        try {
+            return retryBudgets.get(key, RetryBudget::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 熔断维度：scheme://host:port，配置了路由模板（如 /users/{id}）时追加模板
+     */
+    private String endpointKey(String url, String route) {
+        String origin;
+        try {
+            URI uri = URI.create(url);
+            origin = uri.getHost() == null ? null
+                    : uri.getScheme() + "://" + uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : "");
+        } catch (IllegalArgumentException e) {
+            origin = null;
+        }
+        if (origin == null) {
+            // 无法解析时取 scheme://authority 部分
+            int schemeEnd = url.indexOf("://");
+            int pathStart = schemeEnd >= 0 ? url.indexOf('/', schemeEnd + 3) : -1;
+            origin = pathStart > 0 ? url.substring(0, pathStart) : url;
+        }
+        if (route == null || route.isBlank()) {
+            return origin;
+        }
+        return origin + (route.startsWith("/") ? route : "/" + route);
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("重试等待被中断", e);
+        }
+    }
+
+    /**
+     * 熔断器状态
+     */
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 单个接口的熔断状态与延迟统计
+     */
+    private class EndpointState {
+        final String key;
+        final List<Meter> meters;
+        final Counter rejectedCounter;
+        final Counter hedgeFiredCounter;
+        final Counter hedgeWonCounter;
+
+        // 滑动窗口：最近 N 次调用的结果
+        private final boolean[] failures;
+        private final boolean[] slowCalls;
+        private int windowIndex;
+        private int windowCount;
+
+        private CircuitState state = CircuitState.CLOSED;
+        private long openedAt;
+        private int halfOpenAllowed;
+        private int halfOpenCompleted;
+        private int halfOpenFailures;
+
+        private final long[] latencies = new long[LATENCY_SAMPLE_SIZE];
+        private int latencyIndex;
+        private int latencyCount;
+
+        EndpointState(String key) {
+            this.key = key;
+            int windowSize = Math.max(1, properties.getSlidingWindowSize());
+            this.failures = new boolean[windowSize];
+            this.slowCalls = new boolean[windowSize];
+            Gauge stateGauge = Gauge.builder("flowlet.api.circuit.state", this, s -> s.currentState().ordinal())
+                    .description("熔断器状态：0-关闭 1-打开 2-半开")
+                    .tag("endpoint", key)
+                    .register(meterRegistry);
+            this.rejectedCounter = meterRegistry.counter("flowlet.api.circuit.rejected", "endpoint", key);
+            this.hedgeFiredCounter = meterRegistry.counter("flowlet.api.hedge.fired", "endpoint", key);
+            this.hedgeWonCounter = meterRegistry.counter("flowlet.api.hedge.won", "endpoint", key);
+            // 状态被淘汰时一并移除，避免指标随接口数无限增长
+            this.meters = List.of(stateGauge, rejectedCounter, hedgeFiredCounter, hedgeWonCounter);
+        }
+
+        synchronized CircuitState currentState() {
+            return state;
+        }
+
+        synchronized boolean tryAcquirePermission() {
+            if (state == CircuitState.OPEN) {
+                if (System.currentTimeMillis() - openedAt < properties.getOpenStateDurationMs()) {
+                    return false;
+                }
+                transitionTo(CircuitState.HALF_OPEN);
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (halfOpenAllowed >= properties.getHalfOpenPermittedCalls()) {
+                    return false;
+                }
+                halfOpenAllowed++;
+            }
+            return true;
+        }
+
+        synchronized void record(long elapsedMs, boolean success) {
+            if (success) {
+                latencies[latencyIndex] = elapsedMs;
+                latencyIndex = (latencyIndex + 1) % latencies.length;
+                latencyCount = Math.min(latencyCount + 1, latencies.length);
+            }
+
+            if (state == CircuitState.HALF_OPEN) {
+                halfOpenCompleted++;
+                if (!success) {
+                    halfOpenFailures++;
+                }
+                if (halfOpenCompleted >= properties.getHalfOpenPermittedCalls()) {
+                    int failureRate = halfOpenFailures * 100 / halfOpenCompleted;
+                    transitionTo(failureRate >= properties.getFailureRateThreshold() ? CircuitState.OPEN : CircuitState.CLOSED);
+                }
+                return;
+            }
+            if (state == CircuitState.OPEN) {
+                return;
+            }
+
+            failures[windowIndex] = !success;
+            slowCalls[windowIndex] = elapsedMs >= properties.getSlowCallDurationMs();
+            windowIndex = (windowIndex + 1) % failures.length;
+            windowCount = Math.min(windowCount + 1, failures.length);
+            if (windowCount < properties.getMinimumCalls()) {
+                return;
+            }
+
+            int failureCount = 0;
+            int slowCount = 0;
+            for (int i = 0; i < windowCount; i++) {
+                if (failures[i]) {
+                    failureCount++;
+                }
+                if (slowCalls[i]) {
+                    slowCount++;
+                }
+            }
+            if (failureCount * 100 / windowCount >= properties.getFailureRateThreshold()
+                    || slowCount * 100 / windowCount >= properties.getSlowCallRateThreshold()) {
+                transitionTo(CircuitState.OPEN);
+            }
+        }
+
+        /**
+         * 对冲等待时间：近期成功调用的 P95，样本不足时使用节点配置的值
+         */
+        synchronized long hedgeDelayMs(long fallbackMs) {
+            if (latencyCount < MIN_LATENCY_SAMPLES) {
+                return Math.max(MIN_HEDGE_DELAY_MS, fallbackMs);
+            }
+            long[] samples = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(samples);
+            int p95Index = (int) Math.ceil(samples.length * 0.95) - 1;
+            return Math.max(MIN_HEDGE_DELAY_MS, samples[p95Index]);
+        }
+
+        private void transitionTo(CircuitState newState) {
+            if (state == newState) {
+                return;
+            }
+            log.warn("熔断器状态变更: endpoint={}, {} -> {}", key, state, newState);
+            state = newState;
+            if (newState == CircuitState.OPEN) {
+                openedAt = System.currentTimeMillis();
+            }
+            if (newState == CircuitState.HALF_OPEN) {
+                halfOpenAllowed = 0;
+                halfOpenCompleted = 0;
+                halfOpenFailures = 0;
+            }
+            if (newState == CircuitState.CLOSED) {
+                windowIndex = 0;
+                windowCount = 0;
+            }
+        }
+    }
+
+    /**
+     * 节点重试预算：每次请求积累 ratio 个额度，每次重试消耗 1 个额度
+     */
+    private class RetryBudget {
+        private double tokens = properties.getRetryBudgetMaxTokens();
+
+        synchronized void deposit() {
+            tokens = Math.min(properties.getRetryBudgetMaxTokens(), tokens + properties.getRetryBudgetRatio());
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
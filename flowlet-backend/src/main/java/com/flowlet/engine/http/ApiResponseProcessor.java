@@ -0,0 +1,319 @@
+package com.flowlet.engine.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * API 响应体流式处理器
+ *
+ * 响应体以数据块形式直接写入本地临时文件（不在内存中整体缓冲），写入时校验大小上限；
+ * 随后用 Jackson 流式解析器按 JSON Pointer 投影所需字段，未选中的子树直接跳过、不会被构建为对象。
+ * 开启 spillToFile 时保留原始响应文件，并在输出中返回文件引用。
+ */
+@Slf4j
+@Component
+public class ApiResponseProcessor {
+
+    private final ObjectMapper objectMapper;
+    private final FlowletProperties.HttpClientProperties properties;
+
+    public ApiResponseProcessor(ObjectMapper objectMapper, FlowletProperties flowletProperties) {
+        this.objectMapper = objectMapper;
+        this.properties = flowletProperties.getHttpClient();
+    }
+
+    /**
+     * 响应体处理选项（来自节点配置）
+     */
+    public static class ResponseOptions {
+        private List<String> projection = Collections.emptyList();
+        private long maxBodyBytes;
+        private boolean spillToFile;
+
+        public List<String> getProjection() { return projection; }
+        public void setProjection(List<String> projection) { this.projection = projection != null ? projection : Collections.emptyList(); }
+        public long getMaxBodyBytes() { return maxBodyBytes; }
+        public void setMaxBodyBytes(long maxBodyBytes) { this.maxBodyBytes = maxBodyBytes; }
+        public boolean isSpillToFile() { return spillToFile; }
+        public void setSpillToFile(boolean spillToFile) { this.spillToFile = spillToFile; }
+
+        /**
+         * 是否需要走流式处理（否则沿用整体解析）
+         */
+        public boolean isStreaming() {
+            return !projection.isEmpty() || maxBodyBytes > 0 || spillToFile;
+        }
+
+        /**
+         * 生成配置的唯一标识
+         */
+        public String getCacheKey() {
+            return String.format("%s|%s|%s", projection, maxBodyBytes, spillToFile);
+        }
+    }
+
+    /**
+     * 响应体超过大小上限
+     */
+    public static class BodyTooLargeException extends RuntimeException {
+        public BodyTooLargeException(long maxBodyBytes) {
+            super("响应体超过最大限制: " + maxBodyBytes + " 字节");
+        }
+    }
+
+    /**
+     * 流式读取响应体
+     *
+     * @return 包含 body（投影或完整内容）以及可选 bodyFile（落盘文件信息）的 Map
+     */
+    public Mono<Map<String, Object>> read(ClientResponse response, ResponseOptions options) {
+        Path file;
+        try {
+            Path dir = Paths.get(properties.getResponseSpillDir());
+            Files.createDirectories(dir);
+            file = Files.createTempFile(dir, "api-", ".body");
+        } catch (IOException e) {
+            return response.releaseBody().then(Mono.error(new IllegalStateException("创建响应体文件失败: " + e.getMessage(), e)));
+        }
+
+        AtomicLong size = new AtomicLong();
+        Flux<DataBuffer> body = response.body(BodyExtractors.toDataBuffers())
+                .map(buffer -> {
+                    if (options.getMaxBodyBytes() > 0
+                            && size.addAndGet(buffer.readableByteCount()) > options.getMaxBodyBytes()) {
+                        DataBufferUtils.release(buffer);
+                        throw new BodyTooLargeException(options.getMaxBodyBytes());
+                    }
+                    return buffer;
+                });
+
+        MediaType contentType = response.headers().contentType().orElse(null);
+        return DataBufferUtils.write(body, file)
+                .then(Mono.fromCallable(() -> parse(file, contentType, options)).subscribeOn(Schedulers.boundedElastic()))
+                .doFinally(signal -> {
+                    if (!options.isSpillToFile() || signal != SignalType.ON_COMPLETE) {
+                        deleteQuietly(file);
+                    }
+                });
+    }
+
+    private Map<String, Object> parse(Path file, MediaType contentType, ResponseOptions options) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long fileSize = Files.size(file);
+        boolean json = contentType == null
+                || MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                || (contentType.getSubtype() != null && contentType.getSubtype().endsWith("+json"));
+
+        if (fileSize == 0) {
+            result.put("body", Collections.emptyMap());
+        } else if (json && !options.getProjection().isEmpty()) {
+            result.put("body", project(file, options.getProjection()));
+        } else if (!options.isSpillToFile()) {
+            // 未配置投影且不落盘时完整解析（已受大小上限保护）
+            String text = Files.readString(file, StandardCharsets.UTF_8);
+            result.put("body", json ? readJsonOrText(text) : text);
+        } else {
+            result.put("body", null);
+        }
+
+        if (options.isSpillToFile()) {
+            Map<String, Object> bodyFile = new LinkedHashMap<>();
+            bodyFile.put("path", file.toAbsolutePath().toString());
+            bodyFile.put("sizeBytes", fileSize);
+            bodyFile.put("contentType", contentType != null ? contentType.toString() : null);
+            result.put("bodyFile", bodyFile);
+        }
+        return result;
+    }
+
+    private Object readJsonOrText(String text) {
+        try {
+            return objectMapper.readValue(text, Object.class);
+        } catch (IOException e) {
+            return text;
+        }
+    }
+
+    /**
+     * 按 JSON Pointer 投影响应体
+     * 仅构建选中路径上的值，其余子树通过 skipChildren 跳过
+     */
+    private Map<String, Object> project(Path file, List<String> paths) throws IOException {
+        Set<String> targets = new LinkedHashSet<>();
+        for (String path : paths) {
+            targets.add(toJsonPointer(path));
+        }
+
+        Map<String, Object> selected = new LinkedHashMap<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(file.toFile())) {
+            JsonToken token;
+            while (selected.size() < targets.size() && (token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME || token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    continue;
+                }
+                String pointer = parser.getParsingContext().pathAsPointer().toString();
+                if (targets.contains(pointer)) {
+                    selected.put(pointer, objectMapper.readValue(parser, Object.class));
+                } else if (token.isStructStart() && !isAncestorOfTarget(pointer, targets)) {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : selected.entrySet()) {
+            putByPointer(projected, entry.getKey(), entry.getValue());
+        }
+        return projected;
+    }
+
+    private boolean isAncestorOfTarget(String pointer, Set<String> targets) {
+        String prefix = pointer + "/";
+        for (String target : targets) {
+            if (target.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将选中的值按原路径还原为嵌套结构，数字路径段还原为列表，保持 body.items[0].name 等引用方式可用
+     */
+    @SuppressWarnings("unchecked")
+    private void putByPointer(Map<String, Object> root, String pointer, Object value) {
+        List<String> segments = new ArrayList<>();
+        for (JsonPointer p = JsonPointer.compile(pointer); !p.matches(); p = p.tail()) {
+            segments.add(p.getMatchingProperty());
+        }
+        if (segments.isEmpty()) {
+            if (value instanceof Map) {
+                root.putAll((Map<String, Object>) value);
+            }
+            return;
+        }
+
+        Object container = root;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            Object child = last ? value : null;
+            if (!last) {
+                Object existing = getChild(container, segment);
+                child = existing != null ? existing : (isIndex(segments.get(i + 1)) ? new ArrayList<>() : new LinkedHashMap<>());
+            }
+            if (container instanceof Map) {
+                ((Map<String, Object>) container).put(segment, child);
+            } else if (container instanceof List && isIndex(segment)) {
+                List<Object> list = (List<Object>) container;
+                int index = Integer.parseInt(segment);
+                while (list.size() <= index) {
+                    list.add(null);
+                }
+                list.set(index, child);
+            } else {
+                return;
+            }
+            container = child;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object getChild(Object container, String segment) {
+        if (container instanceof Map) {
+            return ((Map<String, Object>) container).get(segment);
+        }
+        if (container instanceof List && isIndex(segment)) {
+            List<Object> list = (List<Object>) container;
+            int index = Integer.parseInt(segment);
+            return index < list.size() ? list.get(index) : null;
+        }
+        return null;
+    }
+
+    private boolean isIndex(String segment) {
+        return !segment.isEmpty() && segment.length() < 10 && segment.chars().allMatch(Character::isDigit);
+    }
+
+    /**
+     * 支持 JSON Pointer（/data/items/0/name）和点路径（data.items[0].name，可带 $. 前缀）
+     */
+    private String toJsonPointer(String path) {
+        String trimmed = path.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("/")) {
+            return trimmed;
+        }
+        if (trimmed.startsWith("$")) {
+            trimmed = trimmed.substring(1);
+        }
+        if (trimmed.startsWith(".")) {
+            trimmed = trimmed.substring(1);
+        }
+        StringBuilder pointer = new StringBuilder();
+        for (String segment : trimmed.replaceAll("\\[(\\d+)]", ".$1").split("\\.")) {
+            if (!segment.isEmpty()) {
+                pointer.append('/').append(segment.replace("~", "~0").replace("/", "~1"));
+            }
+        }
+        return pointer.toString();
+    }
+
+    /**
+     * 定期清理过期的落盘响应文件
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 60000)
+    public void cleanupSpilledFiles() {
+        Path dir = Paths.get(properties.getResponseSpillDir());
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        Instant expireBefore = Instant.now().minus(Duration.ofHours(properties.getResponseSpillRetentionHours()));
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(path -> path.getFileName().toString().startsWith("api-"))
+                    .filter(path -> {
+                        try {
+                            return Files.getLastModifiedTime(path).toInstant().isBefore(expireBefore);
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    })
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("清理落盘响应文件失败: {}", e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除响应体文件失败: file={}, error={}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.flowlet.engine.http;
+
+import com.flowlet.config.FlowletProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.SslProvider;
+import reactor.netty.transport.ProxyProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 出站 HTTP 客户端注册表
+ *
+ * 所有出站调用（API 节点、大模型、代码执行、向量存储等）共享同一个 Reactor Netty 连接池，
+ * 连接池内部按目标主机划分，按主机维度复用长连接并采集指标（活跃/排队连接数、获取连接耗时）。
+ * WebClient 按 Base URL 与 TLS/代理配置缓存，避免每次请求重新构建客户端。
+ */
+@Slf4j
+@Component
+public class HttpClientRegistry {
+
+    private static final String POOL_NAME = "flowlet-http";
+
+    private final FlowletProperties.HttpClientProperties properties;
+    private final ConnectionProvider connectionProvider;
+
+    /**
+     * 按 TLS/代理配置缓存的底层 HttpClient
+     */
+    private final Map<String, HttpClient> httpClientCache = new ConcurrentHashMap<>();
+
+    /**
+     * 按 Base URL + TLS/代理配置缓存的 WebClient
+     */
+    private final Cache<String, WebClient> webClientCache = CacheBuilder.newBuilder()
+            .maximumSize(512)
+            .build();
+
+    public HttpClientRegistry(FlowletProperties flowletProperties) {
+        this.properties = flowletProperties.getHttpClient();
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(properties.getMaxIdleTimeMs()))
+                .maxLifeTime(Duration.ofMillis(properties.getMaxLifeTimeMs()))
+                .metrics(properties.isMetricsEnabled());
+        if (properties.getEvictIntervalMs() > 0) {
+            builder.evictInBackground(Duration.ofMillis(properties.getEvictIntervalMs()));
+        }
+        this.connectionProvider = builder.build();
+
+        log.info("初始化出站 HTTP 连接池: maxConnections={}, maxIdleTimeMs={}, http2={}",
+                properties.getMaxConnections(), properties.getMaxIdleTimeMs(), properties.isHttp2Enabled());
+    }
+
+    /**
+     * HTTP 客户端连接选项（TLS/代理）
+     */
+    public static class ClientOptions {
+        private boolean insecureSkipTlsVerify;
+        private String proxyHost;
+        private Integer proxyPort;
+
+        public static ClientOptions defaults() {
+            return new ClientOptions();
+        }
+
+        public boolean isInsecureSkipTlsVerify() { return insecureSkipTlsVerify; }
+        public void setInsecureSkipTlsVerify(boolean insecureSkipTlsVerify) { this.insecureSkipTlsVerify = insecureSkipTlsVerify; }
+        public String getProxyHost() { return proxyHost; }
+        public void setProxyHost(String proxyHost) { this.proxyHost = proxyHost; }
+        public Integer getProxyPort() { return proxyPort; }
+        public void setProxyPort(Integer proxyPort) { this.proxyPort = proxyPort; }
+
+        /**
+         * 生成配置的唯一标识
+         */
+        public String getCacheKey() {
+            return String.format("%s|%s|%s", insecureSkipTlsVerify, proxyHost, proxyPort);
+        }
+    }
+
+    /**
+     * 获取未绑定 Base URL 的客户端（请求时使用完整 URL）
+     */
+    public WebClient getClient() {
+        return getClient(null, ClientOptions.defaults());
+    }
+
+    /**
+     * 获取绑定 Base URL 的客户端
+     */
+    public WebClient getClient(String baseUrl) {
+        return getClient(baseUrl, ClientOptions.defaults());
+    }
+
+    /**
+     * 获取绑定 Base URL 与连接选项的客户端
+     */
+    public WebClient getClient(String baseUrl, ClientOptions options) {
+        ClientOptions resolved = options != null ? options : ClientOptions.defaults();
+        String cacheKey = (baseUrl != null ? baseUrl : "") + "|" + resolved.getCacheKey();
+        try {
+            return webClientCache.get(cacheKey, () -> buildWebClient(baseUrl, resolved));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("创建 HTTP 客户端失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private WebClient buildWebClient(String baseUrl, ClientOptions options) {
+        HttpClient httpClient = httpClientCache.computeIfAbsent(options.getCacheKey(), key -> createHttpClient(options));
+        int maxInMemorySize = properties.getMaxInMemorySizeMb() * 1024 * 1024;
+
+        WebClient.Builder builder = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySize));
+        if (baseUrl != null) {
+            builder.baseUrl(baseUrl);
+        }
+        return builder.build();
+    }
+
+    private HttpClient createHttpClient(ClientOptions options) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeoutMs())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true);
+
+        if (properties.isMetricsEnabled()) {
+            // 仅按主机维度统计，URI 统一折叠避免指标基数膨胀
+            httpClient = httpClient.metrics(true, uri -> "/");
+        }
+
+        if (properties.isHttp2Enabled()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        if (options.isInsecureSkipTlsVerify()) {
+            SslProvider.GenericSslContextSpec<SslContextBuilder> sslContextSpec = properties.isHttp2Enabled()
+                    ? Http2SslContextSpec.forClient()
+                    : Http11SslContextSpec.forClient();
+            sslContextSpec.configure(builder -> builder.trustManager(InsecureTrustManagerFactory.INSTANCE));
+            httpClient = httpClient.secure(spec -> spec.sslContext(sslContextSpec));
+        }
+
+        if (options.getProxyHost() != null && !options.getProxyHost().isEmpty()) {
+            int proxyPort = options.getProxyPort() != null ? options.getProxyPort() : 8080;
+            httpClient = httpClient.proxy(spec -> spec.type(ProxyProvider.Proxy.HTTP)
+                    .host(options.getProxyHost())
+                    .port(proxyPort));
+        }
+
+        return httpClient;
+    }
+
+    @PreDestroy
+    public void close() {
+        log.info("关闭出站 HTTP 连接池");
+        webClientCache.invalidateAll();
+        connectionProvider.disposeLater().block(Duration.ofSeconds(10));
+    }
+}
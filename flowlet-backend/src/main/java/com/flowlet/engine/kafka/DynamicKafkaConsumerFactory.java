@@ -2,11 +2,24 @@ package com.flowlet.engine.kafka;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.dto.CallbackMessage;
+import com.flowlet.engine.timer.HashedTimerWheel;
+import com.flowlet.entity.AsyncCallback;
 import com.flowlet.service.FlowExecutionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
@@ -15,6 +28,8 @@ import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 动态 Kafka 消费者工厂
@@ -23,17 +38,71 @@ import java.util.concurrent.*;
  * 与 CallbackConsumer 的区别：
  * - CallbackConsumer: 监听固定的默认回调 Topic (flowlet-callback)
  * - DynamicKafkaConsumerFactory: 监听用户在流程节点中配置的自定义回调 Topic
+ *
+ * 拉取与处理分离：消息按分区进入各自的处理队列并批量落库，位点在落库后手动提交，
+ * 分区积压超限时暂停拉取，吞吐随分区数与处理线程数扩展。
  */
 @Slf4j
 @Component
 public class DynamicKafkaConsumerFactory {
 
+    /**
+     * 回调落库失败后重新消费前的退避时间
+     */
+    private static final long RECORD_RETRY_BACKOFF_MS = 1000;
+
     private final ObjectMapper objectMapper;
     private final FlowExecutionService flowExecutionService;
+    private final FlowletProperties.KafkaProperties kafkaProperties;
+
+    /**
+     * 所有回调等待共享的超时时间轮
+     */
+    private final HashedTimerWheel callbackTimer;
+
+    private final Counter completedCounter;
+    private final Counter timeoutCounter;
+    private final Counter rejectedCounter;
+    private final DistributionSummary batchSizeSummary;
     
-    public DynamicKafkaConsumerFactory(ObjectMapper objectMapper, @Lazy FlowExecutionService flowExecutionService) {
+    public DynamicKafkaConsumerFactory(ObjectMapper objectMapper,
+                                       @Lazy FlowExecutionService flowExecutionService,
+                                       FlowletProperties flowletProperties,
+                                       MeterRegistry meterRegistry) {
         this.objectMapper = objectMapper;
         this.flowExecutionService = flowExecutionService;
+        this.kafkaProperties = flowletProperties.getKafka();
+        this.callbackTimer = new HashedTimerWheel("kafka-callback-timer",
+                kafkaProperties.getCallbackTimerTickMs(), kafkaProperties.getCallbackTimerWheelSize(),
+                kafkaProperties.getCallbackMaxPending());
+
+        Gauge.builder("flowlet.kafka.callback.waiters", callbackWaiters, Map::size)
+                .description("等待中的 Kafka 回调数")
+                .register(meterRegistry);
+        Gauge.builder("flowlet.kafka.callback.timer_pending", callbackTimer, HashedTimerWheel::pendingTimeouts)
+                .description("回调超时时间轮中未到期的定时任务数")
+                .register(meterRegistry);
+        this.completedCounter = meterRegistry.counter("flowlet.kafka.callback", "result", "completed");
+        this.timeoutCounter = meterRegistry.counter("flowlet.kafka.callback", "result", "timeout");
+        this.rejectedCounter = meterRegistry.counter("flowlet.kafka.callback", "result", "rejected");
+        this.batchSizeSummary = DistributionSummary.builder("flowlet.kafka.callback.batch_size")
+                .description("动态回调消费者每次落库的消息数")
+                .register(meterRegistry);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.callbackWorkers = Executors.newFixedThreadPool(Math.max(1, kafkaProperties.getCallbackWorkerThreads()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "kafka-callback-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        AtomicInteger resumeThreadIndex = new AtomicInteger();
+        this.resumeWorkers = Executors.newFixedThreadPool(Math.max(1, kafkaProperties.getCallbackResumeThreads()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "kafka-callback-resume-" + resumeThreadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
     
     /**
@@ -42,41 +111,40 @@ public class DynamicKafkaConsumerFactory {
     private final Map<String, ConsumerTask> consumerTasks = new ConcurrentHashMap<>();
     
     /**
-     * 回调等待映射: callbackKey -> CompletableFuture
+     * 回调等待映射: callbackKey -> 等待者
      */
-    private final Map<String, CompletableFuture<Map<String, Object>>> callbackWaiters = new ConcurrentHashMap<>();
+    private final Map<String, CallbackWaiter> callbackWaiters = new ConcurrentHashMap<>();
     
     /**
-     * 消费者线程池
+     * 消费者线程池（每个消费者一个拉取线程）
      */
     private final ExecutorService executorService = Executors.newCachedThreadPool();
 
     /**
-     * 消费者任务
+     * 分区批次处理线程池（解析、落库、提交位点），所有动态消费者共享
      */
-    private static class ConsumerTask {
-        final KafkaConsumer<String, String> consumer;
-        final Future<?> future;
-        volatile boolean running = true;
-        
-        ConsumerTask(KafkaConsumer<String, String> consumer, Future<?> future) {
-            this.consumer = consumer;
-            this.future = future;
-        }
-        
-        void stop() {
-            running = false;
-            consumer.wakeup();
+    private final ExecutorService callbackWorkers;
+
+    /**
+     * 恢复流程线程池；排队数受分区积压上限约束（恢复完成前仍计入分区积压）
+     */
+    private final ExecutorService resumeWorkers;
+
+    /**
+     * 回调等待者：完成回调或超时时取消另一方
+     */
+    private static class CallbackWaiter extends CompletableFuture<Map<String, Object>> {
+        final String callbackKey;
+        volatile HashedTimerWheel.Timeout timeout;
+
+        CallbackWaiter(String callbackKey) {
+            this.callbackKey = callbackKey;
         }
-        
-        /**
-         * 等待任务结束
-         */
-        void awaitTermination(long timeout, TimeUnit unit) {
-            try {
-                future.get(timeout, unit);
-            } catch (Exception e) {
-                // 忽略异常，任务可能已经结束或被取消
+
+        void cancelTimeout() {
+            HashedTimerWheel.Timeout scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel();
             }
         }
     }
@@ -100,23 +168,46 @@ public class DynamicKafkaConsumerFactory {
         log.info("注册 Kafka 回调等待: callbackKey={}, topic={}, keyField={}", 
                 callbackKey, callbackTopic, callbackKeyField);
         
-        CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
-        callbackWaiters.put(callbackKey, future);
+        if (callbackWaiters.size() >= kafkaProperties.getCallbackMaxPending()
+                && !callbackWaiters.containsKey(callbackKey)) {
+            rejectedCounter.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "等待中的 Kafka 回调数已达上限: " + kafkaProperties.getCallbackMaxPending()));
+        }
+
+        CallbackWaiter waiter = new CallbackWaiter(callbackKey);
+        CallbackWaiter previous = callbackWaiters.put(callbackKey, waiter);
+        if (previous != null) {
+            previous.cancelTimeout();
+            previous.completeExceptionally(new IllegalStateException("回调等待被重新注册: " + callbackKey));
+        }
+        try {
+            waiter.timeout = callbackTimer.schedule(() -> expireWaiter(waiter), timeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            callbackWaiters.remove(callbackKey, waiter);
+            rejectedCounter.increment();
+            waiter.completeExceptionally(e);
+            return waiter;
+        }
+        // 回调在定时任务登记前已到达时，立即释放定时任务
+        if (waiter.isDone()) {
+            waiter.cancelTimeout();
+        }
         
         // 确保消费者正在运行
         ensureConsumerRunning(config, callbackTopic, callbackKeyField);
         
-        // 设置超时
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.schedule(() -> {
-            if (!future.isDone()) {
-                future.completeExceptionally(new TimeoutException("Kafka 回调超时: " + callbackKey));
-                callbackWaiters.remove(callbackKey);
-            }
-            scheduler.shutdown();
-        }, timeout, TimeUnit.MILLISECONDS);
-        
-        return future;
+        return waiter;
+    }
+
+    /**
+     * 回调超时（在时间轮线程上执行，只做移除与完成）
+     */
+    private void expireWaiter(CallbackWaiter waiter) {
+        if (callbackWaiters.remove(waiter.callbackKey, waiter)
+                && waiter.completeExceptionally(new TimeoutException("Kafka 回调超时: " + waiter.callbackKey))) {
+            timeoutCounter.increment();
+        }
     }
 
     /**
@@ -137,23 +228,49 @@ public class DynamicKafkaConsumerFactory {
         log.info("创建新的 Kafka 消费者: topic={}", topic);
         
         KafkaConsumer<String, String> consumer = createConsumer(config);
-        consumer.subscribe(Collections.singletonList(topic));
-        
-        Future<?> future = executorService.submit(() -> {
-            ConsumerTask task = consumerTasks.get(cacheKey);
-            
-            while (task != null && task.running) {
+        ConsumerTask task = new ConsumerTask(cacheKey, consumer, callbackKeyField);
+        consumer.subscribe(Collections.singletonList(topic), task);
+        consumerTasks.put(cacheKey, task);
+        task.future = executorService.submit(task::pollLoop);
+    }
+
+    /**
+     * 消费者任务
+     *
+     * 拉取线程独占 KafkaConsumer，只负责拉取、按分区分发、暂停/恢复分区与提交位点；
+     * 消息在共享的处理线程池中处理，同一分区的消息依次处理，不同分区并行。
+     * 一个批次的回调在同一事务中落库（received）后该批次的位点才可提交，流程恢复随后异步执行。
+     */
+    private class ConsumerTask implements ConsumerRebalanceListener {
+        final String cacheKey;
+        final KafkaConsumer<String, String> consumer;
+        final String callbackKeyField;
+        final Map<TopicPartition, PartitionWorker> workers = new ConcurrentHashMap<>();
+        final Map<TopicPartition, OffsetAndMetadata> committable = new ConcurrentHashMap<>();
+        /**
+         * 已暂停的分区，仅由拉取线程访问
+         */
+        final Set<TopicPartition> paused = new HashSet<>();
+        volatile Future<?> future;
+        volatile boolean running = true;
+
+        ConsumerTask(String cacheKey, KafkaConsumer<String, String> consumer, String callbackKeyField) {
+            this.cacheKey = cacheKey;
+            this.consumer = consumer;
+            this.callbackKeyField = callbackKeyField;
+        }
+
+        void pollLoop() {
+            while (running) {
                 try {
+                    applyPendingSeeks();
                     ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
-                    
-                    records.forEach(record -> {
-                        try {
-                            processCallbackMessage(record.value(), callbackKeyField);
-                        } catch (Exception e) {
-                            log.error("处理回调消息失败: {}", e.getMessage());
-                        }
-                    });
-                } catch (org.apache.kafka.common.errors.WakeupException e) {
+                    for (TopicPartition partition : records.partitions()) {
+                        dispatch(partition, records.records(partition));
+                    }
+                    resumeDrainedPartitions();
+                    commitAsync();
+                } catch (WakeupException e) {
                     // 正常停止
                     log.info("消费者停止: {}", cacheKey);
                     break;
@@ -161,53 +278,328 @@ public class DynamicKafkaConsumerFactory {
                     log.error("消费者异常: {}", e.getMessage(), e);
                 }
             }
-            
+            close();
+        }
+
+        /**
+         * 将拉取到的消息放入分区处理队列，积压超限时暂停拉取该分区
+         */
+        private void dispatch(TopicPartition partition, List<ConsumerRecord<String, String>> records) {
+            PartitionWorker worker = workers.computeIfAbsent(partition, key -> new PartitionWorker(this, key));
+            worker.enqueue(records);
+            if (worker.pending.get() >= kafkaProperties.getCallbackMaxPendingPerPartition() && paused.add(partition)) {
+                consumer.pause(Collections.singletonList(partition));
+                log.debug("分区积压超限，暂停拉取: partition={}, pending={}", partition, worker.pending.get());
+            }
+        }
+
+        /**
+         * 积压回落到上限一半以下（且不在重试退避期）的分区恢复拉取
+         */
+        private void resumeDrainedPartitions() {
+            if (paused.isEmpty()) {
+                return;
+            }
+            int resumeThreshold = kafkaProperties.getCallbackMaxPendingPerPartition() / 2;
+            List<TopicPartition> resumable = new ArrayList<>();
+            Iterator<TopicPartition> iterator = paused.iterator();
+            while (iterator.hasNext()) {
+                TopicPartition partition = iterator.next();
+                PartitionWorker worker = workers.get(partition);
+                if (worker == null) {
+                    iterator.remove();
+                } else if (worker.pending.get() <= resumeThreshold && worker.seekOffset == null
+                        && System.nanoTime() - worker.retryAtNanos >= 0) {
+                    iterator.remove();
+                    resumable.add(partition);
+                }
+            }
+            if (!resumable.isEmpty()) {
+                consumer.resume(resumable);
+            }
+        }
+
+        /**
+         * 落库失败的分区回退到失败批次的起始位点重新消费，并在退避期内暂停拉取
+         */
+        private void applyPendingSeeks() {
+            for (PartitionWorker worker : workers.values()) {
+                Long offset = worker.seekOffset;
+                if (offset == null) {
+                    continue;
+                }
+                // 先切换代次再清除回退标记，回退前入队的消息随之作废
+                worker.generation++;
+                consumer.seek(worker.partition, offset);
+                worker.seekOffset = null;
+                if (paused.add(worker.partition)) {
+                    consumer.pause(Collections.singletonList(worker.partition));
+                }
+            }
+        }
+
+        private void commitAsync() {
+            Map<TopicPartition, OffsetAndMetadata> offsets = drainCommittable(committable.keySet());
+            if (offsets.isEmpty()) {
+                return;
+            }
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    log.warn("提交位点失败: {}", e.getMessage());
+                    // 未被更新的位点覆盖时留待下次提交
+                    committed.forEach((partition, offset) -> committable.merge(partition, offset,
+                            (current, failed) -> current.offset() >= failed.offset() ? current : failed));
+                }
+            });
+        }
+
+        private Map<TopicPartition, OffsetAndMetadata> drainCommittable(Collection<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (TopicPartition partition : new ArrayList<>(partitions)) {
+                OffsetAndMetadata offset = committable.remove(partition);
+                if (offset != null) {
+                    offsets.put(partition, offset);
+                }
+            }
+            return offsets;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            for (TopicPartition partition : partitions) {
+                PartitionWorker worker = workers.remove(partition);
+                if (worker != null) {
+                    worker.revoked = true;
+                }
+                paused.remove(partition);
+            }
+            Map<TopicPartition, OffsetAndMetadata> offsets = drainCommittable(partitions);
+            if (!offsets.isEmpty()) {
+                try {
+                    consumer.commitSync(offsets);
+                } catch (Exception e) {
+                    log.warn("分区回收时提交位点失败: {}", e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            // 分区处理队列在收到消息时按需创建
+        }
+
+        void stop() {
+            running = false;
+            consumer.wakeup();
+        }
+
+        private void close() {
+            try {
+                Map<TopicPartition, OffsetAndMetadata> offsets = drainCommittable(committable.keySet());
+                if (!offsets.isEmpty()) {
+                    consumer.commitSync(offsets, Duration.ofSeconds(5));
+                }
+            } catch (Exception e) {
+                log.warn("关闭前提交位点失败: {}", e.getMessage());
+            }
+            workers.values().forEach(worker -> worker.revoked = true);
+            workers.clear();
             try {
                 consumer.close();
             } catch (Exception e) {
                 log.warn("关闭消费者失败: {}", e.getMessage());
             }
-        });
-        
-        consumerTasks.put(cacheKey, new ConsumerTask(consumer, future));
+        }
+
+        /**
+         * 等待任务结束
+         */
+        void awaitTermination(long timeout, TimeUnit unit) {
+            try {
+                future.get(timeout, unit);
+            } catch (Exception e) {
+                // 忽略异常，任务可能已经结束或被取消
+            }
+        }
     }
 
     /**
-     * 处理回调消息
+     * 入队时记录分区代次，回退位点后旧代次的消息直接丢弃
      */
-    private void processCallbackMessage(String messageJson, String callbackKeyField) {
-        log.info("########## 动态消费者收到回调消息 ##########");
-        log.info("原始消息: {}", messageJson);
-        log.info("关联字段: {}", callbackKeyField);
-        
+    private record PendingRecord(ConsumerRecord<String, String> record, int generation) {
+    }
+
+    /**
+     * 分区处理队列：同一时刻至多一个处理线程在处理该分区，保证分区内顺序
+     */
+    private final class PartitionWorker implements Runnable {
+        final ConsumerTask task;
+        final TopicPartition partition;
+        final Queue<PendingRecord> queue = new ConcurrentLinkedQueue<>();
+        /**
+         * 已入队但尚未处理完（含落库后等待恢复流程）的消息数，用于背压
+         */
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * 仅由拉取线程修改
+         */
+        volatile int generation;
+        volatile Long seekOffset;
+        volatile long retryAtNanos = System.nanoTime();
+        volatile boolean revoked;
+
+        PartitionWorker(ConsumerTask task, TopicPartition partition) {
+            this.task = task;
+            this.partition = partition;
+        }
+
+        void enqueue(List<ConsumerRecord<String, String>> records) {
+            int current = generation;
+            for (ConsumerRecord<String, String> record : records) {
+                queue.add(new PendingRecord(record, current));
+            }
+            pending.addAndGet(records.size());
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                callbackWorkers.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                int maxBatchSize = Math.max(1, kafkaProperties.getCallbackMaxPollRecords());
+                List<ConsumerRecord<String, String>> batch = new ArrayList<>(Math.min(maxBatchSize, queue.size()));
+                PendingRecord next;
+                while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+                    if (revoked || seekOffset != null || next.generation() != generation) {
+                        pending.decrementAndGet();
+                        continue;
+                    }
+                    batch.add(next.record());
+                }
+                if (!batch.isEmpty()) {
+                    processBatch(this, batch);
+                }
+            } catch (Exception e) {
+                log.error("处理回调消息批次失败: partition={}, error={}", partition, e.getMessage(), e);
+            } finally {
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+
+    /**
+     * 处理一个分区批次：解析消息并完成本地等待，在同一事务中落库后标记可提交位点，再逐条交给恢复线程池恢复流程
+     */
+    private void processBatch(PartitionWorker worker, List<ConsumerRecord<String, String>> records) {
+        List<CallbackMessage> messages = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            CallbackMessage message = parseCallbackMessage(record.value(), worker.task.callbackKeyField);
+            if (message != null) {
+                completeLocalWaiter(message);
+                messages.add(message);
+            }
+        }
+        batchSizeSummary.record(records.size());
+
+        List<AsyncCallback> recorded;
+        try {
+            recorded = messages.isEmpty() ? List.of() : flowExecutionService.recordCallbacks(messages);
+        } catch (Exception e) {
+            long firstOffset = records.get(0).offset();
+            log.error("回调落库失败，{}ms 后从位点 {} 重新消费: partition={}, error={}",
+                    RECORD_RETRY_BACKOFF_MS, firstOffset, worker.partition, e.getMessage(), e);
+            worker.retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RECORD_RETRY_BACKOFF_MS);
+            worker.seekOffset = firstOffset;
+            worker.pending.addAndGet(-records.size());
+            return;
+        }
+
+        if (!worker.revoked) {
+            long nextOffset = records.get(records.size() - 1).offset() + 1;
+            worker.task.committable.put(worker.partition, new OffsetAndMetadata(nextOffset));
+        }
+
+        int resuming = 0;
+        for (int i = 0; i < recorded.size(); i++) {
+            AsyncCallback callback = recorded.get(i);
+            if (callback != null && resumeCallback(worker, callback, messages.get(i).getData())) {
+                resuming++;
+            }
+        }
+        worker.pending.addAndGet(-(records.size() - resuming));
+    }
+
+    /**
+     * 在独立的恢复线程池中恢复流程，慢的恢复不占用分区处理线程、不阻塞后续消息的落库；
+     * 恢复失败或未能提交时回调保持 received 状态，由回调扫描重驱
+     */
+    private boolean resumeCallback(PartitionWorker worker, AsyncCallback callback, Map<String, Object> data) {
+        try {
+            resumeWorkers.execute(() -> {
+                try {
+                    flowExecutionService.completeCallback(callback, data);
+                } catch (Exception e) {
+                    log.error("回调恢复流程失败，等待重驱: callbackKey={}, error={}",
+                            callback.getCallbackKey(), e.getMessage(), e);
+                } finally {
+                    worker.pending.decrementAndGet();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("恢复线程池已关闭，回调保持 received 状态等待重驱: callbackKey={}", callback.getCallbackKey());
+            return false;
+        }
+    }
+
+    /**
+     * 解析回调消息，缺少关联字段或格式错误时返回 null
+     */
+    private CallbackMessage parseCallbackMessage(String messageJson, String callbackKeyField) {
+        log.debug("动态消费者收到回调消息: keyField={}, message={}", callbackKeyField, messageJson);
+        if (messageJson == null) {
+            return null;
+        }
         try {
             Map<String, Object> message = objectMapper.readValue(
                     messageJson, new TypeReference<Map<String, Object>>() {});
-            log.info("解析后的消息: {}", message);
-            
             Object callbackKeyObj = message.get(callbackKeyField);
             if (callbackKeyObj == null) {
                 log.warn("回调消息缺少关联字段 {}: {}", callbackKeyField, messageJson);
-                return;
-            }
-            
-            String callbackKey = String.valueOf(callbackKeyObj);
-            log.info("提取到 callbackKey: {}", callbackKey);
-            
-            // 先检查本地等待的 Future
-            CompletableFuture<Map<String, Object>> waiter = callbackWaiters.remove(callbackKey);
-            if (waiter != null) {
-                log.info("找到本地等待的 Future，完成回调");
-                waiter.complete(message);
+                return null;
             }
-            
-            // 同时也调用 FlowExecutionService 处理（支持暂停恢复模式）
-            log.info("调用 FlowExecutionService.handleCallback 处理回调...");
-            flowExecutionService.handleCallback(callbackKey, message);
-            log.info("########## 动态消费者回调处理完成 ##########");
-            
+            return new CallbackMessage(String.valueOf(callbackKeyObj), message);
         } catch (Exception e) {
-            log.error("解析回调消息失败: {}", e.getMessage(), e);
+            log.error("解析回调消息失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 完成本地等待的 Future（同步等待模式）
+     */
+    private void completeLocalWaiter(CallbackMessage message) {
+        CallbackWaiter waiter = callbackWaiters.remove(message.getCallbackKey());
+        if (waiter != null) {
+            log.info("找到本地等待的 Future，完成回调: callbackKey={}", message.getCallbackKey());
+            waiter.cancelTimeout();
+            if (waiter.complete(message.getData())) {
+                completedCounter.increment();
+            }
         }
     }
 
@@ -215,6 +607,20 @@ public class DynamicKafkaConsumerFactory {
      * 创建 Kafka 消费者
      */
     private KafkaConsumer<String, String> createConsumer(DynamicKafkaProducerFactory.KafkaConfig config) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.max(1, kafkaProperties.getCallbackMaxPollRecords()));
+        return createConsumer(config, "flowlet-callback-" + UUID.randomUUID().toString().substring(0, 8), overrides);
+    }
+
+    /**
+     * 创建手动提交位点的 Kafka 消费者
+     *
+     * @param groupId   消费者组
+     * @param overrides 额外的消费者配置，覆盖默认值
+     */
+    public KafkaConsumer<String, String> createConsumer(DynamicKafkaProducerFactory.KafkaConfig config,
+                                                        String groupId, Properties overrides) {
         Properties props = new Properties();
         
         // 基础配置
@@ -222,11 +628,12 @@ public class DynamicKafkaConsumerFactory {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
         
-        // 消费者组配置
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "flowlet-callback-" + UUID.randomUUID().toString().substring(0, 8));
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
-        props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, "1000");
+        // 消费者组配置，位点由调用方在处理完成后手动提交
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        if (overrides != null) {
+            props.putAll(overrides);
+        }
         
         // 认证配置
         if (config.getAuthType() != DynamicKafkaProducerFactory.AuthType.NONE) {
@@ -291,15 +698,26 @@ public class DynamicKafkaConsumerFactory {
         consumerTasks.values().forEach(task -> task.awaitTermination(5, TimeUnit.SECONDS));
         
         consumerTasks.clear();
+        callbackTimer.stop();
         callbackWaiters.clear();
         
         executorService.shutdown();
+        callbackWorkers.shutdown();
+        resumeWorkers.shutdown();
         try {
             if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
                 executorService.shutdownNow();
             }
+            if (!callbackWorkers.awaitTermination(10, TimeUnit.SECONDS)) {
+                callbackWorkers.shutdownNow();
+            }
+            if (!resumeWorkers.awaitTermination(10, TimeUnit.SECONDS)) {
+                resumeWorkers.shutdownNow();
+            }
         } catch (InterruptedException e) {
             executorService.shutdownNow();
+            callbackWorkers.shutdownNow();
+            resumeWorkers.shutdownNow();
         }
     }
 }
@@ -1,5 +1,10 @@
 package com.flowlet.engine.kafka;
 
+import com.flowlet.config.FlowletProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
@@ -9,15 +14,21 @@ import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 动态 Kafka 生产者工厂
- * 根据节点配置动态创建 Kafka 生产者
+ * 根据节点配置动态创建 Kafka 生产者，连接与调优参数相同的节点共享同一个生产者。
+ * 每个生产者的客户端指标（发送速率、批次大小、请求延迟等）以 kafka.producer.* 注册到 MeterRegistry，
+ * 通过 client.id 与 brokers 标签区分。
  */
 @Slf4j
 @Component
@@ -28,6 +39,21 @@ public class DynamicKafkaProducerFactory {
      */
     private final Map<String, Producer<String, String>> producerCache = new ConcurrentHashMap<>();
 
+    /**
+     * 生产者对应的指标绑定，与 producerCache 同 key
+     */
+    private final Map<String, KafkaClientMetrics> producerMetrics = new ConcurrentHashMap<>();
+
+    private final AtomicInteger clientIdSequence = new AtomicInteger();
+
+    private final FlowletProperties.KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+
+    public DynamicKafkaProducerFactory(FlowletProperties flowletProperties, MeterRegistry meterRegistry) {
+        this.kafkaProperties = flowletProperties.getKafka();
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * Kafka 认证类型
      */
@@ -53,6 +79,44 @@ public class DynamicKafkaProducerFactory {
         }
     }
 
+    /**
+     * 发送模式
+     */
+    public enum SendMode {
+        /**
+         * 同步：等待 Broker 确认后返回（批量发送时统一等待所有确认）
+         */
+        SYNC("sync"),
+        /**
+         * 异步确认：不等待确认，确认结果在回调中记录，失败仅打印日志
+         */
+        ASYNC("async"),
+        /**
+         * 发后即忘：不等待也不关注确认结果
+         */
+        FIRE_AND_FORGET("fire_and_forget");
+
+        private final String value;
+
+        SendMode(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static SendMode fromValue(String value) {
+            if (value == null) return SYNC;
+            for (SendMode mode : values()) {
+                if (mode.value.equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            return SYNC;
+        }
+    }
+
     /**
      * Kafka 连接配置
      */
@@ -79,6 +143,35 @@ public class DynamicKafkaProducerFactory {
         }
     }
 
+    /**
+     * 生产者调优参数，未配置的项使用全局默认值
+     */
+    public static class ProducerTuning {
+        private String acks;
+        private int lingerMs;
+        private int batchSize;
+        private String compressionType;
+        private boolean idempotence;
+
+        public String getAcks() { return acks; }
+        public void setAcks(String acks) { this.acks = acks; }
+        public int getLingerMs() { return lingerMs; }
+        public void setLingerMs(int lingerMs) { this.lingerMs = lingerMs; }
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        public String getCompressionType() { return compressionType; }
+        public void setCompressionType(String compressionType) { this.compressionType = compressionType; }
+        public boolean isIdempotence() { return idempotence; }
+        public void setIdempotence(boolean idempotence) { this.idempotence = idempotence; }
+
+        /**
+         * 生成调优参数的唯一标识
+         */
+        public String getCacheKey() {
+            return String.format("%s|%d|%d|%s|%s", acks, lingerMs, batchSize, compressionType, idempotence);
+        }
+    }
+
     /**
      * 从节点配置创建 KafkaConfig
      */
@@ -92,34 +185,74 @@ public class DynamicKafkaProducerFactory {
     }
 
     /**
-     * 获取或创建 Kafka 生产者
+     * 从节点配置创建生产者调优参数
+     */
+    public ProducerTuning createTuning(Map<String, Object> nodeConfig) {
+        ProducerTuning tuning = new ProducerTuning();
+        String acks = getString(nodeConfig.get("acks"));
+        tuning.setAcks(acks != null ? acks : kafkaProperties.getProducerAcks());
+        tuning.setLingerMs(getInt(nodeConfig.get("lingerMs"), kafkaProperties.getProducerLingerMs()));
+        tuning.setBatchSize(getInt(nodeConfig.get("batchSize"), kafkaProperties.getProducerBatchSize()));
+        String compressionType = getString(nodeConfig.get("compressionType"));
+        tuning.setCompressionType(compressionType != null
+                ? compressionType.toLowerCase()
+                : kafkaProperties.getProducerCompressionType());
+        Object idempotence = nodeConfig.get("idempotence");
+        tuning.setIdempotence(idempotence != null
+                ? Boolean.parseBoolean(String.valueOf(idempotence))
+                : kafkaProperties.isProducerIdempotence());
+        if (tuning.isIdempotence()) {
+            // 幂等生产者要求 acks=all
+            tuning.setAcks("all");
+        }
+        return tuning;
+    }
+
+    /**
+     * 获取或创建 Kafka 生产者（使用默认调优参数）
      */
     public Producer<String, String> getOrCreateProducer(KafkaConfig config) {
-        String cacheKey = config.getCacheKey();
-        
+        return getOrCreateProducer(config, createTuning(Collections.emptyMap()));
+    }
+
+    /**
+     * 获取或创建 Kafka 生产者
+     */
+    public Producer<String, String> getOrCreateProducer(KafkaConfig config, ProducerTuning tuning) {
+        String cacheKey = config.getCacheKey() + "|" + tuning.getCacheKey();
+
         return producerCache.computeIfAbsent(cacheKey, key -> {
-            log.info("创建新的 Kafka 生产者: brokers={}, authType={}", 
-                    config.getBrokers(), config.getAuthType());
-            return createProducer(config);
+            String clientId = "flowlet-producer-" + clientIdSequence.incrementAndGet();
+            log.info("创建新的 Kafka 生产者: clientId={}, brokers={}, authType={}, acks={}, lingerMs={}, batchSize={}, compression={}",
+                    clientId, config.getBrokers(), config.getAuthType(), tuning.getAcks(),
+                    tuning.getLingerMs(), tuning.getBatchSize(), tuning.getCompressionType());
+            Producer<String, String> producer = createProducer(config, tuning, clientId);
+            KafkaClientMetrics metrics = new KafkaClientMetrics(producer, Tags.of("brokers", config.getBrokers()));
+            metrics.bindTo(meterRegistry);
+            producerMetrics.put(key, metrics);
+            return producer;
         });
     }
 
     /**
      * 创建 Kafka 生产者
      */
-    private Producer<String, String> createProducer(KafkaConfig config) {
+    private Producer<String, String> createProducer(KafkaConfig config, ProducerTuning tuning, String clientId) {
         Properties props = new Properties();
         
         // 基础配置
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, config.getBrokers());
+        props.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
         
         // 性能配置
-        props.put(ProducerConfig.ACKS_CONFIG, "1");
-        props.put(ProducerConfig.RETRIES_CONFIG, 3);
-        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
-        props.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        props.put(ProducerConfig.ACKS_CONFIG, tuning.getAcks());
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, tuning.isIdempotence());
+        props.put(ProducerConfig.RETRIES_CONFIG, tuning.isIdempotence() ? Integer.MAX_VALUE : 3);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, tuning.getBatchSize());
+        props.put(ProducerConfig.LINGER_MS_CONFIG, tuning.getLingerMs());
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, tuning.getCompressionType());
         props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
         
         // 认证配置
@@ -167,24 +300,74 @@ public class DynamicKafkaProducerFactory {
     }
 
     /**
-     * 发送消息
+     * 同步发送消息（使用默认调优参数）
      */
     public void send(KafkaConfig config, String topic, String key, String value) throws Exception {
-        Producer<String, String> producer = getOrCreateProducer(config);
-        ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, value);
-        
-        Future<RecordMetadata> future = producer.send(record);
-        RecordMetadata metadata = future.get(30, TimeUnit.SECONDS);
-        
-        log.info("消息发送成功: topic={}, partition={}, offset={}", 
-                metadata.topic(), metadata.partition(), metadata.offset());
+        send(config, createTuning(Collections.emptyMap()), SendMode.SYNC,
+                List.of(new ProducerRecord<>(topic, key, value)));
+    }
+
+    /**
+     * 发送一批消息
+     * 所有消息先交给生产者，由其按 linger/batch 合并为请求；同步模式下随后统一等待确认，
+     * 整批只需一次等待而不是每条一次往返。
+     *
+     * @return 同步模式下按顺序返回每条消息的确认信息，其余模式返回空列表
+     */
+    public List<RecordMetadata> send(KafkaConfig config, ProducerTuning tuning, SendMode mode,
+                                     List<ProducerRecord<String, String>> records) throws Exception {
+        Producer<String, String> producer = getOrCreateProducer(config, tuning);
+
+        if (mode == SendMode.FIRE_AND_FORGET) {
+            for (ProducerRecord<String, String> record : records) {
+                producer.send(record);
+            }
+            return Collections.emptyList();
+        }
+
+        if (mode == SendMode.ASYNC) {
+            for (ProducerRecord<String, String> record : records) {
+                producer.send(record, (metadata, exception) -> {
+                    if (exception != null) {
+                        log.warn("Kafka 异步消息发送失败: topic={}, key={}, error={}",
+                                record.topic(), record.key(), exception.getMessage());
+                    } else {
+                        log.debug("Kafka 异步消息已确认: topic={}, partition={}, offset={}",
+                                metadata.topic(), metadata.partition(), metadata.offset());
+                    }
+                });
+            }
+            return Collections.emptyList();
+        }
+
+        List<Future<RecordMetadata>> futures = new ArrayList<>(records.size());
+        for (ProducerRecord<String, String> record : records) {
+            futures.add(producer.send(record));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(kafkaProperties.getProducerSendTimeoutMs());
+        List<RecordMetadata> results = new ArrayList<>(futures.size());
+        for (Future<RecordMetadata> future : futures) {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            results.add(future.get(remaining, TimeUnit.NANOSECONDS));
+        }
+        if (results.size() == 1) {
+            RecordMetadata metadata = results.get(0);
+            log.info("消息发送成功: topic={}, partition={}, offset={}",
+                    metadata.topic(), metadata.partition(), metadata.offset());
+        } else {
+            log.info("批量消息发送成功: count={}", results.size());
+        }
+        return results;
     }
 
     /**
-     * 关闭所有生产者
+     * 关闭所有生产者（关闭前会发送完缓冲区中的消息）
      */
+    @PreDestroy
     public void closeAll() {
         log.info("关闭所有 Kafka 生产者, 数量: {}", producerCache.size());
+        producerMetrics.values().forEach(KafkaClientMetrics::close);
+        producerMetrics.clear();
         producerCache.values().forEach(producer -> {
             try {
                 producer.close();
@@ -199,6 +382,10 @@ public class DynamicKafkaProducerFactory {
      * 移除指定配置的生产者
      */
     public void removeProducer(String cacheKey) {
+        KafkaClientMetrics metrics = producerMetrics.remove(cacheKey);
+        if (metrics != null) {
+            metrics.close();
+        }
         Producer<String, String> producer = producerCache.remove(cacheKey);
         if (producer != null) {
             try {
@@ -208,4 +395,27 @@ public class DynamicKafkaProducerFactory {
             }
         }
     }
+
+    private static String getString(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = String.valueOf(value).trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static int getInt(Object value, int defaultValue) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        String text = getString(value);
+        if (text == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
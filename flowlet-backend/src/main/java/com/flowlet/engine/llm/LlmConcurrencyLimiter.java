@@ -0,0 +1,423 @@
+package com.flowlet.engine.llm;
+
+import com.flowlet.config.FlowletProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 大模型调用自适应并发限制器（AIMD）
+ *
+ * 按（提供方, 模型）维度限制同时在途的请求数：
+ * 1. 加性增：请求成功且延迟未明显高于基线时，并发上限每轮约增加 1
+ * 2. 乘性减：收到 429/5xx 或近期延迟超过基线的容忍倍数时，按比例下调上限（每个延迟周期最多下调一次）
+ * 延迟按输出 token 数归一化后比较，输出长短不同的请求不会被误判为过载；
+ * 近期延迟与基线均为平滑均值，单个慢请求或偶发的快请求不会触发下调。
+ * 超出上限的调用按到达顺序排队，超过等待期限仍未获得许可则失败；
+ * 被限流的调用在等待期限内退避后重新排队，而不是直接让节点失败。
+ */
+@Slf4j
+@Component
+public class LlmConcurrencyLimiter {
+
+    /**
+     * 基线建立前的样本数，期间不因延迟下调上限
+     */
+    private static final int WARMUP_SAMPLES = 10;
+
+    /**
+     * 近期延迟的平滑系数（约反映最近 10 次调用）
+     */
+    private static final double RECENT_ALPHA = 0.2;
+
+    /**
+     * 基线延迟的平滑系数（约反映最近 100 次调用）
+     */
+    private static final double BASELINE_ALPHA = 0.02;
+
+    private final FlowletProperties.LlmConcurrencyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, LimitState> states;
+
+    public LlmConcurrencyLimiter(FlowletProperties flowletProperties, MeterRegistry meterRegistry) {
+        this.properties = flowletProperties.getLlmConcurrency();
+        this.meterRegistry = meterRegistry;
+        this.states = CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .removalListener((RemovalListener<String, LimitState>) notification -> {
+                    if (notification.getValue() != null) {
+                        // 淘汰的状态连同其全部指标一起移除，避免按模型维度的指标只增不减
+                        notification.getValue().meters.forEach(meterRegistry::remove);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 调用结果
+     */
+    public enum Outcome {
+        /**
+         * 成功，参与加性增
+         */
+        SUCCESS,
+        /**
+         * 被限流或服务端过载（429/5xx），触发乘性减
+         */
+        OVERLOADED,
+        /**
+         * 与容量无关的失败（如参数错误），不调整上限
+         */
+        IGNORED
+    }
+
+    /**
+     * 排队超过等待期限
+     */
+    public static class QueueTimeoutException extends RuntimeException {
+        public QueueTimeoutException(String key, long waitMs) {
+            super("模型调用排队超时: " + key + ", 已等待 " + waitMs + "ms");
+        }
+    }
+
+    /**
+     * 并发许可，调用结束后必须释放
+     */
+    public static class Permit {
+        private final LimitState state;
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        private Permit(LimitState state) {
+            this.state = state;
+        }
+
+        public void release(Outcome outcome) {
+            release(outcome, 1);
+        }
+
+        /**
+         * @param workUnits 本次调用的工作量（输出 token 数），用于归一化延迟；未知时传 1
+         */
+        public void release(Outcome outcome, int workUnits) {
+            if (released) {
+                return;
+            }
+            released = true;
+            state.release(outcome, System.nanoTime() - startNanos, Math.max(1, workUnits));
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 在并发限制下执行模型调用
+     * 429/5xx 与超时视为过载：下调上限，并在等待期限内按 Retry-After 或指数退避重试
+     *
+     * @param queueTimeoutMs 排队与重试的总期限，为空时使用全局配置
+     */
+    public <T> T execute(String providerKey, String providerId, String model, Long queueTimeoutMs, Supplier<T> call) {
+        return execute(providerKey, providerId, model, queueTimeoutMs, call, null);
+    }
+
+    /**
+     * 在并发限制下执行模型调用，成功调用的延迟按输出 token 数归一化后参与基线比较
+     *
+     * @param queueTimeoutMs 排队与重试的总期限，为空时使用全局配置
+     * @param outputTokens   从调用结果中取输出 token 数，为空或取不到时按 1 计
+     */
+    public <T> T execute(String providerKey, String providerId, String model, Long queueTimeoutMs, Supplier<T> call,
+                         ToIntFunction<T> outputTokens) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        long budgetMs = queueTimeoutMs != null && queueTimeoutMs > 0 ? queueTimeoutMs : properties.getQueueTimeoutMs();
+        long deadline = System.currentTimeMillis() + budgetMs;
+
+        for (int attempt = 0; ; attempt++) {
+            Permit permit = acquire(providerKey, providerId, model, Math.max(0, deadline - System.currentTimeMillis()));
+            // 许可在 finally 中释放，Error 等未捕获的异常也不会占住名额
+            Outcome outcome = Outcome.IGNORED;
+            int workUnits = 1;
+            RuntimeException failure;
+            try {
+                T result = call.get();
+                outcome = Outcome.SUCCESS;
+                workUnits = workUnits(outputTokens, result);
+                return result;
+            } catch (RuntimeException e) {
+                if (isOverloaded(Exceptions.unwrap(e))) {
+                    outcome = Outcome.OVERLOADED;
+                }
+                failure = e;
+            } finally {
+                permit.release(outcome, workUnits);
+            }
+
+            Throwable cause = Exceptions.unwrap(failure);
+            // 超时说明下游已饱和，但请求可能仍在处理，不再重试
+            if (outcome != Outcome.OVERLOADED || cause instanceof TimeoutException
+                    || attempt >= properties.getMaxOverloadRetries()) {
+                throw failure;
+            }
+            long backoffMs = retryBackoffMs(cause, attempt);
+            if (System.currentTimeMillis() + backoffMs >= deadline) {
+                throw failure;
+            }
+            log.info("模型调用被限流，退避后重试: provider={}, model={}, attempt={}, backoffMs={}",
+                    providerKey, model, attempt + 1, backoffMs);
+            sleep(backoffMs);
+        }
+    }
+
+    private <T> int workUnits(ToIntFunction<T> outputTokens, T result) {
+        if (outputTokens == null || result == null) {
+            return 1;
+        }
+        try {
+            return Math.max(1, outputTokens.applyAsInt(result));
+        } catch (RuntimeException e) {
+            log.debug("读取输出 token 数失败，按 1 计: error={}", e.getMessage());
+            return 1;
+        }
+    }
+
+    private boolean isOverloaded(Throwable cause) {
+        if (cause instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return cause instanceof TimeoutException;
+    }
+
+    private long retryBackoffMs(Throwable cause, int attempt) {
+        if (cause instanceof WebClientResponseException responseException) {
+            String retryAfter = responseException.getHeaders().getFirst("Retry-After");
+            if (retryAfter != null) {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+                } catch (NumberFormatException ignored) {
+                    // HTTP 日期格式的 Retry-After 按指数退避处理
+                }
+            }
+        }
+        long base = properties.getOverloadRetryBackoffMs() * (1L << Math.min(attempt, 6));
+        // 加入抖动，避免同一批被限流的请求同时重试
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("重试等待被中断", e);
+        }
+    }
+
+    /**
+     * 获取并发许可，超出上限时排队等待
+     *
+     * @param providerKey 提供方标识（用于指标）
+     * @param providerId  提供方ID
+     * @param model       模型名称
+     * @param maxWaitMs   最长排队时间
+     * @throws QueueTimeoutException 超过等待期限
+     */
+    public Permit acquire(String providerKey, String providerId, String model, long maxWaitMs) {
+        String key = providerId + ":" + model;
+        LimitState state;
+        try {
+            state = states.get(key, () -> new LimitState(key, providerKey, model));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        state.acquire(maxWaitMs);
+        return new Permit(state);
+    }
+
+    /**
+     * 单个（提供方, 模型）的限流状态
+     */
+    private class LimitState {
+        final String key;
+        final List<Meter> meters;
+        final Counter queueTimeoutCounter;
+        final Counter overloadedCounter;
+
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+
+        private double limit;
+        private int inFlight;
+
+        /**
+         * 每输出 token 延迟（纳秒）的长期平滑基线与近期平滑值
+         */
+        private double baselineCost;
+        private double recentCost;
+        private long samples;
+
+        /**
+         * 单次调用延迟（纳秒）的平滑值，作为下调冷却周期
+         */
+        private double latencyNanos;
+        private long lastDecreaseNanos;
+
+        LimitState(String key, String providerKey, String model) {
+            this.key = key;
+            this.limit = Math.max(properties.getMinLimit(), properties.getInitialLimit());
+            String providerTag = providerKey != null ? providerKey : "custom";
+            this.queueTimeoutCounter = meterRegistry.counter("flowlet.llm.limiter.queue_timeout",
+                    "provider", providerTag, "model", model);
+            this.overloadedCounter = meterRegistry.counter("flowlet.llm.limiter.overloaded",
+                    "provider", providerTag, "model", model);
+            this.meters = List.of(
+                    Gauge.builder("flowlet.llm.limiter.limit", this, s -> s.limit)
+                            .tag("provider", providerTag).tag("model", model)
+                            .register(meterRegistry),
+                    Gauge.builder("flowlet.llm.limiter.inflight", this, s -> s.inFlight)
+                            .tag("provider", providerTag).tag("model", model)
+                            .register(meterRegistry),
+                    Gauge.builder("flowlet.llm.limiter.queued", this, s -> s.queue.size())
+                            .tag("provider", providerTag).tag("model", model)
+                            .register(meterRegistry),
+                    queueTimeoutCounter,
+                    overloadedCounter);
+        }
+
+        void acquire(long maxWaitMs) {
+            lock.lock();
+            try {
+                // 已有排队者时新请求必须排在后面，保证先到先得
+                if (queue.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    return;
+                }
+                Waiter waiter = new Waiter(lock.newCondition());
+                queue.addLast(waiter);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (!waiter.granted) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.remove(waiter);
+                        queueTimeoutCounter.increment();
+                        throw new QueueTimeoutException(key, maxWaitMs);
+                    }
+                    try {
+                        waiter.condition.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        if (waiter.granted) {
+                            // 许可已分配，交还后再退出
+                            inFlight--;
+                            grantWaiters();
+                        } else {
+                            queue.remove(waiter);
+                        }
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("模型调用排队被中断", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(Outcome outcome, long latencyNanos, int workUnits) {
+            lock.lock();
+            try {
+                inFlight--;
+                switch (outcome) {
+                    case SUCCESS -> onSuccess(latencyNanos, workUnits);
+                    case OVERLOADED -> {
+                        overloadedCounter.increment();
+                        decrease("过载");
+                    }
+                    case IGNORED -> {
+                    }
+                }
+                grantWaiters();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onSuccess(long latency, int workUnits) {
+            double cost = (double) latency / workUnits;
+            samples++;
+            if (samples == 1) {
+                baselineCost = cost;
+                recentCost = cost;
+                latencyNanos = latency;
+            } else {
+                recentCost += RECENT_ALPHA * (cost - recentCost);
+                // 预热期内取算术平均，之后缓慢跟随，延迟整体变化时基线也能随之调整
+                baselineCost += Math.max(BASELINE_ALPHA, 1.0 / samples) * (cost - baselineCost);
+                latencyNanos += RECENT_ALPHA * (latency - latencyNanos);
+            }
+
+            if (samples >= WARMUP_SAMPLES && recentCost > baselineCost * properties.getLatencyTolerance()) {
+                decrease("延迟升高");
+                return;
+            }
+            // 仅在上限确实被用满时增长，避免低负载时上限无限膨胀
+            if (inFlight + 1 >= (int) limit || !queue.isEmpty()) {
+                limit = Math.min(properties.getMaxLimit(), limit + 1.0 / limit);
+            }
+        }
+
+        private void decrease(String reason) {
+            long now = System.nanoTime();
+            // 同一批在途请求的连续失败只下调一次
+            long cooldown = Math.max((long) latencyNanos, TimeUnit.MILLISECONDS.toNanos(100));
+            if (now - lastDecreaseNanos < cooldown) {
+                return;
+            }
+            lastDecreaseNanos = now;
+            double previous = limit;
+            limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+            log.info("下调模型并发上限: key={}, reason={}, limit={} -> {}", key, reason,
+                    String.format("%.1f", previous), String.format("%.1f", limit));
+        }
+
+        private void grantWaiters() {
+            while (!queue.isEmpty() && inFlight < (int) limit) {
+                Waiter waiter = queue.pollFirst();
+                waiter.granted = true;
+                inFlight++;
+                waiter.condition.signal();
+            }
+        }
+    }
+
+    private static class Waiter {
+        final Condition condition;
+        boolean granted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
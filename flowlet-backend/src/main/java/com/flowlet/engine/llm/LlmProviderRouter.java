@@ -0,0 +1,283 @@
+package com.flowlet.engine.llm;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大模型提供方路由器
+ *
+ * 按（提供方, 模型）维护跨执行共享的健康统计：成功调用延迟的 EWMA、错误率 EWMA 与连续失败次数。
+ * 节点配置多个候选时据此决定尝试顺序：
+ * 1. ordered：按配置顺序
+ * 2. weighted：按权重随机，错误率越高权重越低
+ * 3. latency：按 EWMA 延迟与错误率综合评分，尚无样本的候选优先探测
+ * 短时间内连续失败的候选视为熔断，无论哪种策略都排到最后。
+ */
+@Slf4j
+@Component
+public class LlmProviderRouter {
+
+    private static final double EWMA_ALPHA = 0.2;
+    private static final int TRIP_CONSECUTIVE_FAILURES = 3;
+    private static final long TRIP_WINDOW_MS = 30_000;
+
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, ProviderHealth> healthStats;
+
+    public LlmProviderRouter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.healthStats = CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .removalListener((RemovalListener<String, ProviderHealth>) notification -> {
+                    if (notification.getValue() != null) {
+                        notification.getValue().gauges.forEach(meterRegistry::remove);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 路由策略
+     */
+    public enum Strategy {
+        ORDERED, WEIGHTED, LATENCY;
+
+        public static Strategy of(String value) {
+            if (value == null || value.isBlank()) {
+                return ORDERED;
+            }
+            try {
+                return Strategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ORDERED;
+            }
+        }
+    }
+
+    /**
+     * 路由候选
+     */
+    public interface RouteTarget {
+        String getProviderId();
+
+        /**
+         * 提供方展示名（用于指标与健康统计）
+         */
+        String getProviderLabel();
+
+        String getModel();
+
+        double getWeight();
+    }
+
+    /**
+     * 健康统计快照
+     *
+     * @param ewmaLatencyMs 成功调用延迟的 EWMA，尚无成功样本时为 null
+     * @param errorRate     错误率 EWMA（0~1）
+     * @param tripped       是否处于熔断（连续失败）状态
+     */
+    public record HealthSnapshot(String providerId, String provider, String model, Double ewmaLatencyMs,
+                                 double errorRate, long requests, long failures, int consecutiveFailures,
+                                 boolean tripped, Long lastFailureAt, String lastError) {
+    }
+
+    /**
+     * 按策略排列候选（返回新列表，不修改入参）
+     */
+    public <T extends RouteTarget> List<T> order(List<T> candidates, Strategy strategy) {
+        if (candidates.size() <= 1) {
+            return new ArrayList<>(candidates);
+        }
+        List<T> healthy = new ArrayList<>();
+        List<T> tripped = new ArrayList<>();
+        for (T candidate : candidates) {
+            ProviderHealth health = healthStats.getIfPresent(key(candidate));
+            if (health != null && health.isTripped()) {
+                tripped.add(candidate);
+            } else {
+                healthy.add(candidate);
+            }
+        }
+
+        List<T> ordered = switch (strategy) {
+            case ORDERED -> healthy;
+            case WEIGHTED -> weightedShuffle(healthy);
+            case LATENCY -> {
+                List<T> sorted = new ArrayList<>(healthy);
+                // 稳定排序：评分相同时保持配置顺序
+                sorted.sort(Comparator.comparingDouble(this::latencyScore));
+                yield sorted;
+            }
+        };
+        // 熔断中的候选仍保留为最后的兜底，按最近失败时间从早到晚排列
+        tripped.sort(Comparator.comparingLong(candidate -> {
+            ProviderHealth health = healthStats.getIfPresent(key(candidate));
+            return health != null ? health.lastFailureAt : 0L;
+        }));
+        List<T> result = new ArrayList<>(ordered);
+        result.addAll(tripped);
+        return result;
+    }
+
+    /**
+     * 记录一次调用结果
+     *
+     * @param latencyMs 调用耗时，仅成功调用计入延迟统计
+     * @param error     失败原因，成功时为 null
+     */
+    public void record(RouteTarget target, long latencyMs, boolean success, String error) {
+        boolean justTripped = getHealth(target).record(latencyMs, success, error);
+        if (justTripped) {
+            log.warn("模型提供方连续失败，暂时降低路由优先级: provider={}, model={}, error={}",
+                    target.getProviderLabel(), target.getModel(), error);
+        }
+    }
+
+    /**
+     * 全部健康统计
+     */
+    public List<HealthSnapshot> snapshot() {
+        List<HealthSnapshot> snapshots = new ArrayList<>();
+        for (ProviderHealth health : healthStats.asMap().values()) {
+            snapshots.add(health.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(HealthSnapshot::provider, Comparator.nullsLast(String::compareTo))
+                .thenComparing(HealthSnapshot::model, Comparator.nullsLast(String::compareTo)));
+        return snapshots;
+    }
+
+    private <T extends RouteTarget> List<T> weightedShuffle(List<T> candidates) {
+        List<T> remaining = new ArrayList<>(candidates);
+        List<T> result = new ArrayList<>(candidates.size());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!remaining.isEmpty()) {
+            double[] weights = new double[remaining.size()];
+            double total = 0;
+            for (int i = 0; i < remaining.size(); i++) {
+                T candidate = remaining.get(i);
+                ProviderHealth health = healthStats.getIfPresent(key(candidate));
+                double errorRate = health != null ? health.ewmaErrorRate : 0;
+                weights[i] = Math.max(0, candidate.getWeight()) * Math.max(0.05, 1 - errorRate);
+                total += weights[i];
+            }
+            int picked = 0;
+            if (total > 0) {
+                double point = random.nextDouble(total);
+                for (int i = 0; i < weights.length; i++) {
+                    point -= weights[i];
+                    if (point < 0) {
+                        picked = i;
+                        break;
+                    }
+                }
+            }
+            result.add(remaining.remove(picked));
+        }
+        return result;
+    }
+
+    private double latencyScore(RouteTarget candidate) {
+        ProviderHealth health = healthStats.getIfPresent(key(candidate));
+        if (health == null) {
+            return 0;
+        }
+        Double latencyMs = health.ewmaLatencyMs;
+        if (latencyMs == null) {
+            // 只有失败样本，排在有成功记录的候选之后
+            return Double.MAX_VALUE;
+        }
+        return latencyMs * (1 + 4 * health.ewmaErrorRate);
+    }
+
+    private ProviderHealth getHealth(RouteTarget target) {
+        try {
+            return healthStats.get(key(target), () -> new ProviderHealth(target));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private String key(RouteTarget target) {
+        return target.getProviderId() + ":" + target.getModel();
+    }
+
+    /**
+     * 单个（提供方, 模型）的健康统计
+     */
+    private class ProviderHealth {
+        final String providerId;
+        final String provider;
+        final String model;
+        final List<Gauge> gauges;
+
+        // 路由排序时无锁读取
+        private volatile Double ewmaLatencyMs;
+        private volatile double ewmaErrorRate;
+        private long requests;
+        private long failures;
+        private int consecutiveFailures;
+        private volatile long lastFailureAt;
+        private String lastError;
+
+        ProviderHealth(RouteTarget target) {
+            this.providerId = target.getProviderId();
+            this.provider = target.getProviderLabel();
+            this.model = target.getModel();
+            String providerTag = provider != null ? provider : "custom";
+            this.gauges = List.of(
+                    Gauge.builder("flowlet.llm.provider.latency_ewma", this,
+                                    h -> h.ewmaLatencyMs != null ? h.ewmaLatencyMs : Double.NaN)
+                            .tag("provider", providerTag).tag("providerId", providerId).tag("model", model)
+                            .baseUnit("milliseconds")
+                            .register(meterRegistry),
+                    Gauge.builder("flowlet.llm.provider.error_rate", this, h -> h.ewmaErrorRate)
+                            .tag("provider", providerTag).tag("providerId", providerId).tag("model", model)
+                            .register(meterRegistry));
+        }
+
+        /**
+         * @return 本次失败是否使其进入熔断状态
+         */
+        synchronized boolean record(long latencyMs, boolean success, String error) {
+            requests++;
+            ewmaErrorRate = ewmaErrorRate * (1 - EWMA_ALPHA) + (success ? 0 : EWMA_ALPHA);
+            if (success) {
+                consecutiveFailures = 0;
+                ewmaLatencyMs = ewmaLatencyMs == null
+                        ? latencyMs
+                        : ewmaLatencyMs * (1 - EWMA_ALPHA) + latencyMs * EWMA_ALPHA;
+            } else {
+                failures++;
+                consecutiveFailures++;
+                lastFailureAt = System.currentTimeMillis();
+                lastError = error;
+            }
+            return !success && consecutiveFailures == TRIP_CONSECUTIVE_FAILURES;
+        }
+
+        synchronized boolean isTripped() {
+            return consecutiveFailures >= TRIP_CONSECUTIVE_FAILURES
+                    && System.currentTimeMillis() - lastFailureAt < TRIP_WINDOW_MS;
+        }
+
+        synchronized HealthSnapshot snapshot() {
+            return new HealthSnapshot(providerId, provider, model, ewmaLatencyMs, ewmaErrorRate, requests, failures,
+                    consecutiveFailures, isTripped(), lastFailureAt > 0 ? lastFailureAt : null, lastError);
+        }
+    }
+}
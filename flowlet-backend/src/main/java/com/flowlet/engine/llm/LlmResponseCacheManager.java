@@ -0,0 +1,234 @@
+package com.flowlet.engine.llm;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.entity.LlmResponseCache;
+import com.flowlet.mapper.LlmResponseCacheMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大模型响应缓存
+ *
+ * 两级缓存：内存 LRU 层 + 磁盘层（SQLite 表 llm_response_cache），均带过期时间。
+ * 缓存键为规范化请求（提供方、模型、消息、采样参数等）的 SHA-256，磁盘层命中后回填内存层；
+ * 磁盘写入在后台线程执行，不阻塞节点。
+ * 写入、磁盘回填与每次命中都复制响应，命中方修改节点输出中的响应不会影响缓存或其他执行。
+ */
+@Slf4j
+@Component
+public class LlmResponseCacheManager {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final FlowletProperties.LlmCacheProperties properties;
+    private final LlmResponseCacheMapper llmResponseCacheMapper;
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, CachedResponse> memoryCache;
+
+    /**
+     * 磁盘写入线程（SQLite 单写者，串行写入即可）
+     */
+    private final ExecutorService diskWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "llm-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter memoryHitCounter;
+    private final Counter diskHitCounter;
+    private final Counter missCounter;
+    private final Counter savedLatencyCounter;
+
+    public LlmResponseCacheManager(FlowletProperties flowletProperties,
+                                   LlmResponseCacheMapper llmResponseCacheMapper,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry) {
+        this.properties = flowletProperties.getLlmCache();
+        this.llmResponseCacheMapper = llmResponseCacheMapper;
+        this.objectMapper = objectMapper;
+        this.memoryCache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMemoryMaxEntries())
+                .build();
+
+        this.memoryHitCounter = meterRegistry.counter("flowlet.llm.cache", "result", "hit_memory");
+        this.diskHitCounter = meterRegistry.counter("flowlet.llm.cache", "result", "hit_disk");
+        this.missCounter = meterRegistry.counter("flowlet.llm.cache", "result", "miss");
+        this.savedLatencyCounter = Counter.builder("flowlet.llm.cache.saved_latency")
+                .baseUnit("milliseconds")
+                .description("缓存命中节省的模型调用耗时")
+                .register(meterRegistry);
+        Gauge.builder("flowlet.llm.cache.hit_ratio", this, LlmResponseCacheManager::hitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存命中结果
+     *
+     * @param response  提供方原始响应（副本，调用方可自由修改）
+     * @param latencyMs 原始调用耗时
+     * @param tier      命中层级（memory/disk）
+     */
+    public record CacheHit(Map<String, Object> response, long latencyMs, String tier) {
+    }
+
+    private record CachedResponse(Map<String, Object> response, long latencyMs, long expiresAtMillis) {
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param normalizedRequest 已规范化的请求内容（字段顺序固定）
+     */
+    public String cacheKey(Map<String, Object> normalizedRequest) {
+        try {
+            String json = objectMapper.writeValueAsString(normalizedRequest);
+            return Hashing.sha256().hashString(json, StandardCharsets.UTF_8).toString();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("计算缓存键失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 查询缓存，未命中返回 null
+     */
+    public CacheHit get(String cacheKey) {
+        CachedResponse cached = memoryCache.getIfPresent(cacheKey);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            memoryHitCounter.increment();
+            savedLatencyCounter.increment(cached.latencyMs());
+            return new CacheHit(copy(cached.response()), cached.latencyMs(), "memory");
+        }
+        if (cached != null) {
+            memoryCache.invalidate(cacheKey);
+        }
+
+        if (properties.isDiskEnabled()) {
+            CacheHit diskHit = getFromDisk(cacheKey);
+            if (diskHit != null) {
+                diskHitCounter.increment();
+                savedLatencyCounter.increment(diskHit.latencyMs());
+                return diskHit;
+            }
+        }
+
+        missCounter.increment();
+        return null;
+    }
+
+    private CacheHit getFromDisk(String cacheKey) {
+        try {
+            LlmResponseCache record = llmResponseCacheMapper.selectOne(new QueryWrapper<LlmResponseCache>()
+                    .eq("cache_key", cacheKey)
+                    .gt("expires_at", LocalDateTime.now()));
+            if (record == null) {
+                return null;
+            }
+            Map<String, Object> response = objectMapper.readValue(record.getResponseJson(), MAP_TYPE);
+            long latencyMs = record.getLatencyMs() != null ? record.getLatencyMs() : 0L;
+            long expiresAtMillis = record.getExpiresAt()
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            memoryCache.put(cacheKey, new CachedResponse(response, latencyMs, expiresAtMillis));
+            return new CacheHit(copy(response), latencyMs, "disk");
+        } catch (Exception e) {
+            log.warn("读取磁盘缓存失败: key={}, error={}", cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存（保存响应的副本）
+     *
+     * @param ttlSeconds 有效期（秒），为空时使用默认值
+     */
+    public void put(String cacheKey, String providerId, String model, Map<String, Object> response,
+                    long latencyMs, Long ttlSeconds) {
+        long ttl = ttlSeconds != null && ttlSeconds > 0 ? ttlSeconds : properties.getDefaultTtlSeconds();
+        // 调用方会把响应放入节点输出，缓存与后台写盘都只使用副本
+        Map<String, Object> snapshot = copy(response);
+        memoryCache.put(cacheKey, new CachedResponse(snapshot,
+                latencyMs, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl)));
+
+        if (!properties.isDiskEnabled()) {
+            return;
+        }
+        diskWriter.execute(() -> {
+            try {
+                LlmResponseCache record = new LlmResponseCache();
+                record.setCacheKey(cacheKey);
+                record.setProviderId(providerId);
+                record.setModel(model);
+                record.setResponseJson(objectMapper.writeValueAsString(snapshot));
+                record.setLatencyMs(latencyMs);
+                record.setCreatedAt(LocalDateTime.now());
+                record.setExpiresAt(LocalDateTime.now().plusSeconds(ttl));
+                llmResponseCacheMapper.upsert(record);
+            } catch (Exception e) {
+                log.warn("写入磁盘缓存失败: key={}, error={}", cacheKey, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 深拷贝响应（响应为 JSON 结构，按 JSON 树复制）
+     */
+    private Map<String, Object> copy(Map<String, Object> response) {
+        return objectMapper.convertValue(response, MAP_TYPE);
+    }
+
+    private double hitRatio() {
+        double hits = memoryHitCounter.count() + diskHitCounter.count();
+        double total = hits + missCounter.count();
+        return total > 0 ? hits / total : 0;
+    }
+
+    /**
+     * 定期清理过期的磁盘缓存
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 300000)
+    public void cleanupExpired() {
+        if (!properties.isDiskEnabled()) {
+            return;
+        }
+        int deleted = llmResponseCacheMapper.delete(new QueryWrapper<LlmResponseCache>()
+                .lt("expires_at", LocalDateTime.now()));
+        if (deleted > 0) {
+            log.info("清理过期的大模型响应缓存: count={}", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        diskWriter.shutdown();
+        try {
+            diskWriter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
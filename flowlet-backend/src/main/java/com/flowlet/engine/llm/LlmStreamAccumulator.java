@@ -0,0 +1,214 @@
+package com.flowlet.engine.llm;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 大模型流式响应累加器
+ *
+ * 逐条解析各提供方的 SSE 数据块，提取增量文本、用量与结束原因，
+ * 流结束后还原为与非流式接口一致的响应结构，下游的文本与用量提取逻辑无需区分两种模式。
+ */
+public class LlmStreamAccumulator {
+
+    /**
+     * 流式协议格式
+     */
+    public enum Dialect {
+        OPENAI, ANTHROPIC, GEMINI
+    }
+
+    private final Dialect dialect;
+    private final StringBuilder text = new StringBuilder();
+    private Map<String, Object> usage;
+    private String finishReason;
+    private String id;
+    private String model;
+    private int deltaCount;
+
+    public LlmStreamAccumulator(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * 处理一个数据块
+     *
+     * @return 本数据块中的增量文本，没有文本时返回空串
+     */
+    public String accept(Map<String, Object> chunk) {
+        String delta = switch (dialect) {
+            case OPENAI -> acceptOpenAi(chunk);
+            case ANTHROPIC -> acceptAnthropic(chunk);
+            case GEMINI -> acceptGemini(chunk);
+        };
+        if (!delta.isEmpty()) {
+            text.append(delta);
+            deltaCount++;
+        }
+        return delta;
+    }
+
+    private String acceptOpenAi(Map<String, Object> chunk) {
+        captureMeta(chunk.get("id"), chunk.get("model"));
+        if (chunk.get("usage") instanceof Map<?, ?> chunkUsage) {
+            usage = copy(chunkUsage);
+        }
+        if (!(chunk.get("choices") instanceof List<?> choices) || choices.isEmpty()
+                || !(choices.get(0) instanceof Map<?, ?> choice)) {
+            return "";
+        }
+        if (choice.get("finish_reason") != null) {
+            finishReason = String.valueOf(choice.get("finish_reason"));
+        }
+        if (choice.get("delta") instanceof Map<?, ?> delta && delta.get("content") != null) {
+            return String.valueOf(delta.get("content"));
+        }
+        return "";
+    }
+
+    private String acceptAnthropic(Map<String, Object> chunk) {
+        String type = String.valueOf(chunk.get("type"));
+        switch (type) {
+            case "message_start" -> {
+                if (chunk.get("message") instanceof Map<?, ?> message) {
+                    captureMeta(message.get("id"), message.get("model"));
+                    if (message.get("usage") instanceof Map<?, ?> startUsage) {
+                        usage = copy(startUsage);
+                    }
+                }
+            }
+            case "content_block_delta" -> {
+                if (chunk.get("delta") instanceof Map<?, ?> delta && delta.get("text") != null) {
+                    return String.valueOf(delta.get("text"));
+                }
+            }
+            case "message_delta" -> {
+                if (chunk.get("delta") instanceof Map<?, ?> delta && delta.get("stop_reason") != null) {
+                    finishReason = String.valueOf(delta.get("stop_reason"));
+                }
+                if (chunk.get("usage") instanceof Map<?, ?> deltaUsage) {
+                    // message_delta 中的用量为累计值，与 message_start 中的输入用量合并
+                    if (usage == null) {
+                        usage = new LinkedHashMap<>();
+                    }
+                    usage.putAll(copy(deltaUsage));
+                }
+            }
+            case "error" -> {
+                Object error = chunk.get("error") instanceof Map<?, ?> errorMap ? errorMap.get("message") : chunk.get("error");
+                throw new IllegalStateException("LLM 流式响应错误: " + error);
+            }
+            default -> {
+                // ping、content_block_start 等事件无需处理
+            }
+        }
+        return "";
+    }
+
+    private String acceptGemini(Map<String, Object> chunk) {
+        if (chunk.get("usageMetadata") instanceof Map<?, ?> usageMetadata) {
+            usage = copy(usageMetadata);
+        }
+        captureMeta(chunk.get("responseId"), chunk.get("modelVersion"));
+        if (!(chunk.get("candidates") instanceof List<?> candidates) || candidates.isEmpty()
+                || !(candidates.get(0) instanceof Map<?, ?> candidate)) {
+            return "";
+        }
+        if (candidate.get("finishReason") != null) {
+            finishReason = String.valueOf(candidate.get("finishReason"));
+        }
+        StringBuilder builder = new StringBuilder();
+        if (candidate.get("content") instanceof Map<?, ?> content && content.get("parts") instanceof List<?> parts) {
+            for (Object part : parts) {
+                if (part instanceof Map<?, ?> partMap && partMap.get("text") != null) {
+                    builder.append(partMap.get("text"));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 还原为非流式接口的响应结构
+     */
+    public Map<String, Object> toResponse() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        switch (dialect) {
+            case OPENAI -> {
+                putIfNotNull(response, "id", id);
+                putIfNotNull(response, "model", model);
+                response.put("object", "chat.completion");
+                Map<String, Object> choice = new LinkedHashMap<>();
+                choice.put("index", 0);
+                choice.put("message", Map.of("role", "assistant", "content", text.toString()));
+                choice.put("finish_reason", finishReason);
+                response.put("choices", List.of(choice));
+                putIfNotNull(response, "usage", usage);
+            }
+            case ANTHROPIC -> {
+                putIfNotNull(response, "id", id);
+                putIfNotNull(response, "model", model);
+                response.put("type", "message");
+                response.put("role", "assistant");
+                response.put("content", List.of(Map.of("type", "text", "text", text.toString())));
+                response.put("stop_reason", finishReason);
+                putIfNotNull(response, "usage", usage);
+            }
+            case GEMINI -> {
+                Map<String, Object> candidate = new LinkedHashMap<>();
+                candidate.put("content", Map.of("role", "model", "parts", List.of(Map.of("text", text.toString()))));
+                candidate.put("finishReason", finishReason);
+                response.put("candidates", List.of(candidate));
+                putIfNotNull(response, "usageMetadata", usage);
+                putIfNotNull(response, "modelVersion", model);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 输出 token 数，提供方未返回用量时以增量数据块数近似
+     */
+    public int outputTokens() {
+        Integer reported = outputTokens(dialect, toResponse());
+        return reported != null ? reported : deltaCount;
+    }
+
+    /**
+     * 从（非流式）响应中读取输出 token 数
+     */
+    public static Integer outputTokens(Dialect dialect, Map<String, Object> response) {
+        String usageKey = dialect == Dialect.GEMINI ? "usageMetadata" : "usage";
+        String tokenKey = switch (dialect) {
+            case OPENAI -> "completion_tokens";
+            case ANTHROPIC -> "output_tokens";
+            case GEMINI -> "candidatesTokenCount";
+        };
+        if (response.get(usageKey) instanceof Map<?, ?> usageMap && usageMap.get(tokenKey) instanceof Number tokens) {
+            return tokens.intValue();
+        }
+        return null;
+    }
+
+    private void captureMeta(Object chunkId, Object chunkModel) {
+        if (id == null && chunkId != null) {
+            id = String.valueOf(chunkId);
+        }
+        if (model == null && chunkModel != null) {
+            model = String.valueOf(chunkModel);
+        }
+    }
+
+    private Map<String, Object> copy(Map<?, ?> source) {
+        Map<String, Object> target = new LinkedHashMap<>();
+        source.forEach((key, value) -> target.put(String.valueOf(key), value));
+        return target;
+    }
+
+    private void putIfNotNull(Map<String, Object> target, String key, Object value) {
+        if (value != null) {
+            target.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.flowlet.engine.provider;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.entity.ModelProvider;
+import com.flowlet.entity.VectorStoreProvider;
+import com.flowlet.enums.ModelProviderType;
+import com.flowlet.mapper.ModelProviderMapper;
+import com.flowlet.mapper.VectorStoreProviderMapper;
+import com.flowlet.util.ModelHubCrypto;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 提供方注册表
+ *
+ * 按租户缓存模型提供方与向量存储提供方配置，API Key 首次使用时解密并缓存，
+ * 节点执行时查找提供方不再访问数据库，也不再重复解密。
+ * 提供方的增删改由对应的 Service 调用 invalidate 方法使该租户的缓存失效；
+ * 另设写入后过期时间，多实例部署时其他实例的修改也能在有限时间内生效。
+ */
+@Slf4j
+@Component
+public class ProviderRegistry {
+
+    private static final long EXPIRE_AFTER_WRITE_MINUTES = 5;
+
+    private final ModelProviderMapper modelProviderMapper;
+    private final VectorStoreProviderMapper vectorStoreProviderMapper;
+    private final ModelHubCrypto modelHubCrypto;
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, TenantModelProviders> modelProviders = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private final Cache<String, Map<String, VectorStoreProviderEntry>> vectorStoreProviders = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    public ProviderRegistry(ModelProviderMapper modelProviderMapper,
+                            VectorStoreProviderMapper vectorStoreProviderMapper,
+                            ModelHubCrypto modelHubCrypto,
+                            ObjectMapper objectMapper) {
+        this.modelProviderMapper = modelProviderMapper;
+        this.vectorStoreProviderMapper = vectorStoreProviderMapper;
+        this.modelHubCrypto = modelHubCrypto;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 已解析的模型提供方
+     */
+    public class ModelProviderEntry {
+        private final ModelProvider provider;
+        private final Supplier<String> apiKey;
+
+        private ModelProviderEntry(ModelProvider provider) {
+            this.provider = provider;
+            this.apiKey = Suppliers.memoize(() -> modelHubCrypto.decrypt(provider.getApiKeyEncrypted()));
+        }
+
+        public ModelProvider getProvider() { return provider; }
+
+        /**
+         * 解密后的 API Key，未配置时为 null
+         */
+        public String getApiKey() { return apiKey.get(); }
+    }
+
+    /**
+     * 已解析的向量存储提供方
+     */
+    public class VectorStoreProviderEntry {
+        private final VectorStoreProvider provider;
+        private final Supplier<Map<String, Object>> connectionConfig;
+
+        private VectorStoreProviderEntry(VectorStoreProvider provider) {
+            this.provider = provider;
+            this.connectionConfig = Suppliers.memoize(() -> buildConnectionConfig(provider));
+        }
+
+        public VectorStoreProvider getProvider() { return provider; }
+
+        /**
+         * 向量存储服务的连接配置（含解密后的 API Key），每次返回副本
+         */
+        public Map<String, Object> getConnectionConfig() { return new HashMap<>(connectionConfig.get()); }
+    }
+
+    private record TenantModelProviders(Map<String, ModelProviderEntry> byId,
+                                        Map<String, ModelProviderEntry> standardByKey) {
+    }
+
+    /**
+     * 查找模型提供方，不存在时返回 null
+     *
+     * @param providerType STANDARD 按 providerKey 查找，CUSTOM 按 providerId 查找
+     */
+    public ModelProviderEntry getModelProvider(String tenantId, String providerType, String providerKey,
+                                               String providerId) {
+        TenantModelProviders providers = getTenantModelProviders(tenantId);
+        if (ModelProviderType.CUSTOM.name().equals(providerType)) {
+            if (providerId == null || providerId.isBlank()) {
+                return null;
+            }
+            return providers.byId().get(providerId);
+        }
+        if (providerKey == null || providerKey.isBlank()) {
+            return null;
+        }
+        return providers.standardByKey().get(providerKey.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 查找向量存储提供方，不存在时返回 null
+     */
+    public VectorStoreProviderEntry getVectorStoreProvider(String tenantId, String providerId) {
+        if (providerId == null || providerId.isBlank()) {
+            return null;
+        }
+        try {
+            return vectorStoreProviders.get(tenantId, () -> loadVectorStoreProviders(tenantId)).get(providerId);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("加载向量存储提供方失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 模型提供方变更后调用
+     */
+    public void invalidateModelProviders(String tenantId) {
+        modelProviders.invalidate(tenantId);
+    }
+
+    /**
+     * 向量存储提供方变更后调用
+     */
+    public void invalidateVectorStoreProviders(String tenantId) {
+        vectorStoreProviders.invalidate(tenantId);
+    }
+
+    private TenantModelProviders getTenantModelProviders(String tenantId) {
+        try {
+            return modelProviders.get(tenantId, () -> loadModelProviders(tenantId));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("加载模型提供方失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private TenantModelProviders loadModelProviders(String tenantId) {
+        Map<String, ModelProviderEntry> byId = new HashMap<>();
+        Map<String, ModelProviderEntry> standardByKey = new HashMap<>();
+        for (ModelProvider provider : modelProviderMapper.selectList(new QueryWrapper<ModelProvider>()
+                .eq("tenant_id", tenantId))) {
+            ModelProviderEntry entry = new ModelProviderEntry(provider);
+            byId.put(provider.getId(), entry);
+            if (ModelProviderType.STANDARD.name().equals(provider.getProviderType())
+                    && provider.getProviderKey() != null) {
+                standardByKey.put(provider.getProviderKey().toLowerCase(Locale.ROOT), entry);
+            }
+        }
+        log.debug("加载模型提供方: tenantId={}, count={}", tenantId, byId.size());
+        return new TenantModelProviders(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(standardByKey));
+    }
+
+    private Map<String, VectorStoreProviderEntry> loadVectorStoreProviders(String tenantId) {
+        Map<String, VectorStoreProviderEntry> byId = new HashMap<>();
+        for (VectorStoreProvider provider : vectorStoreProviderMapper.selectList(new QueryWrapper<VectorStoreProvider>()
+                .eq("tenant_id", tenantId))) {
+            byId.put(provider.getId(), new VectorStoreProviderEntry(provider));
+        }
+        log.debug("加载向量存储提供方: tenantId={}, count={}", tenantId, byId.size());
+        return Collections.unmodifiableMap(byId);
+    }
+
+    /**
+     * 构建向量存储服务的连接配置
+     */
+    private Map<String, Object> buildConnectionConfig(VectorStoreProvider provider) {
+        Map<String, Object> config = new HashMap<>();
+        config.put("type", provider.getProviderKey());
+        config.put("baseUrl", provider.getBaseUrl());
+
+        // 解密 API Key
+        if (provider.getApiKeyEncrypted() != null && !provider.getApiKeyEncrypted().isBlank()) {
+            String apiKey = modelHubCrypto.decrypt(provider.getApiKeyEncrypted());
+            if (apiKey != null && !apiKey.isBlank()) {
+                config.put("apiKey", apiKey);
+            }
+        }
+
+        // 解析扩展配置
+        if (provider.getConfigJson() != null && !provider.getConfigJson().isBlank()) {
+            try {
+                Map<String, Object> extConfig = objectMapper.readValue(
+                        provider.getConfigJson(),
+                        new TypeReference<Map<String, Object>>() {}
+                );
+                if (extConfig.get("database") != null) {
+                    config.put("database", extConfig.get("database"));
+                }
+                if (extConfig.get("grpcUrl") != null) {
+                    config.put("grpcUrl", extConfig.get("grpcUrl"));
+                }
+                if (extConfig.get("preferGrpc") != null) {
+                    config.put("preferGrpc", extConfig.get("preferGrpc"));
+                }
+            } catch (JsonProcessingException ex) {
+                log.warn("解析向量存储扩展配置失败", ex);
+            }
+        }
+        return Collections.unmodifiableMap(config);
+    }
+}
@@ -0,0 +1,341 @@
+package com.flowlet.engine.subflow;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.dto.CallbackMessage;
+import com.flowlet.engine.ExecutionContext;
+import com.flowlet.engine.FlowEngine;
+import com.flowlet.engine.callback.PendingCallbackRegistry;
+import com.flowlet.engine.event.ExecutionEventBus;
+import com.flowlet.entity.AsyncCallback;
+import com.flowlet.entity.FlowExecution;
+import com.flowlet.entity.NodeExecution;
+import com.flowlet.enums.ExecutionStatus;
+import com.flowlet.mapper.AsyncCallbackMapper;
+import com.flowlet.mapper.FlowExecutionMapper;
+import com.flowlet.mapper.NodeExecutionMapper;
+import com.flowlet.service.FlowExecutionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 子流程异步调用协调器
+ *
+ * 负责在后台线程中启动子流程，并在子流程结束后通过回调机制唤醒父流程：
+ * - 单个子流程：父节点以 subflow:{子执行ID} 为回调标识暂停，子流程结束后投递其输出
+ * - 汇聚节点：父节点以 subflow-join:{父执行ID}:{节点ID} 为回调标识暂停，所有子流程结束后投递汇总结果
+ *
+ * 投递时机有两个：子流程结束时（{@link #onExecutionFinished}）与父节点暂停提交后（{@link #onCallbackParked}），
+ * 两者任意先后到达都能保证回调恰好被处理一次；由于依据的都是数据库状态，服务重启后子流程恢复执行仍能唤醒父流程。
+ * 投递只记录回调，父流程在提交后交给异步执行器恢复，不占用子流程线程。
+ */
+@Slf4j
+@Component
+public class SubflowInvocationCoordinator {
+
+    public static final String SUBFLOW_KEY_PREFIX = "subflow:";
+    public static final String JOIN_KEY_PREFIX = "subflow-join:";
+
+    private final FlowExecutionMapper flowExecutionMapper;
+    private final NodeExecutionMapper nodeExecutionMapper;
+    private final AsyncCallbackMapper asyncCallbackMapper;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<FlowEngine> flowEngineProvider;
+    private final ObjectProvider<FlowExecutionService> flowExecutionServiceProvider;
+    private final ExecutionEventBus executionEventBus;
+    private final PendingCallbackRegistry pendingCallbackRegistry;
+
+    /**
+     * 子流程后台执行线程池（固定线程数、有界队列）
+     */
+    private final ThreadPoolExecutor subflowExecutor;
+
+    /**
+     * 正在投递的回调标识，避免同一回调被并发处理
+     */
+    private final Set<String> delivering = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 投递期间又有新的触发到达的回调标识，持有者完成本轮后需要再检查一次
+     */
+    private final Set<String> redeliver = ConcurrentHashMap.newKeySet();
+
+    public SubflowInvocationCoordinator(FlowExecutionMapper flowExecutionMapper,
+                                        NodeExecutionMapper nodeExecutionMapper,
+                                        AsyncCallbackMapper asyncCallbackMapper,
+                                        ObjectMapper objectMapper,
+                                        ObjectProvider<FlowEngine> flowEngineProvider,
+                                        ObjectProvider<FlowExecutionService> flowExecutionServiceProvider,
+                                        ExecutionEventBus executionEventBus,
+                                        PendingCallbackRegistry pendingCallbackRegistry,
+                                        FlowletProperties flowletProperties) {
+        this.flowExecutionMapper = flowExecutionMapper;
+        this.nodeExecutionMapper = nodeExecutionMapper;
+        this.asyncCallbackMapper = asyncCallbackMapper;
+        this.objectMapper = objectMapper;
+        this.flowEngineProvider = flowEngineProvider;
+        this.flowExecutionServiceProvider = flowExecutionServiceProvider;
+        this.executionEventBus = executionEventBus;
+        this.pendingCallbackRegistry = pendingCallbackRegistry;
+        FlowletProperties.EngineProperties engineProperties = flowletProperties.getEngine();
+        int threads = Math.max(1, engineProperties.getSubflowThreads());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.subflowExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, engineProperties.getSubflowQueueCapacity())),
+                runnable -> new Thread(runnable, "subflow-worker-" + threadIndex.incrementAndGet()));
+        this.subflowExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 子流程回调标识
+     */
+    public static String subflowCallbackKey(String subExecutionId) {
+        return SUBFLOW_KEY_PREFIX + subExecutionId;
+    }
+
+    /**
+     * 汇聚节点回调标识
+     */
+    public static String joinCallbackKey(String parentExecutionId, String joinNodeId) {
+        return JOIN_KEY_PREFIX + parentExecutionId + ":" + joinNodeId;
+    }
+
+    /**
+     * 在后台线程中执行子流程，调用方不等待其结束
+     */
+    public void launch(ExecutionContext subContext) {
+        String subExecutionId = subContext.getExecutionId();
+        try {
+            subflowExecutor.execute(() -> {
+                try {
+                    flowEngineProvider.getObject().execute(subContext);
+                } catch (Exception e) {
+                    log.error("异步子流程执行异常: subExecutionId={}", subExecutionId, e);
+                    failSubflow(subExecutionId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("子流程线程池已满，子流程置为失败: subExecutionId={}", subExecutionId);
+            failSubflow(subExecutionId, "子流程排队已满，未能启动");
+        }
+    }
+
+    private void failSubflow(String subExecutionId, String errorMessage) {
+        FlowExecution execution = flowExecutionMapper.selectById(subExecutionId);
+        if (execution != null) {
+            execution.setStatus(ExecutionStatus.FAILED.getValue());
+            execution.setErrorMessage(errorMessage);
+            execution.setCompletedAt(LocalDateTime.now());
+            execution.setUpdatedAt(LocalDateTime.now());
+            flowExecutionMapper.updateById(execution);
+        }
+        executionEventBus.finish(subExecutionId, ExecutionStatus.FAILED.getValue());
+        onExecutionFinished(subExecutionId);
+    }
+
+    /**
+     * 流程执行结束（完成或失败）时调用，若为子流程则尝试唤醒等待它的父节点
+     */
+    public void onExecutionFinished(String executionId) {
+        FlowExecution execution = flowExecutionMapper.selectById(executionId);
+        if (execution == null || execution.getParentExecutionId() == null || !isFinished(execution)) {
+            return;
+        }
+
+        tryDeliver(subflowCallbackKey(executionId));
+
+        LambdaQueryWrapper<AsyncCallback> wrapper = new LambdaQueryWrapper<>();
+        wrapper.likeRight(AsyncCallback::getCallbackKey, JOIN_KEY_PREFIX + execution.getParentExecutionId() + ":")
+                .eq(AsyncCallback::getStatus, "waiting");
+        for (AsyncCallback joinCallback : asyncCallbackMapper.selectList(wrapper)) {
+            tryDeliver(joinCallback.getCallbackKey());
+        }
+    }
+
+    /**
+     * 父节点完成暂停（回调记录已写入、执行状态已置为暂停）后调用，处理子流程先于父节点暂停结束的情况；
+     * 处于事务中时在提交后再检查，此时其他线程已能读到暂停状态，子流程结束侧的投递不会再被漏掉
+     */
+    public void onCallbackParked(String callbackKey) {
+        if (callbackKey == null
+                || !(callbackKey.startsWith(SUBFLOW_KEY_PREFIX) || callbackKey.startsWith(JOIN_KEY_PREFIX))) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tryDeliver(callbackKey);
+                }
+            });
+        } else {
+            tryDeliver(callbackKey);
+        }
+    }
+
+    /**
+     * 汇总一组子流程的执行结果
+     *
+     * @param children 子流程节点ID -> 子流程执行ID
+     * @return 汇总结果；仍有子流程未结束时返回 null
+     */
+    public Map<String, Object> collectJoinResult(Map<String, String> children) {
+        Map<String, Object> results = new LinkedHashMap<>();
+        int failed = 0;
+        for (Map.Entry<String, String> entry : children.entrySet()) {
+            FlowExecution execution = flowExecutionMapper.selectById(entry.getValue());
+            if (execution == null) {
+                results.put(entry.getKey(), failedResult(entry.getValue(), "子流程执行记录不存在"));
+                failed++;
+                continue;
+            }
+            if (!isFinished(execution)) {
+                return null;
+            }
+            Map<String, Object> outputs = buildSubflowResult(execution);
+            if (!Boolean.TRUE.equals(outputs.get("success"))) {
+                failed++;
+            }
+            results.put(entry.getKey(), outputs);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("results", results);
+        summary.put("total", children.size());
+        summary.put("completed", children.size() - failed);
+        summary.put("failed", failed);
+        summary.put("success", failed == 0);
+        return summary;
+    }
+
+    /**
+     * 构建单个子流程的结果：扁平化展开结束节点输出变量，并附带元数据字段
+     */
+    public Map<String, Object> buildSubflowResult(FlowExecution execution) {
+        Map<String, Object> outputs = new LinkedHashMap<>();
+        outputs.put("_executionId", execution.getId());
+        outputs.put("_status", execution.getStatus());
+        boolean success = ExecutionStatus.COMPLETED.getValue().equals(execution.getStatus());
+        outputs.put("success", success);
+        if (!success) {
+            outputs.put("errorMessage", execution.getErrorMessage());
+        }
+
+        String outputJson = execution.getOutputData();
+        if (outputJson != null && !outputJson.isEmpty()) {
+            try {
+                Map<String, Object> savedData = objectMapper.readValue(outputJson, new TypeReference<Map<String, Object>>() {});
+                if (savedData.get("outputs") instanceof Map<?, ?> endOutputs) {
+                    for (Map.Entry<?, ?> entry : endOutputs.entrySet()) {
+                        String key = String.valueOf(entry.getKey());
+                        if (!key.startsWith("_")) {
+                            outputs.putIfAbsent(key, entry.getValue());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("解析子流程输出数据失败: executionId={}, error={}", execution.getId(), e.getMessage());
+            }
+        }
+        return outputs;
+    }
+
+    public boolean isFinished(FlowExecution execution) {
+        return ExecutionStatus.isFinished(execution.getStatus());
+    }
+
+    /**
+     * 尝试投递回调；投递进行中时记录重试标记，由当前持有者在本轮结束后再检查一次
+     */
+    private void tryDeliver(String callbackKey) {
+        redeliver.add(callbackKey);
+        while (redeliver.contains(callbackKey) && delivering.add(callbackKey)) {
+            try {
+                redeliver.remove(callbackKey);
+                deliver(callbackKey);
+            } catch (Exception e) {
+                log.error("投递子流程回调失败: callbackKey={}, error={}", callbackKey, e.getMessage(), e);
+            } finally {
+                delivering.remove(callbackKey);
+            }
+        }
+    }
+
+    private void deliver(String callbackKey) {
+        AsyncCallback callback = pendingCallbackRegistry.lookup(callbackKey);
+        if (callback == null) {
+            return;
+        }
+
+        // 父流程尚未暂停（或暂停尚未提交）时不投递，父节点暂停提交后由 onCallbackParked 再次检查
+        FlowExecution parent = flowExecutionMapper.selectById(callback.getExecutionId());
+        if (parent == null || !ExecutionStatus.PAUSED.getValue().equals(parent.getStatus())) {
+            return;
+        }
+
+        Map<String, Object> callbackData;
+        if (callbackKey.startsWith(JOIN_KEY_PREFIX)) {
+            callbackData = collectJoinResult(readJoinChildren(callback.getNodeExecutionId()));
+        } else {
+            FlowExecution execution = flowExecutionMapper.selectById(callbackKey.substring(SUBFLOW_KEY_PREFIX.length()));
+            callbackData = execution != null && isFinished(execution) ? buildSubflowResult(execution) : null;
+        }
+        if (callbackData == null) {
+            return;
+        }
+
+        // 只在当前线程记录回调，父流程在提交后由异步执行器恢复
+        log.info("子流程已结束，唤醒父流程: callbackKey={}, parentExecutionId={}", callbackKey, parent.getId());
+        flowExecutionServiceProvider.getObject().handleCallbacks(
+                List.of(new CallbackMessage(callbackKey, callbackData)));
+    }
+
+    /**
+     * 从汇聚节点的执行过程数据中读取其等待的子流程
+     */
+    private Map<String, String> readJoinChildren(String nodeExecutionId) {
+        NodeExecution nodeExecution = nodeExecutionMapper.selectById(nodeExecutionId);
+        if (nodeExecution == null || nodeExecution.getExecutionData() == null) {
+            return Collections.emptyMap();
+        }
+        try {
+            Map<String, Object> executionData = objectMapper.readValue(
+                    nodeExecution.getExecutionData(), new TypeReference<Map<String, Object>>() {});
+            Map<String, String> children = objectMapper.convertValue(
+                    executionData.get("children"), new TypeReference<Map<String, String>>() {});
+            return children != null ? children : Collections.emptyMap();
+        } catch (Exception e) {
+            log.warn("解析汇聚节点执行数据失败: nodeExecutionId={}, error={}", nodeExecutionId, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subflowExecutor.shutdown();
+    }
+
+    private Map<String, Object> failedResult(String executionId, String errorMessage) {
+        Map<String, Object> outputs = new LinkedHashMap<>();
+        outputs.put("_executionId", executionId);
+        outputs.put("_status", ExecutionStatus.FAILED.getValue());
+        outputs.put("success", false);
+        outputs.put("errorMessage", errorMessage);
+        return outputs;
+    }
+}
@@ -0,0 +1,214 @@
+package com.flowlet.engine.timer;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.dto.CallbackMessage;
+import com.flowlet.entity.FlowTimer;
+import com.flowlet.mapper.FlowTimerMapper;
+import com.flowlet.service.FlowExecutionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流程定时器调度
+ *
+ * 定时器按两级保存：所有定时器持久化在 flow_timer 表（按到期时间索引），只有预加载窗口内即将到期的定时器
+ * 进入内存时间轮。预加载定期从数据库按到期时间取出窗口内的定时器挂入时间轮，启动时同样执行一次，
+ * 因此重启前未触发的定时器（含已逾期的）会在启动后立即补发。暂停中的执行只占用一行数据，不占用线程。
+ *
+ * 到期时在工作线程中只记录回调（置为 received），成功后删除定时器行，流程在提交后由异步执行器恢复，
+ * 工作线程不执行流程；记录失败时保留该行，下一轮预加载时重试。回调只会被记录一次，重复触发是安全的，
+ * 恢复失败的回调由回调扫描重驱。
+ */
+@Slf4j
+@Component
+public class FlowTimerScheduler {
+
+    private final FlowTimerMapper flowTimerMapper;
+    private final FlowExecutionService flowExecutionService;
+    private final FlowletProperties.TimerProperties properties;
+    private final HashedTimerWheel wheel;
+    private final ExecutorService workers;
+    private final Counter firedCounter;
+
+    /**
+     * 已挂入时间轮、尚未触发的定时器ID
+     */
+    private final Set<String> loaded = ConcurrentHashMap.newKeySet();
+
+    public FlowTimerScheduler(FlowTimerMapper flowTimerMapper,
+                              @Lazy FlowExecutionService flowExecutionService,
+                              FlowletProperties flowletProperties,
+                              MeterRegistry meterRegistry) {
+        this.flowTimerMapper = flowTimerMapper;
+        this.flowExecutionService = flowExecutionService;
+        this.properties = flowletProperties.getTimer();
+        this.wheel = new HashedTimerWheel("flow-timer-wheel",
+                properties.getTickMs(), properties.getWheelSize(), 0);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, properties.getWorkerThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "flow-timer-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.firedCounter = meterRegistry.counter("flowlet.timer.fired");
+        Gauge.builder("flowlet.timer.loaded", wheel, HashedTimerWheel::pendingTimeouts)
+                .description("已装入内存时间轮的定时器数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 创建定时器；处于事务中时在提交后装入时间轮，保证触发时暂停状态与回调记录均已落库
+     *
+     * @param executionId 执行实例ID
+     * @param nodeId      暂停的节点ID
+     * @param callbackKey 到期时唤醒的回调标识
+     * @param fireAt      到期时间
+     */
+    public void schedule(String executionId, String nodeId, String callbackKey, LocalDateTime fireAt) {
+        FlowTimer timer = new FlowTimer();
+        timer.setExecutionId(executionId);
+        timer.setNodeId(nodeId);
+        timer.setCallbackKey(callbackKey);
+        timer.setFireAt(fireAt);
+        timer.setCreatedAt(LocalDateTime.now());
+        flowTimerMapper.insert(timer);
+        log.info("定时器已创建: executionId={}, nodeId={}, fireAt={}", executionId, nodeId, fireAt);
+
+        // 预加载窗口外的定时器只留在数据库中，由预加载在临近到期时装入
+        if (toEpochMillis(fireAt) > System.currentTimeMillis() + properties.getLoadAheadMs()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    load(timer);
+                }
+            });
+        } else {
+            load(timer);
+        }
+    }
+
+    /**
+     * 将预加载窗口内到期的定时器装入时间轮（按到期时间分页，已装入的跳过）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${flowlet.timer.load-interval-ms:10000}",
+            initialDelayString = "${flowlet.timer.load-interval-ms:10000}")
+    public void loadDue() {
+        LocalDateTime horizon = LocalDateTime.now().plusNanos(properties.getLoadAheadMs() * 1_000_000);
+        int batchSize = Math.max(1, properties.getLoadBatchSize());
+        int count = 0;
+        FlowTimer last = null;
+        try {
+            while (true) {
+                LambdaQueryWrapper<FlowTimer> query = new LambdaQueryWrapper<FlowTimer>()
+                        .lt(FlowTimer::getFireAt, horizon);
+                if (last != null) {
+                    LocalDateTime lastFireAt = last.getFireAt();
+                    String lastId = last.getId();
+                    query.and(w -> w.gt(FlowTimer::getFireAt, lastFireAt)
+                            .or(o -> o.eq(FlowTimer::getFireAt, lastFireAt).gt(FlowTimer::getId, lastId)));
+                }
+                query.orderByAsc(FlowTimer::getFireAt).orderByAsc(FlowTimer::getId)
+                        .last("LIMIT " + batchSize);
+                List<FlowTimer> timers = flowTimerMapper.selectList(query);
+                for (FlowTimer timer : timers) {
+                    if (load(timer)) {
+                        count++;
+                    }
+                }
+                if (timers.size() < batchSize) {
+                    break;
+                }
+                last = timers.get(timers.size() - 1);
+            }
+        } catch (Exception e) {
+            log.warn("预加载定时器失败，稍后重试: error={}", e.getMessage());
+        }
+        if (count > 0) {
+            log.info("定时器已装入时间轮: count={}, horizon={}", count, horizon);
+        }
+    }
+
+    /**
+     * 装入时间轮，已装入时返回 false
+     */
+    private boolean load(FlowTimer timer) {
+        if (!loaded.add(timer.getId())) {
+            return false;
+        }
+        long delayMs = Math.max(0, toEpochMillis(timer.getFireAt()) - System.currentTimeMillis());
+        try {
+            wheel.schedule(() -> dispatch(timer), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            loaded.remove(timer.getId());
+            log.warn("时间轮已停止，定时器保留在数据库中: timerId={}", timer.getId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 时间轮线程只负责转交，记录回调在工作线程中执行
+     */
+    private void dispatch(FlowTimer timer) {
+        try {
+            workers.execute(() -> fire(timer));
+        } catch (RejectedExecutionException e) {
+            loaded.remove(timer.getId());
+            log.warn("定时器工作线程已关闭，定时器保留在数据库中: timerId={}", timer.getId());
+        }
+    }
+
+    private void fire(FlowTimer timer) {
+        try {
+            Map<String, Object> callbackData = new LinkedHashMap<>();
+            callbackData.put("resumeAt", timer.getFireAt().toString());
+            callbackData.put("firedAt", LocalDateTime.now().toString());
+            flowExecutionService.handleCallbacks(List.of(new CallbackMessage(timer.getCallbackKey(), callbackData)));
+            flowTimerMapper.deleteById(timer.getId());
+            firedCounter.increment();
+        } catch (Exception e) {
+            log.error("定时器触发失败，下一轮预加载时重试: timerId={}, executionId={}, error={}",
+                    timer.getId(), timer.getExecutionId(), e.getMessage(), e);
+        } finally {
+            loaded.remove(timer.getId());
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+        workers.shutdown();
+    }
+}
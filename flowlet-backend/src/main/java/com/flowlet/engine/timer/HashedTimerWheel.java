@@ -0,0 +1,274 @@
+package com.flowlet.engine.timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 哈希时间轮
+ *
+ * 单个工作线程按固定刻度推进，定时任务按到期刻度散列到槽位（双向链表），超过一圈的任务记录剩余圈数。
+ * 调度与取消都是 O(1)：调度先进入无锁队列，取消只修改状态并登记，均由工作线程在下一个刻度统一挂入或摘除槽位，
+ * 已取消的任务不会在槽位中滞留到原定到期时间。到期精度为一个刻度，任务在工作线程上执行，应保持轻量。
+ */
+@Slf4j
+public class HashedTimerWheel {
+
+    private static final int STATE_INIT = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    /**
+     * 每个刻度最多从调度队列挂入槽位的任务数，避免调度洪峰拖慢到期处理
+     */
+    private static final int MAX_TRANSFER_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long maxPending;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param name       工作线程名称
+     * @param tickMs     刻度（毫秒），即到期精度
+     * @param wheelSize  槽位数（向上取整为 2 的幂）
+     * @param maxPending 最多未到期任务数，超出时拒绝调度；0 表示不限制
+     */
+    public HashedTimerWheel(String name, long tickMs, int wheelSize, long maxPending) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs 必须大于 0");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.maxPending = maxPending;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 调度定时任务
+     *
+     * @throws RejectedExecutionException 时间轮已停止或未到期任务数达到上限
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new RejectedExecutionException("时间轮已停止");
+        }
+        long pending = pendingCount.incrementAndGet();
+        if (maxPending > 0 && pending > maxPending) {
+            pendingCount.decrementAndGet();
+            throw new RejectedExecutionException("未到期的定时任务数已达上限: " + maxPending);
+        }
+        long deadline = System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 未到期（含尚未挂入槽位）的任务数
+     */
+    public long pendingTimeouts() {
+        return pendingCount.get();
+    }
+
+    /**
+     * 停止时间轮，未到期的任务不再执行
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            processCancelled();
+            transferPending();
+            Bucket bucket = wheel[(int) (tick & mask)];
+            bucket.expire();
+            tick++;
+        }
+    }
+
+    /**
+     * 等待到下一个刻度，被停止时返回 false
+     */
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleepMs = (deadline - (System.nanoTime() - startNanos) + 999_999) / 1_000_000;
+            if (sleepMs <= 0) {
+                return true;
+            }
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != STATE_INIT) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // 已过期的任务放入当前槽位，本刻度即执行
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public static final class Timeout {
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedTimerWheel timer;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = STATE_INIT;
+        private long remainingRounds;
+
+        private Timeout next;
+        private Timeout prev;
+        private Bucket bucket;
+
+        private Timeout(HashedTimerWheel timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务，任务已执行或已取消时返回 false
+         */
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, STATE_INIT, STATE_CANCELLED)) {
+                return false;
+            }
+            timer.pendingCount.decrementAndGet();
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == STATE_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == STATE_EXPIRED;
+        }
+
+        private void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, STATE_INIT, STATE_EXPIRED)) {
+                return;
+            }
+            timer.pendingCount.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.warn("定时任务执行失败: {}", t.getMessage(), t);
+            }
+        }
+    }
+
+    /**
+     * 槽位：双向链表，仅由工作线程访问
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
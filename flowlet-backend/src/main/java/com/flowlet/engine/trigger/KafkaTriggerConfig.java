@@ -0,0 +1,50 @@
+package com.flowlet.engine.trigger;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Kafka 触发器扩展配置（flow_trigger.config_json）
+ */
+@Data
+public class KafkaTriggerConfig {
+
+    public static final String COMMIT_ACCEPTED = "accepted";
+    public static final String COMMIT_COMPLETED = "completed";
+
+    /**
+     * 执行的流程版本，为空时使用最新发布版本
+     */
+    private Integer flowVersion;
+
+    /**
+     * 消费者并发数
+     */
+    private Integer concurrency;
+
+    /**
+     * 同时在途的执行数上限
+     */
+    private Integer maxInFlight;
+
+    /**
+     * 位点提交时机: accepted, completed
+     */
+    private String commitMode;
+
+    /**
+     * 无已提交位点时的起始位置: latest, earliest
+     */
+    private String autoOffsetReset;
+
+    /**
+     * 单次拉取的最大消息数
+     */
+    private Integer maxPollRecords;
+
+    /**
+     * 流程输入参数名 -> 消息字段路径
+     */
+    private Map<String, String> inputMapping;
+}
@@ -0,0 +1,182 @@
+package com.flowlet.engine.trigger;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.engine.ExpressionResolver;
+import com.flowlet.engine.event.ExecutionEventBus;
+import com.flowlet.engine.kafka.DynamicKafkaConsumerFactory;
+import com.flowlet.engine.kafka.DynamicKafkaProducerFactory;
+import com.flowlet.entity.FlowTrigger;
+import com.flowlet.mapper.FlowTriggerMapper;
+import com.flowlet.service.FlowExecutionService;
+import com.flowlet.util.ModelHubCrypto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kafka 触发器管理器
+ *
+ * 应用启动后为所有已启用的 Kafka 触发器启动消费者，触发器变更时重启对应的运行实例。
+ */
+@Slf4j
+@Component
+public class KafkaTriggerManager {
+
+    private final FlowTriggerMapper flowTriggerMapper;
+    private final FlowExecutionService flowExecutionService;
+    private final DynamicKafkaConsumerFactory consumerFactory;
+    private final ExecutionEventBus executionEventBus;
+    private final ExpressionResolver expressionResolver;
+    private final ObjectMapper objectMapper;
+    private final ModelHubCrypto modelHubCrypto;
+    private final FlowletProperties.KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 运行中的触发器: triggerId -> 运行实例
+     */
+    private final Map<String, KafkaTriggerRunner> runners = new ConcurrentHashMap<>();
+
+    public KafkaTriggerManager(FlowTriggerMapper flowTriggerMapper,
+                               @Lazy FlowExecutionService flowExecutionService,
+                               DynamicKafkaConsumerFactory consumerFactory,
+                               ExecutionEventBus executionEventBus,
+                               ExpressionResolver expressionResolver,
+                               ObjectMapper objectMapper,
+                               ModelHubCrypto modelHubCrypto,
+                               FlowletProperties flowletProperties,
+                               MeterRegistry meterRegistry) {
+        this.flowTriggerMapper = flowTriggerMapper;
+        this.flowExecutionService = flowExecutionService;
+        this.consumerFactory = consumerFactory;
+        this.executionEventBus = executionEventBus;
+        this.expressionResolver = expressionResolver;
+        this.objectMapper = objectMapper;
+        this.modelHubCrypto = modelHubCrypto;
+        this.kafkaProperties = flowletProperties.getKafka();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 启动所有已启用的触发器
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startAll() {
+        if (!kafkaProperties.isTriggerEnabled()) {
+            log.info("Kafka 触发器已禁用，跳过启动");
+            return;
+        }
+        List<FlowTrigger> triggers = flowTriggerMapper.selectList(new LambdaQueryWrapper<FlowTrigger>()
+                .eq(FlowTrigger::getTriggerType, FlowTrigger.TYPE_KAFKA)
+                .eq(FlowTrigger::getEnabled, true));
+        for (FlowTrigger trigger : triggers) {
+            try {
+                start(trigger);
+            } catch (Exception e) {
+                log.error("启动 Kafka 触发器失败: triggerId={}, error={}", trigger.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 按最新配置重启触发器，未启用时仅停止
+     */
+    public synchronized void restart(FlowTrigger trigger) {
+        stop(trigger.getId());
+        if (Boolean.TRUE.equals(trigger.getEnabled()) && kafkaProperties.isTriggerEnabled()) {
+            start(trigger);
+        }
+    }
+
+    /**
+     * 停止触发器（等待消费者提交位点后退出）
+     */
+    public synchronized void stop(String triggerId) {
+        KafkaTriggerRunner runner = runners.remove(triggerId);
+        if (runner != null) {
+            runner.stop();
+        }
+    }
+
+    /**
+     * 触发器运行状态，未运行时返回 null
+     */
+    public Map<String, Object> status(String triggerId) {
+        KafkaTriggerRunner runner = runners.get(triggerId);
+        return runner != null ? runner.status() : null;
+    }
+
+    private void start(FlowTrigger trigger) {
+        KafkaTriggerConfig config = decodeConfig(trigger.getConfigJson());
+        DynamicKafkaProducerFactory.KafkaConfig kafkaConfig = new DynamicKafkaProducerFactory.KafkaConfig();
+        kafkaConfig.setBrokers(trigger.getBrokers());
+        kafkaConfig.setAuthType(DynamicKafkaProducerFactory.AuthType.fromValue(trigger.getAuthType()));
+        kafkaConfig.setUsername(trigger.getUsername());
+        if (trigger.getPasswordEncrypted() != null && !trigger.getPasswordEncrypted().isBlank()) {
+            kafkaConfig.setPassword(modelHubCrypto.decrypt(trigger.getPasswordEncrypted()));
+        }
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG,
+                "earliest".equalsIgnoreCase(config.getAutoOffsetReset()) ? "earliest" : "latest");
+        if (config.getMaxPollRecords() != null && config.getMaxPollRecords() > 0) {
+            overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, config.getMaxPollRecords());
+        }
+
+        int concurrency = Math.max(1, Math.min(
+                config.getConcurrency() != null ? config.getConcurrency() : 1,
+                kafkaProperties.getTriggerMaxConcurrency()));
+        int maxInFlight = config.getMaxInFlight() != null && config.getMaxInFlight() > 0
+                ? config.getMaxInFlight()
+                : kafkaProperties.getTriggerDefaultMaxInFlight();
+
+        KafkaTriggerRunner runner = new KafkaTriggerRunner(
+                trigger,
+                config,
+                () -> consumerFactory.createConsumer(kafkaConfig, trigger.getGroupId(), overrides),
+                flowExecutionService,
+                executionEventBus,
+                expressionResolver,
+                objectMapper,
+                concurrency,
+                maxInFlight,
+                kafkaProperties.getTriggerSettleTimeoutMs(),
+                kafkaProperties.getTriggerRetryBackoffMs(),
+                meterRegistry.counter("flowlet.kafka.trigger.records", "trigger_id", trigger.getId()),
+                meterRegistry.counter("flowlet.kafka.trigger.failures", "trigger_id", trigger.getId()));
+        runner.start();
+        runners.put(trigger.getId(), runner);
+    }
+
+    /**
+     * 解析触发器扩展配置
+     */
+    public KafkaTriggerConfig decodeConfig(String configJson) {
+        if (configJson == null || configJson.isBlank()) {
+            return new KafkaTriggerConfig();
+        }
+        try {
+            return objectMapper.readValue(configJson, KafkaTriggerConfig.class);
+        } catch (Exception e) {
+            log.warn("Kafka 触发器配置解析失败: {}", e.getMessage());
+            return new KafkaTriggerConfig();
+        }
+    }
+
+    @PreDestroy
+    public void stopAll() {
+        runners.keySet().forEach(this::stop);
+    }
+}
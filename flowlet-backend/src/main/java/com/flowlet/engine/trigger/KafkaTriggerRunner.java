@@ -0,0 +1,454 @@
+package com.flowlet.engine.trigger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.engine.ExpressionResolver;
+import com.flowlet.engine.event.ExecutionEventBus;
+import com.flowlet.entity.FlowExecution;
+import com.flowlet.entity.FlowTrigger;
+import com.flowlet.enums.ExecutionStatus;
+import com.flowlet.service.FlowExecutionService;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Kafka 触发器运行实例
+ *
+ * 同一触发器的多个消费者共享消费者组，分区在其间分配。每个消费者线程拉取一批消息，映射为流程输入后
+ * 在同一事务中创建执行，再按提交模式确认：accepted 在执行创建后确认，completed 在执行结束或进入等待后确认。
+ * 各分区只提交到最小的未确认位点，重启或再均衡后从该位点重新消费（至少一次）。
+ * 在途执行数达到上限时暂停全部已分配分区，回落到一半以下后恢复；创建执行失败时回退位点并暂停一段时间后重试。
+ */
+@Slf4j
+class KafkaTriggerRunner {
+
+    private final FlowTrigger trigger;
+    private final KafkaTriggerConfig config;
+    private final Supplier<KafkaConsumer<String, String>> consumerSupplier;
+    private final FlowExecutionService flowExecutionService;
+    private final ExecutionEventBus executionEventBus;
+    private final ExpressionResolver expressionResolver;
+    private final ObjectMapper objectMapper;
+    private final int concurrency;
+    private final int maxInFlight;
+    private final long settleTimeoutMs;
+    private final long retryBackoffMs;
+    private final Counter recordCounter;
+    private final Counter failureCounter;
+
+    /**
+     * 已创建、尚未结束或进入等待的执行数，所有消费者共享
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final List<ConsumerWorker> workers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running = true;
+    private volatile String lastError;
+
+    KafkaTriggerRunner(FlowTrigger trigger,
+                       KafkaTriggerConfig config,
+                       Supplier<KafkaConsumer<String, String>> consumerSupplier,
+                       FlowExecutionService flowExecutionService,
+                       ExecutionEventBus executionEventBus,
+                       ExpressionResolver expressionResolver,
+                       ObjectMapper objectMapper,
+                       int concurrency,
+                       int maxInFlight,
+                       long settleTimeoutMs,
+                       long retryBackoffMs,
+                       Counter recordCounter,
+                       Counter failureCounter) {
+        this.trigger = trigger;
+        this.config = config;
+        this.consumerSupplier = consumerSupplier;
+        this.flowExecutionService = flowExecutionService;
+        this.executionEventBus = executionEventBus;
+        this.expressionResolver = expressionResolver;
+        this.objectMapper = objectMapper;
+        this.concurrency = concurrency;
+        this.maxInFlight = maxInFlight;
+        this.settleTimeoutMs = settleTimeoutMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.recordCounter = recordCounter;
+        this.failureCounter = failureCounter;
+    }
+
+    void start() {
+        for (int i = 0; i < concurrency; i++) {
+            ConsumerWorker worker = new ConsumerWorker(consumerSupplier.get());
+            Thread thread = new Thread(worker, "kafka-trigger-" + trigger.getId().substring(0, 8) + "-" + i);
+            thread.setDaemon(true);
+            workers.add(worker);
+            threads.add(thread);
+        }
+        threads.forEach(Thread::start);
+        log.info("Kafka 触发器已启动: triggerId={}, topic={}, groupId={}, concurrency={}",
+                trigger.getId(), trigger.getTopic(), trigger.getGroupId(), concurrency);
+    }
+
+    void stop() {
+        running = false;
+        workers.forEach(worker -> worker.consumer.wakeup());
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.info("Kafka 触发器已停止: triggerId={}", trigger.getId());
+    }
+
+    Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running);
+        status.put("consumers", workers.size());
+        status.put("inFlight", inFlight.get());
+        status.put("maxInFlight", maxInFlight);
+        status.put("assignedPartitions", workers.stream().mapToInt(worker -> worker.offsets.size()).sum());
+        status.put("pausedConsumers", workers.stream().filter(worker -> worker.paused).count());
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    /**
+     * 分区位点跟踪：已创建执行但尚未确认的位点，以及已处理到的下一个位点
+     */
+    private static final class PartitionOffsets {
+        private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+        private volatile long next = -1;
+        /**
+         * 最近一次提交的位点，仅由拉取线程访问
+         */
+        private long committed = -1;
+
+        private void track(long offset) {
+            pending.add(offset);
+            next = offset + 1;
+        }
+
+        private void ack(long offset) {
+            pending.remove(offset);
+        }
+
+        /**
+         * 可提交的位点：最小的未确认位点，全部已确认时为已处理到的下一个位点
+         */
+        private long committable() {
+            Long first = pending.ceiling(0L);
+            return first != null ? first : next;
+        }
+    }
+
+    /**
+     * 单个消费者：独占 KafkaConsumer，在自己的线程上拉取、创建执行与提交位点
+     */
+    private final class ConsumerWorker implements Runnable, ConsumerRebalanceListener {
+        private final KafkaConsumer<String, String> consumer;
+        private final Map<TopicPartition, PartitionOffsets> offsets = new ConcurrentHashMap<>();
+        private volatile boolean paused;
+        private long retryAtNanos = System.nanoTime();
+
+        private ConsumerWorker(KafkaConsumer<String, String> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                consumer.subscribe(Collections.singletonList(trigger.getTopic()), this);
+                while (running) {
+                    try {
+                        applyBackpressure();
+                        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
+                        if (!records.isEmpty()) {
+                            handleBatch(records);
+                        }
+                        commitAsync();
+                    } catch (WakeupException e) {
+                        break;
+                    } catch (Exception e) {
+                        lastError = e.getMessage();
+                        log.error("Kafka 触发器消费异常: triggerId={}, error={}", trigger.getId(), e.getMessage(), e);
+                    }
+                }
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * 在途执行数达到上限或处于重试退避期时暂停全部已分配分区
+         */
+        private void applyBackpressure() {
+            boolean backingOff = System.nanoTime() - retryAtNanos < 0;
+            int current = inFlight.get();
+            if (!paused && (current >= maxInFlight || backingOff)) {
+                consumer.pause(consumer.assignment());
+                paused = true;
+                log.debug("Kafka 触发器暂停拉取: triggerId={}, inFlight={}", trigger.getId(), current);
+            } else if (paused && !backingOff && current <= maxInFlight / 2) {
+                consumer.resume(consumer.paused());
+                paused = false;
+            }
+        }
+
+        private void handleBatch(ConsumerRecords<String, String> records) {
+            // 只处理预留到在途名额的消息，其余分区回退到未处理的位点，避免一批消息越过上限
+            int capacity = reserve(records.count());
+            List<ConsumerRecord<String, String>> batch = new ArrayList<>(capacity);
+            for (TopicPartition partition : records.partitions()) {
+                List<ConsumerRecord<String, String>> partitionRecords = records.records(partition);
+                int take = Math.min(partitionRecords.size(), capacity - batch.size());
+                batch.addAll(partitionRecords.subList(0, take));
+                if (take < partitionRecords.size()) {
+                    consumer.seek(partition, partitionRecords.get(take).offset());
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            recordCounter.increment(batch.size());
+
+            // 映射输入与创建执行任一步失败，都交还预留的名额并回退位点，稍后重新消费
+            List<FlowExecution> executions;
+            try {
+                List<Map<String, Object>> inputsList = new ArrayList<>(batch.size());
+                for (ConsumerRecord<String, String> record : batch) {
+                    inputsList.add(mapInputs(record));
+                }
+                executions = flowExecutionService.executeBatch(trigger.getFlowId(), config.getFlowVersion(),
+                        inputsList, "kafka-trigger:" + trigger.getId());
+            } catch (Exception e) {
+                inFlight.addAndGet(-batch.size());
+                lastError = e.getMessage();
+                failureCounter.increment(batch.size());
+                log.error("Kafka 触发器创建执行失败，{}ms 后重新消费: triggerId={}, records={}, error={}",
+                        retryBackoffMs, trigger.getId(), batch.size(), e.getMessage());
+                for (TopicPartition partition : records.partitions()) {
+                    consumer.seek(partition, records.records(partition).get(0).offset());
+                }
+                retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryBackoffMs);
+                return;
+            }
+
+            boolean ackOnAccept = !KafkaTriggerConfig.COMMIT_COMPLETED.equals(config.getCommitMode());
+            for (int i = 0; i < batch.size(); i++) {
+                ConsumerRecord<String, String> record = batch.get(i);
+                PartitionOffsets partitionOffsets = offsets.computeIfAbsent(
+                        new TopicPartition(record.topic(), record.partition()), key -> new PartitionOffsets());
+                partitionOffsets.track(record.offset());
+                if (ackOnAccept) {
+                    partitionOffsets.ack(record.offset());
+                }
+                watchExecution(executions.get(i).getId(), partitionOffsets, record.offset(), ackOnAccept);
+            }
+        }
+
+        /**
+         * 预留在途名额，返回实际预留的数量（可能为 0）
+         */
+        private int reserve(int requested) {
+            while (true) {
+                int current = inFlight.get();
+                int granted = Math.max(0, Math.min(requested, maxInFlight - current));
+                if (granted == 0 || inFlight.compareAndSet(current, current + granted)) {
+                    return granted;
+                }
+            }
+        }
+
+        /**
+         * 执行结束、进入等待或超时后释放在途名额（completed 模式下同时确认位点）
+         */
+        private void watchExecution(String executionId, PartitionOffsets partitionOffsets, long offset,
+                                    boolean acked) {
+            // 事件通道在订阅时才创建：先订阅，再以落库状态判断订阅前是否已进入等待或已结束
+            // 子流程转发到父执行的事件带有 subflowExecutionId，子流程进入等待不代表本执行已暂停
+            Mono<ExecutionEventBus.ExecutionEvent> settled = executionEventBus.subscribe(executionId, null)
+                    .filter(event -> ExecutionEventBus.EXECUTION_FINISHED.equals(event.getType())
+                            || (ExecutionEventBus.NODE_WAITING.equals(event.getType()) && !isForwarded(event)))
+                    .next()
+                    .timeout(Duration.ofMillis(settleTimeoutMs))
+                    .doOnError(error -> log.warn("等待触发的执行结束超时，视为已结束: triggerId={}, executionId={}",
+                            trigger.getId(), executionId));
+            if (isSettled(executionId)) {
+                settled = Mono.empty();
+            }
+            settled.doFinally(signal -> {
+                        inFlight.decrementAndGet();
+                        if (!acked) {
+                            partitionOffsets.ack(offset);
+                        }
+                    })
+                    .subscribe(event -> { }, error -> { });
+        }
+
+        private boolean isForwarded(ExecutionEventBus.ExecutionEvent event) {
+            return event.getData() != null && event.getData().containsKey("subflowExecutionId");
+        }
+
+        /**
+         * 查询失败时视为未结束，由事件或超时释放名额
+         */
+        private boolean isSettled(String executionId) {
+            try {
+                FlowExecution execution = flowExecutionService.getExecution(executionId);
+                return execution != null && (ExecutionStatus.PAUSED.getValue().equals(execution.getStatus())
+                        || ExecutionStatus.isFinished(execution.getStatus()));
+            } catch (Exception e) {
+                log.warn("查询触发的执行状态失败: triggerId={}, executionId={}, error={}",
+                        trigger.getId(), executionId, e.getMessage());
+                return false;
+            }
+        }
+
+        private void commitAsync() {
+            Map<TopicPartition, OffsetAndMetadata> commits = collectCommittable(offsets.keySet());
+            if (commits.isEmpty()) {
+                return;
+            }
+            consumer.commitAsync(commits, (committed, e) -> {
+                if (e != null) {
+                    log.warn("Kafka 触发器提交位点失败: triggerId={}, error={}", trigger.getId(), e.getMessage());
+                    // 下次循环重新提交
+                    committed.keySet().forEach(partition -> {
+                        PartitionOffsets partitionOffsets = offsets.get(partition);
+                        if (partitionOffsets != null) {
+                            partitionOffsets.committed = -1;
+                        }
+                    });
+                }
+            });
+        }
+
+        private Map<TopicPartition, OffsetAndMetadata> collectCommittable(Collection<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                PartitionOffsets partitionOffsets = offsets.get(partition);
+                if (partitionOffsets == null) {
+                    continue;
+                }
+                long committable = partitionOffsets.committable();
+                if (committable >= 0 && committable != partitionOffsets.committed) {
+                    commits.put(partition, new OffsetAndMetadata(committable));
+                    partitionOffsets.committed = committable;
+                }
+            }
+            return commits;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> commits = collectCommittable(partitions);
+            partitions.forEach(offsets::remove);
+            if (commits.isEmpty()) {
+                return;
+            }
+            try {
+                consumer.commitSync(commits);
+            } catch (Exception e) {
+                log.warn("Kafka 触发器分区回收时提交位点失败: triggerId={}, error={}", trigger.getId(), e.getMessage());
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (paused) {
+                consumer.pause(partitions);
+            }
+        }
+
+        private void close() {
+            try {
+                Map<TopicPartition, OffsetAndMetadata> commits = collectCommittable(offsets.keySet());
+                if (!commits.isEmpty()) {
+                    consumer.commitSync(commits, Duration.ofSeconds(5));
+                }
+            } catch (Exception e) {
+                log.warn("Kafka 触发器关闭前提交位点失败: triggerId={}, error={}", trigger.getId(), e.getMessage());
+            }
+            try {
+                consumer.close();
+            } catch (Exception e) {
+                log.warn("关闭 Kafka 触发器消费者失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 将消息映射为流程输入
+     *
+     * 可引用的字段：key、value（JSON 自动解析）、headers、topic、partition、offset、timestamp；
+     * 未配置映射时，消息体为 JSON 对象则直接作为输入，否则作为 value 输入。
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> mapInputs(ConsumerRecord<String, String> record) {
+        Object value = parseValue(record.value());
+        Map<String, String> mapping = config.getInputMapping();
+        if (mapping == null || mapping.isEmpty()) {
+            if (value instanceof Map<?, ?> map) {
+                return new LinkedHashMap<>((Map<String, Object>) map);
+            }
+            Map<String, Object> inputs = new LinkedHashMap<>();
+            inputs.put("value", value);
+            return inputs;
+        }
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("key", record.key());
+        message.put("value", value);
+        Map<String, Object> headers = new LinkedHashMap<>();
+        for (Header header : record.headers()) {
+            headers.put(header.key(), header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null);
+        }
+        message.put("headers", headers);
+        message.put("topic", record.topic());
+        message.put("partition", record.partition());
+        message.put("offset", record.offset());
+        message.put("timestamp", record.timestamp());
+
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        mapping.forEach((name, path) -> inputs.put(name, expressionResolver.getNestedValue(message, path)));
+        return inputs;
+    }
+
+    private Object parseValue(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String trimmed = raw.trim();
+        if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+            try {
+                return objectMapper.readValue(trimmed, Object.class);
+            } catch (Exception e) {
+                log.debug("消息体不是合法 JSON，按字符串处理: {}", e.getMessage());
+            }
+        }
+        return raw;
+    }
+}
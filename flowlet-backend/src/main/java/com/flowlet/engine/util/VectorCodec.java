@@ -0,0 +1,124 @@
+package com.flowlet.engine.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 向量编解码工具类
+ *
+ * 节点间以 float[] 传递向量，避免 List&lt;Double&gt; 的装箱开销；
+ * 与向量存储服务之间可使用 base64 编码的小端 float32 数组，体积约为 JSON 十进制文本的三分之一。
+ */
+public final class VectorCodec {
+
+    /**
+     * 持久化节点输出时替代向量的占位前缀
+     */
+    private static final String PLACEHOLDER_PREFIX = "float32[";
+
+    private VectorCodec() {
+    }
+
+    /**
+     * 转换为 float[]
+     * 支持 float[]、double[]、数字列表（含反序列化得到的 List&lt;Double&gt;）与 base64 小端 float32 字符串
+     *
+     * @return 无法识别时返回 null
+     */
+    public static float[] toFloatArray(Object value) {
+        if (value instanceof float[] floats) {
+            return floats;
+        }
+        if (value instanceof double[] doubles) {
+            float[] result = new float[doubles.length];
+            for (int i = 0; i < doubles.length; i++) {
+                result[i] = (float) doubles[i];
+            }
+            return result;
+        }
+        if (value instanceof List<?> list) {
+            float[] result = new float[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                if (!(list.get(i) instanceof Number number)) {
+                    return null;
+                }
+                result[i] = number.floatValue();
+            }
+            return result;
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            try {
+                return decodeBase64(text.trim());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 编码为 base64 小端 float32
+     */
+    public static String encodeBase64(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解码 base64 小端 float32
+     *
+     * @throws IllegalArgumentException 不是合法的 base64 或长度不是 4 的倍数
+     */
+    public static float[] decodeBase64(String encoded) {
+        byte[] bytes = Base64.getDecoder().decode(encoded);
+        if (bytes.length == 0 || bytes.length % Float.BYTES != 0) {
+            throw new IllegalArgumentException("向量字节长度不是 4 的倍数: " + bytes.length);
+        }
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * 将输出中的 float[] 替换为维度占位符（如 "float32[1024]"），用于持久化节点输出
+     * 输出中不含向量时原样返回
+     */
+    public static Object stripVectors(Object value) {
+        if (value instanceof float[] floats) {
+            return PLACEHOLDER_PREFIX + floats.length + "]";
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> result = null;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object stripped = stripVectors(entry.getValue());
+                if (stripped != entry.getValue() && result == null) {
+                    result = new LinkedHashMap<>(map);
+                }
+                if (result != null) {
+                    result.put(entry.getKey(), stripped);
+                }
+            }
+            return result != null ? result : map;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> result = null;
+            for (int i = 0; i < list.size(); i++) {
+                Object stripped = stripVectors(list.get(i));
+                if (stripped != list.get(i) && result == null) {
+                    result = new ArrayList<>(list);
+                }
+                if (result != null) {
+                    result.set(i, stripped);
+                }
+            }
+            return result != null ? result : list;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,138 @@
+package com.flowlet.engine.vectorstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.flowlet.config.FlowletProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 向量检索结果缓存
+ *
+ * 缓存键由（提供方, 集合, 写入代次, 量化后的查询向量, topK, 过滤条件）计算，值为向量存储的原始检索响应，
+ * scoreThreshold、excludeId 在命中后再应用，不同阈值的查询共享同一条缓存。
+ * 本实例经 upsert/delete 写入集合后递增该集合的写入代次，旧条目随即不可达；
+ * 其他途径的写入只能依赖较短的有效期。
+ * 写入与命中时都复制响应，调用方修改检索结果不会影响缓存或其他命中者。
+ */
+@Component
+public class VectorSearchCache {
+
+    /**
+     * 写入代次全局递增，各集合的代次互不重复
+     */
+    private static final AtomicLong EPOCH_SEQUENCE = new AtomicLong();
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final FlowletProperties.VectorSearchCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper canonicalMapper;
+    private final Cache<String, CachedSearch> cache;
+    private final Map<String, AtomicLong> writeEpochs = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public VectorSearchCache(FlowletProperties flowletProperties,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.properties = flowletProperties.getVectorSearchCache();
+        this.objectMapper = objectMapper;
+        this.canonicalMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, properties.getMaxEntries()))
+                .build();
+        this.hitCounter = meterRegistry.counter("flowlet.vector_store.search_cache", "result", "hit");
+        this.missCounter = meterRegistry.counter("flowlet.vector_store.search_cache", "result", "miss");
+    }
+
+    private record CachedSearch(Map<String, Object> response, long expiresAtMillis) {
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 计算缓存键（包含集合当前的写入代次）
+     */
+    public String cacheKey(String providerId, String collection, float[] queryVector, int topK,
+                           Map<String, Object> filter) {
+        double step = properties.getQuantizationStep() > 0 ? properties.getQuantizationStep() : 1e-4;
+        Hasher hasher = Hashing.murmur3_128().newHasher()
+                .putString(providerId, StandardCharsets.UTF_8).putChar('\0')
+                .putString(collection, StandardCharsets.UTF_8).putChar('\0')
+                .putLong(writeEpoch(providerId, collection).get())
+                .putInt(topK)
+                .putInt(queryVector.length);
+        for (float value : queryVector) {
+            hasher.putLong(Math.round(value / step));
+        }
+        try {
+            hasher.putString(filter != null ? canonicalMapper.writeValueAsString(filter) : "", StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("计算缓存键失败: " + e.getMessage(), e);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 查询缓存，命中时返回响应的副本，未命中返回 null
+     */
+    public Map<String, Object> get(String cacheKey) {
+        CachedSearch cached = cache.getIfPresent(cacheKey);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            hitCounter.increment();
+            return copy(cached.response());
+        }
+        if (cached != null) {
+            cache.invalidate(cacheKey);
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 写入缓存（保存响应的副本）
+     *
+     * @param ttlSeconds 有效期（秒），为空时使用默认值
+     */
+    public void put(String cacheKey, Map<String, Object> response, Long ttlSeconds) {
+        long ttl = ttlSeconds != null && ttlSeconds > 0 ? ttlSeconds : properties.getDefaultTtlSeconds();
+        cache.put(cacheKey, new CachedSearch(copy(response), System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl)));
+    }
+
+    /**
+     * 集合写入完成后调用，使该集合已缓存的检索结果失效
+     */
+    public void invalidateCollection(String providerId, String collection) {
+        writeEpoch(providerId, collection).set(EPOCH_SEQUENCE.incrementAndGet());
+    }
+
+    /**
+     * 深拷贝检索响应（响应为 JSON 结构，按 JSON 树复制）
+     */
+    private Map<String, Object> copy(Map<String, Object> response) {
+        return objectMapper.convertValue(response, MAP_TYPE);
+    }
+
+    private AtomicLong writeEpoch(String providerId, String collection) {
+        return writeEpochs.computeIfAbsent(providerId + "\u0000" + collection,
+                key -> new AtomicLong(EPOCH_SEQUENCE.incrementAndGet()));
+    }
+}
@@ -0,0 +1,279 @@
+package com.flowlet.engine.vectorstore;
+
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.engine.http.HttpClientRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 向量写入缓冲（write-behind）
+ *
+ * 按（提供方, 集合）缓冲单文档 upsert，攒满 maxBatchSize 或首个文档等待超过 maxLingerMs 后
+ * 合并为一次 /vector-stores/upsert 调用；每个文档持有独立的 Future，调用方仍能得知自己的写入结果。
+ * 缓冲与在途文档总数受 maxBufferedDocuments 限制，超出时写入方阻塞等待，超时则失败（背压）。
+ * 整批因文档内容被拒绝（4xx）时对半拆分重试，只有有问题的文档失败；连接失败、超时、5xx 等与文档无关的
+ * 错误不拆分，整批失败。
+ * 应用关闭时写完剩余缓冲。
+ */
+@Slf4j
+@Component
+public class VectorUpsertBuffer {
+
+    private final FlowletProperties.VectorUpsertProperties properties;
+    private final FlowletProperties.VectorStoreProperties vectorStoreProperties;
+    private final HttpClientRegistry httpClientRegistry;
+
+    private final Map<String, CollectionBuffer> buffers = new ConcurrentHashMap<>();
+    private final Semaphore capacity;
+    private final ExecutorService flushExecutor;
+    private final ScheduledExecutorService lingerScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vector-upsert-linger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Timer flushTimer;
+
+    public VectorUpsertBuffer(FlowletProperties flowletProperties,
+                              HttpClientRegistry httpClientRegistry,
+                              MeterRegistry meterRegistry) {
+        this.properties = flowletProperties.getVectorUpsert();
+        this.vectorStoreProperties = flowletProperties.getVectorStore();
+        this.httpClientRegistry = httpClientRegistry;
+        this.capacity = new Semaphore(Math.max(1, properties.getMaxBufferedDocuments()));
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.flushExecutor = Executors.newFixedThreadPool(Math.max(1, properties.getMaxConcurrentFlushes()), runnable -> {
+            Thread thread = new Thread(runnable, "vector-upsert-flush-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.batchSizeSummary = DistributionSummary.builder("flowlet.vector_store.upsert_batch_size")
+                .description("每次调用向量存储服务 upsert 的文档数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("flowlet.vector_store.upsert_flush_latency")
+                .register(meterRegistry);
+        meterRegistry.gauge("flowlet.vector_store.upsert_buffered", capacity,
+                permits -> Math.max(1, properties.getMaxBufferedDocuments()) - permits.availablePermits());
+    }
+
+    /**
+     * 单文档写入结果
+     *
+     * @param batchSize 与该文档合并写入的文档数
+     */
+    public record UpsertResult(String id, int batchSize) {
+    }
+
+    private static class PendingDocument {
+        private final Map<String, Object> document;
+        private final CompletableFuture<UpsertResult> future = new CompletableFuture<>();
+
+        private PendingDocument(Map<String, Object> document) {
+            this.document = document;
+        }
+    }
+
+    /**
+     * 单个（提供方, 集合）的缓冲
+     */
+    private class CollectionBuffer {
+        private final String collection;
+        private final ArrayDeque<PendingDocument> pending = new ArrayDeque<>();
+        private Map<String, Object> connectionConfig;
+        private boolean lingerScheduled;
+
+        private CollectionBuffer(String collection) {
+            this.collection = collection;
+        }
+
+        void add(PendingDocument document, Map<String, Object> latestConnectionConfig) {
+            List<List<PendingDocument>> fullBatches = new ArrayList<>();
+            Map<String, Object> config;
+            synchronized (this) {
+                // 以最近一次写入的连接配置为准（提供方配置可能在缓冲期间更新）
+                connectionConfig = latestConnectionConfig;
+                config = connectionConfig;
+                pending.add(document);
+                int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+                while (pending.size() >= maxBatchSize) {
+                    fullBatches.add(drain(maxBatchSize));
+                }
+                if (!pending.isEmpty() && !lingerScheduled) {
+                    lingerScheduled = true;
+                    lingerScheduler.schedule(this::flushLingering,
+                            Math.max(0, properties.getMaxLingerMs()), TimeUnit.MILLISECONDS);
+                }
+            }
+            fullBatches.forEach(batch -> submitFlush(collection, config, batch));
+        }
+
+        void flushLingering() {
+            List<List<PendingDocument>> batches = new ArrayList<>();
+            Map<String, Object> config;
+            synchronized (this) {
+                lingerScheduled = false;
+                config = connectionConfig;
+                int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+                while (!pending.isEmpty()) {
+                    batches.add(drain(maxBatchSize));
+                }
+            }
+            batches.forEach(batch -> submitFlush(collection, config, batch));
+        }
+
+        private List<PendingDocument> drain(int maxBatchSize) {
+            List<PendingDocument> batch = new ArrayList<>(Math.min(maxBatchSize, pending.size()));
+            while (batch.size() < maxBatchSize && !pending.isEmpty()) {
+                batch.add(pending.poll());
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * 缓冲一个文档，返回该文档写入完成后完成的 Future
+     *
+     * @param providerKey      提供方标识（租户内唯一的提供方 ID）
+     * @param connectionConfig 向量存储服务的连接配置
+     * @param document         单个文档（id、vector/vectorB64、content、metadata）
+     */
+    public CompletableFuture<UpsertResult> submit(String providerKey, Map<String, Object> connectionConfig,
+                                                  String collection, Map<String, Object> document) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("向量写入缓冲正在关闭"));
+        }
+        try {
+            if (!capacity.tryAcquire(Math.max(0, properties.getOfferTimeoutMs()), TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("向量写入缓冲区已满，请稍后重试"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        PendingDocument pending = new PendingDocument(document);
+        pending.future.whenComplete((result, error) -> capacity.release());
+        buffers.computeIfAbsent(providerKey + "\u0000" + collection, key -> new CollectionBuffer(collection))
+                .add(pending, connectionConfig);
+        return pending.future;
+    }
+
+    private void submitFlush(String collection, Map<String, Object> connectionConfig, List<PendingDocument> batch) {
+        try {
+            flushExecutor.execute(() -> flush(collection, connectionConfig, batch));
+        } catch (RuntimeException e) {
+            // 线程池已关闭时在当前线程写入，避免丢失
+            flush(collection, connectionConfig, batch);
+        }
+    }
+
+    private void flush(String collection, Map<String, Object> connectionConfig, List<PendingDocument> batch) {
+        try {
+            upsert(collection, connectionConfig, batch);
+            batchSizeSummary.record(batch.size());
+            for (PendingDocument pending : batch) {
+                pending.future.complete(new UpsertResult(Objects.toString(pending.document.get("id"), null),
+                        batch.size()));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() > 1 && isRejectedDocument(e)) {
+                log.warn("向量批量写入被拒绝，拆分后重试: collection={}, size={}, error={}",
+                        collection, batch.size(), e.getMessage());
+                int middle = batch.size() / 2;
+                flush(collection, connectionConfig, batch.subList(0, middle));
+                flush(collection, connectionConfig, batch.subList(middle, batch.size()));
+                return;
+            }
+            if (batch.size() == 1) {
+                log.warn("向量写入失败: collection={}, id={}, error={}",
+                        collection, batch.get(0).document.get("id"), e.getMessage());
+            } else {
+                log.warn("向量批量写入失败: collection={}, size={}, error={}", collection, batch.size(), e.getMessage());
+            }
+            batch.forEach(pending -> pending.future.completeExceptionally(e));
+        }
+    }
+
+    private void upsert(String collection, Map<String, Object> connectionConfig, List<PendingDocument> batch) {
+        List<Map<String, Object>> documents = new ArrayList<>(batch.size());
+        batch.forEach(pending -> documents.add(pending.document));
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("provider", connectionConfig);
+        request.put("collection", collection);
+        request.put("documents", documents);
+
+        long startNanos = System.nanoTime();
+        try {
+            Map<String, Object> response = httpClientRegistry
+                    .getClient(Objects.requireNonNull(vectorStoreProperties.getBaseUrl()))
+                    .post()
+                    .uri("/vector-stores/upsert")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(request)
+                    .retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .block(Duration.ofMillis(vectorStoreProperties.getRequestTimeoutMs()));
+            if (response == null) {
+                throw new IllegalStateException("向量存储服务响应为空");
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 是否为文档内容导致的拒绝（4xx，超时与限流除外），此类失败拆分后只影响有问题的文档
+     */
+    private boolean isRejectedDocument(RuntimeException e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status >= 400 && status < 500 && status != 408 && status != 429;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        lingerScheduler.shutdownNow();
+        buffers.values().forEach(CollectionBuffer::flushLingering);
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(Math.max(0, properties.getShutdownFlushTimeoutMs()),
+                    TimeUnit.MILLISECONDS)) {
+                log.warn("关闭时向量写入缓冲未在 {}ms 内写完", properties.getShutdownFlushTimeoutMs());
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flushExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.flowlet.engine.vectorstore.embedded;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内置向量存储的单个集合
+ *
+ * 目录结构：
+ * - meta.json：维度、度量、文档数以及当前代次的数据文件名
+ * - vectors-{代次}.f32：内存映射的向量文件（只追加，压缩时换新文件）
+ * - graph-{代次}.bin：HNSW 邻接表与删除标记
+ * - docs-{代次}.jsonl：按节点序号逐行保存 id、content、metadata（已删除节点为 null）
+ * 每次保存写出新代次的文件后再原子替换 meta.json，中途失败时仍可加载上一代次。
+ *
+ * 写入串行、查询并发（读写锁）。向量文件随写入直接落盘，其余文件由 EmbeddedVectorStore 定时保存，
+ * 进程异常退出时丢失最近一个保存周期内的变更。
+ */
+@Slf4j
+final class EmbeddedCollection {
+
+    private static final String META_FILE = "meta.json";
+
+    /**
+     * 加载时已删除节点超过该比例则重建索引
+     */
+    private static final double COMPACT_DELETED_RATIO = 0.3;
+
+    private final String name;
+    private final Path dir;
+    private final int dim;
+    private final int m;
+    private final int efConstruction;
+    private long generation;
+    private String vectorsFile;
+    private String graphFile;
+    private String docsFile;
+    private MappedVectorStorage storage;
+    private HnswIndex index;
+    private List<StoredDocument> documents = new ArrayList<>();
+    private Map<String, Integer> nodeById = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * 保存只持有读锁，多个线程同时保存时会写同一代文件，由该锁串行化
+     */
+    private final Object saveLock = new Object();
+    private volatile boolean dirty;
+
+    private record StoredDocument(String id, String content, Map<String, Object> metadata) {
+    }
+
+    private EmbeddedCollection(String name, Path dir, int dim, int m, int efConstruction) {
+        this.name = name;
+        this.dir = dir;
+        this.dim = dim;
+        this.m = m;
+        this.efConstruction = efConstruction;
+    }
+
+    static EmbeddedCollection create(String name, Path dir, int dim, HnswIndex.Metric metric, int m,
+                                     int efConstruction, ObjectMapper objectMapper) {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建集合目录失败: " + dir, e);
+        }
+        EmbeddedCollection collection = new EmbeddedCollection(name, dir, dim, m, efConstruction);
+        collection.vectorsFile = "vectors-0.f32";
+        collection.storage = new MappedVectorStorage(dir.resolve(collection.vectorsFile), dim);
+        collection.index = new HnswIndex(collection.storage, metric, m, efConstruction);
+        collection.dirty = true;
+        collection.save(objectMapper);
+        return collection;
+    }
+
+    static boolean exists(Path dir) {
+        return Files.isRegularFile(dir.resolve(META_FILE));
+    }
+
+    static EmbeddedCollection load(String name, Path dir, ObjectMapper objectMapper) {
+        try {
+            Map<String, Object> meta = objectMapper.readValue(dir.resolve(META_FILE).toFile(),
+                    new TypeReference<Map<String, Object>>() {});
+            int dim = ((Number) meta.get("dim")).intValue();
+            int m = ((Number) meta.get("m")).intValue();
+            int efConstruction = ((Number) meta.get("efConstruction")).intValue();
+            EmbeddedCollection collection = new EmbeddedCollection(name, dir, dim, m, efConstruction);
+            collection.generation = ((Number) meta.get("generation")).longValue();
+            collection.vectorsFile = (String) meta.get("vectorsFile");
+            collection.graphFile = (String) meta.get("graphFile");
+            collection.docsFile = (String) meta.get("docsFile");
+            collection.storage = new MappedVectorStorage(dir.resolve(collection.vectorsFile), dim);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(dir.resolve(collection.graphFile))))) {
+                collection.index = HnswIndex.read(in, collection.storage);
+            }
+            try (BufferedReader reader = Files.newBufferedReader(dir.resolve(collection.docsFile),
+                    StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    StoredDocument document = objectMapper.readValue(line, StoredDocument.class);
+                    if (document != null) {
+                        collection.nodeById.put(document.id(), collection.documents.size());
+                    }
+                    collection.documents.add(document);
+                }
+            }
+            if (collection.documents.size() != collection.index.size()) {
+                throw new IOException("索引与文档数量不一致: index=" + collection.index.size()
+                        + ", docs=" + collection.documents.size());
+            }
+            if (collection.index.deletedCount() > collection.index.size() * COMPACT_DELETED_RATIO) {
+                collection.compact(objectMapper);
+            }
+            log.info("加载内置向量集合: dir={}, count={}, deleted={}", dir, collection.nodeById.size(),
+                    collection.index.deletedCount());
+            return collection;
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载向量集合失败: " + dir, e);
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    int dim() {
+        return dim;
+    }
+
+    int count() {
+        lock.readLock().lock();
+        try {
+            return nodeById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    String metric() {
+        return index.metric().name();
+    }
+
+    /**
+     * 写入文档，已存在的 id 会被覆盖
+     */
+    void upsert(List<EmbeddedVectorStore.Document> docs) {
+        for (EmbeddedVectorStore.Document doc : docs) {
+            if (doc.vector() == null || doc.vector().length != dim) {
+                throw new IllegalArgumentException("向量维度不匹配: 集合 " + name + " 的维度为 " + dim
+                        + "，实际为 " + (doc.vector() == null ? 0 : doc.vector().length));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            for (EmbeddedVectorStore.Document doc : docs) {
+                Integer previous = nodeById.get(doc.id());
+                if (previous != null) {
+                    index.markDeleted(previous);
+                    documents.set(previous, null);
+                }
+                int node = index.add(index.prepare(doc.vector()));
+                documents.add(new StoredDocument(doc.id(), doc.content() != null ? doc.content() : "",
+                        doc.metadata() != null ? doc.metadata() : Map.of()));
+                nodeById.put(doc.id(), node);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int delete(List<String> ids) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (String id : ids) {
+                Integer node = nodeById.remove(id);
+                if (node != null) {
+                    index.markDeleted(node);
+                    documents.set(node, null);
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                dirty = true;
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索，返回与向量存储服务一致的 matches 结构
+     *
+     * @param filter 元数据等值过滤（值为列表时匹配任一），为空时不过滤
+     */
+    List<Map<String, Object>> search(float[] query, int k, Map<String, Object> filter, int efSearch,
+                                     int bruteForceThreshold) {
+        if (query.length != dim) {
+            throw new IllegalArgumentException("查询向量维度不匹配: 集合 " + name + " 的维度为 " + dim
+                    + "，实际为 " + query.length);
+        }
+        lock.readLock().lock();
+        try {
+            float[] prepared = index.prepare(query);
+            long[] found;
+            if (filter != null && !filter.isEmpty()) {
+                BitSet allowed = new BitSet(documents.size());
+                for (int node = 0; node < documents.size(); node++) {
+                    StoredDocument document = documents.get(node);
+                    if (document != null && matches(document.metadata(), filter)) {
+                        allowed.set(node);
+                    }
+                }
+                // 过滤后候选较少时图遍历难以找满结果，直接精确检索
+                found = allowed.cardinality() <= bruteForceThreshold
+                        ? index.bruteForce(prepared, k, allowed::get)
+                        : index.search(prepared, k, efSearch, allowed::get);
+            } else if (nodeById.size() <= bruteForceThreshold) {
+                found = index.bruteForce(prepared, k, null);
+            } else {
+                found = index.search(prepared, k, efSearch, null);
+            }
+
+            List<Map<String, Object>> matches = new ArrayList<>(found.length);
+            for (long encoded : found) {
+                StoredDocument document = documents.get(HnswIndex.nodeOf(encoded));
+                Map<String, Object> match = new LinkedHashMap<>();
+                match.put("id", document.id());
+                match.put("content", document.content());
+                match.put("score", index.score(HnswIndex.distanceOf(encoded)));
+                match.put("metadata", document.metadata());
+                matches.add(match);
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matches(Map<String, Object> metadata, Map<String, Object> filter) {
+        for (Map.Entry<String, Object> condition : filter.entrySet()) {
+            Object actual = metadata.get(condition.getKey());
+            Object expected = condition.getValue();
+            if (expected instanceof List<?> options) {
+                if (options.stream().noneMatch(option -> valueEquals(actual, option))) {
+                    return false;
+                }
+            } else if (!valueEquals(actual, expected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean valueEquals(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number b) {
+            return a.doubleValue() == b.doubleValue();
+        }
+        return Objects.equals(actual, expected);
+    }
+
+    /**
+     * 保存索引与文档（无变更时跳过）
+     */
+    void save(ObjectMapper objectMapper) {
+        synchronized (saveLock) {
+            saveGeneration(objectMapper);
+        }
+    }
+
+    private void saveGeneration(ObjectMapper objectMapper) {
+        if (!dirty) {
+            return;
+        }
+        // 读锁即可阻止写入，保存期间查询不受影响
+        lock.readLock().lock();
+        try {
+            dirty = false;
+            storage.force();
+            long nextGeneration = generation + 1;
+            String nextGraphFile = "graph-" + nextGeneration + ".bin";
+            String nextDocsFile = "docs-" + nextGeneration + ".jsonl";
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(dir.resolve(nextGraphFile))))) {
+                index.write(out);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve(nextDocsFile), StandardCharsets.UTF_8)) {
+                for (StoredDocument document : documents) {
+                    writer.write(objectMapper.writeValueAsString(document));
+                    writer.newLine();
+                }
+            }
+            Map<String, Object> meta = new LinkedHashMap<>();
+            meta.put("name", name);
+            meta.put("dim", dim);
+            meta.put("metric", index.metric().name());
+            meta.put("m", m);
+            meta.put("efConstruction", efConstruction);
+            meta.put("count", nodeById.size());
+            meta.put("nodes", index.size());
+            meta.put("generation", nextGeneration);
+            meta.put("vectorsFile", vectorsFile);
+            meta.put("graphFile", nextGraphFile);
+            meta.put("docsFile", nextDocsFile);
+            Path metaTmp = dir.resolve(META_FILE + ".tmp");
+            objectMapper.writeValue(metaTmp.toFile(), meta);
+            Files.move(metaTmp, dir.resolve(META_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            String previousGraphFile = graphFile;
+            String previousDocsFile = docsFile;
+            generation = nextGeneration;
+            graphFile = nextGraphFile;
+            docsFile = nextDocsFile;
+            deleteQuietly(previousGraphFile);
+            deleteQuietly(previousDocsFile);
+        } catch (IOException e) {
+            dirty = true;
+            throw new UncheckedIOException("保存向量集合失败: " + dir, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void deleteQuietly(String file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(dir.resolve(file));
+        } catch (IOException e) {
+            log.warn("删除旧的向量集合文件失败: {}", dir.resolve(file), e);
+        }
+    }
+
+    /**
+     * 只保留未删除的文档重建索引与向量文件
+     */
+    private void compact(ObjectMapper objectMapper) throws IOException {
+        String compactVectorsFile = "vectors-" + (generation + 1) + ".f32";
+        Files.deleteIfExists(dir.resolve(compactVectorsFile));
+        MappedVectorStorage compactStorage = new MappedVectorStorage(dir.resolve(compactVectorsFile), dim);
+        HnswIndex compactIndex = new HnswIndex(compactStorage, index.metric(), m, efConstruction);
+        List<StoredDocument> compactDocuments = new ArrayList<>(nodeById.size());
+        Map<String, Integer> compactNodeById = new HashMap<>();
+        float[] vector = new float[dim];
+        for (int node = 0; node < documents.size(); node++) {
+            StoredDocument document = documents.get(node);
+            if (document == null || index.isDeleted(node)) {
+                continue;
+            }
+            index.readVector(node, vector);
+            // 已按度量预处理过，直接插入
+            int newNode = compactIndex.add(vector);
+            compactDocuments.add(document);
+            compactNodeById.put(document.id(), newNode);
+        }
+        int removed = index.size() - compactIndex.size();
+        String previousVectorsFile = vectorsFile;
+        storage.close();
+        storage = compactStorage;
+        vectorsFile = compactVectorsFile;
+        index = compactIndex;
+        documents = compactDocuments;
+        nodeById = compactNodeById;
+        dirty = true;
+        save(objectMapper);
+        deleteQuietly(previousVectorsFile);
+        log.info("压缩内置向量集合: dir={}, removed={}", dir, removed);
+    }
+
+    void close() {
+        storage.close();
+    }
+}
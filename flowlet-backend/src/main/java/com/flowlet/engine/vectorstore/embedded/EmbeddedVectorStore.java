@@ -0,0 +1,225 @@
+package com.flowlet.engine.vectorstore.embedded;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 内置向量存储（providerKey 为 embedded）
+ *
+ * 在 JVM 内以 HNSW 索引提供 upsert/delete/search，无需外部向量库与 Python 服务，适合中小规模的项目级集合。
+ * 提供方的 baseUrl 作为存储名（如 local://default），数据位于 {dataDir}/{租户}/{存储名}/{集合}。
+ * 集合在首次访问时从磁盘加载，首次写入时按向量维度自动创建；变更定时落盘，关闭时保存全部集合。
+ * 返回结构与向量存储服务的响应一致，节点处理器无需区分。
+ */
+@Slf4j
+@Component
+public class EmbeddedVectorStore {
+
+    public static final String PROVIDER_KEY = "embedded";
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_\\-]{1,128}");
+    private static final String DEFAULT_STORE = "default";
+
+    private final FlowletProperties.EmbeddedVectorStoreProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<Path, EmbeddedCollection> collections = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "embedded-vector-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EmbeddedVectorStore(FlowletProperties flowletProperties, ObjectMapper objectMapper) {
+        this.properties = flowletProperties.getEmbeddedVectorStore();
+        this.objectMapper = objectMapper;
+        long interval = Math.max(100, properties.getFlushIntervalMs());
+        flusher.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 待写入的文档
+     */
+    public record Document(String id, float[] vector, String content, Map<String, Object> metadata) {
+    }
+
+    public Map<String, Object> upsert(String tenantId, String baseUrl, String collection, List<Document> documents) {
+        if (documents.isEmpty()) {
+            throw new IllegalArgumentException("文档列表为空");
+        }
+        int dim = documents.get(0).vector() != null ? documents.get(0).vector().length : 0;
+        if (dim == 0) {
+            throw new IllegalArgumentException("向量为空");
+        }
+        getOrCreate(tenantId, baseUrl, collection, dim, null).upsert(documents);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("count", documents.size());
+        response.put("ids", documents.stream().map(Document::id).toList());
+        return response;
+    }
+
+    public Map<String, Object> delete(String tenantId, String baseUrl, String collection, List<String> ids) {
+        EmbeddedCollection target = require(tenantId, baseUrl, collection);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("count", target.delete(ids));
+        return response;
+    }
+
+    public Map<String, Object> search(String tenantId, String baseUrl, String collection, float[] queryVector,
+                                      int k, Map<String, Object> filter) {
+        EmbeddedCollection target = require(tenantId, baseUrl, collection);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("matches", target.search(queryVector, k, filter, Math.max(k, properties.getEfSearch()),
+                properties.getBruteForceThreshold()));
+        return response;
+    }
+
+    /**
+     * 列出存储下的集合名称（含未加载的集合）
+     */
+    public List<String> listCollections(String tenantId, String baseUrl) {
+        Path storeDir = storeDir(tenantId, baseUrl);
+        List<String> result = new ArrayList<>();
+        if (!Files.isDirectory(storeDir)) {
+            return result;
+        }
+        try (Stream<Path> children = Files.list(storeDir)) {
+            children.filter(EmbeddedCollection::exists)
+                    .map(dir -> dir.getFileName().toString())
+                    .sorted()
+                    .forEach(result::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取向量集合目录失败: " + storeDir, e);
+        }
+        return result;
+    }
+
+    public Map<String, Object> createCollection(String tenantId, String baseUrl, String collection, int dimension,
+                                                String metricType) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("向量维度必须大于 0");
+        }
+        EmbeddedCollection created = getOrCreate(tenantId, baseUrl, collection, dimension, metricType);
+        if (created.dim() != dimension) {
+            throw new IllegalArgumentException("集合已存在且维度为 " + created.dim());
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("dimension", created.dim());
+        result.put("metric_type", created.metric());
+        return result;
+    }
+
+    public boolean dropCollection(String tenantId, String baseUrl, String collection) {
+        Path dir = collectionDir(tenantId, baseUrl, collection);
+        EmbeddedCollection removed = collections.remove(dir);
+        if (removed != null) {
+            removed.close();
+        }
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除向量集合失败: " + dir, e);
+        }
+        return true;
+    }
+
+    private EmbeddedCollection require(String tenantId, String baseUrl, String collection) {
+        Path dir = collectionDir(tenantId, baseUrl, collection);
+        EmbeddedCollection target = collections.get(dir);
+        if (target != null) {
+            return target;
+        }
+        if (!EmbeddedCollection.exists(dir)) {
+            throw new IllegalArgumentException("集合不存在: " + collection);
+        }
+        return load(dir);
+    }
+
+    private EmbeddedCollection load(Path dir) {
+        return collections.computeIfAbsent(dir, key ->
+                EmbeddedCollection.load(key.getFileName().toString(), key, objectMapper));
+    }
+
+    private EmbeddedCollection getOrCreate(String tenantId, String baseUrl, String collection, int dim,
+                                           String metricType) {
+        Path dir = collectionDir(tenantId, baseUrl, collection);
+        return collections.computeIfAbsent(dir, key -> EmbeddedCollection.exists(key)
+                ? EmbeddedCollection.load(collection, key, objectMapper)
+                : EmbeddedCollection.create(collection, key, dim, HnswIndex.Metric.of(metricType),
+                        properties.getM(), properties.getEfConstruction(), objectMapper));
+    }
+
+    private Path storeDir(String tenantId, String baseUrl) {
+        String store = baseUrl == null ? "" : baseUrl.trim().replaceFirst("^[A-Za-z][A-Za-z0-9+.\\-]*://", "");
+        if (store.isEmpty()) {
+            store = DEFAULT_STORE;
+        }
+        return Paths.get(properties.getDataDir()).toAbsolutePath().normalize()
+                .resolve(validateName(tenantId, "租户")).resolve(validateName(store, "存储名"));
+    }
+
+    private Path collectionDir(String tenantId, String baseUrl, String collection) {
+        return storeDir(tenantId, baseUrl).resolve(validateName(collection, "集合名称"));
+    }
+
+    private String validateName(String value, String label) {
+        if (value == null || !NAME_PATTERN.matcher(value).matches()) {
+            throw new IllegalArgumentException(label + "只能包含字母、数字、下划线和短横线: " + value);
+        }
+        return value;
+    }
+
+    private void flushAll() {
+        for (EmbeddedCollection collection : collections.values()) {
+            try {
+                collection.save(objectMapper);
+            } catch (RuntimeException e) {
+                log.error("内置向量集合落盘失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        // 不中断进行中的落盘：中断会关闭向量文件的 FileChannel，等它结束后再做最后一次落盘
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("内置向量集合定时落盘未在 30 秒内结束");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        collections.values().forEach(EmbeddedCollection::close);
+        collections.clear();
+    }
+}
@@ -0,0 +1,548 @@
+package com.flowlet.engine.vectorstore.embedded;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * HNSW（Hierarchical Navigable Small World）近似最近邻索引
+ *
+ * 向量保存在 MappedVectorStorage 中，索引只维护分层邻接表。
+ * 删除采用墓碑标记：被删节点仍参与图遍历，但不会出现在结果中，由 EmbeddedCollection 在加载时按比例压缩。
+ * 本类不做同步，由调用方以读写锁保护：写入串行，查询可并发。
+ *
+ * 检索结果以 long 编码（高 32 位为可排序的距离，低 32 位为节点序号），按距离升序排列，避免装箱。
+ */
+final class HnswIndex {
+
+    private static final int FILE_MAGIC = 0x484e5357;
+    private static final int FILE_VERSION = 1;
+
+    /**
+     * 相似度度量
+     */
+    enum Metric {
+        COSINE, IP, L2;
+
+        static Metric of(String value) {
+            if (value == null || value.isBlank()) {
+                return COSINE;
+            }
+            return switch (value.trim().toUpperCase(Locale.ROOT)) {
+                case "IP", "DOT" -> IP;
+                case "L2", "EUCLID", "EUCLIDEAN" -> L2;
+                default -> COSINE;
+            };
+        }
+    }
+
+    private static final ThreadLocal<VisitedSet> VISITED = ThreadLocal.withInitial(VisitedSet::new);
+
+    private final MappedVectorStorage vectors;
+    private final Metric metric;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int[][][] links = new int[16][][];
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    // 仅写入路径使用
+    private final float[] scratchA;
+    private final float[] scratchB;
+
+    HnswIndex(MappedVectorStorage vectors, Metric metric, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.metric = metric;
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1 / Math.log(this.m);
+        this.scratchA = new float[vectors.dim()];
+        this.scratchB = new float[vectors.dim()];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    Metric metric() {
+        return metric;
+    }
+
+    boolean isDeleted(int node) {
+        return deleted.get(node);
+    }
+
+    /**
+     * 按度量预处理向量：COSINE 返回归一化后的副本，其余原样返回
+     */
+    float[] prepare(float[] vector) {
+        if (metric != Metric.COSINE) {
+            return vector;
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = Arrays.copyOf(vector, vector.length);
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= scale;
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * 内部距离，越小越相近
+     */
+    float distance(int node, float[] query) {
+        return metric == Metric.L2 ? vectors.squaredL2(node, query) : -vectors.dot(node, query);
+    }
+
+    /**
+     * 内部距离转换为对外分数：COSINE/IP 为相似度（越大越相近），L2 为欧氏距离
+     */
+    float score(float distance) {
+        return metric == Metric.L2 ? (float) Math.sqrt(distance) : -distance;
+    }
+
+    void readVector(int node, float[] dst) {
+        vectors.get(node, dst);
+    }
+
+    /**
+     * 插入已预处理的向量，返回节点序号
+     */
+    int add(float[] vector) {
+        int node = size;
+        ensureCapacity(node + 1);
+        vectors.set(node, vector);
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[1 + (l == 0 ? maxM0 : m)];
+        }
+        links[node] = nodeLinks;
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(vector, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            long[] found = searchLayer(vector, ep, efConstruction, l, null, false);
+            int[] selected = selectNeighbors(found, vector, m);
+            int[] own = nodeLinks[l];
+            own[0] = selected.length;
+            System.arraycopy(selected, 0, own, 1, selected.length);
+            for (int neighbor : selected) {
+                addLink(neighbor, node, l);
+            }
+            ep = nodeOf(found[0]);
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    void markDeleted(int node) {
+        if (!deleted.get(node)) {
+            deleted.set(node);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * 近似检索
+     *
+     * @param accept 结果过滤条件，为 null 时不过滤（已删除节点总是被排除）
+     */
+    long[] search(float[] query, int k, int ef, IntPredicate accept) {
+        if (entryPoint < 0 || k <= 0) {
+            return new long[0];
+        }
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedyClosest(query, ep, l);
+        }
+        long[] found = searchLayer(query, ep, Math.max(ef, k), 0, accept, true);
+        return found.length > k ? Arrays.copyOf(found, k) : found;
+    }
+
+    /**
+     * 精确检索（遍历全部节点）
+     */
+    long[] bruteForce(float[] query, int k, IntPredicate accept) {
+        LongHeap results = LongHeap.max(k + 1);
+        for (int node = 0; node < size; node++) {
+            if (deleted.get(node) || (accept != null && !accept.test(node))) {
+                continue;
+            }
+            results.push(encode(distance(node, query), node));
+            if (results.size() > k) {
+                results.pop();
+            }
+        }
+        return results.drainAscending();
+    }
+
+    static int nodeOf(long encoded) {
+        return (int) encoded;
+    }
+
+    static float distanceOf(long encoded) {
+        return fromSortable((int) (encoded >>> 32));
+    }
+
+    private static long encode(float distance, int node) {
+        return ((long) toSortable(distance) << 32) | (node & 0xffffffffL);
+    }
+
+    private static int toSortable(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    private static float fromSortable(int sortable) {
+        return Float.intBitsToFloat(sortable ^ ((sortable >> 31) & 0x7fffffff));
+    }
+
+    private int randomLevel() {
+        double uniform = 1 - random.nextDouble();
+        return (int) (-Math.log(uniform) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > links.length) {
+            links = Arrays.copyOf(links, Math.max(capacity, links.length * 2));
+        }
+    }
+
+    private int greedyClosest(float[] query, int entry, int level) {
+        int current = entry;
+        float currentDistance = distance(current, query);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                float d = distance(neighbor, query);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在单层内做 ef 宽度的最佳优先搜索，返回按距离升序排列的结果
+     *
+     * @param skipDeleted 是否从结果中排除已删除节点（构建索引时不排除）
+     */
+    private long[] searchLayer(float[] query, int entry, int ef, int level, IntPredicate accept,
+                               boolean skipDeleted) {
+        VisitedSet visited = VISITED.get();
+        visited.reset(size);
+        LongHeap candidates = LongHeap.min(ef * 2);
+        LongHeap results = LongHeap.max(ef + 1);
+
+        float entryDistance = distance(entry, query);
+        visited.add(entry);
+        candidates.push(encode(entryDistance, entry));
+        float bound = Float.POSITIVE_INFINITY;
+        if (isAcceptable(entry, accept, skipDeleted)) {
+            results.push(encode(entryDistance, entry));
+            bound = entryDistance;
+        }
+
+        while (!candidates.isEmpty()) {
+            long candidate = candidates.peek();
+            if (distanceOf(candidate) > bound && results.size() >= ef) {
+                break;
+            }
+            candidates.pop();
+            int[] neighbors = links[nodeOf(candidate)][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (!visited.add(neighbor)) {
+                    continue;
+                }
+                float d = distance(neighbor, query);
+                if (results.size() < ef || d < bound) {
+                    candidates.push(encode(d, neighbor));
+                    if (isAcceptable(neighbor, accept, skipDeleted)) {
+                        results.push(encode(d, neighbor));
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                        bound = distanceOf(results.peek());
+                    }
+                }
+            }
+        }
+        return results.drainAscending();
+    }
+
+    private boolean isAcceptable(int node, IntPredicate accept, boolean skipDeleted) {
+        if (skipDeleted && deleted.get(node)) {
+            return false;
+        }
+        return accept == null || accept.test(node);
+    }
+
+    /**
+     * 启发式选边：候选比已选邻居更接近目标时才保留，使邻居分布在不同方向上
+     *
+     * @param sortedCandidates 按到 target 的距离升序排列
+     */
+    private int[] selectNeighbors(long[] sortedCandidates, float[] target, int limit) {
+        int[] selected = new int[Math.min(limit, sortedCandidates.length)];
+        int count = 0;
+        for (long candidate : sortedCandidates) {
+            if (count >= limit) {
+                break;
+            }
+            int node = nodeOf(candidate);
+            float distanceToTarget = distanceOf(candidate);
+            vectors.get(node, scratchA);
+            boolean keep = true;
+            for (int i = 0; i < count; i++) {
+                if (distance(selected[i], scratchA) < distanceToTarget) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = node;
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private void addLink(int from, int to, int level) {
+        int[] neighbors = links[from][level];
+        int count = neighbors[0];
+        int capacity = neighbors.length - 1;
+        if (count < capacity) {
+            neighbors[1 + count] = to;
+            neighbors[0] = count + 1;
+            return;
+        }
+        // 邻居已满：在原有邻居与新节点中重新选边
+        vectors.get(from, scratchB);
+        long[] candidates = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            candidates[i] = encode(distance(neighbors[1 + i], scratchB), neighbors[1 + i]);
+        }
+        candidates[count] = encode(distance(to, scratchB), to);
+        Arrays.sort(candidates);
+        int[] selected = selectNeighbors(candidates, scratchB, capacity);
+        neighbors[0] = selected.length;
+        System.arraycopy(selected, 0, neighbors, 1, selected.length);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FILE_VERSION);
+        out.writeInt(metric.ordinal());
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(size);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int node = 0; node < size; node++) {
+            int[][] nodeLinks = links[node];
+            out.writeByte(nodeLinks.length - 1);
+            for (int[] levelLinks : nodeLinks) {
+                out.writeShort(levelLinks[0]);
+                for (int i = 1; i <= levelLinks[0]; i++) {
+                    out.writeInt(levelLinks[i]);
+                }
+            }
+        }
+        long[] deletedWords = deleted.toLongArray();
+        out.writeInt(deletedWords.length);
+        for (long word : deletedWords) {
+            out.writeLong(word);
+        }
+    }
+
+    static HnswIndex read(DataInputStream in, MappedVectorStorage vectors) throws IOException {
+        if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+            throw new IOException("不支持的索引文件格式");
+        }
+        Metric metric = Metric.values()[in.readInt()];
+        int m = in.readInt();
+        int efConstruction = in.readInt();
+        HnswIndex index = new HnswIndex(vectors, metric, m, efConstruction);
+        int size = in.readInt();
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        index.ensureCapacity(Math.max(1, size));
+        for (int node = 0; node < size; node++) {
+            int level = in.readUnsignedByte();
+            int[][] nodeLinks = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                int[] levelLinks = new int[1 + (l == 0 ? index.maxM0 : index.m)];
+                levelLinks[0] = in.readShort();
+                for (int i = 1; i <= levelLinks[0]; i++) {
+                    levelLinks[i] = in.readInt();
+                }
+                nodeLinks[l] = levelLinks;
+            }
+            index.links[node] = nodeLinks;
+        }
+        index.size = size;
+        long[] deletedWords = new long[in.readInt()];
+        for (int i = 0; i < deletedWords.length; i++) {
+            deletedWords[i] = in.readLong();
+        }
+        index.deleted.or(BitSet.valueOf(deletedWords));
+        index.deletedCount = index.deleted.cardinality();
+        vectors.mapExisting(size);
+        return index;
+    }
+
+    /**
+     * 基于数组的 long 堆，max 堆通过按位取反复用 min 堆实现
+     */
+    private static final class LongHeap {
+        private final boolean max;
+        private long[] heap;
+        private int size;
+
+        private LongHeap(boolean max, int capacity) {
+            this.max = max;
+            this.heap = new long[Math.max(4, capacity)];
+        }
+
+        static LongHeap min(int capacity) {
+            return new LongHeap(false, capacity);
+        }
+
+        static LongHeap max(int capacity) {
+            return new LongHeap(true, capacity);
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long peek() {
+            return max ? ~heap[0] : heap[0];
+        }
+
+        void push(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            long stored = max ? ~value : value;
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] <= stored) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = stored;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int index = 0;
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            if (size > 0) {
+                heap[index] = last;
+            }
+            return max ? ~top : top;
+        }
+
+        /**
+         * 取出全部元素并按升序返回
+         */
+        long[] drainAscending() {
+            long[] result = new long[size];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = max ? ~heap[i] : heap[i];
+            }
+            size = 0;
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    /**
+     * 按线程复用的访问标记，用代数递增代替清零
+     */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+            }
+            epoch++;
+            if (epoch == 0) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
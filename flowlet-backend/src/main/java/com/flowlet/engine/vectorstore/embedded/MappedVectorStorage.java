@@ -0,0 +1,163 @@
+package com.flowlet.engine.vectorstore.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 内存映射的 float32 向量存储
+ *
+ * 向量按节点序号定长存放在单个文件中（小端 float32），文件按段映射、按需扩展，
+ * 向量数据位于堆外，由操作系统页缓存管理，重启后无需重新加载即可访问。
+ */
+final class MappedVectorStorage implements Closeable {
+
+    private static final long SEGMENT_BYTES = 16L << 20;
+    private static final ThreadLocal<float[]> SCRATCH = ThreadLocal.withInitial(() -> new float[0]);
+
+    private final FileChannel channel;
+    private final int dim;
+    private final int vectorsPerSegment;
+    private final List<MappedByteBuffer> mapped = new ArrayList<>();
+    private volatile FloatBuffer[] segments = new FloatBuffer[0];
+
+    MappedVectorStorage(Path file, int dim) {
+        this.dim = dim;
+        this.vectorsPerSegment = (int) Math.max(1, SEGMENT_BYTES / ((long) dim * Float.BYTES));
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开向量文件失败: " + file, e);
+        }
+    }
+
+    int dim() {
+        return dim;
+    }
+
+    /**
+     * 写入节点向量（调用方持有写锁）
+     */
+    void set(int node, float[] vector) {
+        FloatBuffer segment = ensureSegment(node / vectorsPerSegment);
+        segment.put((node % vectorsPerSegment) * dim, vector, 0, dim);
+    }
+
+    /**
+     * 读取节点向量到 dst
+     */
+    void get(int node, float[] dst) {
+        segments[node / vectorsPerSegment].get((node % vectorsPerSegment) * dim, dst, 0, dim);
+    }
+
+    /**
+     * 先整段拷贝到线程内缓冲再计算：直接逐元素读取映射缓冲无法被 JIT 向量化
+     */
+    float dot(int node, float[] query) {
+        float[] vector = SCRATCH.get();
+        if (vector.length < dim) {
+            vector = new float[dim];
+            SCRATCH.set(vector);
+        }
+        get(node, vector);
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        for (int bound = dim & ~3; i < bound; i += 4) {
+            s0 += vector[i] * query[i];
+            s1 += vector[i + 1] * query[i + 1];
+            s2 += vector[i + 2] * query[i + 2];
+            s3 += vector[i + 3] * query[i + 3];
+        }
+        for (; i < dim; i++) {
+            s0 += vector[i] * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    float squaredL2(int node, float[] query) {
+        float[] vector = SCRATCH.get();
+        if (vector.length < dim) {
+            vector = new float[dim];
+            SCRATCH.set(vector);
+        }
+        get(node, vector);
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        for (int bound = dim & ~3; i < bound; i += 4) {
+            float d0 = vector[i] - query[i];
+            float d1 = vector[i + 1] - query[i + 1];
+            float d2 = vector[i + 2] - query[i + 2];
+            float d3 = vector[i + 3] - query[i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < dim; i++) {
+            float d = vector[i] - query[i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * 映射前 count 个向量所在的段（加载已有文件时调用）
+     */
+    void mapExisting(int count) {
+        if (count > 0) {
+            ensureSegment((count - 1) / vectorsPerSegment);
+        }
+    }
+
+    void force() {
+        for (MappedByteBuffer buffer : mapped) {
+            buffer.force();
+        }
+    }
+
+    private FloatBuffer ensureSegment(int index) {
+        FloatBuffer[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        FloatBuffer[] grown = Arrays.copyOf(current, index + 1);
+        long segmentBytes = (long) vectorsPerSegment * dim * Float.BYTES;
+        try {
+            for (int i = current.length; i <= index; i++) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, i * segmentBytes, segmentBytes);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                mapped.add(buffer);
+                grown[i] = buffer.asFloatBuffer();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("映射向量文件失败", e);
+        }
+        segments = grown;
+        return grown[index];
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
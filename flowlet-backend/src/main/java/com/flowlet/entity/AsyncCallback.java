@@ -36,7 +36,7 @@ public class AsyncCallback {
     private String kafkaTopic;
 
     /**
-     * 状态: waiting, received, processed, expired
+     * 状态: waiting, received, processed, expired, failed
      */
     private String status;
 
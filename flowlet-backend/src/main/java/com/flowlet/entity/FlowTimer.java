@@ -0,0 +1,44 @@
+package com.flowlet.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 流程定时器（到期后以回调方式唤醒暂停中的节点，触发后删除）
+ */
+@Data
+@TableName("flow_timer")
+public class FlowTimer {
+
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /**
+     * 流程执行实例ID
+     */
+    private String executionId;
+
+    /**
+     * 节点ID
+     */
+    private String nodeId;
+
+    /**
+     * 到期时唤醒的回调标识
+     */
+    private String callbackKey;
+
+    /**
+     * 到期时间
+     */
+    private LocalDateTime fireAt;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
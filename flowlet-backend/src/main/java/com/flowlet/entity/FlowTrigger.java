@@ -0,0 +1,73 @@
+package com.flowlet.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 流程触发器（消费 Kafka 消息并执行已发布的流程）
+ */
+@Data
+@TableName("flow_trigger")
+public class FlowTrigger {
+
+    public static final String TYPE_KAFKA = "kafka";
+
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+
+    /**
+     * 所属项目ID（与流程一致）
+     */
+    private String projectId;
+
+    /**
+     * 触发的流程ID
+     */
+    private String flowId;
+
+    private String name;
+
+    /**
+     * 触发器类型，目前仅支持 kafka
+     */
+    private String triggerType;
+
+    private String brokers;
+
+    private String topic;
+
+    /**
+     * 消费者组，同一触发器的所有消费者共享
+     */
+    private String groupId;
+
+    /**
+     * 认证类型: none, sasl_plain, sasl_scram
+     */
+    private String authType;
+
+    private String username;
+
+    private String passwordEncrypted;
+
+    /**
+     * 扩展配置 JSON（并发数、在途上限、提交模式、输入映射等）
+     */
+    private String configJson;
+
+    private Boolean enabled;
+
+    private String createdBy;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,49 @@
+package com.flowlet.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 大模型响应缓存实体
+ */
+@Data
+@TableName("llm_response_cache")
+public class LlmResponseCache {
+
+    /**
+     * 缓存键（规范化请求的 SHA-256）
+     */
+    @TableId(type = IdType.INPUT)
+    private String cacheKey;
+
+    /**
+     * 模型提供方ID
+     */
+    private String providerId;
+
+    /**
+     * 模型名称
+     */
+    private String model;
+
+    /**
+     * 提供方原始响应（JSON）
+     */
+    private String responseJson;
+
+    /**
+     * 原始调用耗时（毫秒），命中时用于统计节省的延迟
+     */
+    private Long latencyMs;
+
+    /**
+     * 过期时间
+     */
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+}
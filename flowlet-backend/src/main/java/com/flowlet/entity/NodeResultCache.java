@@ -0,0 +1,44 @@
+package com.flowlet.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 节点结果缓存实体
+ */
+@Data
+@TableName("node_result_cache")
+public class NodeResultCache {
+
+    /**
+     * 缓存键（分区、节点配置与键表达式取值的 SHA-256）
+     */
+    @TableId(type = IdType.INPUT)
+    private String cacheKey;
+
+    /**
+     * 缓存分区（作用域:作用域ID:节点ID）
+     */
+    private String partitionKey;
+
+    /**
+     * 节点类型
+     */
+    private String nodeType;
+
+    /**
+     * 节点输出（JSON）
+     */
+    private String outputJson;
+
+    /**
+     * 过期时间
+     */
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+}
@@ -22,7 +22,7 @@ public class VectorStoreProvider {
     private String tenantId;
 
     /**
-     * 提供方标识（milvus/qdrant）
+     * 提供方标识（milvus/qdrant/embedded）
      */
     private String providerKey;
 
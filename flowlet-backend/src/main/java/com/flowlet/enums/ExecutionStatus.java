@@ -27,7 +27,12 @@ public enum ExecutionStatus {
     /**
      * 失败
      */
-    FAILED("failed");
+    FAILED("failed"),
+
+    /**
+     * 超时 (等待回调超过期限)
+     */
+    TIMEOUT("timeout");
 
     private final String value;
 
@@ -38,4 +43,11 @@ public enum ExecutionStatus {
     public String getValue() {
         return value;
     }
+
+    /**
+     * 是否为终止状态（完成、失败或超时）
+     */
+    public static boolean isFinished(String status) {
+        return COMPLETED.value.equals(status) || FAILED.value.equals(status) || TIMEOUT.value.equals(status);
+    }
 }
@@ -54,6 +54,11 @@ public enum NodeType {
      */
     VECTOR_STORE("vector_store"),
 
+    /**
+     * 文本向量化节点
+     */
+    EMBEDDING("embedding"),
+
     /**
      * 变量赋值节点
      */
@@ -77,7 +82,17 @@ public enum NodeType {
     /**
      * ForEach 循环节点
      */
-    FOR_EACH("foreach");
+    FOR_EACH("foreach"),
+
+    /**
+     * 子流程汇聚节点
+     */
+    SUBFLOW_JOIN("subflow_join"),
+
+    /**
+     * 延迟节点
+     */
+    DELAY("delay");
 
     private final String value;
 
@@ -2,9 +2,14 @@ package com.flowlet.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.flowlet.entity.AsyncCallback;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 @Mapper
 public interface AsyncCallbackMapper extends BaseMapper<AsyncCallback> {
 
@@ -13,4 +18,32 @@ public interface AsyncCallbackMapper extends BaseMapper<AsyncCallback> {
      */
     @Select("SELECT * FROM async_callback WHERE callback_key = #{callbackKey}")
     AsyncCallback findByCallbackKey(String callbackKey);
+
+    /**
+     * 根据 callbackKey 查找已归档的回调记录
+     */
+    @Select("SELECT id, execution_id, node_execution_id, callback_key, kafka_topic, status, callback_data, " +
+            "expired_at, received_at, created_at FROM async_callback_archive WHERE callback_key = #{callbackKey} LIMIT 1")
+    AsyncCallback findArchivedByCallbackKey(String callbackKey);
+
+    /**
+     * 将指定回调行复制到归档表
+     */
+    @Insert("<script>" +
+            "INSERT INTO async_callback_archive (id, execution_id, node_execution_id, callback_key, kafka_topic, " +
+            "status, callback_data, expired_at, received_at, created_at) " +
+            "SELECT id, execution_id, node_execution_id, callback_key, kafka_topic, status, callback_data, " +
+            "expired_at, received_at, created_at FROM async_callback WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int copyToArchive(@Param("ids") List<String> ids);
+
+    /**
+     * 删除指定回调行
+     */
+    @Delete("<script>" +
+            "DELETE FROM async_callback WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteByIdList(@Param("ids") List<String> ids);
 }
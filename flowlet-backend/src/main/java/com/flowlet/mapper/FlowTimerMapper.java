@@ -0,0 +1,12 @@
+package com.flowlet.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.flowlet.entity.FlowTimer;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 流程定时器 Mapper
+ */
+@Mapper
+public interface FlowTimerMapper extends BaseMapper<FlowTimer> {
+}
@@ -0,0 +1,12 @@
+package com.flowlet.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.flowlet.entity.FlowTrigger;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 流程触发器 Mapper
+ */
+@Mapper
+public interface FlowTriggerMapper extends BaseMapper<FlowTrigger> {
+}
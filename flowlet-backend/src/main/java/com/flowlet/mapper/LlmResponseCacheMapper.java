@@ -0,0 +1,17 @@
+package com.flowlet.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.flowlet.entity.LlmResponseCache;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface LlmResponseCacheMapper extends BaseMapper<LlmResponseCache> {
+
+    /**
+     * 写入或覆盖缓存记录
+     */
+    @Insert("INSERT OR REPLACE INTO llm_response_cache (cache_key, provider_id, model, response_json, latency_ms, expires_at, created_at) " +
+            "VALUES (#{cacheKey}, #{providerId}, #{model}, #{responseJson}, #{latencyMs}, #{expiresAt}, #{createdAt})")
+    int upsert(LlmResponseCache cache);
+}
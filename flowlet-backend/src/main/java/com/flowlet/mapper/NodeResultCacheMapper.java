@@ -0,0 +1,17 @@
+package com.flowlet.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.flowlet.entity.NodeResultCache;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface NodeResultCacheMapper extends BaseMapper<NodeResultCache> {
+
+    /**
+     * 写入或覆盖缓存记录
+     */
+    @Insert("INSERT OR REPLACE INTO node_result_cache (cache_key, partition_key, node_type, output_json, expires_at, created_at) " +
+            "VALUES (#{cacheKey}, #{partitionKey}, #{nodeType}, #{outputJson}, #{expiresAt}, #{createdAt})")
+    int upsert(NodeResultCache cache);
+}
@@ -4,12 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.engine.ExecutionContext;
 import com.flowlet.engine.FlowEngine;
+import com.flowlet.engine.event.ExecutionEventBus;
+import com.flowlet.entity.AsyncCallback;
 import com.flowlet.entity.FlowDefinition;
 import com.flowlet.entity.FlowExecution;
 import com.flowlet.enums.ExecutionStatus;
 import com.flowlet.mapper.FlowExecutionMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -21,13 +23,28 @@ import java.util.Map;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class FlowAsyncExecutor {
 
     private final FlowEngine flowEngine;
     private final FlowExecutionMapper flowExecutionMapper;
     private final ObjectMapper objectMapper;
     private final ConstantDefinitionService constantDefinitionService;
+    private final ExecutionEventBus executionEventBus;
+    private final FlowExecutionService flowExecutionService;
+
+    public FlowAsyncExecutor(FlowEngine flowEngine,
+                             FlowExecutionMapper flowExecutionMapper,
+                             ObjectMapper objectMapper,
+                             ConstantDefinitionService constantDefinitionService,
+                             ExecutionEventBus executionEventBus,
+                             @Lazy FlowExecutionService flowExecutionService) {
+        this.flowEngine = flowEngine;
+        this.flowExecutionMapper = flowExecutionMapper;
+        this.objectMapper = objectMapper;
+        this.constantDefinitionService = constantDefinitionService;
+        this.executionEventBus = executionEventBus;
+        this.flowExecutionService = flowExecutionService;
+    }
 
     /**
      * 异步执行流程
@@ -73,6 +90,21 @@ public class FlowAsyncExecutor {
                 execution.setUpdatedAt(LocalDateTime.now());
                 flowExecutionMapper.updateById(execution);
             }
+            executionEventBus.finish(executionId, ExecutionStatus.FAILED.getValue());
+        }
+    }
+
+    /**
+     * 异步完成已记录的回调并恢复流程
+     * 失败时回调退回 received 状态，由 CallbackSweeper 重驱，重驱次数用尽后置为 failed
+     */
+    @Async
+    public void completeCallbackAsync(AsyncCallback callback, Map<String, Object> callbackData) {
+        try {
+            flowExecutionService.completeCallback(callback, callbackData);
+        } catch (Exception e) {
+            log.error("回调恢复流程失败，等待重驱: callbackKey={}, executionId={}, error={}",
+                    callback.getCallbackKey(), callback.getExecutionId(), e.getMessage(), e);
         }
     }
 }
@@ -1,9 +1,13 @@
 package com.flowlet.service;
 
+import com.flowlet.dto.CallbackMessage;
 import com.flowlet.dto.DebugRequest;
 import com.flowlet.dto.ProcessRequest;
+import com.flowlet.entity.AsyncCallback;
 import com.flowlet.entity.FlowExecution;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,6 +23,18 @@ public interface FlowExecutionService {
      */
     FlowExecution execute(ProcessRequest request);
 
+    /**
+     * 批量执行流程（同一事务内创建执行实例，提交后再异步执行）
+     *
+     * @param flowId      流程ID
+     * @param flowVersion 执行版本，为空时使用最新发布版本
+     * @param inputsList  每个执行实例的输入数据
+     * @param triggeredBy 触发来源
+     * @return 与输入顺序一致的执行实例
+     */
+    List<FlowExecution> executeBatch(String flowId, Integer flowVersion,
+                                     List<Map<String, Object>> inputsList, String triggeredBy);
+
     /**
      * 调试执行流程（直接使用传入的流程图数据，无需发布）
      *
@@ -43,6 +59,57 @@ public interface FlowExecutionService {
      */
     void handleCallback(String callbackKey, Map<String, Object> callbackData);
 
+    /**
+     * 批量记录回调（同一事务内将等待中的回调置为 received 并保存回调数据），不恢复执行
+     *
+     * @param messages 回调消息
+     * @return 与输入顺序一致的回调记录，未找到等待中的回调或已过期的项为 null
+     */
+    List<AsyncCallback> recordCallbacks(List<CallbackMessage> messages);
+
+    /**
+     * 批量处理回调：同一事务内记录所有回调，提交后经执行队列异步恢复对应的执行
+     *
+     * @param messages 回调消息
+     * @return 与输入顺序一致的回调记录，未找到等待中的回调或已过期的项为 null
+     */
+    List<AsyncCallback> handleCallbacks(List<CallbackMessage> messages);
+
+    /**
+     * 完成已记录的回调：在短事务中将回调置为 processed 并更新节点执行记录，提交后在事务外恢复流程；
+     * 回调已不是 received 时直接跳过，重复调用是安全的，恢复失败时回调退回 received 等待重驱
+     *
+     * @param callback 已记录（received）的回调
+     * @param callbackData 回调数据
+     */
+    void completeCallback(AsyncCallback callback, Map<String, Object> callbackData);
+
+    /**
+     * 批量处理已到期的回调（同一事务内）：回调置为 expired，等待中的节点置为失败，暂停中的执行置为 timeout
+     *
+     * @param callbacks 已到期的等待中回调
+     * @return 因此超时的执行数
+     */
+    int expireCallbacks(List<AsyncCallback> callbacks);
+
+    /**
+     * 将多次恢复仍失败的回调置为 failed，等待中的节点与暂停中的执行一并置为失败
+     *
+     * @param callback 已记录（received）的回调
+     * @param errorMessage 失败原因
+     * @return 回调仍为 received 并已置为 failed 时返回 true
+     */
+    boolean failCallback(AsyncCallback callback, String errorMessage);
+
+    /**
+     * 将创建时间早于指定时间的已处理/已过期/已失败回调移入归档表
+     *
+     * @param createdBefore 创建时间上限
+     * @param limit 最多归档的行数
+     * @return 归档的行数
+     */
+    int archiveCallbacks(LocalDateTime createdBefore, int limit);
+
     /**
      * 恢复暂停的执行
      *
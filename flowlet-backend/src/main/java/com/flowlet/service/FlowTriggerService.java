@@ -0,0 +1,22 @@
+package com.flowlet.service;
+
+import com.flowlet.dto.trigger.FlowTriggerRequest;
+import com.flowlet.dto.trigger.FlowTriggerResponse;
+
+import java.util.List;
+
+/**
+ * 流程触发器服务接口
+ */
+public interface FlowTriggerService {
+
+    List<FlowTriggerResponse> listTriggers(String flowId);
+
+    FlowTriggerResponse createTrigger(String flowId, FlowTriggerRequest request);
+
+    FlowTriggerResponse updateTrigger(String flowId, String id, FlowTriggerRequest request);
+
+    void deleteTrigger(String flowId, String id);
+
+    FlowTriggerResponse toggleTrigger(String flowId, String id, boolean enabled);
+}
@@ -2,6 +2,7 @@ package com.flowlet.service;
 
 import com.flowlet.dto.model.CustomProviderRequest;
 import com.flowlet.dto.model.CustomProviderResponse;
+import com.flowlet.dto.model.ModelProviderHealthResponse;
 import com.flowlet.dto.model.ModelProviderListResponse;
 import com.flowlet.dto.model.ModelProviderTestRequest;
 import com.flowlet.dto.model.ModelProviderTestResponse;
@@ -10,6 +11,8 @@ import com.flowlet.dto.model.StandardProviderModelCatalogResponse;
 import com.flowlet.dto.model.StandardProviderModelRefreshRequest;
 import com.flowlet.dto.model.UpsertStandardProviderRequest;
 
+import java.util.List;
+
 public interface ModelProviderService {
     ModelProviderListResponse listProviders();
 
@@ -31,4 +34,6 @@ public interface ModelProviderService {
             String providerKey,
             StandardProviderModelRefreshRequest request
     );
+
+    List<ModelProviderHealthResponse> getProviderHealth();
 }
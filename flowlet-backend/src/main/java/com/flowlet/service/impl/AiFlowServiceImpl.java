@@ -9,6 +9,7 @@ import com.flowlet.dto.ai.AiFlowRegenerateRequest;
 import com.flowlet.dto.ai.AiFlowSessionDetail;
 import com.flowlet.dto.ai.AiFlowSessionRequest;
 import com.flowlet.dto.ai.AiFlowSessionResponse;
+import com.flowlet.engine.http.HttpClientRegistry;
 import com.flowlet.entity.AiFlowMessage;
 import com.flowlet.entity.AiFlowSession;
 import com.flowlet.entity.FlowDefinition;
@@ -72,7 +73,7 @@ public class AiFlowServiceImpl implements AiFlowService {
     private final ModelProviderMapper modelProviderMapper;
     private final ProjectAccessService projectAccessService;
     private final ModelHubCrypto modelHubCrypto;
-    private final WebClient.Builder webClientBuilder;
+    private final HttpClientRegistry httpClientRegistry;
 
     private static final Map<String, String> NODE_DESCRIPTIONS = Map.ofEntries(
             Map.entry(NodeType.START.getValue(), "流程入口节点"),
@@ -86,7 +87,9 @@ public class AiFlowServiceImpl implements AiFlowService {
             Map.entry(NodeType.LLM.getValue(), "大模型调用"),
             Map.entry(NodeType.VARIABLE_ASSIGNER.getValue(), "变量赋值"),
             Map.entry(NodeType.JSON_PARSER.getValue(), "JSON 解析器"),
-            Map.entry(NodeType.FOR_EACH.getValue(), "ForEach 循环迭代处理")
+            Map.entry(NodeType.FOR_EACH.getValue(), "ForEach 循环迭代处理"),
+            Map.entry(NodeType.SUBFLOW_JOIN.getValue(), "等待并汇总多个异步子流程结果"),
+            Map.entry(NodeType.DELAY.getValue(), "延迟一段时间或到指定时间后继续执行")
     );
 
     @Override
@@ -434,7 +437,7 @@ public class AiFlowServiceImpl implements AiFlowService {
         request.put("messages", messages);
         request.put("temperature", 0.2);
 
-        WebClient client = webClientBuilder.baseUrl(Objects.requireNonNull(provider.getBaseUrl())).build();
+        WebClient client = httpClientRegistry.getClient(Objects.requireNonNull(provider.getBaseUrl()));
         ParameterizedTypeReference<Map<String, Object>> responseType =
                 new ParameterizedTypeReference<>() {};
 
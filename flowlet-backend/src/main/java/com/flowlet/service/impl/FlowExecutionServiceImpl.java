@@ -1,14 +1,19 @@
 package com.flowlet.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.dto.CallbackMessage;
 import com.flowlet.dto.DebugRequest;
 import com.flowlet.dto.FlowGraphDTO;
 import com.flowlet.dto.ProcessRequest;
 import com.flowlet.engine.ExecutionContext;
 import com.flowlet.engine.FlowEngine;
+import com.flowlet.engine.callback.PendingCallbackRegistry;
+import com.flowlet.engine.event.ExecutionEventBus;
+import com.flowlet.engine.subflow.SubflowInvocationCoordinator;
 import com.flowlet.entity.AsyncCallback;
 import com.flowlet.entity.FlowDefinition;
 import com.flowlet.entity.FlowExecution;
@@ -28,9 +33,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -50,61 +60,116 @@ public class FlowExecutionServiceImpl implements FlowExecutionService {
     private final FlowEngine flowEngine;
     private final ObjectMapper objectMapper;
     private final ConstantDefinitionService constantDefinitionService;
+    private final SubflowInvocationCoordinator subflowInvocationCoordinator;
+    private final ExecutionEventBus executionEventBus;
+    private final PendingCallbackRegistry pendingCallbackRegistry;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * 执行流程：只写入一条执行实例，不开启事务，读取流程定义时不持有 SQLite 读锁
+     */
     @Override
-    @Transactional
     public FlowExecution execute(ProcessRequest request) {
         log.info("开始执行流程: flowId={}", request.getFlowId());
 
-        FlowDefinition baseFlow = flowDefinitionMapper.selectById(request.getFlowId());
+        FlowDefinition flowDefinition = resolveExecutableFlow(request.getFlowId(), request.getFlowVersion());
+        FlowExecution execution = createExecution(flowDefinition, request.getInputs(), null);
+        log.info("创建执行实例: executionId={}, projectId={}", execution.getId(), execution.getProjectId());
+
+        // 通过独立的异步执行器来执行流程
+        flowAsyncExecutor.executeAsync(execution.getId(), flowDefinition, request.getInputs());
+
+        return execution;
+    }
+
+    /**
+     * 批量执行流程：流程定义在事务外读取，事务内只做插入，事务以写操作开始，不会在读锁升级为写锁时冲突
+     */
+    @Override
+    public List<FlowExecution> executeBatch(String flowId, Integer flowVersion,
+                                            List<Map<String, Object>> inputsList, String triggeredBy) {
+        FlowDefinition flowDefinition = resolveExecutableFlow(flowId, flowVersion);
+        List<FlowExecution> executions = transactionTemplate.execute(status -> {
+            List<FlowExecution> created = new ArrayList<>(inputsList.size());
+            for (Map<String, Object> inputs : inputsList) {
+                created.add(createExecution(flowDefinition, inputs, triggeredBy));
+            }
+            return created;
+        });
+        log.debug("批量创建执行实例: flowId={}, count={}, triggeredBy={}", flowId, executions.size(), triggeredBy);
+
+        // 事务提交后再异步执行，避免执行线程读不到尚未提交的执行实例
+        Runnable dispatch = () -> {
+            for (int i = 0; i < executions.size(); i++) {
+                flowAsyncExecutor.executeAsync(executions.get(i).getId(), flowDefinition, inputsList.get(i));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch.run();
+                }
+            });
+        } else {
+            dispatch.run();
+        }
+        return executions;
+    }
+
+    /**
+     * 获取可执行的已发布流程（流程存在、未禁用且已发布）
+     */
+    private FlowDefinition resolveExecutableFlow(String flowId, Integer flowVersion) {
+        FlowDefinition baseFlow = flowDefinitionMapper.selectById(flowId);
         if (baseFlow == null) {
-            throw new RuntimeException("流程定义不存在: " + request.getFlowId());
+            throw new RuntimeException("流程定义不存在: " + flowId);
         }
         if (FlowStatus.DISABLED.getValue().equals(baseFlow.getStatus())) {
             throw new RuntimeException("流程已禁用，无法执行");
         }
 
-        FlowDefinition flowDefinition = flowDefinitionService.getPublishedFlow(
-                request.getFlowId(),
-                request.getFlowVersion()
-        );
+        FlowDefinition flowDefinition = flowDefinitionService.getPublishedFlow(flowId, flowVersion);
         if (flowDefinition == null) {
             throw new RuntimeException("流程未发布，无法执行");
         }
+        return flowDefinition;
+    }
 
-        // 创建执行实例
+    /**
+     * 创建执行实例
+     */
+    private FlowExecution createExecution(FlowDefinition flowDefinition, Map<String, Object> inputs,
+                                          String triggeredBy) {
         FlowExecution execution = new FlowExecution();
         execution.setProjectId(flowDefinition.getProjectId());
         execution.setFlowId(flowDefinition.getId());
         execution.setFlowVersion(flowDefinition.getVersion());
         execution.setStatus(ExecutionStatus.PENDING.getValue());
+        execution.setTriggeredBy(triggeredBy);
         execution.setCreatedAt(LocalDateTime.now());
         execution.setUpdatedAt(LocalDateTime.now());
 
         // 保存输入数据
-        if (request.getInputs() != null) {
+        if (inputs != null) {
             try {
-                execution.setInputData(objectMapper.writeValueAsString(request.getInputs()));
+                execution.setInputData(objectMapper.writeValueAsString(inputs));
             } catch (JsonProcessingException e) {
                 throw new RuntimeException("序列化输入数据失败", e);
             }
         }
 
         flowExecutionMapper.insert(execution);
-        log.info("创建执行实例: executionId={}, projectId={}", execution.getId(), execution.getProjectId());
-
-        // 通过独立的异步执行器来执行流程
-        flowAsyncExecutor.executeAsync(execution.getId(), flowDefinition, request.getInputs());
-
         return execution;
     }
 
+    /**
+     * 调试执行：已有流程定义在事务外读取，事务内只做写入
+     */
     @Override
-    @Transactional
     public FlowExecution debug(DebugRequest request) {
         log.info("开始调试执行流程: flowId={}, flowName={}", request.getFlowId(), request.getFlowName());
 
-        FlowDefinition flowDefinitionToUse;
         String graphDataJson;
         
         try {
@@ -113,10 +178,19 @@ public class FlowExecutionServiceImpl implements FlowExecutionService {
             throw new RuntimeException("序列化流程图数据失败", e);
         }
 
+        FlowDefinition existingFlow = request.getFlowId() != null
+                ? flowDefinitionMapper.selectById(request.getFlowId()) : null;
+        return transactionTemplate.execute(status -> createDebugExecution(request, existingFlow, graphDataJson));
+    }
+
+    /**
+     * 写入调试用的流程定义与执行实例
+     */
+    private FlowExecution createDebugExecution(DebugRequest request, FlowDefinition existingFlow, String graphDataJson) {
+        FlowDefinition flowDefinitionToUse;
+
         // 判断如何处理流程定义
         if (request.getFlowId() != null) {
-            FlowDefinition existingFlow = flowDefinitionMapper.selectById(request.getFlowId());
-            
             if (existingFlow != null && FlowStatus.DRAFT.getValue().equals(existingFlow.getStatus())) {
                 // 草稿状态：直接更新草稿内容，使用现有记录
                 log.info("流程为草稿状态，更新草稿内容: flowId={}", request.getFlowId());
@@ -164,8 +238,13 @@ public class FlowExecutionServiceImpl implements FlowExecutionService {
                 execution.getId(), flowDefinitionToUse.getId(), execution.getProjectId(),
                 FlowStatus.DEBUG.getValue().equals(flowDefinitionToUse.getStatus()));
 
-        // 通过独立的异步执行器来执行流程
-        flowAsyncExecutor.executeAsync(execution.getId(), flowDefinitionToUse, request.getInputs());
+        // 事务提交后再通过独立的异步执行器来执行流程，避免执行线程读不到尚未提交的执行实例
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                flowAsyncExecutor.executeAsync(execution.getId(), flowDefinitionToUse, request.getInputs());
+            }
+        });
 
         return execution;
     }
@@ -196,34 +275,77 @@ public class FlowExecutionServiceImpl implements FlowExecutionService {
     }
 
     @Override
-    @Transactional
     public void handleCallback(String callbackKey, Map<String, Object> callbackData) {
         log.info("========== 开始处理回调 ==========");
         log.info("处理回调: callbackKey={}, callbackData={}", callbackKey, callbackData);
 
-        // 查找回调记录
-        LambdaQueryWrapper<AsyncCallback> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(AsyncCallback::getCallbackKey, callbackKey)
-                .eq(AsyncCallback::getStatus, "waiting");
+        AsyncCallback callback = recordCallback(callbackKey, callbackData);
+        if (callback == null) {
+            return;
+        }
+        completeCallback(callback, callbackData);
+        log.info("========== 回调处理结束 ==========");
+    }
+
+    @Override
+    @Transactional
+    public List<AsyncCallback> recordCallbacks(List<CallbackMessage> messages) {
+        List<AsyncCallback> recorded = new ArrayList<>(messages.size());
+        for (CallbackMessage message : messages) {
+            recorded.add(recordCallback(message.getCallbackKey(), message.getData()));
+        }
+        return recorded;
+    }
+
+    @Override
+    @Transactional
+    public List<AsyncCallback> handleCallbacks(List<CallbackMessage> messages) {
+        List<AsyncCallback> recorded = recordCallbacks(messages);
+        List<Integer> resumable = new ArrayList<>();
+        for (int i = 0; i < recorded.size(); i++) {
+            if (recorded.get(i) != null) {
+                resumable.add(i);
+            }
+        }
+        log.info("批量回调已记录: total={}, recorded={}", messages.size(), resumable.size());
+
+        // 提交后再恢复，恢复线程读取到的一定是已落库的回调数据
+        if (!resumable.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (int i : resumable) {
+                        flowAsyncExecutor.completeCallbackAsync(recorded.get(i), messages.get(i).getData());
+                    }
+                }
+            });
+        }
+        return recorded;
+    }
 
-        AsyncCallback callback = asyncCallbackMapper.selectOne(wrapper);
+    /**
+     * 记录回调：等待中的回调置为 received 并保存回调数据
+     *
+     * @return 已记录的回调，未找到等待中的回调或已过期时返回 null
+     */
+    private AsyncCallback recordCallback(String callbackKey, Map<String, Object> callbackData) {
+        // 查找回调记录（等待中的回调常驻内存索引）
+        AsyncCallback callback = pendingCallbackRegistry.lookup(callbackKey);
         if (callback == null) {
             log.warn("未找到待处理的回调记录: callbackKey={}", callbackKey);
             log.warn("可能原因: 1.callbackKey不正确 2.回调已被处理 3.回调记录不存在");
-            return;
+            return null;
         }
         log.info("找到回调记录: executionId={}, nodeExecutionId={}", 
                 callback.getExecutionId(), callback.getNodeExecutionId());
 
-        // 检查是否过期
+        // 检查是否过期（由过期扫描统一将回调置为 expired 并结束执行）
         if (callback.getExpiredAt() != null && callback.getExpiredAt().isBefore(LocalDateTime.now())) {
             log.warn("回调已过期: callbackKey={}, expiredAt={}", callbackKey, callback.getExpiredAt());
-            callback.setStatus("expired");
-            asyncCallbackMapper.updateById(callback);
-            return;
+            return null;
         }
 
-        // 更新回调状态
+        // 更新回调状态（仅当仍在等待中，避免与过期扫描或重复回调并发时重复处理）
         log.info("更新回调状态为 received");
         callback.setStatus("received");
         callback.setReceivedAt(LocalDateTime.now());
@@ -234,7 +356,62 @@ public class FlowExecutionServiceImpl implements FlowExecutionService {
                 log.warn("序列化回调数据失败: {}", e.getMessage());
             }
         }
-        asyncCallbackMapper.updateById(callback);
+        int updated = asyncCallbackMapper.update(callback, new LambdaUpdateWrapper<AsyncCallback>()
+                .eq(AsyncCallback::getId, callback.getId())
+                .eq(AsyncCallback::getStatus, "waiting"));
+        pendingCallbackRegistry.remove(callbackKey);
+        if (updated == 0) {
+            log.warn("回调已被处理或已过期: callbackKey={}", callbackKey);
+            return null;
+        }
+        return callback;
+    }
+
+    /**
+     * 完成回调并恢复流程
+     * 回调与节点状态在短事务中提交，流程恢复在事务外执行，长时间运行的下游节点不会一直占用 SQLite 写锁；
+     * 恢复失败时回调退回 received 状态，由 CallbackSweeper 重驱
+     */
+    @Override
+    public void completeCallback(AsyncCallback callback, Map<String, Object> callbackData) {
+        Boolean claimed = transactionTemplate.execute(status -> applyCallback(callback, callbackData));
+        if (!Boolean.TRUE.equals(claimed)) {
+            return;
+        }
+
+        // 恢复流程执行
+        log.info("准备恢复流程执行: executionId={}", callback.getExecutionId());
+        try {
+            resumeExecution(callback.getExecutionId());
+        } catch (RuntimeException e) {
+            AsyncCallback retry = new AsyncCallback();
+            retry.setStatus("received");
+            asyncCallbackMapper.update(retry, new LambdaUpdateWrapper<AsyncCallback>()
+                    .eq(AsyncCallback::getId, callback.getId())
+                    .eq(AsyncCallback::getStatus, "processed"));
+            throw e;
+        }
+        log.info("回调处理完成: callbackKey={}, status=processed", callback.getCallbackKey());
+    }
+
+    /**
+     * 认领回调并写入节点输出
+     * 先以条件更新将回调由 received 置为 processed：同一回调可能被提交后的异步恢复与重驱扫描先后处理，只有认领成功的一方继续；
+     * 事务的第一条语句即为写操作，直接获取写锁，不会在先读后写的锁升级时冲突
+     *
+     * @return 是否认领成功
+     */
+    private boolean applyCallback(AsyncCallback callback, Map<String, Object> callbackData) {
+        AsyncCallback processed = new AsyncCallback();
+        processed.setStatus("processed");
+        int claimed = asyncCallbackMapper.update(processed, new LambdaUpdateWrapper<AsyncCallback>()
+                .eq(AsyncCallback::getId, callback.getId())
+                .eq(AsyncCallback::getStatus, "received"));
+        if (claimed == 0) {
+            log.warn("回调已处理或已失败，跳过恢复: callbackKey={}", callback.getCallbackKey());
+            return false;
+        }
+        callback.setStatus("processed");
 
         // 更新节点执行状态
         NodeExecution nodeExecution = nodeExecutionMapper.selectById(callback.getNodeExecutionId());
@@ -256,6 +433,11 @@ public class FlowExecutionServiceImpl implements FlowExecutionService {
                     fullOutput.put("request", executionData.get("request"));
                     fullOutput.put("syncResponse", executionData.get("response"));
                     fullOutput.put("callbackInfo", executionData.get("callbackInfo"));
+                    
+                    // 子流程类回调：将回调数据平铺到节点输出，与同步调用的输出结构保持一致
+                    if (Boolean.TRUE.equals(executionData.get("flattenCallbackData")) && callbackData != null) {
+                        callbackData.forEach(fullOutput::putIfAbsent);
+                    }
                 }
                 
                 // 添加回调数据
@@ -281,20 +463,140 @@ public class FlowExecutionServiceImpl implements FlowExecutionService {
         } else {
             log.warn("未找到节点执行记录: nodeExecutionId={}", callback.getNodeExecutionId());
         }
+        return true;
+    }
 
-        // 恢复流程执行
-        log.info("准备恢复流程执行: executionId={}", callback.getExecutionId());
-        resumeExecution(callback.getExecutionId());
+    @Override
+    @Transactional
+    public int expireCallbacks(List<AsyncCallback> callbacks) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> timedOut = new ArrayList<>();
+        for (AsyncCallback callback : callbacks) {
+            pendingCallbackRegistry.remove(callback.getCallbackKey());
+
+            AsyncCallback expired = new AsyncCallback();
+            expired.setStatus("expired");
+            int updated = asyncCallbackMapper.update(expired, new LambdaUpdateWrapper<AsyncCallback>()
+                    .eq(AsyncCallback::getId, callback.getId())
+                    .eq(AsyncCallback::getStatus, "waiting"));
+            if (updated == 0) {
+                continue;
+            }
 
-        // 更新回调状态为已处理
-        callback.setStatus("processed");
-        asyncCallbackMapper.updateById(callback);
-        log.info("回调处理完成: callbackKey={}, status=processed", callbackKey);
-        log.info("========== 回调处理结束 ==========");
+            String errorMessage = "等待回调超时: expiredAt=" + callback.getExpiredAt();
+            NodeExecution failedNode = new NodeExecution();
+            failedNode.setStatus(NodeExecutionStatus.FAILED.getValue());
+            failedNode.setErrorMessage(errorMessage);
+            failedNode.setCompletedAt(now);
+            failedNode.setUpdatedAt(now);
+            nodeExecutionMapper.update(failedNode, new LambdaUpdateWrapper<NodeExecution>()
+                    .eq(NodeExecution::getId, callback.getNodeExecutionId())
+                    .eq(NodeExecution::getStatus, NodeExecutionStatus.WAITING_CALLBACK.getValue()));
+
+            FlowExecution timeoutExecution = new FlowExecution();
+            timeoutExecution.setStatus(ExecutionStatus.TIMEOUT.getValue());
+            timeoutExecution.setErrorMessage(errorMessage);
+            timeoutExecution.setCompletedAt(now);
+            timeoutExecution.setUpdatedAt(now);
+            int executionUpdated = flowExecutionMapper.update(timeoutExecution, new LambdaUpdateWrapper<FlowExecution>()
+                    .eq(FlowExecution::getId, callback.getExecutionId())
+                    .eq(FlowExecution::getStatus, ExecutionStatus.PAUSED.getValue()));
+            if (executionUpdated > 0) {
+                timedOut.add(callback.getExecutionId());
+            }
+            log.info("回调已过期: callbackKey={}, executionId={}, executionTimedOut={}",
+                    callback.getCallbackKey(), callback.getExecutionId(), executionUpdated > 0);
+        }
+
+        // 提交后通知执行结束，唤醒订阅者与等待该子流程的父流程
+        if (!timedOut.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (String executionId : timedOut) {
+                        executionEventBus.finish(executionId, ExecutionStatus.TIMEOUT.getValue());
+                        subflowInvocationCoordinator.onExecutionFinished(executionId);
+                    }
+                }
+            });
+        }
+        return timedOut.size();
     }
 
     @Override
     @Transactional
+    public boolean failCallback(AsyncCallback callback, String errorMessage) {
+        AsyncCallback failed = new AsyncCallback();
+        failed.setStatus("failed");
+        int updated = asyncCallbackMapper.update(failed, new LambdaUpdateWrapper<AsyncCallback>()
+                .eq(AsyncCallback::getId, callback.getId())
+                .eq(AsyncCallback::getStatus, "received"));
+        if (updated == 0) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        NodeExecution failedNode = new NodeExecution();
+        failedNode.setStatus(NodeExecutionStatus.FAILED.getValue());
+        failedNode.setErrorMessage(errorMessage);
+        failedNode.setCompletedAt(now);
+        failedNode.setUpdatedAt(now);
+        nodeExecutionMapper.update(failedNode, new LambdaUpdateWrapper<NodeExecution>()
+                .eq(NodeExecution::getId, callback.getNodeExecutionId())
+                .eq(NodeExecution::getStatus, NodeExecutionStatus.WAITING_CALLBACK.getValue()));
+
+        FlowExecution failedExecution = new FlowExecution();
+        failedExecution.setStatus(ExecutionStatus.FAILED.getValue());
+        failedExecution.setErrorMessage(errorMessage);
+        failedExecution.setCompletedAt(now);
+        failedExecution.setUpdatedAt(now);
+        int executionUpdated = flowExecutionMapper.update(failedExecution, new LambdaUpdateWrapper<FlowExecution>()
+                .eq(FlowExecution::getId, callback.getExecutionId())
+                .eq(FlowExecution::getStatus, ExecutionStatus.PAUSED.getValue()));
+        log.warn("回调恢复失败，已置为 failed: callbackKey={}, executionId={}, executionFailed={}",
+                callback.getCallbackKey(), callback.getExecutionId(), executionUpdated > 0);
+
+        if (executionUpdated > 0) {
+            String executionId = callback.getExecutionId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executionEventBus.finish(executionId, ExecutionStatus.FAILED.getValue());
+                    subflowInvocationCoordinator.onExecutionFinished(executionId);
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * 归档已结束的回调：已结束的回调不会再变化，先在事务外选出，事务内只做复制与删除
+     */
+    @Override
+    public int archiveCallbacks(LocalDateTime createdBefore, int limit) {
+        List<String> ids = asyncCallbackMapper.selectList(new LambdaQueryWrapper<AsyncCallback>()
+                        .select(AsyncCallback::getId)
+                        .in(AsyncCallback::getStatus, "processed", "expired", "failed")
+                        .lt(AsyncCallback::getCreatedAt, createdBefore)
+                        .last("LIMIT " + limit))
+                .stream()
+                .map(AsyncCallback::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            asyncCallbackMapper.copyToArchive(ids);
+            asyncCallbackMapper.deleteByIdList(ids);
+        });
+        return ids.size();
+    }
+
+    /**
+     * 恢复暂停的执行
+     * 不使用 @Transactional：恢复会在当前线程中执行后续节点，事务会在整个执行期间占用数据库连接与写锁
+     */
+    @Override
     public void resumeExecution(String executionId) {
         log.info("---------- 恢复执行开始 ----------");
         log.info("恢复执行: executionId={}", executionId);
@@ -366,6 +668,8 @@ public class FlowExecutionServiceImpl implements FlowExecutionService {
             execution.setErrorMessage("恢复执行失败: " + e.getMessage());
             execution.setUpdatedAt(LocalDateTime.now());
             flowExecutionMapper.updateById(execution);
+            executionEventBus.finish(executionId, ExecutionStatus.FAILED.getValue());
+            subflowInvocationCoordinator.onExecutionFinished(executionId);
         }
     }
 
@@ -0,0 +1,213 @@
+package com.flowlet.service.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.dto.trigger.FlowTriggerRequest;
+import com.flowlet.dto.trigger.FlowTriggerResponse;
+import com.flowlet.engine.kafka.DynamicKafkaProducerFactory;
+import com.flowlet.engine.trigger.KafkaTriggerConfig;
+import com.flowlet.engine.trigger.KafkaTriggerManager;
+import com.flowlet.entity.FlowDefinition;
+import com.flowlet.entity.FlowTrigger;
+import com.flowlet.exception.AccessDeniedException;
+import com.flowlet.exception.BusinessException;
+import com.flowlet.exception.ResourceNotFoundException;
+import com.flowlet.mapper.FlowTriggerMapper;
+import com.flowlet.service.FlowDefinitionService;
+import com.flowlet.service.FlowTriggerService;
+import com.flowlet.service.ProjectAccessService;
+import com.flowlet.util.ModelHubCrypto;
+import com.flowlet.util.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 流程触发器服务实现
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlowTriggerServiceImpl implements FlowTriggerService {
+
+    private final FlowTriggerMapper flowTriggerMapper;
+    private final FlowDefinitionService flowDefinitionService;
+    private final ProjectAccessService projectAccessService;
+    private final KafkaTriggerManager kafkaTriggerManager;
+    private final ModelHubCrypto modelHubCrypto;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public List<FlowTriggerResponse> listTriggers(String flowId) {
+        getFlow(flowId);
+        return flowTriggerMapper.selectList(new LambdaQueryWrapper<FlowTrigger>()
+                        .eq(FlowTrigger::getFlowId, flowId)
+                        .orderByDesc(FlowTrigger::getUpdatedAt))
+                .stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public FlowTriggerResponse createTrigger(String flowId, FlowTriggerRequest request) {
+        FlowDefinition flow = getFlow(flowId);
+        checkEditPermission(flow);
+
+        FlowTrigger trigger = new FlowTrigger();
+        trigger.setId(UUID.randomUUID().toString());
+        trigger.setProjectId(flow.getProjectId());
+        trigger.setFlowId(flowId);
+        trigger.setTriggerType(FlowTrigger.TYPE_KAFKA);
+        trigger.setCreatedBy(SecurityUtils.getCurrentUserId());
+        trigger.setEnabled(request.getEnabled() != null ? request.getEnabled() : Boolean.TRUE);
+        applyRequest(trigger, request);
+
+        flowTriggerMapper.insert(trigger);
+        log.info("创建 Kafka 触发器: triggerId={}, flowId={}, topic={}", trigger.getId(), flowId, trigger.getTopic());
+        kafkaTriggerManager.restart(trigger);
+        return toResponse(trigger);
+    }
+
+    @Override
+    public FlowTriggerResponse updateTrigger(String flowId, String id, FlowTriggerRequest request) {
+        FlowTrigger trigger = getTrigger(flowId, id);
+        applyRequest(trigger, request);
+        if (request.getEnabled() != null) {
+            trigger.setEnabled(request.getEnabled());
+        }
+        flowTriggerMapper.updateById(trigger);
+        kafkaTriggerManager.restart(trigger);
+        return toResponse(trigger);
+    }
+
+    @Override
+    public void deleteTrigger(String flowId, String id) {
+        FlowTrigger trigger = getTrigger(flowId, id);
+        kafkaTriggerManager.stop(trigger.getId());
+        flowTriggerMapper.deleteById(trigger.getId());
+        log.info("删除 Kafka 触发器: triggerId={}", id);
+    }
+
+    @Override
+    public FlowTriggerResponse toggleTrigger(String flowId, String id, boolean enabled) {
+        FlowTrigger trigger = getTrigger(flowId, id);
+        trigger.setEnabled(enabled);
+        flowTriggerMapper.updateById(trigger);
+        kafkaTriggerManager.restart(trigger);
+        return toResponse(trigger);
+    }
+
+    private void applyRequest(FlowTrigger trigger, FlowTriggerRequest request) {
+        trigger.setName(request.getName().trim());
+        trigger.setBrokers(request.getBrokers().trim());
+        trigger.setTopic(request.getTopic().trim());
+        trigger.setGroupId(StrUtil.isNotBlank(request.getGroupId())
+                ? request.getGroupId().trim()
+                : "flowlet-trigger-" + trigger.getId());
+        String authType = request.getAuthType() != null
+                ? request.getAuthType().trim().toLowerCase(Locale.ROOT)
+                : "none";
+        if (DynamicKafkaProducerFactory.AuthType.fromValue(authType) == DynamicKafkaProducerFactory.AuthType.NONE) {
+            authType = "none";
+        }
+        trigger.setAuthType(authType);
+        trigger.setUsername(StrUtil.isNotBlank(request.getUsername()) ? request.getUsername().trim() : null);
+        if (Boolean.TRUE.equals(request.getClearPassword())) {
+            trigger.setPasswordEncrypted(null);
+        } else if (StrUtil.isNotBlank(request.getPassword())) {
+            trigger.setPasswordEncrypted(modelHubCrypto.encrypt(request.getPassword()));
+        }
+
+        String commitMode = request.getCommitMode() != null
+                ? request.getCommitMode().trim().toLowerCase(Locale.ROOT)
+                : KafkaTriggerConfig.COMMIT_ACCEPTED;
+        if (!KafkaTriggerConfig.COMMIT_ACCEPTED.equals(commitMode)
+                && !KafkaTriggerConfig.COMMIT_COMPLETED.equals(commitMode)) {
+            throw new BusinessException("不支持的位点提交模式: " + request.getCommitMode());
+        }
+        if (request.getConcurrency() != null && request.getConcurrency() < 1) {
+            throw new BusinessException("并发数必须大于 0");
+        }
+        if (request.getMaxInFlight() != null && request.getMaxInFlight() < 1) {
+            throw new BusinessException("在途执行数上限必须大于 0");
+        }
+
+        KafkaTriggerConfig config = new KafkaTriggerConfig();
+        config.setFlowVersion(request.getFlowVersion());
+        config.setConcurrency(request.getConcurrency());
+        config.setMaxInFlight(request.getMaxInFlight());
+        config.setCommitMode(commitMode);
+        config.setAutoOffsetReset(request.getAutoOffsetReset());
+        config.setMaxPollRecords(request.getMaxPollRecords());
+        config.setInputMapping(request.getInputMapping());
+        try {
+            trigger.setConfigJson(objectMapper.writeValueAsString(config));
+        } catch (Exception e) {
+            throw new BusinessException("触发器配置序列化失败: " + e.getMessage());
+        }
+    }
+
+    private FlowDefinition getFlow(String flowId) {
+        FlowDefinition flow = flowDefinitionService.getById(flowId);
+        if (flow == null) {
+            throw new ResourceNotFoundException("FlowDefinition", flowId);
+        }
+        return flow;
+    }
+
+    private FlowTrigger getTrigger(String flowId, String id) {
+        FlowDefinition flow = getFlow(flowId);
+        checkEditPermission(flow);
+        FlowTrigger trigger = flowTriggerMapper.selectById(id);
+        if (trigger == null || !flowId.equals(trigger.getFlowId())) {
+            throw new ResourceNotFoundException("FlowTrigger", id);
+        }
+        return trigger;
+    }
+
+    /**
+     * 检查当前用户是否有编辑流程的权限
+     */
+    private void checkEditPermission(FlowDefinition flow) {
+        String currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null || StrUtil.isBlank(flow.getProjectId())) {
+            return;
+        }
+        if (!projectAccessService.canEdit(flow.getProjectId(), currentUserId)) {
+            throw new AccessDeniedException("You don't have permission to edit this flow");
+        }
+    }
+
+    private FlowTriggerResponse toResponse(FlowTrigger trigger) {
+        KafkaTriggerConfig config = kafkaTriggerManager.decodeConfig(trigger.getConfigJson());
+        FlowTriggerResponse response = new FlowTriggerResponse();
+        response.setId(trigger.getId());
+        response.setProjectId(trigger.getProjectId());
+        response.setFlowId(trigger.getFlowId());
+        response.setName(trigger.getName());
+        response.setBrokers(trigger.getBrokers());
+        response.setTopic(trigger.getTopic());
+        response.setGroupId(trigger.getGroupId());
+        response.setAuthType(trigger.getAuthType());
+        response.setUsername(trigger.getUsername());
+        response.setHasPassword(StrUtil.isNotBlank(trigger.getPasswordEncrypted()));
+        response.setFlowVersion(config.getFlowVersion());
+        response.setConcurrency(config.getConcurrency());
+        response.setMaxInFlight(config.getMaxInFlight());
+        response.setCommitMode(config.getCommitMode());
+        response.setAutoOffsetReset(config.getAutoOffsetReset());
+        response.setMaxPollRecords(config.getMaxPollRecords());
+        response.setInputMapping(config.getInputMapping());
+        response.setEnabled(trigger.getEnabled());
+        response.setRuntime(kafkaTriggerManager.status(trigger.getId()));
+        response.setCreatedAt(trigger.getCreatedAt());
+        response.setUpdatedAt(trigger.getUpdatedAt());
+        return response;
+    }
+}
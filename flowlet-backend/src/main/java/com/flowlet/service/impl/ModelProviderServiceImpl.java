@@ -3,6 +3,7 @@ package com.flowlet.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.flowlet.dto.model.CustomProviderRequest;
 import com.flowlet.dto.model.CustomProviderResponse;
+import com.flowlet.dto.model.ModelProviderHealthResponse;
 import com.flowlet.dto.model.ModelProviderListResponse;
 import com.flowlet.dto.model.ModelProviderTestRequest;
 import com.flowlet.dto.model.ModelProviderTestResponse;
@@ -11,6 +12,9 @@ import com.flowlet.dto.model.StandardProviderModelItem;
 import com.flowlet.dto.model.StandardProviderModelRefreshRequest;
 import com.flowlet.dto.model.StandardProviderResponse;
 import com.flowlet.dto.model.UpsertStandardProviderRequest;
+import com.flowlet.engine.http.HttpClientRegistry;
+import com.flowlet.engine.llm.LlmProviderRouter;
+import com.flowlet.engine.provider.ProviderRegistry;
 import com.flowlet.entity.ModelProvider;
 import com.flowlet.enums.ModelProviderType;
 import com.flowlet.exception.BusinessException;
@@ -38,6 +42,7 @@ import java.util.Locale;
 import java.util.Optional;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
@@ -52,8 +57,10 @@ public class ModelProviderServiceImpl implements ModelProviderService {
 
     private final ModelProviderMapper modelProviderMapper;
     private final ModelHubCrypto modelHubCrypto;
-    private final WebClient.Builder webClientBuilder;
+    private final HttpClientRegistry httpClientRegistry;
     private final ObjectMapper objectMapper;
+    private final LlmProviderRouter llmProviderRouter;
+    private final ProviderRegistry providerRegistry;
 
     private static class StandardModelSettings {
         private final List<String> enabledModels;
@@ -134,6 +141,7 @@ public class ModelProviderServiceImpl implements ModelProviderService {
         } else {
             modelProviderMapper.updateById(provider);
         }
+        providerRegistry.invalidateModelProviders(tenantId);
         return toStandardResponse(provider);
     }
 
@@ -145,6 +153,7 @@ public class ModelProviderServiceImpl implements ModelProviderService {
                 .eq("tenant_id", tenantId)
                 .eq("provider_type", ModelProviderType.STANDARD.name())
                 .eq("provider_key", normalizedKey));
+        providerRegistry.invalidateModelProviders(tenantId);
     }
 
     @Override
@@ -169,6 +178,7 @@ public class ModelProviderServiceImpl implements ModelProviderService {
             provider.setApiKeyEncrypted(modelHubCrypto.encrypt(request.getApiKey().trim()));
         }
         modelProviderMapper.insert(provider);
+        providerRegistry.invalidateModelProviders(provider.getTenantId());
         return toCustomResponse(provider);
     }
 
@@ -191,6 +201,7 @@ public class ModelProviderServiceImpl implements ModelProviderService {
         }
 
         modelProviderMapper.updateById(provider);
+        providerRegistry.invalidateModelProviders(provider.getTenantId());
         return toCustomResponse(provider);
     }
 
@@ -198,6 +209,7 @@ public class ModelProviderServiceImpl implements ModelProviderService {
     public void deleteCustom(String id) {
         ModelProvider provider = getByIdAndTenant(id);
         modelProviderMapper.deleteById(provider.getId());
+        providerRegistry.invalidateModelProviders(provider.getTenantId());
     }
 
     @Override
@@ -205,9 +217,25 @@ public class ModelProviderServiceImpl implements ModelProviderService {
         ModelProvider provider = getByIdAndTenant(id);
         provider.setEnabled(enabled);
         modelProviderMapper.updateById(provider);
+        providerRegistry.invalidateModelProviders(provider.getTenantId());
         return toCustomResponse(provider);
     }
 
+    @Override
+    public List<ModelProviderHealthResponse> getProviderHealth() {
+        String tenantId = SecurityUtils.getCurrentTenantId();
+        Set<String> providerIds = modelProviderMapper.selectList(new QueryWrapper<ModelProvider>()
+                        .select("id")
+                        .eq("tenant_id", tenantId))
+                .stream()
+                .map(ModelProvider::getId)
+                .collect(Collectors.toSet());
+        return llmProviderRouter.snapshot().stream()
+                .filter(snapshot -> providerIds.contains(snapshot.providerId()))
+                .map(this::toHealthResponse)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public ModelProviderTestResponse testConnection(ModelProviderTestRequest request) {
         String providerKey = Optional.ofNullable(request.getProviderKey())
@@ -283,6 +311,7 @@ public class ModelProviderServiceImpl implements ModelProviderService {
         provider.setBaseUrl(baseUrl);
         provider.setModels(encodeStandardModels(catalog, enabled));
         modelProviderMapper.updateById(provider);
+        providerRegistry.invalidateModelProviders(provider.getTenantId());
 
         StandardProviderModelCatalogResponse response = new StandardProviderModelCatalogResponse();
         response.setModelCatalog(catalog);
@@ -305,7 +334,7 @@ public class ModelProviderServiceImpl implements ModelProviderService {
     }
 
     private HttpStatusCode executeTest(String providerType, String providerKey, @NonNull String baseUrl, String apiKey) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        WebClient client = httpClientRegistry.getClient(baseUrl);
 
         if ("STANDARD".equals(providerType) && "anthropic".equals(providerKey)) {
             var response = client.get()
@@ -378,6 +407,22 @@ public class ModelProviderServiceImpl implements ModelProviderService {
         return response;
     }
 
+    private ModelProviderHealthResponse toHealthResponse(LlmProviderRouter.HealthSnapshot snapshot) {
+        ModelProviderHealthResponse response = new ModelProviderHealthResponse();
+        response.setProviderId(snapshot.providerId());
+        response.setProvider(snapshot.provider());
+        response.setModel(snapshot.model());
+        response.setEwmaLatencyMs(snapshot.ewmaLatencyMs());
+        response.setErrorRate(snapshot.errorRate());
+        response.setRequests(snapshot.requests());
+        response.setFailures(snapshot.failures());
+        response.setConsecutiveFailures(snapshot.consecutiveFailures());
+        response.setTripped(snapshot.tripped());
+        response.setLastFailureAt(snapshot.lastFailureAt());
+        response.setLastError(snapshot.lastError());
+        return response;
+    }
+
     private CustomProviderResponse toCustomResponse(ModelProvider provider) {
         CustomProviderResponse response = new CustomProviderResponse();
         response.setId(provider.getId());
@@ -531,7 +576,7 @@ public class ModelProviderServiceImpl implements ModelProviderService {
             @NonNull String baseUrl,
             @NonNull String apiKey
     ) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        WebClient client = httpClientRegistry.getClient(baseUrl);
         ParameterizedTypeReference<Map<String, Object>> responseType =
                 new ParameterizedTypeReference<>() {};
         Map<String, Object> response;
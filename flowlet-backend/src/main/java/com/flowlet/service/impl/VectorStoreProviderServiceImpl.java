@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flowlet.dto.vectorstore.VectorStoreProviderRequest;
 import com.flowlet.dto.vectorstore.VectorStoreProviderResponse;
+import com.flowlet.engine.provider.ProviderRegistry;
+import com.flowlet.engine.vectorstore.embedded.EmbeddedVectorStore;
 import com.flowlet.entity.VectorStoreProvider;
 import com.flowlet.exception.BusinessException;
 import com.flowlet.exception.ResourceNotFoundException;
@@ -28,11 +30,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class VectorStoreProviderServiceImpl implements VectorStoreProviderService {
 
-    private static final Set<String> SUPPORTED_KEYS = Set.of("milvus", "qdrant");
+    private static final Set<String> SUPPORTED_KEYS = Set.of("milvus", "qdrant", EmbeddedVectorStore.PROVIDER_KEY);
 
     private final VectorStoreProviderMapper vectorStoreProviderMapper;
     private final ModelHubCrypto modelHubCrypto;
     private final ObjectMapper objectMapper;
+    private final ProviderRegistry providerRegistry;
 
     @Data
     private static class VectorStoreConfig {
@@ -68,6 +71,7 @@ public class VectorStoreProviderServiceImpl implements VectorStoreProviderServic
         }
 
         vectorStoreProviderMapper.insert(provider);
+        providerRegistry.invalidateVectorStoreProviders(provider.getTenantId());
         return toResponse(provider);
     }
 
@@ -89,6 +93,7 @@ public class VectorStoreProviderServiceImpl implements VectorStoreProviderServic
         }
 
         vectorStoreProviderMapper.updateById(provider);
+        providerRegistry.invalidateVectorStoreProviders(provider.getTenantId());
         return toResponse(provider);
     }
 
@@ -96,6 +101,7 @@ public class VectorStoreProviderServiceImpl implements VectorStoreProviderServic
     public void deleteProvider(String id) {
         VectorStoreProvider provider = getByIdAndTenant(id);
         vectorStoreProviderMapper.deleteById(provider.getId());
+        providerRegistry.invalidateVectorStoreProviders(provider.getTenantId());
     }
 
     @Override
@@ -103,6 +109,7 @@ public class VectorStoreProviderServiceImpl implements VectorStoreProviderServic
         VectorStoreProvider provider = getByIdAndTenant(id);
         provider.setEnabled(enabled);
         vectorStoreProviderMapper.updateById(provider);
+        providerRegistry.invalidateVectorStoreProviders(provider.getTenantId());
         return toResponse(provider);
     }
 
@@ -0,0 +1,11 @@
+-- 流程定时器表（延迟节点等定时恢复的暂停节点，触发后删除）
+CREATE TABLE IF NOT EXISTS flow_timer (
+    id VARCHAR(36) PRIMARY KEY,
+    execution_id VARCHAR(36) NOT NULL,
+    node_id VARCHAR(100) NOT NULL,
+    callback_key VARCHAR(255) NOT NULL,
+    fire_at DATETIME NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_flow_timer_fire_at ON flow_timer(fire_at);
@@ -0,0 +1,12 @@
+-- 大模型响应缓存表
+CREATE TABLE IF NOT EXISTS llm_response_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    provider_id VARCHAR(36) NOT NULL,
+    model VARCHAR(200) NOT NULL,
+    response_json TEXT NOT NULL,
+    latency_ms INTEGER,
+    expires_at DATETIME NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_llm_response_cache_expires ON llm_response_cache(expires_at);
@@ -0,0 +1,11 @@
+-- 节点结果缓存表（代码/转换/API 节点 cachePolicy 的磁盘层）
+CREATE TABLE IF NOT EXISTS node_result_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    partition_key VARCHAR(300) NOT NULL,
+    node_type VARCHAR(50) NOT NULL,
+    output_json TEXT,
+    expires_at DATETIME NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_node_result_cache_expires ON node_result_cache(expires_at);
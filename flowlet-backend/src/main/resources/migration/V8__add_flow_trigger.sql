@@ -0,0 +1,21 @@
+-- 流程触发器表（Kafka 消息触发已发布流程）
+CREATE TABLE IF NOT EXISTS flow_trigger (
+    id VARCHAR(36) PRIMARY KEY,
+    project_id VARCHAR(36),
+    flow_id VARCHAR(36) NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    trigger_type VARCHAR(20) NOT NULL DEFAULT 'kafka',
+    brokers VARCHAR(500) NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    group_id VARCHAR(255) NOT NULL,
+    auth_type VARCHAR(20) DEFAULT 'none',
+    username VARCHAR(255),
+    password_encrypted TEXT,
+    config_json TEXT,                   -- 并发数、在途上限、提交模式、输入映射等
+    enabled INTEGER DEFAULT 1,
+    created_by VARCHAR(36),
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_flow_trigger_flow ON flow_trigger(flow_id);
@@ -0,0 +1,17 @@
+-- 异步回调归档表（已处理/已过期的回调行定期从 async_callback 移入）
+CREATE TABLE IF NOT EXISTS async_callback_archive (
+    id VARCHAR(36) PRIMARY KEY,
+    execution_id VARCHAR(36) NOT NULL,
+    node_execution_id VARCHAR(36) NOT NULL,
+    callback_key VARCHAR(255) NOT NULL,
+    kafka_topic VARCHAR(255),
+    status VARCHAR(20),
+    callback_data TEXT,
+    expired_at DATETIME,
+    received_at DATETIME,
+    created_at DATETIME,
+    archived_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_async_callback_archive_key ON async_callback_archive(callback_key);
+CREATE INDEX IF NOT EXISTS idx_async_callback_status ON async_callback(status, created_at);
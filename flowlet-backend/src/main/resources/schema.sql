@@ -91,6 +91,31 @@ CREATE TABLE IF NOT EXISTS async_callback (
     FOREIGN KEY (node_execution_id) REFERENCES node_execution(id)
 );
 
+-- 异步回调归档表（已处理/已过期的回调行定期从 async_callback 移入）
+CREATE TABLE IF NOT EXISTS async_callback_archive (
+    id VARCHAR(36) PRIMARY KEY,
+    execution_id VARCHAR(36) NOT NULL,
+    node_execution_id VARCHAR(36) NOT NULL,
+    callback_key VARCHAR(255) NOT NULL,
+    kafka_topic VARCHAR(255),
+    status VARCHAR(20),
+    callback_data TEXT,
+    expired_at DATETIME,
+    received_at DATETIME,
+    created_at DATETIME,
+    archived_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 流程定时器表（延迟节点等定时恢复的暂停节点，触发后删除）
+CREATE TABLE IF NOT EXISTS flow_timer (
+    id VARCHAR(36) PRIMARY KEY,
+    execution_id VARCHAR(36) NOT NULL,
+    node_id VARCHAR(100) NOT NULL,
+    callback_key VARCHAR(255) NOT NULL,
+    fire_at DATETIME NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
 -- 流程依赖关系表
 CREATE TABLE IF NOT EXISTS flow_dependency (
     id VARCHAR(36) PRIMARY KEY,
@@ -254,6 +279,9 @@ CREATE INDEX IF NOT EXISTS idx_flow_execution_status ON flow_execution(status);
 CREATE INDEX IF NOT EXISTS idx_flow_execution_parent ON flow_execution(parent_execution_id);
 CREATE INDEX IF NOT EXISTS idx_node_execution_execution_id ON node_execution(execution_id);
 CREATE INDEX IF NOT EXISTS idx_async_callback_callback_key ON async_callback(callback_key);
+CREATE INDEX IF NOT EXISTS idx_async_callback_status ON async_callback(status, created_at);
+CREATE INDEX IF NOT EXISTS idx_async_callback_archive_key ON async_callback_archive(callback_key);
+CREATE INDEX IF NOT EXISTS idx_flow_timer_fire_at ON flow_timer(fire_at);
 CREATE INDEX IF NOT EXISTS idx_flow_dependency_flow_id ON flow_dependency(flow_id);
 CREATE INDEX IF NOT EXISTS idx_flow_dependency_dependent ON flow_dependency(dependent_flow_id);
 CREATE INDEX IF NOT EXISTS idx_project_tenant ON project(tenant_id);
@@ -364,3 +392,50 @@ CREATE INDEX IF NOT EXISTS idx_simhash_bucket_4 ON simhash_record(project_id, bu
 CREATE INDEX IF NOT EXISTS idx_simhash_bucket_5 ON simhash_record(project_id, bucket_5);
 CREATE INDEX IF NOT EXISTS idx_simhash_bucket_6 ON simhash_record(project_id, bucket_6);
 CREATE INDEX IF NOT EXISTS idx_simhash_bucket_7 ON simhash_record(project_id, bucket_7);
+
+-- 大模型响应缓存表
+CREATE TABLE IF NOT EXISTS llm_response_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    provider_id VARCHAR(36) NOT NULL,
+    model VARCHAR(200) NOT NULL,
+    response_json TEXT NOT NULL,
+    latency_ms INTEGER,
+    expires_at DATETIME NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_llm_response_cache_expires ON llm_response_cache(expires_at);
+
+-- 节点结果缓存表（代码/转换/API 节点 cachePolicy 的磁盘层）
+CREATE TABLE IF NOT EXISTS node_result_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    partition_key VARCHAR(300) NOT NULL,
+    node_type VARCHAR(50) NOT NULL,
+    output_json TEXT,
+    expires_at DATETIME NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_node_result_cache_expires ON node_result_cache(expires_at);
+
+-- 流程触发器表（Kafka 消息触发已发布流程）
+CREATE TABLE IF NOT EXISTS flow_trigger (
+    id VARCHAR(36) PRIMARY KEY,
+    project_id VARCHAR(36),
+    flow_id VARCHAR(36) NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    trigger_type VARCHAR(20) NOT NULL DEFAULT 'kafka',
+    brokers VARCHAR(500) NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    group_id VARCHAR(255) NOT NULL,
+    auth_type VARCHAR(20) DEFAULT 'none',
+    username VARCHAR(255),
+    password_encrypted TEXT,
+    config_json TEXT,                   -- 并发数、在途上限、提交模式、输入映射等
+    enabled INTEGER DEFAULT 1,
+    created_by VARCHAR(36),
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_flow_trigger_flow ON flow_trigger(flow_id);
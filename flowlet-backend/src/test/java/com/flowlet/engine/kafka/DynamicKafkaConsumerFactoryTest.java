@@ -0,0 +1,254 @@
+package com.flowlet.engine.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowlet.config.FlowletProperties;
+import com.flowlet.dto.CallbackMessage;
+import com.flowlet.entity.AsyncCallback;
+import com.flowlet.service.FlowExecutionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * DynamicKafkaConsumerFactory 测试，回调消息走内嵌 Kafka，落库由桩服务模拟
+ */
+class DynamicKafkaConsumerFactoryTest {
+
+    private static final String KEY_FIELD = "callbackKey";
+    private static final long RECORD_RETRY_BACKOFF_MS = 1000;
+
+    private static EmbeddedKafkaBroker broker;
+    private static Admin admin;
+    private static KafkaProducer<String, String> producer;
+
+    private DynamicKafkaConsumerFactory factory;
+    private SimpleMeterRegistry meterRegistry;
+    private String topic;
+    private TopicPartition partition;
+    private String groupId;
+
+    /**
+     * 每次落库调用收到的回调标识、调用时间与当时已提交的位点
+     */
+    private final List<RecordCall> calls = new CopyOnWriteArrayList<>();
+    /**
+     * 含业务回调（order-*）的批次还需失败的次数
+     */
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    private record RecordCall(List<String> keys, long nanos, long committedOffset, boolean failed) {
+
+        List<String> orderKeys() {
+            return keys.stream().filter(key -> key.startsWith("order-")).toList();
+        }
+    }
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1);
+        broker.afterPropertiesSet();
+
+        Properties adminProps = new Properties();
+        adminProps.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        admin = Admin.create(adminProps);
+
+        Properties producerProps = new Properties();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        producer = new KafkaProducer<>(producerProps);
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        producer.close();
+        admin.close();
+        broker.destroy();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        topic = "flowlet-callback-test-" + UUID.randomUUID().toString().substring(0, 8);
+        partition = new TopicPartition(topic, 0);
+        broker.addTopics(topic);
+
+        FlowExecutionService flowExecutionService = mock(FlowExecutionService.class);
+        when(flowExecutionService.recordCallbacks(anyList())).thenAnswer(invocation -> {
+            List<CallbackMessage> messages = invocation.getArgument(0);
+            List<String> keys = messages.stream().map(CallbackMessage::getCallbackKey).toList();
+            boolean fail = keys.stream().anyMatch(key -> key.startsWith("order-"))
+                    && failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0;
+            calls.add(new RecordCall(keys, System.nanoTime(), committedOffset(), fail));
+            if (fail) {
+                throw new IllegalStateException("database is locked");
+            }
+            // 桩服务不产生待恢复的回调，只验证落库与位点
+            return new ArrayList<>(Collections.nCopies(messages.size(), (AsyncCallback) null));
+        });
+
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new DynamicKafkaConsumerFactory(new ObjectMapper(), flowExecutionService,
+                new FlowletProperties(), meterRegistry);
+        startConsumer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.closeAll();
+        meterRegistry.close();
+    }
+
+    @Test
+    void reconsumesFailedBatchFromItsFirstOffset() throws Exception {
+        failuresLeft.set(1);
+
+        send("order-0");
+        send("order-1");
+        send("order-2");
+
+        awaitTrue(() -> recordedOrderKeys().size() == 3, "失败批次未被重新消费");
+
+        List<RecordCall> orderCalls = calls.stream().filter(call -> !call.orderKeys().isEmpty()).toList();
+        RecordCall failed = orderCalls.get(0);
+        assertThat(failed.failed()).isTrue();
+        assertThat(failed.orderKeys().get(0)).isEqualTo("order-0");
+        // 回退后从失败批次的起始位点依次重新落库，每条回调恰好一次
+        assertThat(recordedOrderKeys()).containsExactly("order-0", "order-1", "order-2");
+        RecordCall retried = orderCalls.stream().filter(call -> !call.failed()).findFirst().orElseThrow();
+        assertThat(Duration.ofNanos(retried.nanos() - failed.nanos()))
+                .isGreaterThanOrEqualTo(Duration.ofMillis(RECORD_RETRY_BACKOFF_MS));
+    }
+
+    @Test
+    void commitsOffsetOnlyAfterBatchIsRecorded() throws Exception {
+        long first = send("order-0");
+        awaitTrue(() -> committedOffset() == first + 1, "已落库批次的位点未提交");
+
+        failuresLeft.set(1);
+        long second = send("order-1");
+        long third = send("order-2");
+
+        awaitTrue(() -> calls.stream().anyMatch(RecordCall::failed), "落库失败未发生");
+        // 失败批次在退避期内不提交
+        Thread.sleep(RECORD_RETRY_BACKOFF_MS / 2);
+        assertThat(committedOffset()).isEqualTo(second);
+
+        awaitTrue(() -> committedOffset() == third + 1, "重试成功后位点未提交");
+        // 每次落库时已提交的位点都不超过本批次的起始位点
+        for (RecordCall call : calls) {
+            if (call.orderKeys().contains("order-1")) {
+                assertThat(call.committedOffset()).isLessThanOrEqualTo(second);
+            }
+        }
+    }
+
+    /**
+     * 注册回调启动消费者，持续发送预热消息直到消费者就位，并记下其消费者组
+     */
+    private void startConsumer() throws Exception {
+        Set<String> existingGroups = listGroups();
+        DynamicKafkaProducerFactory.KafkaConfig config = new DynamicKafkaProducerFactory.KafkaConfig();
+        config.setBrokers(broker.getBrokersAsString());
+        CompletableFuture<Map<String, Object>> warmup =
+                factory.registerCallback("warmup", config, topic, KEY_FIELD, 30_000);
+
+        // 新消费者从最新位点开始消费，就位前发送的预热消息会被跳过
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!warmup.isDone()) {
+            assertThat(System.nanoTime()).as("消费者未就位").isLessThan(deadline);
+            send("warmup");
+            Thread.sleep(200);
+        }
+        assertThat(warmup.get()).containsEntry(KEY_FIELD, "warmup");
+
+        Set<String> groups = listGroups();
+        groups.removeAll(existingGroups);
+        assertThat(groups).hasSize(1);
+        groupId = groups.iterator().next();
+        // 预热消息全部落库并提交后再开始
+        long end = admin.listOffsets(Map.of(partition, OffsetSpec.latest()))
+                .partitionResult(partition).get().offset();
+        awaitTrue(() -> committedOffset() == end, "预热消息位点未提交");
+    }
+
+    private Set<String> listGroups() throws Exception {
+        return admin.listConsumerGroups().all().get().stream()
+                .map(ConsumerGroupListing::groupId)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private long send(String callbackKey) throws Exception {
+        String value = "{\"" + KEY_FIELD + "\":\"" + callbackKey + "\",\"status\":\"done\"}";
+        return producer.send(new ProducerRecord<>(topic, callbackKey, value)).get().offset();
+    }
+
+    /**
+     * 消费者组在该分区已提交的位点，未提交时为 -1
+     */
+    private long committedOffset() {
+        if (groupId == null) {
+            return -1;
+        }
+        try {
+            OffsetAndMetadata offset = admin.listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata().get().get(partition);
+            return offset == null ? -1 : offset.offset();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 成功落库的业务回调，按落库顺序排列
+     */
+    private List<String> recordedOrderKeys() {
+        return calls.stream()
+                .filter(call -> !call.failed())
+                .flatMap(call -> call.orderKeys().stream())
+                .toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as(message).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.flowlet.engine.llm;
+
+import com.flowlet.config.FlowletProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * LlmConcurrencyLimiter 测试，模型调用走本地桩服务
+ */
+class LlmConcurrencyLimiterTest {
+
+    private HttpServer server;
+    private WebClient webClient;
+    private FlowletProperties flowletProperties;
+    private SimpleMeterRegistry meterRegistry;
+
+    /**
+     * 桩服务前若干次请求返回 429，之后返回 200
+     */
+    private final AtomicInteger rateLimitedResponses = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            requests.incrementAndGet();
+            byte[] body;
+            if (rateLimitedResponses.getAndDecrement() > 0) {
+                body = "{\"error\":\"rate limited\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                exchange.sendResponseHeaders(429, body.length);
+            } else {
+                body = "{\"text\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+            }
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        webClient = WebClient.create("http://127.0.0.1:" + server.getAddress().getPort());
+
+        flowletProperties = new FlowletProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        meterRegistry.close();
+    }
+
+    private String callStub() {
+        return webClient.post()
+                .uri("/v1/chat/completions")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+    }
+
+    @Test
+    void retriesRateLimitedCallsAndLowersLimit() {
+        rateLimitedResponses.set(2);
+        LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(flowletProperties, meterRegistry);
+
+        String result = limiter.execute("openai", "p1", "gpt-test", 10_000L, this::callStub);
+
+        assertThat(result).contains("ok");
+        assertThat(requests.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("flowlet.llm.limiter.overloaded")
+                .tag("provider", "openai").tag("model", "gpt-test")
+                .counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("flowlet.llm.limiter.limit")
+                .tag("provider", "openai").tag("model", "gpt-test")
+                .gauge().value()).isLessThan(flowletProperties.getLlmConcurrency().getInitialLimit());
+        assertThat(meterRegistry.get("flowlet.llm.limiter.inflight")
+                .tag("provider", "openai").tag("model", "gpt-test")
+                .gauge().value()).isZero();
+    }
+
+    @Test
+    void failsWithLastErrorWhenRetriesAreExhausted() {
+        rateLimitedResponses.set(Integer.MAX_VALUE);
+        flowletProperties.getLlmConcurrency().setMaxOverloadRetries(1);
+        LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(flowletProperties, meterRegistry);
+
+        assertThatThrownBy(() -> limiter.execute("openai", "p1", "gpt-test", 10_000L, this::callStub))
+                .isInstanceOf(WebClientResponseException.TooManyRequests.class);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void queuesBeyondLimitAndTimesOut() {
+        flowletProperties.getLlmConcurrency().setInitialLimit(1);
+        flowletProperties.getLlmConcurrency().setMinLimit(1);
+        LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(flowletProperties, meterRegistry);
+
+        LlmConcurrencyLimiter.Permit permit = limiter.acquire("openai", "p1", "gpt-test", 0);
+        assertThatThrownBy(() -> limiter.acquire("openai", "p1", "gpt-test", 50))
+                .isInstanceOf(LlmConcurrencyLimiter.QueueTimeoutException.class);
+        assertThat(meterRegistry.get("flowlet.llm.limiter.queue_timeout")
+                .tag("provider", "openai").tag("model", "gpt-test")
+                .counter().count()).isEqualTo(1.0);
+
+        permit.release(LlmConcurrencyLimiter.Outcome.SUCCESS);
+        limiter.acquire("openai", "p1", "gpt-test", 0).release(LlmConcurrencyLimiter.Outcome.SUCCESS);
+    }
+
+    @Test
+    void evictedStatesRemoveAllTheirMeters() {
+        LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(flowletProperties, meterRegistry);
+
+        for (int i = 0; i < 1500; i++) {
+            limiter.acquire("openai", "p1", "model-" + i, 0).release(LlmConcurrencyLimiter.Outcome.SUCCESS);
+        }
+
+        int states = meterRegistry.find("flowlet.llm.limiter.limit").gauges().size();
+        assertThat(states).isLessThanOrEqualTo(1000);
+        assertThat(meterRegistry.find("flowlet.llm.limiter.inflight").gauges()).hasSize(states);
+        assertThat(meterRegistry.find("flowlet.llm.limiter.queued").gauges()).hasSize(states);
+        assertThat(meterRegistry.find("flowlet.llm.limiter.queue_timeout").counters()).hasSize(states);
+        assertThat(meterRegistry.find("flowlet.llm.limiter.overloaded").counters()).hasSize(states);
+    }
+}
@@ -1,11 +1,14 @@
 from __future__ import annotations
 
+import hashlib
 import json
 import os
 import tempfile
+import threading
 import time
+from collections import OrderedDict
 from pathlib import Path
-from typing import Any, Dict, Optional
+from typing import Any, Dict, List, Optional
 
 from fastapi import FastAPI
 from pydantic import BaseModel, Field
@@ -33,6 +36,57 @@ class ExecuteResponse(BaseModel):
     errorMessage: Optional[str] = None
 
 
+class BatchItem(BaseModel):
+    inputs: Dict[str, Any] = Field(default_factory=dict)
+    context: Dict[str, Any] = Field(default_factory=dict)
+    timeoutMs: Optional[int] = None
+
+
+class BatchExecuteRequest(BaseModel):
+    language: str = Field(default="python")
+    codeHash: Optional[str] = None
+    code: Optional[str] = None
+    memoryMb: Optional[int] = None
+    allowNetwork: Optional[bool] = False
+    items: List[BatchItem] = Field(default_factory=list)
+
+
+class BatchExecuteResponse(BaseModel):
+    success: bool
+    codeHash: Optional[str] = None
+    errorCode: Optional[str] = None
+    errorMessage: Optional[str] = None
+    results: List[ExecuteResponse] = Field(default_factory=list)
+
+
+# Code registered by sha256 content hash; batch calls after the first one send only the hash.
+CODE_REGISTRY_MAX = int(os.environ.get("FLOWLET_CODE_REGISTRY_MAX", "1024"))
+_code_registry: "OrderedDict[str, str]" = OrderedDict()
+_code_registry_lock = threading.Lock()
+
+
+def code_hash(code: str) -> str:
+    return hashlib.sha256(code.encode("utf-8")).hexdigest()
+
+
+def register_code(code: str) -> str:
+    digest = code_hash(code)
+    with _code_registry_lock:
+        _code_registry[digest] = code
+        _code_registry.move_to_end(digest)
+        while len(_code_registry) > CODE_REGISTRY_MAX:
+            _code_registry.popitem(last=False)
+    return digest
+
+
+def lookup_code(digest: str) -> Optional[str]:
+    with _code_registry_lock:
+        code = _code_registry.get(digest)
+        if code is not None:
+            _code_registry.move_to_end(digest)
+        return code
+
+
 RUNNER_TEMPLATE = """
 import json
 import os
@@ -121,6 +175,124 @@ if __name__ == "__main__":
 """
 
 
+BATCH_RUNNER_TEMPLATE = """
+import contextlib
+import io
+import json
+import os
+import signal
+import sys
+import time
+import traceback
+import types
+
+try:
+    import resource  # type: ignore
+except Exception:
+    resource = None
+
+def _apply_limits(memory_mb: int | None) -> None:
+    if resource is None or memory_mb is None:
+        return
+    limit_bytes = int(memory_mb) * 1024 * 1024
+    try:
+        resource.setrlimit(resource.RLIMIT_AS, (limit_bytes, limit_bytes))
+    except Exception:
+        pass
+    try:
+        resource.setrlimit(resource.RLIMIT_DATA, (limit_bytes, limit_bytes))
+    except Exception:
+        pass
+
+def _disable_network() -> None:
+    try:
+        import socket
+    except Exception:
+        return
+
+    class _BlockedSocket(socket.socket):  # type: ignore
+        def __init__(self, *args, **kwargs):
+            raise RuntimeError("Network access is disabled")
+
+    socket.socket = _BlockedSocket  # type: ignore
+
+
+class _ItemTimeout(BaseException):
+    pass
+
+
+def _on_alarm(signum, frame):
+    raise _ItemTimeout()
+
+
+def _append(result_file, result):
+    result_file.write(json.dumps(result) + "\\n")
+    result_file.flush()
+
+
+def main() -> int:
+    payload = json.load(sys.stdin)
+    _apply_limits(payload.get("memoryMb"))
+    if not payload.get("allowNetwork", False):
+        _disable_network()
+
+    user_path = os.environ.get("FLOWLET_USER_CODE")
+    result_path = os.environ.get("FLOWLET_RESULT_PATH")
+    if not user_path or not result_path:
+        print("missing env", file=sys.stderr)
+        return 2
+
+    items = payload.get("items", [])
+    try:
+        with open(user_path, "r", encoding="utf-8") as user_file:
+            code = compile(user_file.read(), user_path, "exec")
+    except Exception:
+        error = traceback.format_exc()
+        with open(result_path, "a", encoding="utf-8") as result_file:
+            for _ in items:
+                _append(result_file, {"success": False, "errorMessage": error})
+        return 1
+
+    signal.signal(signal.SIGALRM, _on_alarm)
+    result_file = open(result_path, "a", encoding="utf-8")
+    for item in items:
+        stdout = io.StringIO()
+        stderr = io.StringIO()
+        timeout_sec = max(0.1, (item.get("timeoutMs") or 3000) / 1000.0)
+        start = time.time()
+        try:
+            with contextlib.redirect_stdout(stdout), contextlib.redirect_stderr(stderr):
+                signal.setitimer(signal.ITIMER_REAL, timeout_sec)
+                try:
+                    # Compiled once, but executed in a fresh module per item so globals never carry over.
+                    module = types.ModuleType("user_code")
+                    module.__file__ = user_path
+                    exec(code, module.__dict__)
+                    if not callable(getattr(module, "run", None)):
+                        raise RuntimeError("run(inputs, context) is required")
+                    output = module.run(item.get("inputs", {}), item.get("context", {}))
+                finally:
+                    signal.setitimer(signal.ITIMER_REAL, 0)
+            json.dumps(output)
+            result = {"success": True, "output": output}
+        except _ItemTimeout:
+            result = {"success": False, "errorMessage": "execution timeout"}
+        except Exception:
+            result = {"success": False, "errorMessage": traceback.format_exc()}
+        result["stdout"] = stdout.getvalue()
+        result["stderr"] = stderr.getvalue()
+        result["durationMs"] = int((time.time() - start) * 1000)
+        # One JSON line per item, flushed immediately so a crash only loses the items still pending.
+        _append(result_file, result)
+    result_file.close()
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
+"""
+
+
 @app.get("/health")
 def health() -> Dict[str, str]:
     return {"status": "ok"}
@@ -202,3 +374,103 @@ def execute(req: ExecuteRequest) -> ExecuteResponse:
             stderr=stderr,
             durationMs=result_data.get("durationMs") or duration_ms,
         )
+
+
+@app.post("/execute/batch", response_model=BatchExecuteResponse)
+def execute_batch(req: BatchExecuteRequest) -> BatchExecuteResponse:
+    """Runs one piece of code against N input sets in a single interpreter.
+
+    The code is compiled once and executed in a fresh module namespace per item;
+    each item keeps its own timeout, output and error.
+    Send `code` the first time (it is registered under its sha256 hash) and only
+    `codeHash` afterwards; an unknown hash returns errorCode=CODE_NOT_REGISTERED.
+    """
+    if req.language.lower() != "python":
+        return BatchExecuteResponse(success=False, errorCode="UNSUPPORTED_LANGUAGE",
+                                    errorMessage="only python is supported")
+    if req.code is not None:
+        digest = register_code(req.code)
+        if req.codeHash and req.codeHash != digest:
+            return BatchExecuteResponse(success=False, errorCode="CODE_HASH_MISMATCH",
+                                        errorMessage="codeHash does not match code")
+        code = req.code
+    elif req.codeHash:
+        digest = req.codeHash
+        code = lookup_code(digest)
+        if code is None:
+            return BatchExecuteResponse(success=False, codeHash=digest, errorCode="CODE_NOT_REGISTERED",
+                                        errorMessage="code is not registered")
+    else:
+        return BatchExecuteResponse(success=False, errorCode="CODE_REQUIRED",
+                                    errorMessage="code or codeHash is required")
+    if not req.items:
+        return BatchExecuteResponse(success=True, codeHash=digest, results=[])
+
+    start_time = time.time()
+    with tempfile.TemporaryDirectory() as tmpdir:
+        tmp_path = Path(tmpdir)
+        user_path = tmp_path / "user_code.py"
+        runner_path = tmp_path / "runner.py"
+        result_path = tmp_path / "result.jsonl"
+
+        user_path.write_text(code, encoding="utf-8")
+        runner_path.write_text(BATCH_RUNNER_TEMPLATE, encoding="utf-8")
+
+        payload = {
+            "items": [item.model_dump() for item in req.items],
+            "allowNetwork": bool(req.allowNetwork),
+            "memoryMb": req.memoryMb,
+        }
+        # Per-item timeouts are enforced inside the runner; this bounds the process as a whole.
+        total_timeout_sec = 1.0 + sum(max(0.1, (item.timeoutMs or 3000) / 1000.0) for item in req.items)
+        env = os.environ.copy()
+        env["FLOWLET_USER_CODE"] = str(user_path)
+        env["FLOWLET_RESULT_PATH"] = str(result_path)
+
+        process_error = None
+        stderr = ""
+        try:
+            completed = subprocess.run(
+                ["python", str(runner_path)],
+                input=json.dumps(payload),
+                text=True,
+                capture_output=True,
+                timeout=total_timeout_sec,
+                env=env,
+            )
+            stderr = completed.stderr or ""
+            if completed.returncode not in (0, 1):
+                process_error = f"runner exited with code {completed.returncode}"
+        except subprocess.TimeoutExpired:
+            process_error = "execution timeout"
+
+        raw_results = []
+        if result_path.exists():
+            for line in result_path.read_text(encoding="utf-8").splitlines():
+                try:
+                    raw_results.append(json.loads(line))
+                except ValueError:
+                    break
+
+    duration_ms = int((time.time() - start_time) * 1000)
+    results: List[ExecuteResponse] = []
+    for index in range(len(req.items)):
+        if index < len(raw_results):
+            data = raw_results[index]
+            results.append(ExecuteResponse(
+                success=bool(data.get("success")),
+                output=data.get("output") if data.get("success") else None,
+                stdout=data.get("stdout") or "",
+                stderr=data.get("stderr") or "",
+                durationMs=data.get("durationMs"),
+                errorMessage=None if data.get("success") else (data.get("errorMessage") or "execution failed"),
+            ))
+        else:
+            results.append(ExecuteResponse(
+                success=False,
+                stdout="",
+                stderr=stderr,
+                durationMs=duration_ms,
+                errorMessage=process_error or "no result produced",
+            ))
+    return BatchExecuteResponse(success=True, codeHash=digest, results=results)
@@ -71,6 +71,11 @@ export const ExecutionStatusTag: React.FC<ExecutionStatusTagProps> = ({
       icon: <AiOutlineSync className={`${styles.icon} anticon-spin`} />,
       label: "等待回调",
     },
+    [ExecutionStatus.TIMEOUT]: {
+      color: "error",
+      icon: <AiOutlineClockCircle className={styles.icon} />,
+      label: "超时",
+    },
   };
 
   const statusInfo = config[status] || {
@@ -48,6 +48,9 @@ import {
   VectorStoreNodeConfig,
   SimhashNodeConfig,
   KeywordMatchNodeConfig,
+  DelayNodeConfig,
+  SubflowJoinNodeConfig,
+  EmbeddingNodeConfig,
   VariableAssignerNodeConfig,
   JsonParserNodeConfig,
   OutputVariables,
@@ -653,6 +656,9 @@ const NodeConfigPanel: React.FC = () => {
       case NodeType.VECTOR_STORE:
         return <VectorStoreNodeConfig />;
 
+      case NodeType.EMBEDDING:
+        return <EmbeddingNodeConfig />;
+
       case NodeType.VARIABLE_ASSIGNER:
         return <VariableAssignerNodeConfig nodeId={node.id} />;
 
@@ -665,6 +671,12 @@ const NodeConfigPanel: React.FC = () => {
       case NodeType.KEYWORD_MATCH:
         return <KeywordMatchNodeConfig />;
 
+      case NodeType.DELAY:
+        return <DelayNodeConfig />;
+
+      case NodeType.SUBFLOW_JOIN:
+        return <SubflowJoinNodeConfig />;
+
       default:
         return null;
     }
@@ -36,8 +36,13 @@ const useStyles = createStyles(({ token, css }) => ({
   `,
 }));
 
+const DEFAULT_CODE: Record<CodeNodeConfigType["language"], string> = {
+  python: `def run(inputs, context):\n    return {"ok": True}\n`,
+  javascript: `function run(inputs, context) {\n  return { ok: true };\n}\n`,
+};
+
 /**
- * Code 节点配置组件（Python）
+ * Code 节点配置组件（Python / JavaScript）
  */
 export const CodeNodeConfig: React.FC = () => {
   const { styles } = useStyles();
@@ -45,7 +50,7 @@ export const CodeNodeConfig: React.FC = () => {
   const selectedNode = useFlowStore((state) => state.selectedNode);
   const updateNode = useFlowStore((state) => state.updateNode);
 
-  const defaultCode = `def run(inputs, context):\n    return {"ok": True}\n`;
+  const defaultCode = DEFAULT_CODE.python;
 
   const language = Form.useWatch("language", {
     form,
@@ -80,7 +85,28 @@ export const CodeNodeConfig: React.FC = () => {
   return (
     <div className={styles.container}>
       <Form.Item name="language" label="语言" initialValue="python">
-        <Select options={[{ value: "python", label: "Python" }]} disabled />
+        <Select
+          options={[
+            { value: "python", label: "Python" },
+            { value: "javascript", label: "JavaScript" },
+          ]}
+          onChange={(value: CodeNodeConfigType["language"]) => {
+            if (!selectedNode) return;
+            const currentCode = form.getFieldValue("code");
+            // 仍是另一种语言的默认模板时随语言切换
+            const nextCode = Object.values(DEFAULT_CODE).includes(currentCode)
+              ? DEFAULT_CODE[value]
+              : currentCode;
+            form.setFieldValue("code", nextCode);
+            updateNode(selectedNode.id, {
+              config: {
+                ...selectedNode.data.config,
+                language: value,
+                code: nextCode,
+              },
+            });
+          }}
+        />
       </Form.Item>
 
       <Form.Item
@@ -96,7 +122,7 @@ export const CodeNodeConfig: React.FC = () => {
       >
         <div className={styles.codeEditor}>
           <Editor
-            language="python"
+            language={language === "javascript" ? "javascript" : "python"}
             theme="vs-light"
             value={codeValue || ""}
             onChange={(value) => {
@@ -182,6 +208,11 @@ export const CodeNodeConfig: React.FC = () => {
                     运行环境为受限 Python 沙箱，依赖包需预装。
                   </div>
                 )}
+                {language === "javascript" && (
+                  <div className={styles.tip}>
+                    JavaScript 在后端内置引擎中执行，无法访问网络、文件与宿主对象，内存限制不生效。
+                  </div>
+                )}
               </>
             ),
           },
@@ -0,0 +1,88 @@
+import React, { useMemo } from "react";
+import { Form, Select, Space } from "antd";
+import { createStyles } from "antd-style";
+import { VariableInput } from "@/components/VariableInput";
+
+const useStyles = createStyles(({ css }) => ({
+  section: css`
+    display: flex;
+    flex-direction: column;
+    gap: 8px;
+
+    .ant-form-item {
+      margin-bottom: 8px;
+    }
+
+    .ant-form-item:last-child {
+      margin-bottom: 0;
+    }
+  `,
+}));
+
+const DelayNodeConfig: React.FC = () => {
+  const { styles } = useStyles();
+  const form = Form.useFormInstance();
+  const delayMode = Form.useWatch("delayMode", { form, preserve: true }) as
+    | "duration"
+    | "until"
+    | undefined;
+
+  const modeOptions = useMemo(
+    () => [
+      { value: "duration", label: "等待一段时间" },
+      { value: "until", label: "等待到指定时间" },
+    ],
+    []
+  );
+
+  const unitOptions = useMemo(
+    () => [
+      { value: "ms", label: "毫秒" },
+      { value: "s", label: "秒" },
+      { value: "m", label: "分钟" },
+      { value: "h", label: "小时" },
+      { value: "d", label: "天" },
+    ],
+    []
+  );
+
+  return (
+    <div className={styles.section}>
+      <Form.Item
+        name="delayMode"
+        label="延迟方式"
+        extra="等待期间流程处于暂停状态、不占用线程，服务重启后仍会按时继续"
+      >
+        <Select options={modeOptions} />
+      </Form.Item>
+
+      {delayMode === "until" ? (
+        <Form.Item
+          name="until"
+          label="恢复时间"
+          rules={[{ required: true, message: "请输入恢复时间" }]}
+          extra="ISO-8601 时间、yyyy-MM-dd HH:mm:ss 或毫秒时间戳，支持变量引用"
+        >
+          <VariableInput placeholder="{{input.notifyAt}}" />
+        </Form.Item>
+      ) : (
+        <Form.Item label="等待时长" required>
+          <Space.Compact style={{ width: "100%" }}>
+            <Form.Item
+              name="duration"
+              noStyle
+              rules={[{ required: true, message: "请输入等待时长" }]}
+            >
+              <VariableInput placeholder="30 或 {{input.waitSeconds}}" />
+            </Form.Item>
+            <Form.Item name="durationUnit" noStyle>
+              <Select options={unitOptions} style={{ width: 96 }} />
+            </Form.Item>
+          </Space.Compact>
+        </Form.Item>
+      )}
+    </div>
+  );
+};
+
+export default DelayNodeConfig;
@@ -0,0 +1,60 @@
+import React from "react";
+import { Form, InputNumber, Switch } from "antd";
+import { createStyles } from "antd-style";
+import { VariableInput } from "@/components/VariableInput";
+
+const useStyles = createStyles(({ css }) => ({
+  section: css`
+    display: flex;
+    flex-direction: column;
+    gap: 8px;
+
+    .ant-form-item {
+      margin-bottom: 8px;
+    }
+
+    .ant-form-item:last-child {
+      margin-bottom: 0;
+    }
+  `,
+}));
+
+const EmbeddingNodeConfig: React.FC = () => {
+  const { styles } = useStyles();
+
+  return (
+    <div className={styles.section}>
+      <Form.Item
+        name="textSource"
+        label="文本来源"
+        rules={[{ required: true, message: "请输入文本来源表达式" }]}
+        extra="结果可以是单个字符串或字符串列表，并发执行的节点会合并为批量请求"
+      >
+        <VariableInput placeholder="{{nodes.splitter.chunks}}" />
+      </Form.Item>
+
+      <Form.Item name="normalize" label="归一化向量" valuePropName="checked">
+        <Switch />
+      </Form.Item>
+
+      <Form.Item
+        name="cacheEnabled"
+        label="使用向量缓存"
+        valuePropName="checked"
+        extra="相同服务、模型下的相同文本直接复用已生成的向量"
+      >
+        <Switch />
+      </Form.Item>
+
+      <Form.Item
+        name="timeoutMs"
+        label="超时时间 (毫秒)"
+        extra="等待向量化结果的最长时间，留空时使用全局配置"
+      >
+        <InputNumber min={1000} step={1000} style={{ width: "100%" }} />
+      </Form.Item>
+    </div>
+  );
+};
+
+export default EmbeddingNodeConfig;
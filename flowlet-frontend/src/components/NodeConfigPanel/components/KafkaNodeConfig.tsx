@@ -1,5 +1,14 @@
 import React from "react";
-import { Form, Input, Select, Switch, Divider } from "antd";
+import {
+  Form,
+  Input,
+  InputNumber,
+  Select,
+  Switch,
+  Divider,
+  Collapse,
+} from "antd";
+import { AiOutlineSetting } from "react-icons/ai";
 import { VariableInput } from "@/components/VariableInput";
 import { CallbackConfig } from "./CallbackConfig";
 import { OutputAliasConfig } from "./OutputAliasConfig";
@@ -32,6 +41,59 @@ const KafkaAuthConfig: React.FC = () => (
   </>
 );
 
+/**
+ * Kafka 生产者调优配置组件
+ * 相同连接与调优参数的节点共享同一个生产者，留空时使用服务端默认值
+ */
+const KafkaProducerTuningConfig: React.FC = () => (
+  <Collapse
+    ghost
+    items={[
+      {
+        key: "producer",
+        label: (
+          <span>
+            <AiOutlineSetting /> 生产者调优
+          </span>
+        ),
+        children: (
+          <>
+            <Form.Item name="acks" label="确认级别" extra="开启幂等时强制为 all">
+              <Select allowClear placeholder="默认 1">
+                <Select.Option value="0">0（不等待 Broker）</Select.Option>
+                <Select.Option value="1">1（Leader 写入）</Select.Option>
+                <Select.Option value="all">all（全部副本写入）</Select.Option>
+              </Select>
+            </Form.Item>
+            <Form.Item
+              name="lingerMs"
+              label="批次等待 (ms)"
+              extra="同步逐条发送时会计入节点耗时，批量/异步发送可适当调大"
+            >
+              <InputNumber min={0} max={1000} placeholder="默认 1" />
+            </Form.Item>
+            <Form.Item name="batchSize" label="批次大小 (字节)">
+              <InputNumber min={0} step={16384} placeholder="默认 65536" />
+            </Form.Item>
+            <Form.Item name="compressionType" label="压缩算法">
+              <Select allowClear placeholder="默认 lz4">
+                <Select.Option value="none">none</Select.Option>
+                <Select.Option value="gzip">gzip</Select.Option>
+                <Select.Option value="snappy">snappy</Select.Option>
+                <Select.Option value="lz4">lz4</Select.Option>
+                <Select.Option value="zstd">zstd</Select.Option>
+              </Select>
+            </Form.Item>
+            <Form.Item name="idempotence" label="幂等生产者" valuePropName="checked">
+              <Switch />
+            </Form.Item>
+          </>
+        ),
+      },
+    ]}
+  />
+);
+
 /**
  * Kafka 节点配置组件
  * 包含连接配置、消息配置和回调配置
@@ -41,6 +103,9 @@ export const KafkaNodeConfig: React.FC<KafkaNodeConfigProps> = ({
   waitForCallback,
   callbackType,
 }) => {
+  const form = Form.useFormInstance();
+  const batchEnabled = Form.useWatch("batchEnabled", { form, preserve: true });
+
   return (
     <>
       <Divider plain>连接配置</Divider>
@@ -63,6 +128,8 @@ export const KafkaNodeConfig: React.FC<KafkaNodeConfigProps> = ({
 
       {authType && authType !== "none" && <KafkaAuthConfig />}
 
+      <KafkaProducerTuningConfig />
+
       <Divider plain>消息配置</Divider>
       <Form.Item
         name="topic"
@@ -71,13 +138,53 @@ export const KafkaNodeConfig: React.FC<KafkaNodeConfigProps> = ({
       >
         <VariableInput placeholder="my-topic" />
       </Form.Item>
+      <Form.Item
+        name="sendMode"
+        label="发送模式"
+        initialValue="sync"
+        extra="等待回调时固定为同步发送"
+      >
+        <Select>
+          <Select.Option value="sync">同步（等待 Broker 确认）</Select.Option>
+          <Select.Option value="async">异步（不等待确认，失败记录日志）</Select.Option>
+          <Select.Option value="fire_and_forget">发后即忘</Select.Option>
+        </Select>
+      </Form.Item>
+      <Form.Item
+        name="batchEnabled"
+        label="批量发送"
+        valuePropName="checked"
+        extra="将数组中的每一项作为一条消息发送"
+      >
+        <Switch />
+      </Form.Item>
+      {batchEnabled && (
+        <>
+          <Form.Item
+            name="itemsExpression"
+            label="数据来源"
+            rules={[{ required: true, message: "请输入数组变量" }]}
+          >
+            <VariableInput placeholder="{{nodes.api-1.body.items}}" />
+          </Form.Item>
+          <Form.Item
+            name="itemVariable"
+            label="当前项变量"
+            initialValue="item"
+            extra="模板中通过 {{item}} 引用当前项，{{index}} 引用下标"
+          >
+            <Input placeholder="item" />
+          </Form.Item>
+        </>
+      )}
       <Form.Item name="keyExpression" label="消息 Key">
         <VariableInput placeholder="可使用变量作为消息 Key" />
       </Form.Item>
       <Form.Item
         name="messageTemplate"
         label="消息内容"
-        rules={[{ required: true, message: "请输入消息模板" }]}
+        rules={[{ required: !batchEnabled, message: "请输入消息模板" }]}
+        extra={batchEnabled ? "留空时直接发送当前项" : undefined}
       >
         <VariableInput
           multiline
@@ -85,18 +192,22 @@ export const KafkaNodeConfig: React.FC<KafkaNodeConfigProps> = ({
         />
       </Form.Item>
 
-      <Divider plain>回调配置</Divider>
-      <Form.Item
-        name="waitForCallback"
-        label="等待回调"
-        valuePropName="checked"
-        extra="开启后流程会暂停，直到收到回调"
-      >
-        <Switch />
-      </Form.Item>
+      {!batchEnabled && (
+        <>
+          <Divider plain>回调配置</Divider>
+          <Form.Item
+            name="waitForCallback"
+            label="等待回调"
+            valuePropName="checked"
+            extra="开启后流程会暂停，直到收到回调"
+          >
+            <Switch />
+          </Form.Item>
 
-      {waitForCallback && (
-        <CallbackConfig callbackType={callbackType} messageSource="kafka" />
+          {waitForCallback && (
+            <CallbackConfig callbackType={callbackType} messageSource="kafka" />
+          )}
+        </>
       )}
 
       <Divider plain>输出设置</Divider>
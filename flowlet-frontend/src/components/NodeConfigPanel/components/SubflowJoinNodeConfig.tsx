@@ -0,0 +1,65 @@
+import React, { useMemo } from "react";
+import { Form, Select } from "antd";
+import { createStyles } from "antd-style";
+import { useFlowStore } from "@/store/flowStore";
+import { NodeType, type SubflowNodeConfig } from "@/types";
+
+const useStyles = createStyles(({ css }) => ({
+  section: css`
+    display: flex;
+    flex-direction: column;
+    gap: 8px;
+
+    .ant-form-item {
+      margin-bottom: 8px;
+    }
+
+    .ant-form-item:last-child {
+      margin-bottom: 0;
+    }
+  `,
+}));
+
+const SubflowJoinNodeConfig: React.FC = () => {
+  const { styles } = useStyles();
+  const nodes = useFlowStore((state) => state.nodes);
+
+  // 只有调用方式为"启动后不等待"的子流程节点才需要汇聚
+  const subflowOptions = useMemo(
+    () =>
+      nodes
+        .filter((node) => node.data.nodeType === NodeType.SUBFLOW)
+        .map((node) => {
+          const config = node.data.config as SubflowNodeConfig | undefined;
+          const detached = config?.invokeMode === "fire_and_forget";
+          return {
+            value: node.id,
+            label: detached
+              ? node.data.label
+              : `${node.data.label}（未设置为启动后不等待）`,
+            disabled: !detached,
+          };
+        }),
+    [nodes]
+  );
+
+  return (
+    <div className={styles.section}>
+      <Form.Item
+        name="subflowNodeIds"
+        label="等待的子流程节点"
+        rules={[{ required: true, message: "请选择至少一个子流程节点" }]}
+        extra="等待期间流程处于暂停状态、不占用线程，所选子流程全部结束后继续执行"
+      >
+        <Select
+          mode="multiple"
+          options={subflowOptions}
+          placeholder="选择调用方式为启动后不等待的子流程节点"
+          allowClear
+        />
+      </Form.Item>
+    </div>
+  );
+};
+
+export default SubflowJoinNodeConfig;
@@ -101,7 +101,7 @@ const CreateCollectionModal: React.FC<CreateCollectionModalProps> = ({
       setLoading(true);
       await createCollection({
         provider: {
-          type: provider.providerKey as "milvus" | "qdrant",
+          type: provider.providerKey as VectorStoreProviderKey,
           baseUrl: provider.baseUrl,
           database: provider.database || undefined,
         },
@@ -214,7 +214,7 @@ const VectorStoreNodeConfig: React.FC = () => {
       try {
         const result = await listCollections({
           provider: {
-            type: provider.providerKey as "milvus" | "qdrant",
+            type: provider.providerKey as VectorStoreProviderKey,
             base_url: provider.baseUrl,
           },
           database: provider.database || undefined,
@@ -261,7 +261,7 @@ const VectorStoreNodeConfig: React.FC = () => {
     try {
       const result = await listCollections({
         provider: {
-          type: provider.providerKey as "milvus" | "qdrant",
+          type: provider.providerKey as VectorStoreProviderKey,
           base_url: provider.baseUrl,
         },
         database: provider.database || undefined,
@@ -11,6 +11,9 @@ export { default as LlmNodeConfig } from "./LlmNodeConfig";
 export { default as VectorStoreNodeConfig } from "./VectorStoreNodeConfig";
 export { default as SimhashNodeConfig } from "./SimhashNodeConfig";
 export { default as KeywordMatchNodeConfig } from "./KeywordMatchNodeConfig";
+export { default as DelayNodeConfig } from "./DelayNodeConfig";
+export { default as SubflowJoinNodeConfig } from "./SubflowJoinNodeConfig";
+export { default as EmbeddingNodeConfig } from "./EmbeddingNodeConfig";
 export { VariableAssignerNodeConfig } from "./VariableAssignerNodeConfig/index";
 export { JsonParserNodeConfig } from "./JsonParserNodeConfig";
 
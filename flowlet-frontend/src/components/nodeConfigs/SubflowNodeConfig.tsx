@@ -26,6 +26,7 @@ import type {
   FlowNodeData,
   SubflowNodeConfig,
   SubflowInputMapping,
+  SubflowInvokeMode,
   FlowDefinition,
   InputVariable,
   FlowGraphData,
@@ -59,6 +60,8 @@ const SubflowNodeConfigComponent: React.FC<SubflowNodeConfigProps> = ({
     inputMappings: rawConfig?.inputMappings ?? [],
     continueOnError: rawConfig?.continueOnError ?? false,
     timeout: rawConfig?.timeout ?? 30000,
+    invokeMode: rawConfig?.invokeMode ?? "sync",
+    forwardEvents: rawConfig?.forwardEvents ?? false,
   };
 
   // 状态
@@ -432,6 +435,43 @@ const SubflowNodeConfigComponent: React.FC<SubflowNodeConfigProps> = ({
 
       <Divider style={{ margin: "16px 0" }}>高级设置</Divider>
 
+      {/* 调用方式 */}
+      <div className="config-item">
+        <div className="config-label">
+          <Tooltip title="异步等待时子流程在后台执行、不占用线程；启动后不等待时当前节点立即完成，可由子流程汇聚节点等待结果">
+            <span>调用方式</span>
+          </Tooltip>
+        </div>
+        <Select
+          value={config.invokeMode}
+          onChange={(value: SubflowInvokeMode) =>
+            onChange({ ...config, invokeMode: value })
+          }
+          size="small"
+          style={{ width: "100%" }}
+        >
+          <Option value="sync">同步等待</Option>
+          <Option value="async">异步等待</Option>
+          <Option value="fire_and_forget">启动后不等待</Option>
+        </Select>
+      </div>
+
+      {/* 事件转发 */}
+      <div className="config-item">
+        <div className="config-label">
+          <Tooltip title="将子流程的执行事件（含大模型流式输出）转发到当前流程">
+            <span>转发子流程事件</span>
+          </Tooltip>
+        </div>
+        <Switch
+          size="small"
+          checked={config.forwardEvents}
+          onChange={(checked) =>
+            onChange({ ...config, forwardEvents: checked })
+          }
+        />
+      </div>
+
       {/* 错误处理 */}
       <div className="config-item">
         <div className="config-label">
@@ -23,6 +23,9 @@ import {
   AiOutlineReload,
   AiOutlineTags,
   AiOutlineMessage,
+  AiOutlineClockCircle,
+  AiOutlineMergeCells,
+  AiOutlineFunction,
 } from "react-icons/ai";
 import { TbVariablePlus, TbJson, TbFingerprint } from "react-icons/tb";
 import {
@@ -80,13 +83,16 @@ const nodeIcons: Record<NodeType, React.ReactNode> = {
   [NodeType.CONDITION]: <AiOutlineBranches />,
   [NodeType.TRANSFORM]: <AiOutlineSwap />,
   [NodeType.SUBFLOW]: <AiOutlineBranches />,
+  [NodeType.SUBFLOW_JOIN]: <AiOutlineMergeCells />,
   [NodeType.FOR_EACH]: <AiOutlineReload />,
   [NodeType.LLM]: <LuBrain />,
   [NodeType.VECTOR_STORE]: <AiOutlineDatabase />,
+  [NodeType.EMBEDDING]: <AiOutlineFunction />,
   [NodeType.VARIABLE_ASSIGNER]: <TbVariablePlus />,
   [NodeType.JSON_PARSER]: <TbJson />,
   [NodeType.SIMHASH]: <TbFingerprint />,
   [NodeType.KEYWORD_MATCH]: <AiOutlineTags />,
+  [NodeType.DELAY]: <AiOutlineClockCircle />,
   [NodeType.NOTE]: <AiOutlineMessage />,
 };
 
@@ -100,13 +106,16 @@ const nodeColors: Record<NodeType, string> = {
   [NodeType.CONDITION]: "#faad14",
   [NodeType.TRANSFORM]: "#13c2c2",
   [NodeType.SUBFLOW]: "#eb2f96",
+  [NodeType.SUBFLOW_JOIN]: "#c41d7f",
   [NodeType.FOR_EACH]: "#eb2f96",
   [NodeType.LLM]: "#3b82f6",
   [NodeType.VECTOR_STORE]: "#10b981",
+  [NodeType.EMBEDDING]: "#0d9488",
   [NodeType.VARIABLE_ASSIGNER]: "#06b6d4",
   [NodeType.JSON_PARSER]: "#f59e0b",
   [NodeType.SIMHASH]: "#14b8a6",
   [NodeType.KEYWORD_MATCH]: "#f97316",
+  [NodeType.DELAY]: "#0ea5e9",
   [NodeType.NOTE]: "#8b5cf6",
 };
 
@@ -6,11 +6,14 @@ import {
   AiOutlineBranches,
   AiOutlineSwap,
   AiOutlinePartition,
+  AiOutlineMergeCells,
+  AiOutlineFunction,
   AiOutlineCode,
   AiOutlineDatabase,
   AiOutlineReload,
   AiOutlineTags,
   AiOutlineMessage,
+  AiOutlineClockCircle,
 } from "react-icons/ai";
 import { TbVariablePlus, TbJson, TbFingerprint } from "react-icons/tb";
 import { NodeType } from "@/types";
@@ -95,6 +98,13 @@ const NODE_TYPE_BASE_CONFIGS: NodeTypeBaseConfig[] = [
     i18nKey: "subflow",
     category: "control",
   },
+  {
+    type: NodeType.SUBFLOW_JOIN,
+    icon: <AiOutlineMergeCells />,
+    color: "#c41d7f",
+    i18nKey: "subflow_join",
+    category: "control",
+  },
   {
     type: NodeType.FOR_EACH,
     icon: <AiOutlineReload />,
@@ -116,6 +126,13 @@ const NODE_TYPE_BASE_CONFIGS: NodeTypeBaseConfig[] = [
     i18nKey: "vector_store",
     category: "ai",
   },
+  {
+    type: NodeType.EMBEDDING,
+    icon: <AiOutlineFunction />,
+    color: "#0d9488",
+    i18nKey: "embedding",
+    category: "ai",
+  },
   {
     type: NodeType.VARIABLE_ASSIGNER,
     icon: <TbVariablePlus />,
@@ -144,6 +161,13 @@ const NODE_TYPE_BASE_CONFIGS: NodeTypeBaseConfig[] = [
     i18nKey: "keyword_match",
     category: "utility",
   },
+  {
+    type: NodeType.DELAY,
+    icon: <AiOutlineClockCircle />,
+    color: "#0ea5e9",
+    i18nKey: "delay",
+    category: "control",
+  },
   {
     type: NodeType.NOTE,
     icon: <AiOutlineMessage />,
@@ -1,13 +1,15 @@
-export type VectorStoreProviderKey = "milvus" | "qdrant";
+export type VectorStoreProviderKey = "milvus" | "qdrant" | "embedded";
 
 export const VECTOR_STORE_PROVIDER_LABELS: Record<VectorStoreProviderKey, string> = {
   milvus: "Milvus",
   qdrant: "Qdrant",
+  embedded: "内置 HNSW",
 };
 
 export const VECTOR_STORE_PROVIDER_HINTS: Record<VectorStoreProviderKey, string> = {
   milvus: "自建或云托管 Milvus 集群",
   qdrant: "Qdrant Cloud / 自建服务",
+  embedded: "JVM 内置索引，Base URL 填存储名（如 local://default）",
 };
 
 export const VECTOR_STORE_PROVIDER_COLORS: Record<
@@ -16,4 +18,5 @@ export const VECTOR_STORE_PROVIDER_COLORS: Record<
 > = {
   milvus: "#0ea5e9",
   qdrant: "#16a34a",
+  embedded: "#f59e0b",
 };
@@ -100,6 +100,8 @@ const getStatusMeta = (status: ExecutionStatus | undefined, t: (key: string) =>
       return { label: t("detail.status.completed"), color: "#52c41a" };
     case ExecutionStatus.FAILED:
       return { label: t("detail.status.failed"), color: "#ff4d4f" };
+    case ExecutionStatus.TIMEOUT:
+      return { label: t("detail.status.timeout"), color: "#ff4d4f" };
     case ExecutionStatus.RUNNING:
       return { label: t("detail.status.running"), color: "#1890ff" };
     case ExecutionStatus.WAITING:
@@ -288,6 +288,7 @@ const ExecutionHistory: React.FC = () => {
               { label: t("history.status.all"), value: undefined },
               { label: t("history.status.completed"), value: "completed" },
               { label: t("history.status.failed"), value: "failed" },
+              { label: t("history.status.timeout"), value: "timeout" },
               { label: t("history.status.running"), value: "running" },
               { label: t("history.status.pending"), value: "pending" },
               { label: t("history.status.waiting"), value: "waiting" },
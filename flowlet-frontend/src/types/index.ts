@@ -10,13 +10,16 @@ export enum NodeType {
   CONDITION = "condition",
   TRANSFORM = "transform",
   SUBFLOW = "subflow",
+  SUBFLOW_JOIN = "subflow_join",
   FOR_EACH = "foreach",
   LLM = "llm",
   VECTOR_STORE = "vector_store",
+  EMBEDDING = "embedding",
   VARIABLE_ASSIGNER = "variable_assigner",
   JSON_PARSER = "json_parser",
   SIMHASH = "simhash",
   KEYWORD_MATCH = "keyword_match",
+  DELAY = "delay",
   NOTE = "note",
 }
 
@@ -237,6 +240,38 @@ export const NODE_OUTPUT_VARIABLES: Record<NodeType, OutputVariable[]> = {
       description: "子流程执行实例ID（调试用）",
     },
   ],
+  [NodeType.SUBFLOW_JOIN]: [
+    {
+      name: "results",
+      label: "子流程结果",
+      type: "object",
+      description: "按子流程节点 ID 汇总的执行结果",
+    },
+    {
+      name: "total",
+      label: "子流程总数",
+      type: "number",
+      description: "等待汇合的子流程数量",
+    },
+    {
+      name: "completed",
+      label: "成功数量",
+      type: "number",
+      description: "成功完成的子流程数量",
+    },
+    {
+      name: "failed",
+      label: "失败数量",
+      type: "number",
+      description: "失败或超时的子流程数量",
+    },
+    {
+      name: "success",
+      label: "是否全部成功",
+      type: "boolean",
+      description: "所有子流程是否都成功完成",
+    },
+  ],
   [NodeType.FOR_EACH]: [
     {
       name: "mode",
@@ -379,6 +414,58 @@ export const NODE_OUTPUT_VARIABLES: Record<NodeType, OutputVariable[]> = {
       description: "命中的规则组明细",
     },
   ],
+  [NodeType.DELAY]: [
+    {
+      name: "resumeAt",
+      label: "计划恢复时间",
+      type: "string",
+      description: "按配置计算出的恢复时间",
+    },
+    {
+      name: "firedAt",
+      label: "实际恢复时间",
+      type: "string",
+      description: "定时器实际触发的时间",
+    },
+  ],
+  [NodeType.EMBEDDING]: [
+    {
+      name: "vectors",
+      label: "向量列表",
+      type: "array",
+      description: "与输入文本顺序一致的向量",
+    },
+    {
+      name: "vector",
+      label: "向量",
+      type: "array",
+      description: "输入为单个文本时的向量",
+    },
+    {
+      name: "dim",
+      label: "向量维度",
+      type: "number",
+      description: "向量维度",
+    },
+    {
+      name: "count",
+      label: "文本数",
+      type: "number",
+      description: "向量化的文本数量",
+    },
+    {
+      name: "cachedCount",
+      label: "缓存命中数",
+      type: "number",
+      description: "命中向量缓存的文本数量",
+    },
+    {
+      name: "model",
+      label: "模型",
+      type: "string",
+      description: "Embedding 服务使用的模型",
+    },
+  ],
   [NodeType.VARIABLE_ASSIGNER]: [], // 赋值节点不产生输出，它只修改全流程变量
   [NodeType.JSON_PARSER]: [], // JSON 解析器节点的输出字段是动态配置的
   [NodeType.NOTE]: [], // 备注节点不参与流程执行，仅用于画布说明
@@ -475,6 +562,7 @@ export enum ExecutionStatus {
   WAITING = "waiting",
   PAUSED = "paused",
   WAITING_CALLBACK = "waiting_callback",
+  TIMEOUT = "timeout",
 }
 
 /**
@@ -499,7 +587,7 @@ export interface ApiNodeConfig extends NodeConfig {
  * 代码节点配置
  */
 export interface CodeNodeConfig extends NodeConfig {
-  language: "python";
+  language: "python" | "javascript";
   code: string;
   inputs?: Array<{ key: string; value: string; id?: string }>;
   timeoutMs?: number;
@@ -542,10 +630,23 @@ export interface KafkaNodeConfig extends NodeConfig {
   username?: string;
   password?: string;
 
+  // 生产者调优（留空使用服务端默认值）
+  acks?: "0" | "1" | "all";
+  lingerMs?: number;
+  batchSize?: number;
+  compressionType?: "none" | "gzip" | "snappy" | "lz4" | "zstd";
+  idempotence?: boolean;
+
   // 消息配置
   topic: string;
   keyExpression?: string;
   messageTemplate: string;
+  sendMode?: "sync" | "async" | "fire_and_forget";
+  // 批量发送：itemsExpression 解析出的数组逐项发送
+  batchEnabled?: boolean;
+  itemsExpression?: string;
+  itemVariable?: string;
+  indexVariable?: string;
 
   // 回调配置
   waitForCallback?: boolean;
@@ -607,6 +708,20 @@ export interface SubflowNodeConfig extends NodeConfig {
   continueOnError?: boolean;
   /** 超时时间（毫秒） */
   timeout?: number;
+  /** 调用方式：同步等待、异步等待、启动后不等待（需配合汇聚节点） */
+  invokeMode?: SubflowInvokeMode;
+  /** 是否把子流程的节点事件转发到父流程 */
+  forwardEvents?: boolean;
+}
+
+export type SubflowInvokeMode = "sync" | "async" | "fire_and_forget";
+
+/**
+ * 子流程汇聚节点配置
+ */
+export interface SubflowJoinNodeConfig extends NodeConfig {
+  /** 需要等待的子流程节点 ID（调用方式为启动后不等待） */
+  subflowNodeIds: string[];
 }
 
 /**
@@ -664,6 +779,34 @@ export interface SimhashNodeConfig extends NodeConfig {
   maxDistance?: number | string;
 }
 
+/**
+ * 文本向量化节点配置
+ */
+export interface EmbeddingNodeConfig extends NodeConfig {
+  /** 文本来源表达式，结果可以是字符串或字符串列表 */
+  textSource: string;
+  /** 是否归一化向量 */
+  normalize?: boolean;
+  /** 是否使用向量缓存 */
+  cacheEnabled?: boolean;
+  /** 等待向量化结果的超时（毫秒） */
+  timeoutMs?: number;
+}
+
+/**
+ * 延迟节点配置
+ */
+export interface DelayNodeConfig extends NodeConfig {
+  /** 延迟方式：等待一段时间 / 等待到指定时间 */
+  delayMode: "duration" | "until";
+  /** 等待时长，支持变量引用 */
+  duration?: number | string;
+  /** 时长单位 */
+  durationUnit?: "ms" | "s" | "m" | "h" | "d";
+  /** 恢复时间（ISO-8601、yyyy-MM-dd HH:mm:ss 或毫秒时间戳），支持变量引用 */
+  until?: string;
+}
+
 /**
  * 关键词匹配节点配置
  */
@@ -42,6 +42,28 @@ export const getNodeDefaultConfig = (
     };
   }
 
+  if (nodeType === NodeType.DELAY) {
+    return {
+      delayMode: "duration",
+      duration: 60,
+      durationUnit: "s",
+    };
+  }
+
+  if (nodeType === NodeType.EMBEDDING) {
+    return {
+      textSource: "",
+      normalize: true,
+      cacheEnabled: true,
+    };
+  }
+
+  if (nodeType === NodeType.SUBFLOW_JOIN) {
+    return {
+      subflowNodeIds: [],
+    };
+  }
+
   if (nodeType === NodeType.FOR_EACH) {
     return {
       itemsExpression: "",
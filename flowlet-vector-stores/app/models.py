@@ -1,5 +1,8 @@
+import base64
+import sys
+from array import array
 from typing import Any, Dict, List, Literal, Optional, TypeVar, Generic
-from pydantic import BaseModel, Field, ConfigDict
+from pydantic import BaseModel, Field, ConfigDict, model_validator
 
 # Generic type for API response data
 T = TypeVar('T')
@@ -24,12 +27,38 @@ class ProviderConfig(BaseModel):
     database: Optional[str] = None
 
 
+def decode_float32_b64(encoded: str) -> List[float]:
+    """Decode a base64 little-endian float32 array."""
+    raw = base64.b64decode(encoded, validate=True)
+    if not raw or len(raw) % 4 != 0:
+        raise ValueError("vector byte length must be a positive multiple of 4")
+    values = array("f")
+    values.frombytes(raw)
+    if sys.byteorder != "little":
+        values.byteswap()
+    return values.tolist()
+
+
 class DocumentPayload(BaseModel):
+    model_config = ConfigDict(populate_by_name=True)
+
     id: Optional[str] = None
     content: str = Field(..., description="Document text content")
-    vector: List[float] = Field(..., min_length=1, description="Document embedding vector")
+    vector: Optional[List[float]] = Field(None, min_length=1, description="Document embedding vector")
+    vector_b64: Optional[str] = Field(
+        None, alias="vectorB64", description="Document embedding vector as base64 little-endian float32"
+    )
     metadata: Dict[str, Any] = Field(default_factory=dict)
 
+    @model_validator(mode="after")
+    def decode_vector(self) -> "DocumentPayload":
+        if self.vector is None and self.vector_b64:
+            self.vector = decode_float32_b64(self.vector_b64)
+        if not self.vector:
+            raise ValueError("either vector or vectorB64 is required")
+        self.vector_b64 = None
+        return self
+
 
 class UpsertRequest(BaseModel):
     provider: ProviderConfig
@@ -44,12 +73,26 @@ class DeleteRequest(BaseModel):
 
 
 class SearchRequest(BaseModel):
+    model_config = ConfigDict(populate_by_name=True)
+
     provider: ProviderConfig
     collection: str = Field(..., min_length=1)
-    query_vector: List[float] = Field(..., min_length=1, description="Query embedding vector")
+    query_vector: Optional[List[float]] = Field(None, min_length=1, description="Query embedding vector")
+    query_vector_b64: Optional[str] = Field(
+        None, alias="queryVectorB64", description="Query embedding vector as base64 little-endian float32"
+    )
     k: int = Field(4, ge=1, le=100)
     filter: Optional[Dict[str, Any]] = None
 
+    @model_validator(mode="after")
+    def decode_query_vector(self) -> "SearchRequest":
+        if self.query_vector is None and self.query_vector_b64:
+            self.query_vector = decode_float32_b64(self.query_vector_b64)
+        if not self.query_vector:
+            raise ValueError("either query_vector or query_vector_b64 is required")
+        self.query_vector_b64 = None
+        return self
+
 
 class MatchResult(BaseModel):
     id: Optional[str]